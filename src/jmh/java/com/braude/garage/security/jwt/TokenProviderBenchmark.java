@@ -0,0 +1,118 @@
+package com.braude.garage.security.jwt;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.repository.RevokedTokenRepository;
+import com.braude.garage.security.AuthoritiesConstants;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the JWT checks made for each authenticated request: {@link JWTFilter} resolves the authentication
+ * of a token through the verified tokens cache, and the other benchmarks measure the verification it saves.
+ * Every check also looks the token up in the revocations, among {@value #REVOKED_TOKENS} revoked ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TokenProviderBenchmark {
+
+    private static final int REVOKED_TOKENS = 1000;
+
+    private TokenProvider tokenProvider;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt()
+            .setBase64Secret("ZmQ1NGE0NXM2NWZkczczN2I5YWFmY2IzNDEyZTA3ZWQ5OWIyNjdmMzM0MTMyNzQ3MjBkZGJiN2Y2YzVlNjRlOWYxNDA3NWYyZDdlZDA0MTU5MmYwYjc2NTdiYWY4");
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(emptyRevokedTokenRepository(),
+            jHipsterProperties, new ApplicationProperties(), new NoTransactionManager());
+        tokenRevocationService.poll();
+        Instant expiration = Instant.now().plus(1, ChronoUnit.HOURS);
+        for (int i = 0; i < REVOKED_TOKENS; i++) {
+            tokenRevocationService.revokeToken(UUID.randomUUID().toString(), expiration);
+        }
+        tokenProvider = new TokenProvider(jHipsterProperties, new ConcurrentMapCacheManager(), tokenRevocationService);
+        tokenProvider.init();
+        token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("user", "user", Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER), new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN))),
+            false);
+    }
+
+    @Benchmark
+    public Authentication resolveAuthentication() {
+        return tokenProvider.resolveAuthentication(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+
+    @Benchmark
+    public Authentication validateTokenAndGetAuthentication() {
+        return tokenProvider.validateToken(token) ? tokenProvider.getAuthentication(token) : null;
+    }
+
+    /**
+     * A repository without revocations, storing nothing: the revocations of the benchmark are only kept in memory.
+     */
+    private static RevokedTokenRepository emptyRevokedTokenRepository() {
+        return (RevokedTokenRepository) Proxy.newProxyInstance(RevokedTokenRepository.class.getClassLoader(),
+            new Class<?>[] { RevokedTokenRepository.class }, (proxy, method, args) -> {
+                Class<?> returnType = method.getReturnType();
+                if (returnType == boolean.class) {
+                    return false;
+                } else if (returnType == int.class) {
+                    return 0;
+                } else if (returnType == List.class) {
+                    return Collections.emptyList();
+                }
+                return args == null || args.length == 0 ? null : args[0];
+            });
+    }
+
+    private static final class NoTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.braude.garage.service;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.CarService;
+import com.braude.garage.domain.CarServiceSummary;
+import com.braude.garage.domain.Client;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.CompiledCriteriaRepository;
+import com.braude.garage.service.dto.CarCriteria;
+
+import io.github.jhipster.service.filter.IntegerFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link CarQueryService#createSpecification(CarCriteria)}, with every filter of the criteria set, and
+ * of a page of cars read through the specification or through the {@link CompiledCriteriaRepository}.
+ * <p>
+ * The specification is converted to a predicate, which is what its lambdas defer. Hibernate is started on an
+ * in-memory H2 database holding a few cars, so that the pages measure the preparation of their query more than the
+ * reading of the rows. Compare the allocations of both with {@code -prof gc}, in {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CarQueryServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private SessionFactory sessionFactory;
+
+    private CriteriaBuilder criteriaBuilder;
+
+    private EntityManager entityManager;
+
+    private CarQueryService carQueryService;
+
+    private CompiledCriteriaRepository compiledCriteriaRepository;
+
+    private CarCriteria criteria;
+
+    private CarCriteria pageCriteria;
+
+    private Sort sort;
+
+    @Setup
+    public void setup() {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.URL, "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1")
+            .applySetting(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+            .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, false)
+            .build();
+        sessionFactory = new MetadataSources(registry)
+            .addAnnotatedClass(Car.class)
+            .addAnnotatedClass(Client.class)
+            .addAnnotatedClass(CarService.class)
+            .addAnnotatedClass(CarServiceSummary.class)
+            .buildMetadata()
+            .buildSessionFactory();
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+        carQueryService = new CarQueryService(null, null, null, null, null, null, null, null);
+
+        criteria = new CarCriteria();
+        LongFilter id = new LongFilter();
+        id.setGreaterThan(0L);
+        criteria.setId(id);
+        StringFilter licensePlate = new StringFilter();
+        licensePlate.setContains("345");
+        criteria.setLicensePlate(licensePlate);
+        StringFilter make = new StringFilter();
+        make.setEquals("Toyota");
+        criteria.setMake(make);
+        StringFilter model = new StringFilter();
+        model.setIn(Arrays.asList("Corolla", "Yaris", "Camry"));
+        criteria.setModel(model);
+        IntegerFilter year = new IntegerFilter();
+        year.setGreaterOrEqualThan(2010);
+        year.setLessThan(2020);
+        criteria.setYear(year);
+        LongFilter clientId = new LongFilter();
+        clientId.setEquals(1L);
+        criteria.setClientId(clientId);
+        LongFilter carServiceId = new LongFilter();
+        carServiceId.setSpecified(true);
+        criteria.setCarServiceId(carServiceId);
+
+        // The listing of a make, by year, as the car list of the UI requests it
+        pageCriteria = new CarCriteria();
+        pageCriteria.setMake(make);
+        pageCriteria.setYear(year);
+        sort = Sort.by(Sort.Order.desc("year"), Sort.Order.asc("id"));
+
+        entityManager = sessionFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < 2 * PAGE_SIZE; i++) {
+            Client client = new Client().firstName("John").lastName("Doe");
+            entityManager.persist(client);
+            entityManager.persist(new Car().licensePlate("12-345-" + i).make("Toyota").model("Corolla")
+                .year(2005 + i % 20).client(client));
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        compiledCriteriaRepository = new CompiledCriteriaRepository(entityManager, new ApplicationProperties());
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate createSpecification() {
+        CriteriaQuery<Car> query = criteriaBuilder.createQuery(Car.class);
+        Root<Car> root = query.from(Car.class);
+        return carQueryService.createSpecification(criteria).toPredicate(root, query, criteriaBuilder);
+    }
+
+    /**
+     * A page read the way {@code CarRepository.findAll(Specification, Pageable)} does, count left out.
+     */
+    @Benchmark
+    public List<Car> findPageBySpecification() {
+        CriteriaQuery<Car> query = criteriaBuilder.createQuery(Car.class);
+        Root<Car> root = query.from(Car.class);
+        query.select(root)
+            .where(carQueryService.createSpecification(pageCriteria).toPredicate(root, query, criteriaBuilder))
+            .orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        List<Car> cars = entityManager.createQuery(query)
+            .setHint(EntityGraphType.FETCH.getKey(), entityManager.getEntityGraph(CarRepository.ENTITY_GRAPH))
+            .setMaxResults(PAGE_SIZE)
+            .getResultList();
+        entityManager.clear();
+        return cars;
+    }
+
+    @Benchmark
+    public List<Car> findPageByCompiledQuery() {
+        List<Car> cars = compiledCriteriaRepository.createQuery(
+                compiledCriteriaRepository.compile(CarQueryService.CRITERIA_QUERY, pageCriteria, sort).get())
+            .setMaxResults(PAGE_SIZE)
+            .getResultList();
+        entityManager.clear();
+        return cars;
+    }
+}
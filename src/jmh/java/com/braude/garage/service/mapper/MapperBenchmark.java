@@ -0,0 +1,116 @@
+package com.braude.garage.service.mapper;
+
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.CarService;
+import com.braude.garage.domain.Client;
+import com.braude.garage.service.dto.CarDTO;
+import com.braude.garage.service.dto.CarServiceDTO;
+import com.braude.garage.service.dto.ClientDTO;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the MapStruct mappers, converting lists of entities and DTOs as the services do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MapperBenchmark {
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private AnnotationConfigApplicationContext context;
+
+    private CarMapper carMapper;
+
+    private ClientMapper clientMapper;
+
+    private CarServiceMapper carServiceMapper;
+
+    private List<Car> cars;
+
+    private List<Client> clients;
+
+    private List<CarService> carServices;
+
+    private List<CarDTO> carDTOs;
+
+    private List<ClientDTO> clientDTOs;
+
+    private List<CarServiceDTO> carServiceDTOs;
+
+    @Setup
+    public void setup() {
+        // The generated mappers are Spring components, injected with the mappers they use
+        context = new AnnotationConfigApplicationContext(CarMapperImpl.class, ClientMapperImpl.class,
+            CarServiceMapperImpl.class);
+        carMapper = context.getBean(CarMapper.class);
+        clientMapper = context.getBean(ClientMapper.class);
+        carServiceMapper = context.getBean(CarServiceMapper.class);
+
+        cars = new ArrayList<>();
+        clients = new ArrayList<>();
+        carServices = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            Client client = new Client().firstName("John").lastName("Doe").mail("john.doe@example.com")
+                .phoneNum("+972-50-1234567");
+            client.setId(id);
+            Car car = new Car().licensePlate("12-345-" + id).make("Toyota").model("Corolla").year(2015).client(client);
+            car.setId(id);
+            CarService carService = new CarService().date(LocalDate.of(2019, 1, 1).plusDays(id))
+                .description("Oil change").totalCost(250.0).car(car);
+            carService.setId(id);
+            clients.add(client);
+            cars.add(car);
+            carServices.add(carService);
+        }
+        carDTOs = carMapper.toDto(cars);
+        clientDTOs = clientMapper.toDto(clients);
+        carServiceDTOs = carServiceMapper.toDto(carServices);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CarDTO> carToDto() {
+        return carMapper.toDto(cars);
+    }
+
+    @Benchmark
+    public List<Car> carToEntity() {
+        return carMapper.toEntity(carDTOs);
+    }
+
+    @Benchmark
+    public List<ClientDTO> clientToDto() {
+        return clientMapper.toDto(clients);
+    }
+
+    @Benchmark
+    public List<Client> clientToEntity() {
+        return clientMapper.toEntity(clientDTOs);
+    }
+
+    @Benchmark
+    public List<CarServiceDTO> carServiceToDto() {
+        return carServiceMapper.toDto(carServices);
+    }
+
+    @Benchmark
+    public List<CarService> carServiceToEntity() {
+        return carServiceMapper.toEntity(carServiceDTOs);
+    }
+}
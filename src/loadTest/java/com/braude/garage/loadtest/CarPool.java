@@ -0,0 +1,25 @@
+package com.braude.garage.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The ids of the cars created by the load test, which the scenarios pick their car from.
+ */
+final class CarPool {
+
+    private final List<Long> ids = new ArrayList<>();
+
+    synchronized void add(long id) {
+        ids.add(id);
+    }
+
+    synchronized long pick(Random random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    synchronized int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,77 @@
+package com.braude.garage.loadtest;
+
+/**
+ * The throughput and latencies of the requests sent to an endpoint during a run, the latencies in milliseconds.
+ */
+public final class EndpointSummary {
+
+    private final String endpoint;
+
+    private final long requests;
+
+    private final long errors;
+
+    private final double throughput;
+
+    private final double mean;
+
+    private final double p50;
+
+    private final double p95;
+
+    private final double p99;
+
+    private final double max;
+
+    EndpointSummary(String endpoint, long requests, long errors, double throughput, double mean, double p50,
+            double p95, double p99, double max) {
+        this.endpoint = endpoint;
+        this.requests = requests;
+        this.errors = errors;
+        this.throughput = throughput;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the number of requests completed per second
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,113 @@
+package com.braude.garage.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A minimal JSON client of the REST API, sending the token obtained from /api/authenticate with every request.
+ * <p>
+ * Every response is read to its end, so that its connection is kept alive for the next request: the number of
+ * connections kept per host is the {@code http.maxConnections} system property.
+ */
+final class GarageClient {
+
+    private static final int CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(10);
+
+    private static final int READ_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(60);
+
+    private final String baseUrl;
+
+    private final ObjectMapper objectMapper;
+
+    private volatile String authorization;
+
+    GarageClient(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    void authenticate(String username, String password) throws IOException {
+        ObjectNode login = objectMapper.createObjectNode()
+            .put("username", username)
+            .put("password", password)
+            .put("rememberMe", false);
+        Response response = post("/api/authenticate", login);
+        if (!response.isSuccessful()) {
+            throw new IllegalStateException("Cannot authenticate as " + username + ": HTTP " + response.getStatus());
+        }
+        authorization = "Bearer " + response.getBody().get("id_token").asText();
+    }
+
+    Response get(String path) throws IOException {
+        return exchange("GET", path, null);
+    }
+
+    Response post(String path, JsonNode body) throws IOException {
+        return exchange("POST", path, body);
+    }
+
+    private Response exchange(String method, String path, JsonNode body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        connection.setRequestProperty("Accept", "application/json");
+        if (authorization != null) {
+            connection.setRequestProperty("Authorization", authorization);
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(objectMapper.writeValueAsBytes(body));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        byte[] content = new byte[0];
+        if (input != null) {
+            try (InputStream in = input) {
+                content = StreamUtils.copyToByteArray(in);
+            }
+        }
+        boolean successful = status >= 200 && status < 300;
+        return new Response(status, successful && content.length > 0 ? objectMapper.readTree(content) : null);
+    }
+
+    static final class Response {
+
+        private final int status;
+
+        private final JsonNode body;
+
+        Response(int status, JsonNode body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        boolean isSuccessful() {
+            return status >= 200 && status < 300;
+        }
+
+        JsonNode getBody() {
+            return body;
+        }
+    }
+}
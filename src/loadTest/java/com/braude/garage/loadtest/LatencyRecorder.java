@@ -0,0 +1,96 @@
+package com.braude.garage.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records the latency of every request of a run, by scenario, and summarizes them once the run is over.
+ * <p>
+ * The latencies are kept exactly, a run of a few minutes at a few hundred requests per second only holds a few
+ * megabytes of them.
+ */
+final class LatencyRecorder {
+
+    private final Map<Scenario, Samples> samples = new EnumMap<>(Scenario.class);
+
+    LatencyRecorder() {
+        for (Scenario scenario : Scenario.values()) {
+            samples.put(scenario, new Samples());
+        }
+    }
+
+    void record(Scenario scenario, long latencyNanos, boolean successful) {
+        samples.get(scenario).add(latencyNanos, successful);
+    }
+
+    /**
+     * @param elapsedNanos the duration of the run
+     * @return the summary of each scenario which sent requests, then the summary of all of them
+     */
+    List<EndpointSummary> summarize(long elapsedNanos) {
+        List<EndpointSummary> summaries = samples.entrySet().stream()
+            .filter(entry -> entry.getValue().count > 0)
+            .map(entry -> entry.getValue().summarize(entry.getKey().getEndpoint(), elapsedNanos))
+            .collect(Collectors.toList());
+        Samples all = new Samples();
+        samples.values().forEach(all::addAll);
+        if (all.count > 0) {
+            summaries.add(all.summarize("All", elapsedNanos));
+        }
+        return summaries;
+    }
+
+    private static final class Samples {
+
+        private long[] latencies = new long[1024];
+
+        private int count;
+
+        private long errors;
+
+        synchronized void add(long latencyNanos, boolean successful) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!successful) {
+                errors++;
+            }
+        }
+
+        synchronized void addAll(Samples other) {
+            synchronized (other) {
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length, count + other.count));
+                System.arraycopy(other.latencies, 0, latencies, count, other.count);
+                count += other.count;
+                errors += other.errors;
+            }
+        }
+
+        synchronized EndpointSummary summarize(String endpoint, long elapsedNanos) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+            return new EndpointSummary(endpoint, count, errors, count / seconds,
+                millis(Arrays.stream(sorted).average().orElse(0)), millis(percentile(sorted, 50)),
+                millis(percentile(sorted, 95)), millis(percentile(sorted, 99)), millis(sorted[count - 1]));
+        }
+
+        /**
+         * The nearest-rank percentile: the smallest latency which at least this percentage of the requests did not
+         * exceed.
+         */
+        private static long percentile(long[] sorted, double percentage) {
+            int rank = (int) Math.ceil(percentage / 100 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        private static double millis(double nanos) {
+            return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.braude.garage.loadtest;
+
+import com.braude.garage.GarageApp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test of the REST API: sends a mix of {@link Scenario}s at a constant arrival rate, and reports the latency
+ * percentiles and the throughput of each endpoint.
+ * <p>
+ * The requests are due at regular intervals whatever the application keeps up with, and their latency is measured
+ * from the time they were due rather than from the time a thread got to send them: an application falling behind
+ * shows in the latencies, instead of slowing the arrivals down and hiding its queue.
+ * <p>
+ * Run with {@code ./gradlew loadTest}, see {@link LoadTestOptions} for the options.
+ */
+public final class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final int SEED_BATCH_SIZE = 100;
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        // Keep a connection alive for every request in flight, rather than the 5 per host of the JDK
+        System.setProperty("http.maxConnections", String.valueOf(options.getConcurrency()));
+        ConfigurableApplicationContext application = options.getBaseUrl() == null ? startApplication() : null;
+        try {
+            String baseUrl = application == null ? options.getBaseUrl()
+                : "http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort();
+            run(options, baseUrl);
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication() {
+        log.info("Starting the application with the test configuration");
+        // The restart of the development tools would run the main method of the load test again
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(GarageApp.class).run(
+            "--server.port=0",
+            "--application.search-indexer.enabled=true",
+            "--jhipster.logging.logstash.enabled=false",
+            "--jhipster.metrics.logs.enabled=false");
+    }
+
+    private static void run(LoadTestOptions options, String baseUrl) throws IOException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        GarageClient client = new GarageClient(baseUrl, objectMapper);
+        client.authenticate(options.getUsername(), options.getPassword());
+        Random random = new Random(options.getRandomSeed());
+        CarPool cars = seed(client, options.getSeedCars(), random);
+
+        if (options.getWarmupSeconds() > 0) {
+            log.info("Warming up for {} seconds", options.getWarmupSeconds());
+            drive(options, options.getWarmupSeconds(), client, cars, random);
+        }
+        log.info("Sending {} requests per second to {} for {} seconds", options.getRate(), baseUrl,
+            options.getDurationSeconds());
+        Instant startedAt = Instant.now();
+        List<EndpointSummary> summaries = drive(options, options.getDurationSeconds(), client, cars, random);
+
+        LoadTestReport.write(options, baseUrl, startedAt, summaries, objectMapper);
+        log.info("Load test results, written to {}:\n{}", options.getReportDirectory(), LoadTestReport.table(summaries));
+    }
+
+    /**
+     * Create the cars the scenarios read and add services to, through the batch endpoint.
+     */
+    private static CarPool seed(GarageClient client, int count, Random random) throws IOException {
+        log.info("Creating {} cars", count);
+        CarPool cars = new CarPool();
+        for (int created = 0; created < count; created += SEED_BATCH_SIZE) {
+            ArrayNode batch = client.getObjectMapper().createArrayNode();
+            for (int i = created; i < Math.min(count, created + SEED_BATCH_SIZE); i++) {
+                batch.add(Scenario.newCar(client.getObjectMapper(), random));
+            }
+            GarageClient.Response response = client.post("/api/cars/batch", batch);
+            if (!response.isSuccessful()) {
+                throw new IllegalStateException("Cannot create the cars: HTTP " + response.getStatus());
+            }
+            for (JsonNode result : response.getBody()) {
+                if ("CREATED".equals(result.path("status").asText())) {
+                    cars.add(result.get("id").asLong());
+                }
+            }
+        }
+        if (cars.size() == 0) {
+            throw new IllegalStateException("No car was created");
+        }
+        return cars;
+    }
+
+    /**
+     * Send requests at the rate of the options for the given duration, then wait for the last ones to complete.
+     *
+     * @return the summaries of the requests sent
+     */
+    private static List<EndpointSummary> drive(LoadTestOptions options, int seconds, GarageClient client,
+            CarPool cars, Random random) throws InterruptedException {
+        List<Scenario> draws = new ArrayList<>();
+        options.getMix().forEach((scenario, weight) -> draws.addAll(Collections.nCopies(weight, scenario)));
+        LatencyRecorder recorder = new LatencyRecorder();
+        ExecutorService executor = Executors.newFixedThreadPool(options.getConcurrency());
+        long intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / options.getRate()));
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (long due = start; due < end; due += intervalNanos) {
+            for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = draws.get(random.nextInt(draws.size()));
+            Random requestRandom = new Random(random.nextLong());
+            long dueNanos = due;
+            executor.execute(() -> {
+                boolean successful;
+                try {
+                    successful = scenario.execute(client, cars, requestRandom);
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Request of {} failed: {}", scenario.getName(), e.toString());
+                    successful = false;
+                }
+                recorder.record(scenario, System.nanoTime() - dueNanos, successful);
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Requests still in flight after {} seconds are not counted", DRAIN_TIMEOUT_SECONDS);
+            executor.shutdownNow();
+        }
+        return recorder.summarize(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,163 @@
+package com.braude.garage.loadtest;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The options of the load test, given on its command line as {@code --name=value}.
+ * <ul>
+ * <li>{@code --base-url}: the URL of an application already running, the application is started otherwise</li>
+ * <li>{@code --rate}: the number of requests sent per second, whatever the application keeps up with (50)</li>
+ * <li>{@code --duration}: the duration of the measured run, in seconds (60)</li>
+ * <li>{@code --warmup}: the duration of the warmup before it, whose requests are not measured, in seconds (15)</li>
+ * <li>{@code --concurrency}: the maximum number of requests in flight, the others wait for one to complete (64)</li>
+ * <li>{@code --seed-cars}: the number of cars created before the run (500)</li>
+ * <li>{@code --mix}: the weight of each scenario, e.g. {@code create-car:1,list-cars:4}, see {@link Scenario}</li>
+ * <li>{@code --username} and {@code --password}: the user signing in (admin / admin)</li>
+ * <li>{@code --random-seed}: the seed of the random choices, so that two runs send the same sequence of requests (42)</li>
+ * <li>{@code --report-directory}: where the report is written (build/reports/load-test)</li>
+ * </ul>
+ */
+final class LoadTestOptions {
+
+    private String baseUrl;
+
+    private double rate = 50;
+
+    private int durationSeconds = 60;
+
+    private int warmupSeconds = 15;
+
+    private int concurrency = 64;
+
+    private int seedCars = 500;
+
+    private final Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+
+    private String username = "admin";
+
+    private String password = "admin";
+
+    private long randomSeed = 42;
+
+    private File reportDirectory = new File("build/reports/load-test");
+
+    private LoadTestOptions() {
+        for (Scenario scenario : Scenario.values()) {
+            mix.put(scenario, scenario.getDefaultWeight());
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Invalid option " + arg + ", expected --name=value");
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "base-url":
+                    options.baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    break;
+                case "rate":
+                    options.rate = Double.parseDouble(value);
+                    break;
+                case "duration":
+                    options.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "warmup":
+                    options.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "concurrency":
+                    options.concurrency = Integer.parseInt(value);
+                    break;
+                case "seed-cars":
+                    options.seedCars = Integer.parseInt(value);
+                    break;
+                case "mix":
+                    options.parseMix(value);
+                    break;
+                case "username":
+                    options.username = value;
+                    break;
+                case "password":
+                    options.password = value;
+                    break;
+                case "random-seed":
+                    options.randomSeed = Long.parseLong(value);
+                    break;
+                case "report-directory":
+                    options.reportDirectory = new File(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (options.rate <= 0 || options.durationSeconds <= 0 || options.warmupSeconds < 0 || options.concurrency <= 0
+                || options.seedCars <= 0) {
+            throw new IllegalArgumentException("The rate, duration, concurrency and seed cars must be positive");
+        }
+        return options;
+    }
+
+    private void parseMix(String value) {
+        mix.replaceAll((scenario, weight) -> 0);
+        for (String entry : value.split(",")) {
+            String[] nameAndWeight = entry.split(":");
+            int weight = nameAndWeight.length == 2 ? Integer.parseInt(nameAndWeight[1]) : -1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("Invalid mix entry " + entry + ", expected scenario:weight");
+            }
+            mix.put(Scenario.forName(nameAndWeight[0]), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The mix must have a scenario with a positive weight");
+        }
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    double getRate() {
+        return rate;
+    }
+
+    int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    int getSeedCars() {
+        return seedCars;
+    }
+
+    Map<Scenario, Integer> getMix() {
+        return mix;
+    }
+
+    String getUsername() {
+        return username;
+    }
+
+    String getPassword() {
+        return password;
+    }
+
+    long getRandomSeed() {
+        return randomSeed;
+    }
+
+    File getReportDirectory() {
+        return reportDirectory;
+    }
+}
@@ -0,0 +1,76 @@
+package com.braude.garage.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the summary of a run to its report directory, as results.json for the tools comparing runs, and as
+ * index.html for the reader.
+ */
+final class LoadTestReport {
+
+    private LoadTestReport() {
+    }
+
+    static void write(LoadTestOptions options, String baseUrl, Instant startedAt, List<EndpointSummary> summaries,
+            ObjectMapper objectMapper) throws IOException {
+        File directory = options.getReportDirectory();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the report directory " + directory);
+        }
+        ObjectNode results = objectMapper.createObjectNode()
+            .put("startedAt", startedAt.toString())
+            .put("baseUrl", baseUrl)
+            .put("rate", options.getRate())
+            .put("durationSeconds", options.getDurationSeconds())
+            .put("concurrency", options.getConcurrency());
+        ObjectNode mix = results.putObject("mix");
+        options.getMix().forEach((scenario, weight) -> mix.put(scenario.getName(), weight));
+        results.set("endpoints", objectMapper.valueToTree(summaries));
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(directory, "results.json"), results);
+        Files.write(new File(directory, "index.html").toPath(),
+            html(options, baseUrl, startedAt, summaries).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String table(List<EndpointSummary> summaries) {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-26s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+            "Endpoint", "Requests", "Errors", "Req/s", "Mean ms", "p50 ms", "p95 ms", "p99 ms", "Max ms"));
+        for (EndpointSummary summary : summaries) {
+            table.append(String.format(Locale.ROOT, "%-26s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                summary.getEndpoint(), summary.getRequests(), summary.getErrors(), summary.getThroughput(),
+                summary.getMean(), summary.getP50(), summary.getP95(), summary.getP99(), summary.getMax()));
+        }
+        return table.toString();
+    }
+
+    private static String html(LoadTestOptions options, String baseUrl, Instant startedAt,
+            List<EndpointSummary> summaries) {
+        StringBuilder html = new StringBuilder()
+            .append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Load test</title>\n")
+            .append("<style>body{font-family:sans-serif}table{border-collapse:collapse}")
+            .append("th,td{border:1px solid #ccc;padding:4px 8px}td{text-align:right}td:first-child{text-align:left}")
+            .append("</style>\n</head>\n<body>\n<h1>Load test</h1>\n")
+            .append(String.format(Locale.ROOT, "<p>%s, started at %s: %.1f requests per second for %d seconds, "
+                    + "at most %d in flight</p>\n", HtmlUtils.htmlEscape(baseUrl), startedAt, options.getRate(),
+                options.getDurationSeconds(), options.getConcurrency()))
+            .append("<table>\n<tr><th>Endpoint</th><th>Requests</th><th>Errors</th><th>Req/s</th><th>Mean ms</th>")
+            .append("<th>p50 ms</th><th>p95 ms</th><th>p99 ms</th><th>Max ms</th></tr>\n");
+        for (EndpointSummary summary : summaries) {
+            html.append(String.format(Locale.ROOT, "<tr><td>%s</td><td>%d</td><td>%d</td><td>%.1f</td><td>%.2f</td>"
+                    + "<td>%.2f</td><td>%.2f</td><td>%.2f</td><td>%.2f</td></tr>\n",
+                HtmlUtils.htmlEscape(summary.getEndpoint()), summary.getRequests(), summary.getErrors(),
+                summary.getThroughput(), summary.getMean(), summary.getP50(), summary.getP95(), summary.getP99(),
+                summary.getMax()));
+        }
+        return html.append("</table>\n</body>\n</html>\n").toString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.braude.garage.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The scenarios of the load test, each sending one request to the endpoint it is named after.
+ */
+enum Scenario {
+
+    CREATE_CAR("create-car", "POST /api/cars", 2) {
+        @Override
+        boolean execute(GarageClient client, CarPool cars, Random random) throws IOException {
+            GarageClient.Response response = client.post("/api/cars", newCar(client.getObjectMapper(), random));
+            if (response.isSuccessful()) {
+                cars.add(response.getBody().get("id").asLong());
+            }
+            return response.isSuccessful();
+        }
+    },
+
+    LIST_CARS("list-cars", "GET /api/cars", 4) {
+        @Override
+        boolean execute(GarageClient client, CarPool cars, Random random) throws IOException {
+            return client.get("/api/cars?make.equals=" + randomMake(random)
+                + "&year.greaterThan=" + (1990 + random.nextInt(20))
+                + "&page=" + random.nextInt(3) + "&size=20&sort=id,asc").isSuccessful();
+        }
+    },
+
+    SEARCH_CARS("search-cars", "GET /api/_search/cars", 2) {
+        @Override
+        boolean execute(GarageClient client, CarPool cars, Random random) throws IOException {
+            return client.get("/api/_search/cars?query=make:" + randomMake(random) + "&page=0&size=20")
+                .isSuccessful();
+        }
+    },
+
+    ADD_CAR_SERVICE("add-car-service", "POST /api/car-services", 2) {
+        @Override
+        boolean execute(GarageClient client, CarPool cars, Random random) throws IOException {
+            ObjectNode carService = client.getObjectMapper().createObjectNode()
+                .put("date", LocalDate.now().minusDays(random.nextInt(365)).toString())
+                .put("description", "Load test service")
+                .put("totalCost", 50 + random.nextInt(950))
+                .put("carId", cars.pick(random));
+            return client.post("/api/car-services", carService).isSuccessful();
+        }
+    };
+
+    private static final List<String> MAKES = Arrays.asList("Toyota", "Mazda", "Ford", "Honda", "Skoda", "Kia");
+
+    private final String name;
+
+    private final String endpoint;
+
+    private final int defaultWeight;
+
+    Scenario(String name, String endpoint, int defaultWeight) {
+        this.name = name;
+        this.endpoint = endpoint;
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * Send the request of the scenario.
+     *
+     * @param client the client of the application
+     * @param cars the ids of the cars created so far
+     * @param random the source of the random choices
+     * @return true if the request succeeded
+     * @throws IOException if the request could not be sent, or its response not read
+     */
+    abstract boolean execute(GarageClient client, CarPool cars, Random random) throws IOException;
+
+    String getName() {
+        return name;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    static Scenario forName(String name) {
+        return Arrays.stream(values())
+            .filter(scenario -> scenario.name.equals(name))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown scenario " + name));
+    }
+
+    static JsonNode newCar(ObjectMapper objectMapper, Random random) {
+        return objectMapper.createObjectNode()
+            .put("licensePlate", String.format("LT-%08X", random.nextInt()))
+            .put("make", randomMake(random))
+            .put("model", "Model " + (char) ('A' + random.nextInt(26)))
+            .put("year", 1990 + random.nextInt(30));
+    }
+
+    private static String randomMake(Random random) {
+        return MAKES.get(random.nextInt(MAKES.size()));
+    }
+}
@@ -0,0 +1,68 @@
+package com.braude.garage.aop.metrics;
+
+import com.braude.garage.config.metrics.CriteriaUsageRecorder;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Aspect recording the criteria queries in the {@link CriteriaUsageRecorder}, with the time they took.
+ * <p>
+ * It runs right inside the {@link MethodMetricsAspect}, so that the time recorded is the one of the method timer,
+ * transaction included.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class CriteriaUsageAspect {
+
+    private final CriteriaUsageRecorder criteriaUsageRecorder;
+
+    public CriteriaUsageAspect(CriteriaUsageRecorder criteriaUsageRecorder) {
+        this.criteriaUsageRecorder = criteriaUsageRecorder;
+    }
+
+    /**
+     * Pointcut that matches the query service methods taking criteria.
+     */
+    @Pointcut("execution(* com.braude.garage.service.*QueryService.*(com.braude.garage.service.dto.*Criteria, ..))")
+    public void criteriaQueryPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that records a criteria query.
+     *
+     * @param joinPoint join point for advice
+     * @return result
+     * @throws Throwable whatever the method throws
+     */
+    @Around("criteriaQueryPointcut()")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            Object[] args = joinPoint.getArgs();
+            criteriaUsageRecorder.record(joinPoint.getSignature().getName(), args[0], sort(args),
+                System.nanoTime() - start);
+        }
+    }
+
+    private static Sort sort(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Pageable) {
+                return ((Pageable) arg).getSort();
+            }
+            if (arg instanceof Sort) {
+                return (Sort) arg;
+            }
+        }
+        return Sort.unsorted();
+    }
+}
@@ -2,6 +2,11 @@ package com.braude.garage.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Properties specific to Garage.
  * <p>
@@ -11,4 +16,874 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final SearchIndexer searchIndexer = new SearchIndexer();
+
+    private final SearchReindex searchReindex = new SearchReindex();
+
+    private final Cache cache = new Cache();
+
+    private final Pagination pagination = new Pagination();
+
+    private final Export export = new Export();
+
+    private final Batch batch = new Batch();
+
+    private final Security security = new Security();
+
+    private final Metrics metrics = new Metrics();
+
+    private final ReadReplicas readReplicas = new ReadReplicas();
+
+    private final Analytics analytics = new Analytics();
+
+    private final CriteriaQueries criteriaQueries = new CriteriaQueries();
+
+    private final Mail mail = new Mail();
+
+    private final Executors executors = new Executors();
+
+    private final AsyncRequests asyncRequests = new AsyncRequests();
+
+    private final AuditEvents auditEvents = new AuditEvents();
+
+    public SearchIndexer getSearchIndexer() {
+        return searchIndexer;
+    }
+
+    public SearchReindex getSearchReindex() {
+        return searchReindex;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public ReadReplicas getReadReplicas() {
+        return readReplicas;
+    }
+
+    public Analytics getAnalytics() {
+        return analytics;
+    }
+
+    public CriteriaQueries getCriteriaQueries() {
+        return criteriaQueries;
+    }
+
+    public Mail getMail() {
+        return mail;
+    }
+
+    public Executors getExecutors() {
+        return executors;
+    }
+
+    public AsyncRequests getAsyncRequests() {
+        return asyncRequests;
+    }
+
+    public AuditEvents getAuditEvents() {
+        return auditEvents;
+    }
+
+    public static class SearchIndexer {
+
+        private boolean enabled = true;
+
+        private long pollIntervalMs = 1000;
+
+        private int batchSize = 500;
+
+        private int maxBatchesPerRun = 20;
+
+        private long initialBackoffMs = 1000;
+
+        private long maxBackoffMs = 300000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxBatchesPerRun() {
+            return maxBatchesPerRun;
+        }
+
+        public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+            this.maxBatchesPerRun = maxBatchesPerRun;
+        }
+
+        public long getInitialBackoffMs() {
+            return initialBackoffMs;
+        }
+
+        public void setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+        }
+
+        public long getMaxBackoffMs() {
+            return maxBackoffMs;
+        }
+
+        public void setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+        }
+    }
+
+    public static class SearchReindex {
+
+        private int pageSize = 1000;
+
+        private int parallelism = 4;
+
+        private int maxInFlightBulks = 2;
+
+        private long staleAfterMs = 300000;
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getMaxInFlightBulks() {
+            return maxInFlightBulks;
+        }
+
+        public void setMaxInFlightBulks(int maxInFlightBulks) {
+            this.maxInFlightBulks = maxInFlightBulks;
+        }
+
+        public long getStaleAfterMs() {
+            return staleAfterMs;
+        }
+
+        public void setStaleAfterMs(long staleAfterMs) {
+            this.staleAfterMs = staleAfterMs;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Hibernate second-level cache regions, by entity ("Car") or collection ("Car.carServices") name.
+         * Unset values fall back to jhipster.cache.ehcache.
+         */
+        private final Map<String, Region> regions = new HashMap<>();
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public static class Region {
+
+            private Long maxEntries;
+
+            private Long timeToLiveSeconds;
+
+            public Long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+    }
+
+    public static class Pagination {
+
+        private long estimatedCountMaxEntries = 1000;
+
+        private long estimatedCountTimeToLiveSeconds = 30;
+
+        public long getEstimatedCountMaxEntries() {
+            return estimatedCountMaxEntries;
+        }
+
+        public void setEstimatedCountMaxEntries(long estimatedCountMaxEntries) {
+            this.estimatedCountMaxEntries = estimatedCountMaxEntries;
+        }
+
+        public long getEstimatedCountTimeToLiveSeconds() {
+            return estimatedCountTimeToLiveSeconds;
+        }
+
+        public void setEstimatedCountTimeToLiveSeconds(long estimatedCountTimeToLiveSeconds) {
+            this.estimatedCountTimeToLiveSeconds = estimatedCountTimeToLiveSeconds;
+        }
+    }
+
+    public static class Export {
+
+        private int fetchSize = 500;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
+    public static class Batch {
+
+        private int maxSize = 1000;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class Security {
+
+        private long verifiedTokensMaxEntries = 10000;
+
+        private long revocationPollIntervalMs = 2000;
+
+        private long revocationPollOverlapMs = 60000;
+
+        private long revocationReloadIntervalMs = 3600000;
+
+        private long revocationBloomFilterExpectedEntries = 100000;
+
+        private double revocationBloomFilterFalsePositiveRate = 0.01;
+
+        public long getVerifiedTokensMaxEntries() {
+            return verifiedTokensMaxEntries;
+        }
+
+        public void setVerifiedTokensMaxEntries(long verifiedTokensMaxEntries) {
+            this.verifiedTokensMaxEntries = verifiedTokensMaxEntries;
+        }
+
+        public long getRevocationPollIntervalMs() {
+            return revocationPollIntervalMs;
+        }
+
+        public void setRevocationPollIntervalMs(long revocationPollIntervalMs) {
+            this.revocationPollIntervalMs = revocationPollIntervalMs;
+        }
+
+        public long getRevocationPollOverlapMs() {
+            return revocationPollOverlapMs;
+        }
+
+        public void setRevocationPollOverlapMs(long revocationPollOverlapMs) {
+            this.revocationPollOverlapMs = revocationPollOverlapMs;
+        }
+
+        public long getRevocationReloadIntervalMs() {
+            return revocationReloadIntervalMs;
+        }
+
+        public void setRevocationReloadIntervalMs(long revocationReloadIntervalMs) {
+            this.revocationReloadIntervalMs = revocationReloadIntervalMs;
+        }
+
+        public long getRevocationBloomFilterExpectedEntries() {
+            return revocationBloomFilterExpectedEntries;
+        }
+
+        public void setRevocationBloomFilterExpectedEntries(long revocationBloomFilterExpectedEntries) {
+            this.revocationBloomFilterExpectedEntries = revocationBloomFilterExpectedEntries;
+        }
+
+        public double getRevocationBloomFilterFalsePositiveRate() {
+            return revocationBloomFilterFalsePositiveRate;
+        }
+
+        public void setRevocationBloomFilterFalsePositiveRate(double revocationBloomFilterFalsePositiveRate) {
+            this.revocationBloomFilterFalsePositiveRate = revocationBloomFilterFalsePositiveRate;
+        }
+    }
+
+    public static class Metrics {
+
+        private boolean methodsEnabled = true;
+
+        private boolean requestStatementsEnabled = true;
+
+        private boolean searchEnabled = true;
+
+        private int requestStatementBudget = 50;
+
+        private long requestStatementTimeBudgetMs = 1000;
+
+        private int requestReportMaxStatements = 10;
+
+        private boolean criteriaUsageEnabled = true;
+
+        private int criteriaUsageMaxEntries = 1000;
+
+        public boolean isMethodsEnabled() {
+            return methodsEnabled;
+        }
+
+        public void setMethodsEnabled(boolean methodsEnabled) {
+            this.methodsEnabled = methodsEnabled;
+        }
+
+        public boolean isRequestStatementsEnabled() {
+            return requestStatementsEnabled;
+        }
+
+        public void setRequestStatementsEnabled(boolean requestStatementsEnabled) {
+            this.requestStatementsEnabled = requestStatementsEnabled;
+        }
+
+        public boolean isSearchEnabled() {
+            return searchEnabled;
+        }
+
+        public void setSearchEnabled(boolean searchEnabled) {
+            this.searchEnabled = searchEnabled;
+        }
+
+        public int getRequestStatementBudget() {
+            return requestStatementBudget;
+        }
+
+        public void setRequestStatementBudget(int requestStatementBudget) {
+            this.requestStatementBudget = requestStatementBudget;
+        }
+
+        public long getRequestStatementTimeBudgetMs() {
+            return requestStatementTimeBudgetMs;
+        }
+
+        public void setRequestStatementTimeBudgetMs(long requestStatementTimeBudgetMs) {
+            this.requestStatementTimeBudgetMs = requestStatementTimeBudgetMs;
+        }
+
+        public int getRequestReportMaxStatements() {
+            return requestReportMaxStatements;
+        }
+
+        public void setRequestReportMaxStatements(int requestReportMaxStatements) {
+            this.requestReportMaxStatements = requestReportMaxStatements;
+        }
+
+        public boolean isCriteriaUsageEnabled() {
+            return criteriaUsageEnabled;
+        }
+
+        public void setCriteriaUsageEnabled(boolean criteriaUsageEnabled) {
+            this.criteriaUsageEnabled = criteriaUsageEnabled;
+        }
+
+        public int getCriteriaUsageMaxEntries() {
+            return criteriaUsageMaxEntries;
+        }
+
+        public void setCriteriaUsageMaxEntries(int criteriaUsageMaxEntries) {
+            this.criteriaUsageMaxEntries = criteriaUsageMaxEntries;
+        }
+    }
+
+    public static class ReadReplicas {
+
+        private boolean enabled = false;
+
+        /**
+         * The replica databases, their pools are configured as the primary one in spring.datasource.hikari.
+         */
+        private final List<Replica> replicas = new ArrayList<>();
+
+        private long maxLagMs = 5000;
+
+        private long lagCheckIntervalMs = 1000;
+
+        private boolean stickyAfterWrite = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<Replica> getReplicas() {
+            return replicas;
+        }
+
+        public long getMaxLagMs() {
+            return maxLagMs;
+        }
+
+        public void setMaxLagMs(long maxLagMs) {
+            this.maxLagMs = maxLagMs;
+        }
+
+        public long getLagCheckIntervalMs() {
+            return lagCheckIntervalMs;
+        }
+
+        public void setLagCheckIntervalMs(long lagCheckIntervalMs) {
+            this.lagCheckIntervalMs = lagCheckIntervalMs;
+        }
+
+        public boolean isStickyAfterWrite() {
+            return stickyAfterWrite;
+        }
+
+        public void setStickyAfterWrite(boolean stickyAfterWrite) {
+            this.stickyAfterWrite = stickyAfterWrite;
+        }
+
+        public static class Replica {
+
+            private String url;
+
+            /**
+             * Falls back to spring.datasource.username.
+             */
+            private String username;
+
+            /**
+             * Falls back to spring.datasource.password.
+             */
+            private String password;
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+        }
+    }
+
+    public static class Analytics {
+
+        private int backfillParallelism = 4;
+
+        private int backfillChunkDays = 31;
+
+        public int getBackfillParallelism() {
+            return backfillParallelism;
+        }
+
+        public void setBackfillParallelism(int backfillParallelism) {
+            this.backfillParallelism = backfillParallelism;
+        }
+
+        public int getBackfillChunkDays() {
+            return backfillChunkDays;
+        }
+
+        public void setBackfillChunkDays(int backfillChunkDays) {
+            this.backfillChunkDays = backfillChunkDays;
+        }
+    }
+
+    public static class CriteriaQueries {
+
+        private boolean compileEnabled = true;
+
+        private int maxPlans = 1000;
+
+        public boolean isCompileEnabled() {
+            return compileEnabled;
+        }
+
+        public void setCompileEnabled(boolean compileEnabled) {
+            this.compileEnabled = compileEnabled;
+        }
+
+        public int getMaxPlans() {
+            return maxPlans;
+        }
+
+        public void setMaxPlans(int maxPlans) {
+            this.maxPlans = maxPlans;
+        }
+    }
+
+    public static class Mail {
+
+        private boolean enabled = true;
+
+        private long pollIntervalMs = 1000;
+
+        private int batchSize = 50;
+
+        private long leaseMs = 300000;
+
+        private int maxAttempts = 10;
+
+        private long initialBackoffMs = 10000;
+
+        private long maxBackoffMs = 3600000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getLeaseMs() {
+            return leaseMs;
+        }
+
+        public void setLeaseMs(long leaseMs) {
+            this.leaseMs = leaseMs;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoffMs() {
+            return initialBackoffMs;
+        }
+
+        public void setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+        }
+
+        public long getMaxBackoffMs() {
+            return maxBackoffMs;
+        }
+
+        public void setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+        }
+    }
+
+    public static class Executors {
+
+        private final Pool mail = new Pool(2, 2, 2, RejectionPolicy.ABORT);
+
+        private final Pool indexing = new Pool(1, 2, 10, RejectionPolicy.ABORT);
+
+        private final Pool audit = new Pool(1, 1, 2, RejectionPolicy.ABORT);
+
+        private final Pool analytics = new Pool(1, 1, 1, RejectionPolicy.ABORT);
+
+        private final Pool web = new Pool(32, 32, 1000, RejectionPolicy.CALLER_RUNS);
+
+        private final Scheduling scheduling = new Scheduling();
+
+        public Pool getMail() {
+            return mail;
+        }
+
+        public Pool getIndexing() {
+            return indexing;
+        }
+
+        public Pool getAudit() {
+            return audit;
+        }
+
+        public Pool getAnalytics() {
+            return analytics;
+        }
+
+        public Pool getWeb() {
+            return web;
+        }
+
+        public Scheduling getScheduling() {
+            return scheduling;
+        }
+
+        public static class Pool {
+
+            private int corePoolSize;
+
+            private int maxPoolSize;
+
+            private int queueCapacity;
+
+            private RejectionPolicy rejectionPolicy;
+
+            Pool(int corePoolSize, int maxPoolSize, int queueCapacity, RejectionPolicy rejectionPolicy) {
+                this.corePoolSize = corePoolSize;
+                this.maxPoolSize = maxPoolSize;
+                this.queueCapacity = queueCapacity;
+                this.rejectionPolicy = rejectionPolicy;
+            }
+
+            public int getCorePoolSize() {
+                return corePoolSize;
+            }
+
+            public void setCorePoolSize(int corePoolSize) {
+                this.corePoolSize = corePoolSize;
+            }
+
+            public int getMaxPoolSize() {
+                return maxPoolSize;
+            }
+
+            public void setMaxPoolSize(int maxPoolSize) {
+                this.maxPoolSize = maxPoolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public RejectionPolicy getRejectionPolicy() {
+                return rejectionPolicy;
+            }
+
+            public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+                this.rejectionPolicy = rejectionPolicy;
+            }
+        }
+
+        public static class Scheduling {
+
+            private int poolSize = 2;
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+        }
+
+        /**
+         * What a full pool does with a new task.
+         */
+        public enum RejectionPolicy {
+            /**
+             * Throw a {@link java.util.concurrent.RejectedExecutionException} to the caller.
+             */
+            ABORT,
+            /**
+             * Run the task in the thread of the caller, slowing it down.
+             */
+            CALLER_RUNS,
+            /**
+             * Drop the task.
+             */
+            DISCARD,
+            /**
+             * Drop the oldest task waiting in the queue, and queue the new one.
+             */
+            DISCARD_OLDEST
+        }
+    }
+
+    public static class AsyncRequests {
+
+        private boolean enabled = false;
+
+        private long timeoutMs = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+    }
+
+    public static class AuditEvents {
+
+        private int bufferCapacity = 10000;
+
+        private int batchSize = 50;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        private long blockTimeoutMs = 100;
+
+        private int retentionDays = 365;
+
+        private String purgeCron = "0 30 1 * * ?";
+
+        private int purgeChunkSize = 1000;
+
+        public int getBufferCapacity() {
+            return bufferCapacity;
+        }
+
+        public void setBufferCapacity(int bufferCapacity) {
+            this.bufferCapacity = bufferCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public long getBlockTimeoutMs() {
+            return blockTimeoutMs;
+        }
+
+        public void setBlockTimeoutMs(long blockTimeoutMs) {
+            this.blockTimeoutMs = blockTimeoutMs;
+        }
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+
+        public String getPurgeCron() {
+            return purgeCron;
+        }
+
+        public void setPurgeCron(String purgeCron) {
+            this.purgeCron = purgeCron;
+        }
+
+        public int getPurgeChunkSize() {
+            return purgeChunkSize;
+        }
+
+        public void setPurgeChunkSize(int purgeChunkSize) {
+            this.purgeChunkSize = purgeChunkSize;
+        }
+
+        /**
+         * What an audit event does when the buffer is full.
+         */
+        public enum OverflowPolicy {
+            /**
+             * Wait for room in the buffer, up to the block timeout, then drop the event.
+             */
+            BLOCK,
+            /**
+             * Drop the event.
+             */
+            DROP
+        }
+    }
 }
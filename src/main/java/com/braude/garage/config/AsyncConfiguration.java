@@ -1,5 +1,7 @@
 package com.braude.garage.config;
 
+import com.braude.garage.config.metrics.ExecutorMetrics;
+
 import io.github.jhipster.async.ExceptionHandlingAsyncTaskExecutor;
 import io.github.jhipster.config.JHipsterProperties;
 
@@ -9,14 +11,34 @@ import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.*;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.annotation.SchedulingConfigurer;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
+import java.util.concurrent.Delayed;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * The thread pools of the application, each metered by an {@link ExecutorMetrics} tagged with its name:
+ * <ul>
+ * <li>"task", the {@code taskExecutor} of the @Async methods and of the jobs with no pool of their own</li>
+ * <li>"mail", the {@code mailExecutor} sending the queued emails</li>
+ * <li>"indexing", the {@code indexingExecutor} rebuilding the Elasticsearch indices</li>
+ * <li>"audit", the {@code auditExecutor} writing the buffered audit events</li>
+ * <li>"analytics", the {@code analyticsExecutor} rebuilding the car service rollups</li>
+ * <li>"web", the {@code webExecutor} running the offloaded request handlers, see {@link AsyncRequestConfiguration}</li>
+ * <li>"scheduling", the {@code scheduledTaskExecutor} of the @Scheduled methods</li>
+ * </ul>
+ * The "task" pool is sized by {@code jhipster.async}, the others by {@code application.executors}, so that a burst
+ * of one workload does not hold the threads of the others.
+ */
 @Configuration
 @EnableAsync
 @EnableScheduling
@@ -24,29 +46,130 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
 
     private final Logger log = LoggerFactory.getLogger(AsyncConfiguration.class);
 
-    private final JHipsterProperties jHipsterProperties;
+    private final ExecutorMetrics taskExecutorMetrics = new ExecutorMetrics("task", this::taskThreadPoolExecutor);
+
+    private final ExecutorMetrics mailExecutorMetrics = new ExecutorMetrics("mail", this::mailThreadPoolExecutor);
+
+    private final ExecutorMetrics indexingExecutorMetrics = new ExecutorMetrics("indexing", this::indexingThreadPoolExecutor);
+
+    private final ExecutorMetrics auditExecutorMetrics = new ExecutorMetrics("audit", this::auditThreadPoolExecutor);
+
+    private final ExecutorMetrics analyticsExecutorMetrics = new ExecutorMetrics("analytics", this::analyticsThreadPoolExecutor);
+
+    private final ExecutorMetrics webExecutorMetrics = new ExecutorMetrics("web", this::webThreadPoolExecutor);
+
+    private final ExecutorMetrics scheduledTaskExecutorMetrics = new ExecutorMetrics("scheduling", this::scheduledThreadPoolExecutor);
+
+    private final ThreadPoolTaskExecutor taskExecutor;
+
+    private final ThreadPoolTaskExecutor mailExecutor;
 
-    public AsyncConfiguration(JHipsterProperties jHipsterProperties) {
-        this.jHipsterProperties = jHipsterProperties;
+    private final ThreadPoolTaskExecutor indexingExecutor;
+
+    private final ThreadPoolTaskExecutor auditExecutor;
+
+    private final ThreadPoolTaskExecutor analyticsExecutor;
+
+    private final ThreadPoolTaskExecutor webExecutor;
+
+    private final ScheduledThreadPoolExecutor scheduledTaskExecutor;
+
+    public AsyncConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Executors executors = applicationProperties.getExecutors();
+        JHipsterProperties.Async async = jHipsterProperties.getAsync();
+        this.taskExecutor = threadPoolTaskExecutor(async.getCorePoolSize(), async.getMaxPoolSize(),
+            async.getQueueCapacity(), new ThreadPoolExecutor.AbortPolicy(), "garage-Executor-", taskExecutorMetrics);
+        this.mailExecutor = threadPoolTaskExecutor(executors.getMail(), "garage-Mail-", mailExecutorMetrics);
+        this.indexingExecutor = threadPoolTaskExecutor(executors.getIndexing(), "garage-Indexing-", indexingExecutorMetrics);
+        this.auditExecutor = threadPoolTaskExecutor(executors.getAudit(), "garage-Audit-", auditExecutorMetrics);
+        this.analyticsExecutor = threadPoolTaskExecutor(executors.getAnalytics(), "garage-Analytics-",
+            analyticsExecutorMetrics);
+        this.webExecutor = threadPoolTaskExecutor(executors.getWeb(), "garage-Web-", webExecutorMetrics);
+        this.scheduledTaskExecutor = scheduledThreadPoolExecutor(executors.getScheduling().getPoolSize(),
+            scheduledTaskExecutorMetrics);
     }
 
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
         log.debug("Creating Async Task Executor");
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(jHipsterProperties.getAsync().getCorePoolSize());
-        executor.setMaxPoolSize(jHipsterProperties.getAsync().getMaxPoolSize());
-        executor.setQueueCapacity(jHipsterProperties.getAsync().getQueueCapacity());
-        executor.setThreadNamePrefix("garage-Executor-");
-        return new ExceptionHandlingAsyncTaskExecutor(executor);
+        return new ExceptionHandlingAsyncTaskExecutor(taskExecutor);
+    }
+
+    /**
+     * Executor of the {@link com.braude.garage.service.MailOutboxSender}, which never submits more workers than it has
+     * threads: its queue only covers a worker still finishing.
+     */
+    @Bean(name = "mailExecutor")
+    public Executor mailExecutor() {
+        log.debug("Creating Mail Task Executor");
+        return mailExecutor;
+    }
+
+    @Bean(name = "indexingExecutor")
+    public Executor indexingExecutor() {
+        log.debug("Creating Indexing Task Executor");
+        return indexingExecutor;
+    }
+
+    @Bean(name = "auditExecutor")
+    public Executor auditExecutor() {
+        log.debug("Creating Audit Task Executor");
+        return auditExecutor;
+    }
+
+    @Bean(name = "analyticsExecutor")
+    public Executor analyticsExecutor() {
+        log.debug("Creating Analytics Task Executor");
+        return analyticsExecutor;
+    }
+
+    @Bean(name = "webExecutor")
+    public AsyncTaskExecutor webExecutor() {
+        log.debug("Creating Web Task Executor");
+        return webExecutor;
+    }
+
+    @Bean
+    public ExecutorMetrics taskExecutorMetrics() {
+        return taskExecutorMetrics;
+    }
+
+    @Bean
+    public ExecutorMetrics mailExecutorMetrics() {
+        return mailExecutorMetrics;
+    }
+
+    @Bean
+    public ExecutorMetrics indexingExecutorMetrics() {
+        return indexingExecutorMetrics;
+    }
+
+    @Bean
+    public ExecutorMetrics auditExecutorMetrics() {
+        return auditExecutorMetrics;
+    }
+
+    @Bean
+    public ExecutorMetrics analyticsExecutorMetrics() {
+        return analyticsExecutorMetrics;
+    }
+
+    @Bean
+    public ExecutorMetrics webExecutorMetrics() {
+        return webExecutorMetrics;
+    }
+
+    @Bean
+    public ExecutorMetrics scheduledTaskExecutorMetrics() {
+        return scheduledTaskExecutorMetrics;
     }
 
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
     }
-    
+
     @Override
     public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
         taskRegistrar.setScheduler(scheduledTaskExecutor());
@@ -54,6 +177,92 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
 
     @Bean
     public Executor scheduledTaskExecutor() {
-        return Executors.newScheduledThreadPool(jHipsterProperties.getAsync().getCorePoolSize());
+        return scheduledTaskExecutor;
+    }
+
+    private ThreadPoolExecutor taskThreadPoolExecutor() {
+        return taskExecutor.getThreadPoolExecutor();
+    }
+
+    private ThreadPoolExecutor mailThreadPoolExecutor() {
+        return mailExecutor.getThreadPoolExecutor();
+    }
+
+    private ThreadPoolExecutor indexingThreadPoolExecutor() {
+        return indexingExecutor.getThreadPoolExecutor();
+    }
+
+    private ThreadPoolExecutor auditThreadPoolExecutor() {
+        return auditExecutor.getThreadPoolExecutor();
+    }
+
+    private ThreadPoolExecutor analyticsThreadPoolExecutor() {
+        return analyticsExecutor.getThreadPoolExecutor();
+    }
+
+    private ThreadPoolExecutor webThreadPoolExecutor() {
+        return webExecutor.getThreadPoolExecutor();
+    }
+
+    private ThreadPoolExecutor scheduledThreadPoolExecutor() {
+        return scheduledTaskExecutor;
+    }
+
+    private static ThreadPoolTaskExecutor threadPoolTaskExecutor(ApplicationProperties.Executors.Pool pool,
+            String threadNamePrefix, ExecutorMetrics metrics) {
+        return threadPoolTaskExecutor(pool.getCorePoolSize(), pool.getMaxPoolSize(), pool.getQueueCapacity(),
+            rejectionPolicy(pool.getRejectionPolicy()), threadNamePrefix, metrics);
+    }
+
+    private static ThreadPoolTaskExecutor threadPoolTaskExecutor(int corePoolSize, int maxPoolSize, int queueCapacity,
+            RejectedExecutionHandler rejectionPolicy, String threadNamePrefix, ExecutorMetrics metrics) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(metrics.taskDecorator());
+        executor.setRejectedExecutionHandler(metrics.rejectedExecutionHandler(rejectionPolicy));
+        return executor;
+    }
+
+    private static ScheduledThreadPoolExecutor scheduledThreadPoolExecutor(int poolSize, ExecutorMetrics metrics) {
+        ThreadLocal<long[]> idleAndStart = ThreadLocal.withInitial(() -> new long[2]);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(poolSize,
+            new CustomizableThreadFactory("garage-Scheduling-")) {
+
+            @Override
+            protected void beforeExecute(Thread thread, Runnable task) {
+                // How late the task started, read before a periodic task is given its next run
+                long late = task instanceof Delayed ? -((Delayed) task).getDelay(TimeUnit.NANOSECONDS) : 0;
+                long[] times = idleAndStart.get();
+                times[0] = Math.max(late, 0);
+                times[1] = System.nanoTime();
+            }
+
+            @Override
+            protected void afterExecute(Runnable task, Throwable error) {
+                long[] times = idleAndStart.get();
+                metrics.record(times[0], System.nanoTime() - times[1]);
+            }
+        };
+        // The context shuts the executor down before cancelling the cron tasks, which would otherwise keep its
+        // threads waiting for their next run
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setRejectedExecutionHandler(metrics.rejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy()));
+        return executor;
+    }
+
+    private static RejectedExecutionHandler rejectionPolicy(ApplicationProperties.Executors.RejectionPolicy policy) {
+        switch (policy) {
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD:
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST:
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
     }
 }
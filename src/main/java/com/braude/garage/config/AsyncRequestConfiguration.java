@@ -0,0 +1,142 @@
+package com.braude.garage.config;
+
+import com.braude.garage.web.rest.util.OffloadedHandlers;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ExceptionHandlerExceptionResolver;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Runs the handlers of the {@link OffloadedHandlers} controllers on the "webExecutor" when
+ * {@code application.async-requests.enabled} is set, as asynchronous requests.
+ * <p>
+ * The server worker thread is released as soon as the handler is submitted, and only taken again to write its
+ * result, so that the requests waiting on the database or on Elasticsearch are bounded by
+ * {@code application.executors.web} rather than by the worker threads, which keep serving the other endpoints. The
+ * handlers keep their controller signature: the arguments are resolved on the executor thread, which is given the
+ * request attributes and the locale of the request, and the {@link org.springframework.security.core.context.SecurityContext}
+ * through the integration of Spring Security with the asynchronous requests.
+ * <p>
+ * The property is read on each request, and disabled by default: the handlers then run on the worker thread.
+ */
+@Configuration
+public class AsyncRequestConfiguration {
+
+    private final ApplicationProperties.AsyncRequests properties;
+
+    private final AsyncTaskExecutor webExecutor;
+
+    public AsyncRequestConfiguration(ApplicationProperties applicationProperties,
+            @Qualifier("webExecutor") AsyncTaskExecutor webExecutor) {
+        this.properties = applicationProperties.getAsyncRequests();
+        this.webExecutor = webExecutor;
+    }
+
+    @Bean
+    public WebMvcRegistrations asyncRequestWebMvcRegistrations() {
+        return new WebMvcRegistrations() {
+
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return null;
+            }
+
+            @Override
+            public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+                return new OffloadingRequestMappingHandlerAdapter();
+            }
+
+            @Override
+            public ExceptionHandlerExceptionResolver getExceptionHandlerExceptionResolver() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * @return true if the handler returns its result, rather than writing it to the response
+     */
+    private static boolean isOffloadable(HandlerMethod handlerMethod) {
+        if (!AnnotatedElementUtils.hasAnnotation(handlerMethod.getBeanType(), OffloadedHandlers.class)
+            || handlerMethod.isVoid()) {
+            return false;
+        }
+        for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+            Class<?> type = parameter.getParameterType();
+            if (ServletResponse.class.isAssignableFrom(type) || OutputStream.class.isAssignableFrom(type)
+                || Writer.class.isAssignableFrom(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class OffloadingRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+        @Override
+        protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+            if (properties.isEnabled() && isOffloadable(handlerMethod)) {
+                return new OffloadedHandlerMethod(handlerMethod);
+            }
+            return super.createInvocableHandlerMethod(handlerMethod);
+        }
+    }
+
+    /**
+     * A handler returning a {@link WebAsyncTask} of its invocation: the task is run by the
+     * {@link org.springframework.web.context.request.async.WebAsyncManager}, which dispatches the request again to
+     * handle its result, as the result of the handler itself.
+     */
+    private final class OffloadedHandlerMethod extends ServletInvocableHandlerMethod {
+
+        private OffloadedHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        @Override
+        public Object invokeForRequest(NativeWebRequest request, ModelAndViewContainer mavContainer,
+                Object... providedArgs) {
+            // The request given, and the attributes of the worker thread, are inactive once it has started the
+            // asynchronous processing
+            ServletWebRequest asyncRequest = new ServletWebRequest(request.getNativeRequest(HttpServletRequest.class),
+                request.getNativeResponse(HttpServletResponse.class));
+            LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+            return new WebAsyncTask<>(properties.getTimeoutMs(), webExecutor, () -> {
+                // The previous ones are those of the worker thread, when the pool ran the task in the caller
+                RequestAttributes previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+                LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+                RequestContextHolder.setRequestAttributes(asyncRequest);
+                LocaleContextHolder.setLocaleContext(localeContext);
+                try {
+                    return super.invokeForRequest(asyncRequest, mavContainer, providedArgs);
+                } finally {
+                    LocaleContextHolder.setLocaleContext(previousLocaleContext);
+                    RequestContextHolder.setRequestAttributes(previousRequestAttributes);
+                }
+            });
+        }
+    }
+}
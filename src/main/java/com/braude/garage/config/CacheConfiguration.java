@@ -1,11 +1,15 @@
 package com.braude.garage.config;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
 
 import org.ehcache.config.builders.*;
+import org.ehcache.expiry.ExpiryPolicy;
 import org.ehcache.jsr107.Eh107Configuration;
 
 import io.github.jhipster.config.JHipsterProperties;
+import io.github.jhipster.config.jcache.BeanClassLoaderAwareJCacheRegionFactory;
 
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
@@ -15,17 +19,26 @@ import org.springframework.context.annotation.*;
 @EnableCaching
 public class CacheConfiguration {
 
+    private static final String DOMAIN_PACKAGE = com.braude.garage.domain.User.class.getPackage().getName() + ".";
+
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache =
-            jHipsterProperties.getCache().getEhcache();
+    private final JHipsterProperties.Cache.Ehcache ehcache;
 
-        jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
-            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
-                ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                .build());
+    private final ApplicationProperties.Cache cache;
+
+    private final ApplicationProperties.Pagination pagination;
+
+    private final ApplicationProperties.Security security;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        BeanClassLoaderAwareJCacheRegionFactory.setBeanClassLoader(this.getClass().getClassLoader());
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.cache = applicationProperties.getCache();
+        this.pagination = applicationProperties.getPagination();
+        this.security = applicationProperties.getSecurity();
+
+        jcacheConfiguration = jcacheConfiguration(ehcache.getMaxEntries(), ehcache.getTimeToLiveSeconds());
     }
 
     @Bean
@@ -33,7 +46,75 @@ public class CacheConfiguration {
         return cm -> {
             cm.createCache(com.braude.garage.repository.UserRepository.USERS_BY_LOGIN_CACHE, jcacheConfiguration);
             cm.createCache(com.braude.garage.repository.UserRepository.USERS_BY_EMAIL_CACHE, jcacheConfiguration);
+            cm.createCache(com.braude.garage.service.EstimatedCountService.ESTIMATED_COUNTS_CACHE, jcacheConfiguration(
+                pagination.getEstimatedCountMaxEntries(), pagination.getEstimatedCountTimeToLiveSeconds()));
+            cm.createCache(com.braude.garage.security.jwt.TokenProvider.VERIFIED_TOKENS_CACHE,
+                verifiedTokensConfiguration(security.getVerifiedTokensMaxEntries()));
+            createRegion(cm, com.braude.garage.domain.User.class.getName());
+            createRegion(cm, com.braude.garage.domain.Authority.class.getName());
+            createRegion(cm, com.braude.garage.domain.User.class.getName() + ".authorities");
+            createRegion(cm, com.braude.garage.domain.Client.class.getName());
+            createRegion(cm, com.braude.garage.domain.Car.class.getName());
+            createRegion(cm, com.braude.garage.domain.Car.class.getName() + ".carServices");
+            createRegion(cm, com.braude.garage.domain.CarService.class.getName());
             // jhipster-needle-ehcache-add-entry
+            // The JSR-107 statistics read by the cache.gets and cache.puts meters of each cache, rather than
+            // relying on Ehcache registering them by default
+            cm.getCacheNames().forEach(name -> cm.enableStatistics(name, true));
         };
     }
+
+    /**
+     * Create a Hibernate second-level cache region, sized by {@code application.cache.regions} when it is
+     * configured there, and by {@code jhipster.cache.ehcache} otherwise.
+     */
+    private void createRegion(javax.cache.CacheManager cm, String region) {
+        ApplicationProperties.Cache.Region settings = cache.getRegions().get(region.substring(DOMAIN_PACKAGE.length()));
+        if (settings == null) {
+            cm.createCache(region, jcacheConfiguration);
+            return;
+        }
+        long maxEntries = settings.getMaxEntries() != null ? settings.getMaxEntries() : ehcache.getMaxEntries();
+        long timeToLiveSeconds = settings.getTimeToLiveSeconds() != null ?
+            settings.getTimeToLiveSeconds() : ehcache.getTimeToLiveSeconds();
+        cm.createCache(region, jcacheConfiguration(maxEntries, timeToLiveSeconds));
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(long maxEntries,
+            long timeToLiveSeconds) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds)))
+                .build());
+    }
+
+    /**
+     * The configuration of the verified tokens cache, whose entries expire with their token.
+     */
+    private static javax.cache.configuration.Configuration<Object, Object> verifiedTokensConfiguration(long maxEntries) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(new ExpiryPolicy<Object, Object>() {
+
+                    @Override
+                    public Duration getExpiryForCreation(Object key, Object value) {
+                        Instant expiration = ((com.braude.garage.security.jwt.TokenProvider.VerifiedToken) value).getExpiration();
+                        Duration timeToLive = Duration.between(Instant.now(), expiration);
+                        return timeToLive.isNegative() ? Duration.ZERO : timeToLive;
+                    }
+
+                    @Override
+                    public Duration getExpiryForAccess(Object key, Supplier<?> value) {
+                        return null;
+                    }
+
+                    @Override
+                    public Duration getExpiryForUpdate(Object key, Supplier<?> oldValue, Object newValue) {
+                        return getExpiryForCreation(key, newValue);
+                    }
+                })
+                .build());
+    }
 }
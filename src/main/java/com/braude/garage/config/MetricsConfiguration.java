@@ -0,0 +1,138 @@
+package com.braude.garage.config;
+
+import com.braude.garage.aop.metrics.CriteriaUsageAspect;
+import com.braude.garage.aop.metrics.MethodMetricsAspect;
+import com.braude.garage.config.metrics.CriteriaUsageRecorder;
+import com.braude.garage.config.metrics.RequestMetricsInterceptor;
+import com.braude.garage.config.metrics.StatementCounter;
+import com.braude.garage.config.metrics.StatementTimer;
+import com.braude.garage.config.metrics.TimedJestClient;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.searchbox.client.JestClient;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Application meters, exported with the management ones through the Prometheus endpoint:
+ * <ul>
+ * <li>{@code garage.method}, the time of every service and repository method</li>
+ * <li>{@code garage.request.statements}, the JDBC statements prepared by every HTTP request</li>
+ * <li>{@code garage.request.statement.time}, the time every HTTP request spent executing JDBC statements</li>
+ * <li>{@code garage.request.over.budget}, the HTTP requests going over the statement budgets, which are also
+ * logged with the statements they repeated</li>
+ * <li>{@code garage.search}, the time of every Elasticsearch request</li>
+ * </ul>
+ * The method and search timers are tagged with the endpoint of the request they serve, so that the query dominating
+ * an endpoint can be found. Each of them is enabled by an {@code application.metrics} property, as is the
+ * {@link CriteriaUsageRecorder} report of the criteria combinations used.
+ */
+@Configuration
+@EnableAspectJAutoProxy
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final ApplicationProperties.Metrics properties;
+
+    private RequestMetricsInterceptor requestMetricsInterceptor;
+
+    /**
+     * @param meterRegistry the registry, looked up once needed: it is created with the data source, which the
+     * aspect may be created before
+     * @param applicationProperties the application properties
+     */
+    public MetricsConfiguration(ObjectProvider<MeterRegistry> meterRegistry, ApplicationProperties applicationProperties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = applicationProperties.getMetrics();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.metrics", name = "methods-enabled", matchIfMissing = true)
+    public MethodMetricsAspect methodMetricsAspect() {
+        return new MethodMetricsAspect(meterRegistry);
+    }
+
+    @Bean
+    public CriteriaUsageRecorder criteriaUsageRecorder() {
+        return new CriteriaUsageRecorder(properties.getCriteriaUsageMaxEntries());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.metrics", name = "criteria-usage-enabled", matchIfMissing = true)
+    public CriteriaUsageAspect criteriaUsageAspect(CriteriaUsageRecorder criteriaUsageRecorder) {
+        return new CriteriaUsageAspect(criteriaUsageRecorder);
+    }
+
+    /**
+     * The method timers are many, keep them to a count, a sum and a maximum rather than a histogram each.
+     */
+    @Bean
+    public static MeterFilter methodMetricsFilter() {
+        return new MeterFilter() {
+
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(MethodMetricsAspect.METRIC_NAME)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                    .percentilesHistogram(false)
+                    .percentiles()
+                    .build()
+                    .merge(config);
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.metrics", name = "request-statements-enabled", matchIfMissing = true)
+    public HibernatePropertiesCustomizer statementMetricsCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+            hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, StatementTimer.class.getName());
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.metrics", name = "search-enabled", matchIfMissing = true)
+    public static BeanPostProcessor timedJestClientPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof JestClient && !(bean instanceof TimedJestClient)
+                    ? new TimedJestClient((JestClient) bean, meterRegistry.getObject()) : bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetricsInterceptor());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(requestMetricsInterceptor());
+    }
+
+    private RequestMetricsInterceptor requestMetricsInterceptor() {
+        if (requestMetricsInterceptor == null) {
+            requestMetricsInterceptor = new RequestMetricsInterceptor(meterRegistry.getObject(), properties);
+        }
+        return requestMetricsInterceptor;
+    }
+}
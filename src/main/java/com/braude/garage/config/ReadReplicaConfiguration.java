@@ -0,0 +1,112 @@
+package com.braude.garage.config;
+
+import com.braude.garage.config.datasource.ReadReplica;
+import com.braude.garage.config.datasource.ReadReplicaRoutingDataSource;
+import com.braude.garage.config.datasource.ReplicationLagMonitor;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sends the read-only transactions to the read replicas of {@code application.read-replicas}, see
+ * {@link ReadReplicaRoutingDataSource}.
+ * <p>
+ * The primary pool is the one Spring Boot would create from {@code spring.datasource}, and the pools of the replicas
+ * copy its settings. Locally, the replicas can be other H2 databases: nothing replicates to them, so they are only
+ * read from while their {@code replication_heartbeat} row is kept up to date.
+ * <p>
+ * The entities read from a replica may be older than those of the primary database: they are read from the
+ * second-level cache, but not put in it, else they would be served from there until they expire.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.read-replicas", name = "enabled")
+public class ReadReplicaConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(ReadReplicaConfiguration.class);
+
+    private final ApplicationProperties.ReadReplicas properties;
+
+    public ReadReplicaConfiguration(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getReadReplicas();
+    }
+
+    /**
+     * The settings of the primary pool, bound as Spring Boot would bind them. The pools are not beans of their own:
+     * the application must have a single data source.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig primaryDataSourceConfig(DataSourceProperties dataSourceProperties) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(dataSourceProperties.determineUrl());
+        config.setUsername(dataSourceProperties.determineUsername());
+        config.setPassword(dataSourceProperties.determinePassword());
+        config.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        return config;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReadReplicaRoutingDataSource dataSource(HikariConfig primaryDataSourceConfig,
+            ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        List<ReadReplica> replicas = new ArrayList<>();
+        for (ApplicationProperties.ReadReplicas.Replica replica : properties.getReplicas()) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSourceConfig.copyStateTo(config);
+            config.setPoolName(Objects.toString(primaryDataSourceConfig.getPoolName(), "Hikari") + "-replica-" + (replicas.size() + 1));
+            config.setJdbcUrl(replica.getUrl());
+            if (replica.getUsername() != null) {
+                config.setUsername(replica.getUsername());
+            }
+            if (replica.getPassword() != null) {
+                config.setPassword(replica.getPassword());
+            }
+            config.setReadOnly(true);
+            // A replica down at startup is only unavailable, the primary database serves the reads meanwhile
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new ReadReplica(config.getPoolName(), new HikariDataSource(config)));
+        }
+        log.debug("Routing the read-only transactions to {} read replicas", replicas.size());
+        ReadReplicaRoutingDataSource dataSource = new ReadReplicaRoutingDataSource(
+            new HikariDataSource(primaryDataSourceConfig), replicas, properties.isStickyAfterWrite());
+        // The entity manager factory is built on this data source, so it is only looked up on the first replica read
+        dataSource.setReplicaReadCallback(() -> doNotPutInSecondLevelCache(entityManagerFactory.getIfAvailable()));
+        return dataSource;
+    }
+
+    /**
+     * Let the session of the current transaction read from the second-level cache, but not put in it.
+     */
+    private static void doNotPutInSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        if (entityManagerFactory == null) {
+            return;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+        if (holder != null) {
+            holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+        }
+    }
+
+    @Bean
+    public ReplicationLagMonitor replicationLagMonitor(ReadReplicaRoutingDataSource dataSource) {
+        return new ReplicationLagMonitor(dataSource.getPrimary(), dataSource.getReplicas(),
+            Duration.ofMillis(properties.getMaxLagMs()));
+    }
+}
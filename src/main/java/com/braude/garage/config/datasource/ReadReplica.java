@@ -0,0 +1,51 @@
+package com.braude.garage.config.datasource;
+
+import javax.sql.DataSource;
+
+/**
+ * A replica database, and whether it is close enough to the primary one to be read from, as last measured by
+ * {@link ReplicationLagMonitor}.
+ */
+public final class ReadReplica {
+
+    private final String name;
+
+    private final DataSource dataSource;
+
+    private volatile boolean available;
+
+    private volatile long lagMs = -1;
+
+    public ReadReplica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * @return true if the replica was reachable and behind by less than the maximum lag at the last check, false
+     * until the first one
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * @return the lag measured by the last check in milliseconds, or -1 if it failed
+     */
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    void update(boolean available, long lagMs) {
+        this.available = available;
+        this.lagMs = lagMs;
+    }
+}
@@ -0,0 +1,135 @@
+package com.braude.garage.config.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A data source sending the read-only transactions to the read replicas, and everything else to the primary
+ * database.
+ * <p>
+ * The replicas are taken in turn among the available ones, and the primary database serves the read-only
+ * transactions when none is. Once an HTTP request has run a read-write transaction, its next read-only ones also go
+ * to the primary database, so that it reads its own writes whatever the replication lag.
+ * <p>
+ * A transaction reading from a replica may read rows older than those of the primary database: the replica read
+ * callback runs when its replica is picked, for instance to keep what it reads out of the caches.
+ * <p>
+ * The transaction is only known once it has begun, after the transaction manager got its connection: as a
+ * {@link LazyConnectionDataSourceProxy}, this data source only gets the connection of a database on the first
+ * statement.
+ */
+public class ReadReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final String PRIMARY_ATTRIBUTE = ReadReplicaRoutingDataSource.class.getName() + ".PRIMARY";
+
+    private final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+
+    private final List<ReadReplica> replicas;
+
+    private final boolean stickyAfterWrite;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile Runnable replicaReadCallback = () -> { };
+
+    /**
+     * @param primary the primary database
+     * @param replicas the replicas
+     * @param stickyAfterWrite whether the read-only transactions of an HTTP request go to the primary database
+     * after a read-write one
+     */
+    public ReadReplicaRoutingDataSource(DataSource primary, List<ReadReplica> replicas, boolean stickyAfterWrite) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.stickyAfterWrite = stickyAfterWrite;
+        setTargetDataSource(new AbstractDataSource() {
+
+            @Override
+            public Connection getConnection() throws SQLException {
+                return determineTargetDataSource().getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return determineTargetDataSource().getConnection(username, password);
+            }
+        });
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<ReadReplica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @param replicaReadCallback run in the read-only transaction whose reads go to a replica, when the replica is
+     * picked
+     */
+    public void setReplicaReadCallback(Runnable replicaReadCallback) {
+        this.replicaReadCallback = replicaReadCallback;
+    }
+
+    DataSource determineTargetDataSource() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (stickyAfterWrite && TransactionSynchronizationManager.isActualTransactionActive()) {
+                RequestAttributes request = RequestContextHolder.getRequestAttributes();
+                if (request != null) {
+                    request.setAttribute(PRIMARY_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+                }
+            }
+            return primary;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(PRIMARY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return primary;
+        }
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            ReadReplica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.isAvailable()) {
+                replicaReadCallback.run();
+                return replica.getDataSource();
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * Close the pools of the replicas, then the primary one.
+     */
+    @Override
+    public void close() {
+        for (ReadReplica replica : replicas) {
+            close(replica.getDataSource());
+        }
+        close(primary);
+    }
+
+    private void close(DataSource dataSource) {
+        if (dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (IOException e) {
+                log.warn("Could not close the pool {}", dataSource, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.braude.garage.config.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Measures how far behind the primary database each read replica is, and marks the replicas lagging by more than
+ * the maximum lag, or failing, as unavailable to {@link ReadReplicaRoutingDataSource}.
+ * <p>
+ * Every check writes the current time to the single row of the {@code replication_heartbeat} table of the primary
+ * database, then reads it back from each replica: the lag is the age of the heartbeat a replica has. As every
+ * instance writes the heartbeat, it works whatever the database, and the maximum lag must only be larger than the
+ * check interval.
+ * <p>
+ * This is scheduled to get fired every {@code application.read-replicas.lag-check-interval-ms} milliseconds.
+ */
+public class ReplicationLagMonitor {
+
+    private static final String UPDATE_HEARTBEAT = "UPDATE replication_heartbeat SET beat_time = ? WHERE id = 1";
+
+    private static final String SELECT_HEARTBEAT = "SELECT beat_time FROM replication_heartbeat WHERE id = 1";
+
+    private final Logger log = LoggerFactory.getLogger(ReplicationLagMonitor.class);
+
+    private final DataSource primary;
+
+    private final List<ReadReplica> replicas;
+
+    private final Duration maxLag;
+
+    public ReplicationLagMonitor(DataSource primary, List<ReadReplica> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLag = maxLag;
+    }
+
+    @Scheduled(fixedDelayString = "${application.read-replicas.lag-check-interval-ms:1000}")
+    public void check() {
+        Instant now = Instant.now();
+        try {
+            beat(now);
+        } catch (SQLException e) {
+            log.warn("Could not write the replication heartbeat: {}", e.getMessage());
+        }
+        for (ReadReplica replica : replicas) {
+            check(replica, now);
+        }
+    }
+
+    private void check(ReadReplica replica, Instant now) {
+        boolean wasAvailable = replica.isAvailable();
+        try {
+            Instant heartbeat = readHeartbeat(replica.getDataSource());
+            long lagMs = heartbeat == null ? -1 : Math.max(0, Duration.between(heartbeat, now).toMillis());
+            boolean available = heartbeat != null && lagMs <= maxLag.toMillis();
+            replica.update(available, lagMs);
+            if (wasAvailable && !available) {
+                log.warn("Read replica {} is {} ms behind, reading from the primary database", replica.getName(), lagMs);
+            } else if (!wasAvailable && available) {
+                log.info("Read replica {} is {} ms behind, reading from it", replica.getName(), lagMs);
+            }
+        } catch (SQLException e) {
+            replica.update(false, -1);
+            if (wasAvailable) {
+                log.warn("Read replica {} failed, reading from the primary database: {}", replica.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void beat(Instant now) throws SQLException {
+        try (Connection connection = primary.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_HEARTBEAT)) {
+            statement.setTimestamp(1, Timestamp.from(now), utc());
+            statement.executeUpdate();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+    }
+
+    private static Instant readHeartbeat(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_HEARTBEAT);
+             ResultSet resultSet = statement.executeQuery()) {
+            Instant heartbeat = null;
+            if (resultSet.next()) {
+                Timestamp timestamp = resultSet.getTimestamp(1, utc());
+                heartbeat = timestamp == null ? null : timestamp.toInstant();
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            return heartbeat;
+        }
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+}
@@ -0,0 +1,218 @@
+package com.braude.garage.config.metrics;
+
+import com.braude.garage.service.dto.CriteriaUsageDTO;
+
+import io.github.jhipster.service.filter.Filter;
+import io.github.jhipster.service.filter.RangeFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * The combinations of criteria filters and sorts used by the queries of this node, with the time they took: the
+ * report from which the next indexes are chosen, see {@code /management/criteria-usage}.
+ * <p>
+ * A combination is the filters set and their operators, e.g. {@code make.equals&year.greaterThan}, never their
+ * values. Past {@code criteria-usage-max-entries} combinations, the new ones are counted together as
+ * {@value #OTHER_FILTERS}.
+ */
+public class CriteriaUsageRecorder {
+
+    public static final String OTHER_FILTERS = "(other)";
+
+    private static final String NO_FILTERS = "(none)";
+
+    private static final String NO_SORT = "(unsorted)";
+
+    private final ConcurrentMap<Class<?>, List<Field>> filterFields = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Key, Usage> usages = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+
+    public CriteriaUsageRecorder(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Record a query.
+     *
+     * @param operation the query service method
+     * @param criteria the criteria of the query, or null
+     * @param sort the sort of the query
+     * @param nanos the time the query took
+     */
+    public void record(String operation, Object criteria, Sort sort, long nanos) {
+        if (criteria == null) {
+            return;
+        }
+        Key key = new Key(entityName(criteria.getClass()), operation, filters(criteria), sort(sort));
+        Usage usage = usages.get(key);
+        if (usage == null) {
+            if (usages.size() >= maxEntries) {
+                key = new Key(key.entity, key.operation, OTHER_FILTERS, NO_SORT);
+            }
+            usage = usages.computeIfAbsent(key, k -> new Usage());
+        }
+        usage.record(nanos);
+    }
+
+    /**
+     * @return the combinations used since the start or the last reset, those that took the most time first
+     */
+    public List<CriteriaUsageDTO> getReport() {
+        return usages.entrySet().stream()
+            .map(entry -> entry.getValue().toDto(entry.getKey()))
+            .sorted(Comparator.comparingDouble(CriteriaUsageDTO::getTotalTimeMs).reversed())
+            .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        usages.clear();
+    }
+
+    private static String entityName(Class<?> criteriaClass) {
+        String name = criteriaClass.getSimpleName();
+        return name.endsWith("Criteria") ? name.substring(0, name.length() - "Criteria".length()) : name;
+    }
+
+    private String filters(Object criteria) {
+        StringJoiner filters = new StringJoiner("&");
+        for (Field field : filterFields.computeIfAbsent(criteria.getClass(), CriteriaUsageRecorder::findFilterFields)) {
+            Filter<?> filter = (Filter<?>) ReflectionUtils.getField(field, criteria);
+            if (filter != null) {
+                operators(filter).forEach(operator -> filters.add(field.getName() + '.' + operator));
+            }
+        }
+        return filters.length() == 0 ? NO_FILTERS : filters.toString();
+    }
+
+    private static List<Field> findFilterFields(Class<?> criteriaClass) {
+        List<Field> fields = new ArrayList<>();
+        ReflectionUtils.doWithFields(criteriaClass, field -> {
+            ReflectionUtils.makeAccessible(field);
+            fields.add(field);
+        }, field -> Filter.class.isAssignableFrom(field.getType()));
+        return fields;
+    }
+
+    private static List<String> operators(Filter<?> filter) {
+        List<String> operators = new ArrayList<>();
+        if (filter.getEquals() != null) {
+            operators.add("equals");
+        }
+        if (filter.getIn() != null) {
+            operators.add("in");
+        }
+        if (filter.getSpecified() != null) {
+            operators.add("specified");
+        }
+        if (filter instanceof StringFilter && ((StringFilter) filter).getContains() != null) {
+            operators.add("contains");
+        }
+        if (filter instanceof RangeFilter) {
+            RangeFilter<?> range = (RangeFilter<?>) filter;
+            if (range.getGreaterThan() != null) {
+                operators.add("greaterThan");
+            }
+            if (range.getGreaterOrEqualThan() != null) {
+                operators.add("greaterOrEqualThan");
+            }
+            if (range.getLessThan() != null) {
+                operators.add("lessThan");
+            }
+            if (range.getLessOrEqualThan() != null) {
+                operators.add("lessOrEqualThan");
+            }
+        }
+        return operators;
+    }
+
+    private static String sort(Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return NO_SORT;
+        }
+        StringJoiner orders = new StringJoiner(";");
+        sort.forEach(order -> orders.add(order.getProperty() + ',' + order.getDirection().name().toLowerCase(Locale.ROOT)));
+        return orders.toString();
+    }
+
+    private static final class Key {
+
+        private final String entity;
+
+        private final String operation;
+
+        private final String filters;
+
+        private final String sort;
+
+        Key(String entity, String operation, String filters, String sort) {
+            this.entity = entity;
+            this.operation = operation;
+            this.filters = filters;
+            this.sort = sort;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return entity.equals(key.entity) && operation.equals(key.operation) && filters.equals(key.filters)
+                && sort.equals(key.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entity, operation, filters, sort);
+        }
+    }
+
+    private static final class Usage {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private volatile long lastUsedMillis;
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            lastUsedMillis = System.currentTimeMillis();
+        }
+
+        CriteriaUsageDTO toDto(Key key) {
+            long count = this.count.sum();
+            double totalTimeMs = totalNanos.sum() / 1e6;
+            CriteriaUsageDTO usage = new CriteriaUsageDTO();
+            usage.setEntity(key.entity);
+            usage.setOperation(key.operation);
+            usage.setFilters(key.filters);
+            usage.setSort(key.sort);
+            usage.setCount(count);
+            usage.setTotalTimeMs(totalTimeMs);
+            usage.setMeanTimeMs(count == 0 ? 0 : totalTimeMs / count);
+            usage.setMaxTimeMs(maxNanos.get() / 1e6);
+            usage.setLastUsedDate(Instant.ofEpochMilli(lastUsedMillis));
+            return usage;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.braude.garage.config.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Meters of a thread pool, tagged with its name, under the names Micrometer gives to the executors it monitors:
+ * <ul>
+ * <li>{@code executor.pool.size}, {@code executor.active}, {@code executor.queued} and {@code executor.queue.remaining}
+ * gauges, and an {@code executor.completed} counter</li>
+ * <li>{@code executor.idle}, the time tasks waited in the queue, or for a scheduler how late they started</li>
+ * <li>{@code executor.execution}, the time tasks ran</li>
+ * <li>{@code executor.rejected}, the tasks refused by a full pool</li>
+ * </ul>
+ * The pools are created before the meter registry, so the meters are bound to it later, as a {@link MeterBinder}
+ * bean; tasks run until then are not timed.
+ */
+public final class ExecutorMetrics implements MeterBinder {
+
+    private final String name;
+
+    private final Supplier<ThreadPoolExecutor> threadPoolExecutor;
+
+    private volatile Timer idleTimer;
+
+    private volatile Timer executionTimer;
+
+    private volatile Counter rejectedCounter;
+
+    /**
+     * @param name the name of the pool
+     * @param threadPoolExecutor the pool, which may only be available once it has been initialized
+     */
+    public ExecutorMetrics(String name, Supplier<ThreadPoolExecutor> threadPoolExecutor) {
+        this.name = name;
+        this.threadPoolExecutor = threadPoolExecutor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("name", name);
+        gauge(registry, "executor.pool.size", "The current number of threads in the pool", tags,
+            ThreadPoolExecutor::getPoolSize);
+        gauge(registry, "executor.active", "The approximate number of threads actively executing tasks", tags,
+            ThreadPoolExecutor::getActiveCount);
+        gauge(registry, "executor.queued", "The approximate number of tasks queued for execution", tags,
+            executor -> executor.getQueue().size());
+        gauge(registry, "executor.queue.remaining", "The number of additional tasks the queue can hold", tags,
+            executor -> executor.getQueue().remainingCapacity());
+        FunctionCounter.builder("executor.completed", this, metrics -> metrics.read(ThreadPoolExecutor::getCompletedTaskCount))
+            .description("The approximate total number of tasks that have completed execution")
+            .tags(tags)
+            .register(registry);
+        idleTimer = Timer.builder("executor.idle")
+            .description("The time tasks waited before they started")
+            .tags(tags)
+            .register(registry);
+        executionTimer = Timer.builder("executor.execution")
+            .description("The time tasks ran")
+            .tags(tags)
+            .register(registry);
+        rejectedCounter = Counter.builder("executor.rejected")
+            .description("The tasks refused by the pool")
+            .tags(tags)
+            .register(registry);
+    }
+
+    /**
+     * @return a decorator timing the tasks submitted to a {@link org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor}
+     */
+    public TaskDecorator taskDecorator() {
+        return task -> {
+            long submitted = System.nanoTime();
+            return () -> {
+                long started = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    record(started - submitted, System.nanoTime() - started);
+                }
+            };
+        };
+    }
+
+    /**
+     * @param policy the policy of the pool
+     * @return the policy, counting the tasks it is given
+     */
+    public RejectedExecutionHandler rejectedExecutionHandler(RejectedExecutionHandler policy) {
+        return (task, executor) -> {
+            Counter counter = rejectedCounter;
+            if (counter != null) {
+                counter.increment();
+            }
+            policy.rejectedExecution(task, executor);
+        };
+    }
+
+    /**
+     * Time a task, for a pool which is not decorated by {@link #taskDecorator()}.
+     *
+     * @param idleNanos the time the task waited, in nanoseconds
+     * @param executionNanos the time the task ran, in nanoseconds
+     */
+    public void record(long idleNanos, long executionNanos) {
+        Timer idle = idleTimer;
+        Timer execution = executionTimer;
+        if (idle != null && execution != null) {
+            idle.record(idleNanos, TimeUnit.NANOSECONDS);
+            execution.record(executionNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void gauge(MeterRegistry registry, String meterName, String description, Tags tags,
+            ToDoubleFunction<ThreadPoolExecutor> value) {
+        Gauge.builder(meterName, this, metrics -> metrics.read(value))
+            .description(description)
+            .tags(tags)
+            .register(registry);
+    }
+
+    private double read(ToDoubleFunction<ThreadPoolExecutor> value) {
+        try {
+            return value.applyAsDouble(threadPoolExecutor.get());
+        } catch (IllegalStateException e) {
+            // Not initialized yet, or already shut down
+            return Double.NaN;
+        }
+    }
+}
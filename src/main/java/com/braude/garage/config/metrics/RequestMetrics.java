@@ -0,0 +1,152 @@
+package com.braude.garage.config.metrics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The HTTP request handled by the current thread: the endpoint it was mapped to, and the JDBC statements it prepared
+ * and executed so far.
+ * <p>
+ * It is set by {@link RequestMetricsInterceptor} for the duration of the handler, so that the meters recorded
+ * meanwhile can be tagged with the endpoint they serve. Scopes can be nested: the statements of an inner scope are
+ * added to the outer one when it ends. A request whose handler runs on another thread is suspended before, resumed
+ * in that thread, and suspended again for the server thread resuming the request to end it.
+ */
+public final class RequestMetrics {
+
+    /**
+     * The endpoint of the work done outside of an HTTP request, by the scheduled and asynchronous tasks.
+     */
+    public static final String NO_ENDPOINT = "none";
+
+    /**
+     * The number of distinct SQL strings counted per request, the others are only counted in the total.
+     */
+    private static final int MAX_DISTINCT_STATEMENTS = 100;
+
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+
+    private final RequestMetrics parent;
+
+    private final Map<String, Integer> countsBySql = new HashMap<>();
+
+    private long statements;
+
+    private long statementNanos;
+
+    private RequestMetrics(String endpoint, RequestMetrics parent) {
+        this.endpoint = endpoint;
+        this.parent = parent;
+    }
+
+    static void begin(String endpoint) {
+        CURRENT.set(new RequestMetrics(endpoint, CURRENT.get()));
+    }
+
+    static RequestMetrics end() {
+        RequestMetrics current = CURRENT.get();
+        if (current == null) {
+            return null;
+        }
+        if (current.parent == null) {
+            CURRENT.remove();
+        } else {
+            current.parent.add(current);
+            CURRENT.set(current.parent);
+        }
+        return current;
+    }
+
+    /**
+     * Detach the request of the current thread, without ending it.
+     *
+     * @return the request, to be {@link #resume(RequestMetrics) resumed} by the thread carrying on with it
+     */
+    static RequestMetrics suspend() {
+        RequestMetrics current = CURRENT.get();
+        if (current == null) {
+            return null;
+        }
+        if (current.parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(current.parent);
+        }
+        return current;
+    }
+
+    static void resume(RequestMetrics metrics) {
+        if (metrics != null) {
+            CURRENT.set(metrics);
+        }
+    }
+
+    static void statementPrepared(String sql) {
+        RequestMetrics current = CURRENT.get();
+        if (current != null) {
+            current.statements++;
+            current.count(sql, 1);
+        }
+    }
+
+    static void statementExecuted(long nanos) {
+        RequestMetrics current = CURRENT.get();
+        if (current != null) {
+            current.statementNanos += nanos;
+        }
+    }
+
+    /**
+     * @return the endpoint of the request handled by the current thread, e.g. {@code GET /api/cars}, or
+     * {@value #NO_ENDPOINT}
+     */
+    public static String currentEndpoint() {
+        RequestMetrics current = CURRENT.get();
+        return current == null ? NO_ENDPOINT : current.endpoint;
+    }
+
+    private void add(RequestMetrics child) {
+        statements += child.statements;
+        statementNanos += child.statementNanos;
+        child.countsBySql.forEach(this::count);
+    }
+
+    private void count(String sql, int count) {
+        if (countsBySql.size() < MAX_DISTINCT_STATEMENTS || countsBySql.containsKey(sql)) {
+            countsBySql.merge(sql, count, Integer::sum);
+        }
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    long getStatements() {
+        return statements;
+    }
+
+    long getStatementTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(statementNanos);
+    }
+
+    /**
+     * A report of the statements of the request, the most repeated first: a statement prepared once per row of a
+     * previous one is the sign of an N+1 select.
+     *
+     * @param maxStatements the number of distinct statements to list
+     * @return the report
+     */
+    String report(int maxStatements) {
+        return countsBySql.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+            .limit(maxStatements)
+            .map(entry -> String.format("%n  %5d x %s", entry.getValue(), entry.getKey()))
+            .collect(Collectors.joining("", String.format("%s: %d statements in %d ms",
+                endpoint, statements, getStatementTimeMs()), ""));
+    }
+}
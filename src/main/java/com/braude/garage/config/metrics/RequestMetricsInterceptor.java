@@ -0,0 +1,136 @@
+package com.braude.garage.config.metrics;
+
+import com.braude.garage.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTags;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets the {@link RequestMetrics} of the requests for the duration of their handler, and records the number of
+ * JDBC statements each prepared and the time spent executing them, with the tags of the
+ * {@code http.server.requests} timer.
+ * <p>
+ * A request going over the statement budget or the statement time budget is counted in
+ * {@value #OVER_BUDGET_METRIC}, and logged as a warning with the statements it repeated most.
+ * <p>
+ * It is also registered as a {@link CallableProcessingInterceptor}, carrying the {@link RequestMetrics} of a request
+ * over to the thread running its asynchronous handler, and back to the server thread ending the request.
+ */
+public class RequestMetricsInterceptor extends HandlerInterceptorAdapter implements CallableProcessingInterceptor {
+
+    private static final String SUSPENDED_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".SUSPENDED";
+
+    public static final String STATEMENTS_METRIC = "garage.request.statements";
+
+    public static final String STATEMENT_TIME_METRIC = "garage.request.statement.time";
+
+    public static final String OVER_BUDGET_METRIC = "garage.request.over.budget";
+
+    private static final long MAX_EXPECTED_STATEMENTS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(RequestMetricsInterceptor.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final ApplicationProperties.Metrics properties;
+
+    public RequestMetricsInterceptor(MeterRegistry meterRegistry, ApplicationProperties.Metrics properties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object suspended = request.getAttribute(SUSPENDED_ATTRIBUTE);
+        if (request.getDispatcherType() == DispatcherType.ASYNC && suspended != null) {
+            request.removeAttribute(SUSPENDED_ATTRIBUTE);
+            RequestMetrics.resume((RequestMetrics) suspended);
+        } else {
+            RequestMetrics.begin(request.getMethod() + " " + WebMvcTags.uri(request, response).getValue());
+        }
+        return true;
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        suspend(request);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        // Taken away, so that a request timing out meanwhile is ended with metrics of its own
+        Object suspended = request.getAttribute(SUSPENDED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        request.removeAttribute(SUSPENDED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        RequestMetrics.resume((RequestMetrics) suspended);
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        suspend(request);
+    }
+
+    private static void suspend(NativeWebRequest request) {
+        RequestMetrics suspended = RequestMetrics.suspend();
+        if (suspended != null) {
+            request.setAttribute(SUSPENDED_ATTRIBUTE, suspended, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestMetrics current = RequestMetrics.end();
+        if (!properties.isRequestStatementsEnabled() || current == null) {
+            return;
+        }
+        List<Tag> tags = Arrays.asList(WebMvcTags.method(request), WebMvcTags.uri(request, response), WebMvcTags.status(response));
+        DistributionSummary.builder(STATEMENTS_METRIC)
+            .description("JDBC statements prepared per HTTP request")
+            .baseUnit("statements")
+            .tags(tags)
+            .maximumExpectedValue(MAX_EXPECTED_STATEMENTS)
+            .register(meterRegistry)
+            .record(current.getStatements());
+        Timer.builder(STATEMENT_TIME_METRIC)
+            .description("Time spent executing JDBC statements per HTTP request")
+            .tags(tags)
+            .maximumExpectedValue(Duration.ofMillis(Math.max(1, properties.getRequestStatementTimeBudgetMs()) * 10))
+            .register(meterRegistry)
+            .record(current.getStatementTimeMs(), TimeUnit.MILLISECONDS);
+        if (isOverBudget(current)) {
+            Counter.builder(OVER_BUDGET_METRIC)
+                .description("HTTP requests over their JDBC statement or statement time budget")
+                .tags(tags)
+                .register(meterRegistry)
+                .increment();
+            log.warn("Request over its statement budget of {} statements or {} ms, {}",
+                properties.getRequestStatementBudget(), properties.getRequestStatementTimeBudgetMs(),
+                current.report(properties.getRequestReportMaxStatements()));
+        }
+    }
+
+    private boolean isOverBudget(RequestMetrics current) {
+        int statementBudget = properties.getRequestStatementBudget();
+        long statementTimeBudgetMs = properties.getRequestStatementTimeBudgetMs();
+        return (statementBudget > 0 && current.getStatements() > statementBudget)
+            || (statementTimeBudgetMs > 0 && current.getStatementTimeMs() > statementTimeBudgetMs);
+    }
+}
@@ -0,0 +1,18 @@
+package com.braude.garage.config.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the JDBC statements Hibernate prepares for the current HTTP request, see {@link RequestMetrics}.
+ * <p>
+ * The global Hibernate statistics cannot tell which request prepared a statement, and update shared counters for
+ * every statement once enabled; this is a thread-local increment.
+ */
+public class StatementCounter implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestMetrics.statementPrepared(sql);
+        return sql;
+    }
+}
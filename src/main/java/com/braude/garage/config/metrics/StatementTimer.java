@@ -0,0 +1,34 @@
+package com.braude.garage.config.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Adds the time spent executing JDBC statements and batches to the current HTTP request, see
+ * {@link RequestMetrics}.
+ * <p>
+ * Hibernate creates a listener for every session, which is used by a single thread at a time.
+ */
+public class StatementTimer extends BaseSessionEventListener {
+
+    private long start;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestMetrics.statementExecuted(System.nanoTime() - start);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestMetrics.statementExecuted(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,96 @@
+package com.braude.garage.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.client.JestResultHandler;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link JestClient} timing the Elasticsearch requests of the one it decorates, by action, outcome and
+ * {@link RequestMetrics#currentEndpoint() endpoint}.
+ */
+public class TimedJestClient implements JestClient {
+
+    public static final String METRIC_NAME = "garage.search";
+
+    private final JestClient delegate;
+
+    private final MeterRegistry meterRegistry;
+
+    public TimedJestClient(JestClient delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T extends JestResult> T execute(Action<T> action) throws IOException {
+        String endpoint = RequestMetrics.currentEndpoint();
+        long start = System.nanoTime();
+        try {
+            T result = delegate.execute(action);
+            record(action, endpoint, outcome(result), start);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            record(action, endpoint, "error", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T extends JestResult> void executeAsync(Action<T> action, JestResultHandler<? super T> resultHandler) {
+        String endpoint = RequestMetrics.currentEndpoint();
+        long start = System.nanoTime();
+        delegate.executeAsync(action, new JestResultHandler<T>() {
+
+            @Override
+            public void completed(T result) {
+                record(action, endpoint, outcome(result), start);
+                resultHandler.completed(result);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                record(action, endpoint, "error", start);
+                resultHandler.failed(e);
+            }
+        });
+    }
+
+    @Override
+    @Deprecated
+    public void shutdownClient() {
+        delegate.shutdownClient();
+    }
+
+    @Override
+    public void setServers(Set<String> servers) {
+        delegate.setServers(servers);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private void record(Action<?> action, String endpoint, String outcome, long start) {
+        String actionName = action.getClass().getSimpleName();
+        Timer.builder(METRIC_NAME)
+            .description("Elasticsearch requests")
+            .tag("action", actionName.isEmpty() ? action.getClass().getName() : actionName)
+            .tag("method", action.getRestMethodName())
+            .tag("outcome", outcome)
+            .tag("endpoint", endpoint)
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(JestResult result) {
+        return result != null && result.isSucceeded() ? "success" : "failure";
+    }
+}
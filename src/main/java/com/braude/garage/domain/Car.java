@@ -3,6 +3,12 @@ package com.braude.garage.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import javax.persistence.*;
 
 import org.springframework.data.elasticsearch.annotations.Document;
@@ -16,16 +22,20 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "car")
+@NamedEntityGraph(name = "Car.withClient", attributeNodes = @NamedAttributeNode("client"))
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Document(indexName = "car")
 public class Car implements Serializable {
 
     private static final long serialVersionUID = 1L;
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "carIdGenerator")
+    @GenericGenerator(name = "carIdGenerator", strategy = "com.braude.garage.domain.PooledIdGenerator",
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "car_id_sequence"))
     private Long id;
 
-    @Column(name = "license_plate")
+    @Column(name = "license_plate", unique = true)
     private String licensePlate;
 
     @Column(name = "make")
@@ -42,7 +52,17 @@ public class Car implements Serializable {
     private Client client;
 
     @OneToMany(mappedBy = "car")
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
     private Set<CarService> carServices = new HashSet<>();
+
+    /**
+     * Joined by the criteria and sorts on the aggregates of the services; the row is missing while the car has none.
+     * Mapped as a many-to-one: Hibernate loads a one-to-one on the primary key eagerly, one select per car.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id", insertable = false, updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @JsonIgnore
+    private CarServiceSummary serviceSummary;
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
     public Long getId() {
         return id;
@@ -141,6 +161,10 @@ public class Car implements Serializable {
     public void setCarServices(Set<CarService> carServices) {
         this.carServices = carServices;
     }
+
+    public CarServiceSummary getServiceSummary() {
+        return serviceSummary;
+    }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here, do not remove
 
     @Override
@@ -3,6 +3,12 @@ package com.braude.garage.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import javax.persistence.*;
 
 import org.springframework.data.elasticsearch.annotations.Document;
@@ -15,13 +21,19 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "car_service")
+@NamedEntityGraph(name = "CarService.withCarAndClient",
+    attributeNodes = @NamedAttributeNode(value = "car", subgraph = "car"),
+    subgraphs = @NamedSubgraph(name = "car", attributeNodes = @NamedAttributeNode("client")))
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Document(indexName = "carservice")
 public class CarService implements Serializable {
 
     private static final long serialVersionUID = 1L;
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "carServiceIdGenerator")
+    @GenericGenerator(name = "carServiceIdGenerator", strategy = "com.braude.garage.domain.PooledIdGenerator",
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "car_service_id_sequence"))
     private Long id;
 
     @Column(name = "jhi_date")
@@ -0,0 +1,135 @@
+package com.braude.garage.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The services of a day for the cars of a make, model and year: how many there were, and what they cost in total.
+ * <p>
+ * The rows are kept up to date as the services are saved and deleted, and as the cars change, so that the revenue
+ * over a period is the sum of a few rows per day instead of a scan of the services. Two rows may hold the same
+ * day and car kind, when concurrent transactions created them: the readers sum them.
+ *
+ * @see com.braude.garage.service.CarServiceAnalyticsService
+ */
+@Entity
+@Table(name = "car_service_rollup")
+public class CarServiceRollup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "make")
+    private String make;
+
+    @Column(name = "model")
+    private String model;
+
+    @Column(name = "jhi_year")
+    private Integer year;
+
+    @NotNull
+    @Column(name = "service_count", nullable = false)
+    private Long serviceCount;
+
+    @NotNull
+    @Column(name = "revenue", nullable = false)
+    private Double revenue;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getBucketDate() {
+        return bucketDate;
+    }
+
+    public void setBucketDate(LocalDate bucketDate) {
+        this.bucketDate = bucketDate;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public Long getServiceCount() {
+        return serviceCount;
+    }
+
+    public void setServiceCount(Long serviceCount) {
+        this.serviceCount = serviceCount;
+    }
+
+    public Double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(Double revenue) {
+        this.revenue = revenue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CarServiceRollup carServiceRollup = (CarServiceRollup) o;
+        return !(carServiceRollup.getId() == null || getId() == null) &&
+            Objects.equals(getId(), carServiceRollup.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "CarServiceRollup{" +
+            "id=" + getId() +
+            ", bucketDate=" + getBucketDate() +
+            ", make='" + getMake() + "'" +
+            ", model='" + getModel() + "'" +
+            ", year=" + getYear() +
+            ", serviceCount=" + getServiceCount() +
+            ", revenue=" + getRevenue() +
+            "}";
+    }
+}
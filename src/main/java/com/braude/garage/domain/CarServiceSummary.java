@@ -0,0 +1,97 @@
+package com.braude.garage.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The aggregates of the services of a car: how many there were, what they cost in total, and when the last one was.
+ * <p>
+ * The row exists while the car has services, and is kept up to date as they are saved and deleted, so that the
+ * cars can be sorted and filtered by their spend without summing their services.
+ *
+ * @see com.braude.garage.service.CarServiceSummaryService
+ */
+@Entity
+@Table(name = "car_service_summary")
+public class CarServiceSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "car_id")
+    private Long carId;
+
+    @NotNull
+    @Column(name = "service_count", nullable = false)
+    private Long serviceCount;
+
+    @NotNull
+    @Column(name = "total_spend", nullable = false)
+    private Double totalSpend;
+
+    @Column(name = "last_service_date")
+    private LocalDate lastServiceDate;
+
+    public Long getCarId() {
+        return carId;
+    }
+
+    public void setCarId(Long carId) {
+        this.carId = carId;
+    }
+
+    public Long getServiceCount() {
+        return serviceCount;
+    }
+
+    public void setServiceCount(Long serviceCount) {
+        this.serviceCount = serviceCount;
+    }
+
+    public Double getTotalSpend() {
+        return totalSpend;
+    }
+
+    public void setTotalSpend(Double totalSpend) {
+        this.totalSpend = totalSpend;
+    }
+
+    public LocalDate getLastServiceDate() {
+        return lastServiceDate;
+    }
+
+    public void setLastServiceDate(LocalDate lastServiceDate) {
+        this.lastServiceDate = lastServiceDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CarServiceSummary carServiceSummary = (CarServiceSummary) o;
+        return !(carServiceSummary.getCarId() == null || getCarId() == null) &&
+            Objects.equals(getCarId(), carServiceSummary.getCarId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getCarId());
+    }
+
+    @Override
+    public String toString() {
+        return "CarServiceSummary{" +
+            "carId=" + getCarId() +
+            ", serviceCount=" + getServiceCount() +
+            ", totalSpend=" + getTotalSpend() +
+            ", lastServiceDate=" + getLastServiceDate() +
+            "}";
+    }
+}
@@ -3,6 +3,12 @@ package com.braude.garage.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import javax.persistence.*;
 
 import org.springframework.data.elasticsearch.annotations.Document;
@@ -14,13 +20,17 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "client")
+@NamedEntityGraph(name = "Client.withCar", attributeNodes = @NamedAttributeNode("car"))
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Document(indexName = "client")
 public class Client implements Serializable {
 
     private static final long serialVersionUID = 1L;
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "clientIdGenerator")
+    @GenericGenerator(name = "clientIdGenerator", strategy = "com.braude.garage.domain.PooledIdGenerator",
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "client_id_sequence"))
     private Long id;
 
     @Column(name = "first_name")
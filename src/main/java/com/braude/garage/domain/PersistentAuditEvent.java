@@ -1,5 +1,10 @@
 package com.braude.garage.domain;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -20,7 +25,9 @@ public class PersistentAuditEvent implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "persistentAuditEventIdGenerator")
+    @GenericGenerator(name = "persistentAuditEventIdGenerator", strategy = "com.braude.garage.domain.PooledIdGenerator",
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "jhi_persistent_audit_event_id_sequence"))
     @Column(name = "event_id")
     private Long id;
 
@@ -38,6 +45,7 @@ public class PersistentAuditEvent implements Serializable {
     @MapKeyColumn(name = "name")
     @Column(name = "value")
     @CollectionTable(name = "jhi_persistent_audit_evt_data", joinColumns=@JoinColumn(name="event_id"))
+    @BatchSize(size = 20)
     private Map<String, String> data = new HashMap<>();
 
     public Long getId() {
@@ -0,0 +1,34 @@
+package com.braude.garage.domain;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Id generator reserving blocks of ids from a one-row table, so that Hibernate can batch inserts.
+ * <p>
+ * Unlike IDENTITY columns, which make Hibernate run each insert as soon as the entity is persisted to read its id,
+ * this generator hands out ids from memory, and only updates the table once per block. The table holds the first id
+ * of the next block (the "pooled-lo" optimizer), so the block size can be changed at any time, with the
+ * {@value #INCREMENT_SIZE_SETTING} Hibernate property, without risk of reusing ids.
+ */
+public class PooledIdGenerator extends SequenceStyleGenerator {
+
+    public static final String INCREMENT_SIZE_SETTING = "garage.id.increment_size";
+
+    public static final int DEFAULT_INCREMENT_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        int incrementSize = ConfigurationHelper.getInt(INCREMENT_SIZE_SETTING,
+            serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_INCREMENT_SIZE);
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(incrementSize));
+        params.putIfAbsent(OPT_PARAM, "pooled-lo");
+        params.putIfAbsent(FORCE_TBL_PARAM, "true");
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,123 @@
+package com.braude.garage.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A revocation of JWT tokens, kept until the tokens it revokes have expired anyway.
+ * <p>
+ * It either revokes a single token, by its id, or all the tokens of a login issued up to a date. The table is
+ * also the log through which the instances of the application learn about the revocations made by the others.
+ *
+ * @see com.braude.garage.security.jwt.TokenRevocationService
+ */
+@Entity
+@Table(name = "revoked_token")
+public class RevokedToken implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Size(max = 36)
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Size(max = 50)
+    @Column(name = "login", length = 50)
+    private String login;
+
+    @Column(name = "issued_before")
+    private Instant issuedBefore;
+
+    @NotNull
+    @Column(name = "revocation_date", nullable = false)
+    private Instant revocationDate;
+
+    @NotNull
+    @Column(name = "expiration_date", nullable = false)
+    private Instant expirationDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public Instant getIssuedBefore() {
+        return issuedBefore;
+    }
+
+    public void setIssuedBefore(Instant issuedBefore) {
+        this.issuedBefore = issuedBefore;
+    }
+
+    public Instant getRevocationDate() {
+        return revocationDate;
+    }
+
+    public void setRevocationDate(Instant revocationDate) {
+        this.revocationDate = revocationDate;
+    }
+
+    public Instant getExpirationDate() {
+        return expirationDate;
+    }
+
+    public void setExpirationDate(Instant expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RevokedToken revokedToken = (RevokedToken) o;
+        return !(revokedToken.getId() == null || getId() == null) && Objects.equals(getId(), revokedToken.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "RevokedToken{" +
+            "id=" + getId() +
+            ", tokenId='" + getTokenId() + "'" +
+            ", login='" + getLogin() + "'" +
+            ", issuedBefore=" + getIssuedBefore() +
+            ", revocationDate=" + getRevocationDate() +
+            ", expirationDate=" + getExpirationDate() +
+            "}";
+    }
+}
@@ -0,0 +1,100 @@
+package com.braude.garage.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A running Elasticsearch index rebuild.
+ * <p>
+ * The row exists for as long as the rebuild runs, and acts as a cluster-wide lock on the index: a second
+ * rebuild of the same index is refused, and the search indexer holds back the outbox events of that index
+ * until the alias has been swapped. A row whose heartbeat is older than
+ * {@code application.search-reindex.stale-after-ms} belongs to a crashed node and may be taken over.
+ *
+ * @see com.braude.garage.service.SearchReindexService
+ */
+@Entity
+@Table(name = "search_reindex")
+public class SearchReindex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "index_name", length = 50)
+    private String indexName;
+
+    @NotNull
+    @Column(name = "target_index", length = 100, nullable = false)
+    private String targetIndex;
+
+    @NotNull
+    @Column(name = "started_date", nullable = false)
+    private Instant startedDate;
+
+    @NotNull
+    @Column(name = "heartbeat_date", nullable = false)
+    private Instant heartbeatDate;
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getTargetIndex() {
+        return targetIndex;
+    }
+
+    public void setTargetIndex(String targetIndex) {
+        this.targetIndex = targetIndex;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getHeartbeatDate() {
+        return heartbeatDate;
+    }
+
+    public void setHeartbeatDate(Instant heartbeatDate) {
+        this.heartbeatDate = heartbeatDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchReindex searchReindex = (SearchReindex) o;
+        return !(searchReindex.getIndexName() == null || getIndexName() == null) &&
+            Objects.equals(getIndexName(), searchReindex.getIndexName());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getIndexName());
+    }
+
+    @Override
+    public String toString() {
+        return "SearchReindex{" +
+            "indexName='" + getIndexName() + "'" +
+            ", targetIndex='" + getTargetIndex() + "'" +
+            ", startedDate=" + getStartedDate() +
+            ", heartbeatDate=" + getHeartbeatDate() +
+            "}";
+    }
+}
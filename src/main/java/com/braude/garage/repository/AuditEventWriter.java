@@ -0,0 +1,173 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.PersistentAuditEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Background writer of the audit events, so that an authentication does not wait for its event to be inserted.
+ * <p>
+ * The events are added to a buffer of {@code application.audit-events.buffer-capacity} events, drained by a single
+ * worker on the "auditExecutor", which inserts them by transactions of {@code application.audit-events.batch-size}
+ * events: their ids come from a {@link com.braude.garage.domain.PooledIdGenerator}, so Hibernate sends each
+ * transaction in JDBC batches. A full buffer makes the authentication wait, or drops its event, depending on
+ * {@code application.audit-events.overflow-policy}. The buffer is written before the application stops.
+ * <p>
+ * The events are lost if the application is killed, or if their transaction fails: they are counted and logged, not
+ * retried.
+ */
+@Component
+public class AuditEventWriter {
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventWriter.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final ApplicationProperties.AuditEvents properties;
+
+    private final Executor auditExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<PersistentAuditEvent> buffer;
+
+    private final AtomicBoolean working = new AtomicBoolean();
+
+    private final Lock writeLock = new ReentrantLock();
+
+    private volatile boolean closed;
+
+    private final Counter writtenCounter;
+
+    private final Counter droppedCounter;
+
+    private final Counter failedCounter;
+
+    public AuditEventWriter(PersistenceAuditEventRepository persistenceAuditEventRepository,
+            ApplicationProperties applicationProperties, @Qualifier("auditExecutor") Executor auditExecutor,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.properties = applicationProperties.getAuditEvents();
+        this.auditExecutor = auditExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferCapacity());
+
+        Gauge.builder("audit.events.pending", buffer, BlockingQueue::size)
+            .description("Number of audit events waiting to be written")
+            .register(meterRegistry);
+        this.writtenCounter = meterRegistry.counter("audit.events", "result", "written");
+        this.droppedCounter = meterRegistry.counter("audit.events", "result", "dropped");
+        this.failedCounter = meterRegistry.counter("audit.events", "result", "failed");
+    }
+
+    /**
+     * Queue an event, to be written by the worker.
+     *
+     * @param event the event
+     */
+    public void write(PersistentAuditEvent event) {
+        if (!offer(event)) {
+            droppedCounter.increment();
+            log.warn("Audit event buffer is full, dropping the {} event of user '{}'", event.getAuditEventType(),
+                event.getPrincipal());
+            return;
+        }
+        if (closed) {
+            // The executor may be gone already
+            flush();
+        } else {
+            wakeUp();
+        }
+    }
+
+    private boolean offer(PersistentAuditEvent event) {
+        if (properties.getOverflowPolicy() == ApplicationProperties.AuditEvents.OverflowPolicy.DROP) {
+            return buffer.offer(event);
+        }
+        try {
+            return buffer.offer(event, properties.getBlockTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void wakeUp() {
+        if (working.compareAndSet(false, true)) {
+            try {
+                auditExecutor.execute(this::work);
+            } catch (RejectedExecutionException e) {
+                working.set(false);
+                log.debug("Audit event writer is busy, the buffer will be written with the next event");
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            flush();
+        } finally {
+            working.set(false);
+        }
+        // An event queued after the last batch, while the worker was still running, did not start another one
+        if (!buffer.isEmpty()) {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Write the buffered events, waiting for the batch being written by the worker, if any.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<PersistentAuditEvent> batch = new ArrayList<>(properties.getBatchSize());
+            while (buffer.drainTo(batch, properties.getBatchSize()) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeBatch(List<PersistentAuditEvent> batch) {
+        try {
+            transactionTemplate.execute(status -> persistenceAuditEventRepository.saveAll(batch));
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.error("Could not write {} audit events", batch.size(), e);
+        }
+    }
+
+    /**
+     * Write the events left in the buffer, before the data source is closed.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        flush();
+    }
+}
@@ -1,15 +1,114 @@
 package com.braude.garage.repository;
 
 import com.braude.garage.domain.Car;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Spring Data  repository for the Car entity.
+ * <p>
+ * Listings read each car together with its client, through the {@value #ENTITY_GRAPH} fetch plan.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car> {
 
+    String ENTITY_GRAPH = "Car.withClient";
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    Page<Car> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    List<Car> findAll(@Nullable Specification<Car> spec);
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    Page<Car> findAll(@Nullable Specification<Car> spec, Pageable pageable);
+
+    @EntityGraph(ENTITY_GRAPH)
+    List<Car> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Lock the rows of the cars, in the order of their ids so that concurrent transactions cannot deadlock.
+     *
+     * @param ids the ids of the cars
+     * @return the ids of the cars found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select car.id from Car car where car.id in :ids order by car.id")
+    List<Long> lockAllById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lock the rows of the cars like {@link #lockAllById(Collection)}, and read their make, model and year.
+     *
+     * @param ids the ids of the cars
+     * @return the cars found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select car.id as id, car.make as make, car.model as model, car.year as year from Car car " +
+        "where car.id in :ids order by car.id")
+    List<Kind> lockAllKindsById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find the cars holding license plates, without reading their clients.
+     *
+     * @param licensePlates the license plates
+     * @return the id and license plate of the cars found
+     */
+    @Query("select car.id as id, car.licensePlate as licensePlate from Car car where car.licensePlate in :licensePlates")
+    List<Plate> findAllPlatesByLicensePlateIn(@Param("licensePlates") Collection<String> licensePlates);
+
+    /**
+     * Find the cars owned by clients, without reading the clients.
+     *
+     * @param clientIds the ids of the clients
+     * @return the id and client id of the cars found
+     */
+    @Query("select car.id as id, car.client.id as clientId from Car car where car.client.id in :clientIds")
+    List<Owner> findAllOwnersByClientIdIn(@Param("clientIds") Collection<Long> clientIds);
+
+    /**
+     * The make, model and year of a car.
+     */
+    interface Kind {
+
+        Long getId();
+
+        String getMake();
+
+        String getModel();
+
+        Integer getYear();
+    }
+
+    /**
+     * The license plate of a car.
+     */
+    interface Plate {
+
+        Long getId();
+
+        String getLicensePlate();
+    }
+
+    /**
+     * The client of a car.
+     */
+    interface Owner {
+
+        Long getId();
+
+        Long getClientId();
+    }
 }
@@ -1,15 +1,68 @@
 package com.braude.garage.repository;
 
 import com.braude.garage.domain.CarService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Spring Data  repository for the CarService entity.
+ * <p>
+ * Listings read each car service together with its car and the client of the car, through the
+ * {@value #ENTITY_GRAPH} fetch plan.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface CarServiceRepository extends JpaRepository<CarService, Long>, JpaSpecificationExecutor<CarService> {
 
+    String ENTITY_GRAPH = "CarService.withCarAndClient";
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    Page<CarService> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    List<CarService> findAll(@Nullable Specification<CarService> spec);
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    Page<CarService> findAll(@Nullable Specification<CarService> spec, Pageable pageable);
+
+    @EntityGraph(ENTITY_GRAPH)
+    List<CarService> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Read the car services locked, in the order of their ids so that concurrent transactions cannot deadlock: the
+     * state read is the one a change replaces, until the change commits.
+     *
+     * @param ids the ids of the car services
+     * @return the car services found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select carService from CarService carService where carService.id in :ids order by carService.id")
+    List<CarService> lockAllById(@Param("ids") Collection<Long> ids);
+
+    @Query("select max(carService.date) from CarService carService where carService.car.id = :carId")
+    LocalDate findLastDateByCarId(@Param("carId") Long carId);
+
+    @Query("select min(carService.date) from CarService carService")
+    LocalDate findFirstDate();
+
+    @Query("select max(carService.date) from CarService carService")
+    LocalDate findLastDate();
+
+    @Query("select carService.date as bucketDate, count(carService) as serviceCount, " +
+        "sum(coalesce(carService.totalCost, 0.0)) as revenue from CarService carService " +
+        "where carService.car.id = :carId and carService.date is not null group by carService.date")
+    List<DailyRevenue> sumByDateForCarId(@Param("carId") Long carId);
 }
@@ -0,0 +1,88 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.domain.CarServiceRollup;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the CarServiceRollup entity.
+ * <p>
+ * The rows are read as projections and incremented by bulk updates, so that they never sit in the persistence
+ * context with a stale count.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface CarServiceRollupRepository extends JpaRepository<CarServiceRollup, Long> {
+
+    @Query("select rollup.id as id, rollup.bucketDate as bucketDate, rollup.make as make, rollup.model as model, " +
+        "rollup.year as year from CarServiceRollup rollup where rollup.bucketDate in :bucketDates order by rollup.id")
+    List<Key> findKeysByBucketDateIn(@Param("bucketDates") Collection<LocalDate> bucketDates);
+
+    @Modifying
+    @Query("update CarServiceRollup rollup set rollup.serviceCount = rollup.serviceCount + :serviceCount, " +
+        "rollup.revenue = rollup.revenue + :revenue where rollup.id = :id")
+    int increment(@Param("id") Long id, @Param("serviceCount") long serviceCount, @Param("revenue") double revenue);
+
+    /**
+     * Sum the rows of each day of a period, for the cars of a make, model and year.
+     *
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @param make the make of the cars, or null for all of them
+     * @param model the model of the cars, or null for all of them
+     * @param year the year of the cars, or null for all of them
+     * @return the days having services, in order
+     */
+    @Query("select rollup.bucketDate as bucketDate, sum(rollup.serviceCount) as serviceCount, sum(rollup.revenue) as revenue " +
+        "from CarServiceRollup rollup where rollup.bucketDate between :from and :to " +
+        "and (:make is null or rollup.make = :make) and (:model is null or rollup.model = :model) " +
+        "and (:year is null or rollup.year = :year) " +
+        "group by rollup.bucketDate order by rollup.bucketDate")
+    List<DailyRevenue> sumByBucketDate(@Param("from") LocalDate from, @Param("to") LocalDate to,
+        @Param("make") String make, @Param("model") String model, @Param("year") Integer year);
+
+    @Modifying
+    @Query("delete from CarServiceRollup rollup where rollup.bucketDate between :from and :to")
+    int deleteByBucketDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("delete from CarServiceRollup rollup where rollup.bucketDate < :from or rollup.bucketDate > :to")
+    int deleteByBucketDateNotBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Insert the rows of the services of a period, summed from the services. The rows of the period must have been
+     * deleted first.
+     *
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return the number of rows inserted
+     */
+    @Modifying
+    @Query(value = "insert into car_service_rollup (bucket_date, make, model, jhi_year, service_count, revenue) " +
+        "select s.jhi_date, c.make, c.model, c.jhi_year, count(*), coalesce(sum(s.total_cost), 0) " +
+        "from car_service s left join car c on c.id = s.car_id " +
+        "where s.jhi_date between :from and :to " +
+        "group by s.jhi_date, c.make, c.model, c.jhi_year", nativeQuery = true)
+    int insertFromServicesBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * The day and the kind of car of a row.
+     */
+    interface Key {
+
+        Long getId();
+
+        LocalDate getBucketDate();
+
+        String getMake();
+
+        String getModel();
+
+        Integer getYear();
+    }
+}
@@ -0,0 +1,13 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.domain.CarServiceSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data  repository for the CarServiceSummary entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface CarServiceSummaryRepository extends JpaRepository<CarServiceSummary, Long> {
+}
@@ -1,15 +1,48 @@
 package com.braude.garage.repository;
 
 import com.braude.garage.domain.Client;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 
 /**
  * Spring Data  repository for the Client entity.
+ * <p>
+ * The car of a client is the inverse side of a one-to-one, which Hibernate cannot load lazily: a client read on
+ * its own costs one more select to find its car. Listings therefore read each client together with its car,
+ * through the {@value #ENTITY_GRAPH} fetch plan.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long>, JpaSpecificationExecutor<Client> {
 
+    String ENTITY_GRAPH = "Client.withCar";
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    List<Client> findAll();
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    Page<Client> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    List<Client> findAll(@Nullable Specification<Client> spec);
+
+    @Override
+    @EntityGraph(ENTITY_GRAPH)
+    Page<Client> findAll(@Nullable Specification<Client> spec, Pageable pageable);
+
+    @EntityGraph(ENTITY_GRAPH)
+    @Query("select client from Client client where not exists (select car from Car car where car.client = client)")
+    List<Client> findAllWithoutCar();
+
+    @EntityGraph(ENTITY_GRAPH)
+    List<Client> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
@@ -0,0 +1,383 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.repository.CriteriaQueryDefinition.FilterDefinition;
+import com.braude.garage.repository.CriteriaQueryDefinition.FilterKind;
+
+import io.github.jhipster.service.filter.Filter;
+import io.github.jhipster.service.filter.RangeFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Runs the criteria queries from JPQL written once per combination of filters and sort.
+ * <p>
+ * A {@link org.springframework.data.jpa.domain.Specification} builds a new criteria tree at each request, which
+ * Hibernate renders to JPQL, with the numeric values inlined: each id or year filtered on makes a new query for
+ * Hibernate to translate to SQL, and so does each query read through an entity graph. Here the operators set on the
+ * filters and the sort, never their values, make the key of a plan holding the JPQL, whose parameters are bound at
+ * each request, and whose associations are fetched by joins: Hibernate finds its translation in its own plan cache.
+ * <p>
+ * The queries match the ones of the specifications, one left join per condition on an association included.
+ * The combinations the plans do not cover, such as a sort on an association, are left to the specifications.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class CompiledCriteriaRepository {
+
+    private static final int EQUALS = 1;
+
+    private static final int IN = 1 << 1;
+
+    private static final int CONTAINS = 1 << 2;
+
+    private static final int SPECIFIED = 1 << 3;
+
+    private static final int NOT_SPECIFIED = 1 << 4;
+
+    private static final int GREATER_THAN = 1 << 5;
+
+    private static final int GREATER_OR_EQUAL_THAN = 1 << 6;
+
+    private static final int LESS_THAN = 1 << 7;
+
+    private static final int LESS_OR_EQUAL_THAN = 1 << 8;
+
+    private static final int UNSUPPORTED = -1;
+
+    private static final String ALIAS = "e";
+
+    private final EntityManager entityManager;
+
+    private final ApplicationProperties.CriteriaQueries properties;
+
+    private final ConcurrentMap<String, Plan> plans = new ConcurrentHashMap<>();
+
+    public CompiledCriteriaRepository(EntityManager entityManager, ApplicationProperties applicationProperties) {
+        this.entityManager = entityManager;
+        this.properties = applicationProperties.getCriteriaQueries();
+    }
+
+    /**
+     * Bind the values of the criteria to the plan of their combination of filters and sort.
+     *
+     * @param definition the filters of the criteria
+     * @param criteria the criteria, may be null
+     * @param sort the sort of the entities
+     * @return the query, or nothing when it must be run from its specification
+     */
+    public <E, C> Optional<CompiledQuery<E>> compile(CriteriaQueryDefinition<E, C> definition, C criteria, Sort sort) {
+        if (!properties.isCompileEnabled()) {
+            return Optional.empty();
+        }
+        StringBuilder key = new StringBuilder(64).append(definition.getDomainClass().getName());
+        List<Object> values = new ArrayList<>();
+        if (criteria != null) {
+            List<FilterDefinition<C>> filters = definition.getFilters();
+            for (int i = 0; i < filters.size(); i++) {
+                FilterDefinition<C> filter = filters.get(i);
+                Filter<?> value = filter.getter.apply(criteria);
+                int operators = operators(filter.kind, value);
+                if (operators == UNSUPPORTED) {
+                    return Optional.empty();
+                }
+                if (operators != 0) {
+                    key.append('&').append(i).append(':').append(operators);
+                    addValues(operators, value, values);
+                }
+            }
+        }
+        key.append('|');
+        for (Sort.Order order : sort) {
+            key.append(order.getProperty()).append(',').append(order.getDirection().isAscending() ? 'a' : 'd')
+                .append(order.isIgnoreCase() ? ",i;" : ";");
+        }
+        String planKey = key.toString();
+        Plan plan = plans.get(planKey);
+        if (plan == null) {
+            plan = plan(definition, criteria, sort);
+            if (plans.size() < properties.getMaxPlans()) {
+                plans.putIfAbsent(planKey, plan);
+            }
+        }
+        if (plan == Plan.UNSUPPORTED) {
+            return Optional.empty();
+        }
+        return Optional.of(new CompiledQuery<>(definition.getDomainClass(), plan, values.toArray()));
+    }
+
+    /**
+     * Create the query reading the entities, with their associations fetched and in the order of the sort compiled.
+     *
+     * @param query the compiled query
+     * @return the JPA query, parameters bound
+     */
+    public <E> TypedQuery<E> createQuery(CompiledQuery<E> query) {
+        return bind(entityManager.createQuery(query.plan.select, query.domainClass), query);
+    }
+
+    /**
+     * Create the query counting the entities.
+     *
+     * @param query the compiled query
+     * @return the JPA query, parameters bound
+     */
+    public TypedQuery<Long> createCountQuery(CompiledQuery<?> query) {
+        return bind(entityManager.createQuery(query.plan.count, Long.class), query);
+    }
+
+    /**
+     * Read all the entities matching the query.
+     *
+     * @param query the compiled query
+     * @return the entities
+     */
+    public <E> List<E> findAll(CompiledQuery<E> query) {
+        return createQuery(query).getResultList();
+    }
+
+    /**
+     * Read a page of the entities matching the query, counted only when the page does not tell their number.
+     *
+     * @param query the query, compiled with the sort of the page
+     * @param pageable the page to read
+     * @return the page of entities
+     */
+    public <E> Page<E> findAll(CompiledQuery<E> query, Pageable pageable) {
+        TypedQuery<E> typedQuery = createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(query));
+    }
+
+    /**
+     * Count the entities matching the query.
+     *
+     * @param query the compiled query
+     * @return the number of entities
+     */
+    public long count(CompiledQuery<?> query) {
+        return createCountQuery(query).getSingleResult();
+    }
+
+    /**
+     * @return the number of plans kept
+     */
+    public int getPlanCount() {
+        return plans.size();
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> typedQuery, CompiledQuery<?> query) {
+        for (int i = 0; i < query.values.length; i++) {
+            typedQuery.setParameter(query.plan.parameters[i], query.values[i]);
+        }
+        return typedQuery;
+    }
+
+    /**
+     * @return the operators {@code QueryService} applies for the filter, {@link #UNSUPPORTED} for an empty in
+     */
+    private static int operators(FilterKind kind, Filter<?> filter) {
+        if (filter == null) {
+            return 0;
+        }
+        if (filter.getEquals() != null) {
+            return EQUALS;
+        }
+        if (filter.getIn() != null) {
+            return filter.getIn().isEmpty() ? UNSUPPORTED : IN;
+        }
+        if (kind == FilterKind.STRING && ((StringFilter) filter).getContains() != null) {
+            return CONTAINS;
+        }
+        int operators = filter.getSpecified() == null ? 0 : filter.getSpecified() ? SPECIFIED : NOT_SPECIFIED;
+        if (kind == FilterKind.RANGE) {
+            RangeFilter<?> range = (RangeFilter<?>) filter;
+            operators |= range.getGreaterThan() != null ? GREATER_THAN : 0;
+            operators |= range.getGreaterOrEqualThan() != null ? GREATER_OR_EQUAL_THAN : 0;
+            operators |= range.getLessThan() != null ? LESS_THAN : 0;
+            operators |= range.getLessOrEqualThan() != null ? LESS_OR_EQUAL_THAN : 0;
+        }
+        return operators;
+    }
+
+    private static void addValues(int operators, Filter<?> filter, List<Object> values) {
+        if ((operators & EQUALS) != 0) {
+            values.add(filter.getEquals());
+        } else if ((operators & IN) != 0) {
+            values.add(filter.getIn());
+        } else if ((operators & CONTAINS) != 0) {
+            values.add('%' + ((StringFilter) filter).getContains().toUpperCase() + '%');
+        } else if (filter instanceof RangeFilter) {
+            RangeFilter<?> range = (RangeFilter<?>) filter;
+            if ((operators & GREATER_THAN) != 0) {
+                values.add(range.getGreaterThan());
+            }
+            if ((operators & GREATER_OR_EQUAL_THAN) != 0) {
+                values.add(range.getGreaterOrEqualThan());
+            }
+            if ((operators & LESS_THAN) != 0) {
+                values.add(range.getLessThan());
+            }
+            if ((operators & LESS_OR_EQUAL_THAN) != 0) {
+                values.add(range.getLessOrEqualThan());
+            }
+        }
+    }
+
+    private <E, C> Plan plan(CriteriaQueryDefinition<E, C> definition, C criteria, Sort sort) {
+        EntityType<E> entityType = entityManager.getMetamodel().entity(definition.getDomainClass());
+        StringBuilder orderBy = new StringBuilder();
+        for (Sort.Order order : sort) {
+            Attribute<? super E, ?> attribute;
+            try {
+                attribute = entityType.getAttribute(order.getProperty());
+            } catch (IllegalArgumentException e) {
+                return Plan.UNSUPPORTED;
+            }
+            if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                return Plan.UNSUPPORTED;
+            }
+            String path = ALIAS + '.' + order.getProperty();
+            if (order.isIgnoreCase() && String.class.equals(attribute.getJavaType())) {
+                path = "upper(" + path + ")";
+            }
+            orderBy.append(orderBy.length() == 0 ? " order by " : ", ")
+                .append(path).append(order.isAscending() ? " asc" : " desc");
+        }
+
+        StringBuilder joins = new StringBuilder();
+        int joinCount = 0;
+        StringBuilder where = new StringBuilder();
+        List<String> parameters = new ArrayList<>();
+        if (criteria != null) {
+            for (FilterDefinition<C> filter : definition.getFilters()) {
+                int operators = operators(filter.kind, filter.getter.apply(criteria));
+                for (int operator = 1; operator <= operators; operator <<= 1) {
+                    if ((operators & operator) == 0) {
+                        continue;
+                    }
+                    String path = ALIAS + '.' + filter.attribute;
+                    if (filter.join != null) {
+                        String alias = "j" + joinCount++;
+                        joins.append(" left join ").append(ALIAS).append('.').append(filter.join).append(' ').append(alias);
+                        path = alias + '.' + filter.attribute;
+                    }
+                    where.append(where.length() == 0 ? " where " : " and ");
+                    appendCondition(where, path, operator, parameters);
+                }
+            }
+        }
+
+        StringBuilder fetches = new StringBuilder();
+        Map<String, String> fetchAliases = new HashMap<>();
+        for (String fetch : definition.getFetches()) {
+            int dot = fetch.lastIndexOf('.');
+            String owner = dot < 0 ? ALIAS : fetchAliases.get(fetch.substring(0, dot));
+            String alias = "f" + fetchAliases.size();
+            fetchAliases.put(fetch, alias);
+            fetches.append(" left join fetch ").append(owner).append('.').append(fetch.substring(dot + 1))
+                .append(' ').append(alias);
+        }
+
+        String from = " from " + entityType.getName() + ' ' + ALIAS;
+        return new Plan("select " + ALIAS + from + fetches + joins + where + orderBy,
+            "select count(" + ALIAS + ")" + from + joins + where, parameters.toArray(new String[0]));
+    }
+
+    private static void appendCondition(StringBuilder where, String path, int operator, List<String> parameters) {
+        switch (operator) {
+            case SPECIFIED:
+                where.append(path).append(" is not null");
+                return;
+            case NOT_SPECIFIED:
+                where.append(path).append(" is null");
+                return;
+            case IN:
+                where.append(path).append(" in (:");
+                break;
+            case CONTAINS:
+                where.append("upper(").append(path).append(") like :");
+                break;
+            case GREATER_THAN:
+                where.append(path).append(" > :");
+                break;
+            case GREATER_OR_EQUAL_THAN:
+                where.append(path).append(" >= :");
+                break;
+            case LESS_THAN:
+                where.append(path).append(" < :");
+                break;
+            case LESS_OR_EQUAL_THAN:
+                where.append(path).append(" <= :");
+                break;
+            default:
+                where.append(path).append(" = :");
+        }
+        String parameter = "p" + parameters.size();
+        parameters.add(parameter);
+        where.append(parameter).append(operator == IN ? ")" : "");
+    }
+
+    /**
+     * The JPQL of a combination of filters and sort.
+     */
+    private static final class Plan {
+
+        private static final Plan UNSUPPORTED = new Plan(null, null, new String[0]);
+
+        private final String select;
+
+        private final String count;
+
+        private final String[] parameters;
+
+        Plan(String select, String count, String[] parameters) {
+            this.select = select;
+            this.count = count;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * A plan, and the values of the criteria to bind to its parameters.
+     *
+     * @param <E> the entity
+     */
+    public static final class CompiledQuery<E> {
+
+        private final Class<E> domainClass;
+
+        private final Plan plan;
+
+        private final Object[] values;
+
+        private CompiledQuery(Class<E> domainClass, Plan plan, Object[] values) {
+            this.domainClass = domainClass;
+            this.plan = plan;
+            this.values = values;
+        }
+
+        @Override
+        public String toString() {
+            return "CompiledQuery{" +
+                "select='" + plan.select + "'" +
+                ", values=" + Arrays.toString(values) +
+                "}";
+        }
+    }
+}
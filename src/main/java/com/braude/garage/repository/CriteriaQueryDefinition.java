@@ -0,0 +1,111 @@
+package com.braude.garage.repository;
+
+import io.github.jhipster.service.filter.Filter;
+import io.github.jhipster.service.filter.RangeFilter;
+import io.github.jhipster.service.filter.StringFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The filters of a criteria class, and the attributes of the entity they apply to, from which the
+ * {@link CompiledCriteriaRepository} writes the queries of the criteria.
+ * <p>
+ * Each filter is declared after the {@link io.github.jhipster.service.QueryService} method the query service calls
+ * for it, since they do not apply the same operators: {@link #filter} for {@code buildSpecification} on an attribute,
+ * {@link #stringFilter} for {@code buildStringSpecification}, and {@link #rangeFilter} for
+ * {@code buildRangeSpecification}, or for {@code buildSpecification} on a joined attribute. A path such as
+ * {@code client.id} is read through a left join of {@code client}, as the specifications do.
+ *
+ * @param <E> the entity
+ * @param <C> the criteria
+ */
+public final class CriteriaQueryDefinition<E, C> {
+
+    private final Class<E> domainClass;
+
+    private final List<String> fetches = new ArrayList<>();
+
+    private final List<FilterDefinition<C>> filters = new ArrayList<>();
+
+    public CriteriaQueryDefinition(Class<E> domainClass) {
+        this.domainClass = domainClass;
+    }
+
+    /**
+     * Declare an association read together with the entities, the way the entity graph of their listings does.
+     *
+     * @param path the association, of the entity or of an association fetched before, e.g. {@code car.client}
+     * @return this definition
+     */
+    public CriteriaQueryDefinition<E, C> fetch(String path) {
+        fetches.add(path);
+        return this;
+    }
+
+    /**
+     * Declare a filter applying equals, in or specified, in that order of precedence.
+     */
+    public CriteriaQueryDefinition<E, C> filter(String path, Function<C, ? extends Filter<?>> getter) {
+        return add(path, getter, FilterKind.FILTER);
+    }
+
+    /**
+     * Declare a filter applying equals, in, contains or specified, in that order of precedence.
+     */
+    public CriteriaQueryDefinition<E, C> stringFilter(String path, Function<C, StringFilter> getter) {
+        return add(path, getter, FilterKind.STRING);
+    }
+
+    /**
+     * Declare a filter applying equals, in, or else specified and all the bounds set.
+     */
+    public CriteriaQueryDefinition<E, C> rangeFilter(String path, Function<C, ? extends RangeFilter<?>> getter) {
+        return add(path, getter, FilterKind.RANGE);
+    }
+
+    private CriteriaQueryDefinition<E, C> add(String path, Function<C, ? extends Filter<?>> getter, FilterKind kind) {
+        int dot = path.indexOf('.');
+        filters.add(dot < 0 ? new FilterDefinition<>(null, path, getter, kind)
+            : new FilterDefinition<>(path.substring(0, dot), path.substring(dot + 1), getter, kind));
+        return this;
+    }
+
+    public Class<E> getDomainClass() {
+        return domainClass;
+    }
+
+    List<String> getFetches() {
+        return fetches;
+    }
+
+    List<FilterDefinition<C>> getFilters() {
+        return filters;
+    }
+
+    enum FilterKind {
+        FILTER, STRING, RANGE
+    }
+
+    static final class FilterDefinition<C> {
+
+        /**
+         * The association joined, or null for an attribute of the entity.
+         */
+        final String join;
+
+        final String attribute;
+
+        final Function<C, ? extends Filter<?>> getter;
+
+        final FilterKind kind;
+
+        FilterDefinition(String join, String attribute, Function<C, ? extends Filter<?>> getter, FilterKind kind) {
+            this.join = join;
+            this.attribute = attribute;
+            this.getter = getter;
+            this.kind = kind;
+        }
+    }
+}
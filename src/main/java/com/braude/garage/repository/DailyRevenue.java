@@ -0,0 +1,17 @@
+package com.braude.garage.repository;
+
+import java.time.LocalDate;
+
+/**
+ * The number and the total cost of the services of a day, as summed by a query.
+ *
+ * @see CarServiceRollupRepository
+ */
+public interface DailyRevenue {
+
+    LocalDate getBucketDate();
+
+    Long getServiceCount();
+
+    Double getRevenue();
+}
@@ -0,0 +1,179 @@
+package com.braude.garage.repository;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ReflectionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads entities by keyset (seek) pagination.
+ * <p>
+ * Instead of skipping {@code page * size} rows, each slice starts right after the sort key of the last row of
+ * the previous one, so that reading slice N costs the same as reading the first slice, and no count is issued.
+ * The id is always appended as the last sort property, which makes the key unique.
+ * <p>
+ * Nullable sort properties are supported, assuming that the database sorts NULLs lowest, as MySQL and H2 do.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class KeysetRepository {
+
+    private static final String ID = "id";
+
+    private final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    private final EntityManager entityManager;
+
+    public KeysetRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Read the slice of entities matching the specification which follows the given key.
+     *
+     * @param domainClass the entity class
+     * @param entityGraph the name of the entity graph fetching the associations of the entities, may be null
+     * @param spec the filters the entities should match, may be null
+     * @param sort the sort of the entities; only singular basic attributes are supported
+     * @param after the sort key of the last entity of the previous slice, or null for the first slice
+     * @param size the maximum number of entities to read
+     * @return the slice of entities
+     * @throws IllegalArgumentException if the sort or the key are not valid for this entity, translated to an
+     * {@link org.springframework.dao.InvalidDataAccessApiUsageException} by the repository proxy
+     */
+    public <T> KeysetSlice<T> findAll(Class<T> domainClass, String entityGraph, Specification<T> spec, Sort sort,
+            List<String> after, int size) {
+        Sort keysetSort = withId(sort);
+        List<Sort.Order> orders = new ArrayList<>();
+        keysetSort.forEach(orders::add);
+        if (after != null && after.size() != orders.size()) {
+            throw new IllegalArgumentException("The key " + after + " does not match the sort " + keysetSort);
+        }
+        EntityType<T> entityType = entityManager.getMetamodel().entity(domainClass);
+        List<SingularAttribute<? super T, ?>> attributes = new ArrayList<>();
+        for (Sort.Order order : orders) {
+            attributes.add(sortAttribute(entityType, order.getProperty()));
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (after != null) {
+            predicates.add(seek(cb, root, orders, attributes, after));
+        }
+        List<Order> orderBy = new ArrayList<>();
+        for (Sort.Order order : orders) {
+            Path<?> path = root.get(order.getProperty());
+            orderBy.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        query.select(root).where(predicates.toArray(new Predicate[0])).orderBy(orderBy);
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query).setMaxResults(size + 1);
+        if (entityGraph != null) {
+            typedQuery.setHint(EntityGraphType.FETCH.getKey(), entityManager.getEntityGraph(entityGraph));
+        }
+        List<T> content = new ArrayList<>(typedQuery.getResultList());
+        List<String> nextKey = null;
+        if (content.size() > size) {
+            content.remove(size);
+            BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(content.get(size - 1));
+            nextKey = new ArrayList<>();
+            for (Sort.Order order : orders) {
+                Object value = last.getPropertyValue(order.getProperty());
+                nextKey.add(value == null ? null : value.toString());
+            }
+        }
+        return new KeysetSlice<>(content, keysetSort, nextKey);
+    }
+
+    private static Sort withId(Sort sort) {
+        Sort result = sort == null ? Sort.unsorted() : sort;
+        return result.getOrderFor(ID) != null ? result : result.and(Sort.by(ID));
+    }
+
+    private static <T> SingularAttribute<? super T, ?> sortAttribute(EntityType<T> entityType, String property) {
+        SingularAttribute<? super T, ?> attribute;
+        try {
+            attribute = entityType.getSingularAttribute(property);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort property " + property, e);
+        }
+        if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+            throw new IllegalArgumentException("The sort property " + property + " is not a basic attribute");
+        }
+        return attribute;
+    }
+
+    /**
+     * Build the predicate selecting the rows after the key: for each sort property, the rows equal to the key on
+     * all the previous properties, and after it on this one.
+     */
+    private <T> Predicate seek(CriteriaBuilder cb, Root<T> root, List<Sort.Order> orders,
+            List<SingularAttribute<? super T, ?>> attributes, List<String> after) {
+        List<Predicate> disjuncts = new ArrayList<>();
+        List<Predicate> equals = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Sort.Order order = orders.get(i);
+            Expression<Comparable<Object>> path = root.get(order.getProperty());
+            Comparable<Object> value = convert(after.get(i), attributes.get(i));
+            Predicate following;
+            if (order.isAscending()) {
+                following = value == null ? cb.isNotNull(path) : cb.greaterThan(path, value);
+            } else {
+                following = value == null ? null : cb.or(cb.lessThan(path, value), cb.isNull(path));
+            }
+            if (following != null) {
+                List<Predicate> conjuncts = new ArrayList<>(equals);
+                conjuncts.add(following);
+                disjuncts.add(cb.and(conjuncts.toArray(new Predicate[0])));
+            }
+            equals.add(value == null ? cb.isNull(path) : cb.equal(path, value));
+        }
+        return cb.or(disjuncts.toArray(new Predicate[0]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Comparable<Object> convert(String value, SingularAttribute<?, ?> attribute) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> type = attribute.getJavaType();
+        if (conversionService.canConvert(String.class, type)) {
+            return (Comparable<Object>) Objects.requireNonNull(conversionService.convert(value, type));
+        }
+        // java.time types have no default converter, but all of them parse their own toString()
+        Method parse = ReflectionUtils.findMethod(type, "parse", CharSequence.class);
+        if (parse == null) {
+            throw new IllegalArgumentException("Cannot sort by " + attribute.getName() + " of type " + type.getName());
+        }
+        try {
+            return (Comparable<Object>) parse.invoke(null, value);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid key value " + value + " for " + attribute.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.braude.garage.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A slice of entities read by keyset (seek) pagination.
+ * <p>
+ * Unlike a {@link org.springframework.data.domain.Page} it carries no total count: it only knows whether
+ * more rows follow, and the key of its last row, from which the next slice is read.
+ *
+ * @param <T> the type of the content
+ * @see KeysetRepository
+ */
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+
+    private final Sort sort;
+
+    private final List<String> nextKey;
+
+    public KeysetSlice(List<T> content, Sort sort, List<String> nextKey) {
+        this.content = Collections.unmodifiableList(content);
+        this.sort = sort;
+        this.nextKey = nextKey;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the sort of the slice, which always ends with the id
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * @return the sort key of the last row, or null if this is the last slice
+     */
+    public List<String> getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+
+    public <U> KeysetSlice<U> map(Function<? super T, ? extends U> converter) {
+        return new KeysetSlice<>(content.stream().map(converter).collect(Collectors.toList()), sort, nextKey);
+    }
+}
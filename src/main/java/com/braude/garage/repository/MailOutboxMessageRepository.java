@@ -0,0 +1,45 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.domain.MailOutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for the MailOutboxMessage entity.
+ */
+@Repository
+public interface MailOutboxMessageRepository extends JpaRepository<MailOutboxMessage, Long> {
+
+    /**
+     * Read the messages due, locking them until the end of the transaction so that they are claimed by one sender.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<MailOutboxMessage> findAllByNextAttemptDateLessThanEqualOrderByIdAsc(Instant now, Pageable pageable);
+
+    Optional<MailOutboxMessage> findFirstByOrderByIdAsc();
+
+    @Modifying
+    @Query("update MailOutboxMessage m set m.nextAttemptDate = :nextAttemptDate where m.id in :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("nextAttemptDate") Instant nextAttemptDate);
+
+    @Modifying
+    @Query("delete from MailOutboxMessage m where m.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update MailOutboxMessage m set m.attempts = m.attempts + 1, m.nextAttemptDate = :nextAttemptDate, " +
+        "m.lastError = :lastError where m.id = :id")
+    int reschedule(@Param("id") Long id, @Param("nextAttemptDate") Instant nextAttemptDate,
+        @Param("lastError") String lastError);
+}
@@ -0,0 +1,32 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.domain.RevokedToken;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the RevokedToken entity.
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    List<RevokedToken> findAllByExpirationDateAfter(Instant now);
+
+    List<RevokedToken> findAllByRevocationDateGreaterThanEqualAndExpirationDateAfter(Instant since, Instant now);
+
+    @Query("select count(r) > 0 from RevokedToken r where r.expirationDate > :now and (r.tokenId = :tokenId" +
+        " or (r.login = :login and (:issuedAt is null or r.issuedBefore > :issuedAt)))")
+    boolean isRevoked(@Param("tokenId") String tokenId, @Param("login") String login, @Param("issuedAt") Instant issuedAt,
+        @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from RevokedToken r where r.expirationDate <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,36 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.domain.SearchOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for the SearchOutboxEvent entity.
+ */
+@Repository
+public interface SearchOutboxEventRepository extends JpaRepository<SearchOutboxEvent, Long> {
+
+    List<SearchOutboxEvent> findAllByNextAttemptDateLessThanEqualOrderByIdAsc(Instant now, Pageable pageable);
+
+    List<SearchOutboxEvent> findAllByNextAttemptDateLessThanEqualAndEntityTypeNotInOrderByIdAsc(Instant now,
+        Collection<String> entityTypes, Pageable pageable);
+
+    Optional<SearchOutboxEvent> findFirstByOrderByIdAsc();
+
+    @Modifying
+    @Query("delete from SearchOutboxEvent e where e.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update SearchOutboxEvent e set e.attempts = e.attempts + 1, e.nextAttemptDate = :nextAttemptDate where e.id in :ids")
+    int reschedule(@Param("ids") Collection<Long> ids, @Param("nextAttemptDate") Instant nextAttemptDate);
+}
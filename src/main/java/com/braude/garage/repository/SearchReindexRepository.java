@@ -0,0 +1,25 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.domain.SearchReindex;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the SearchReindex entity.
+ */
+@Repository
+public interface SearchReindexRepository extends JpaRepository<SearchReindex, String> {
+
+    List<SearchReindex> findAllByHeartbeatDateAfter(Instant staleBefore);
+
+    @Modifying
+    @Query("update SearchReindex r set r.heartbeatDate = :heartbeatDate where r.indexName = :indexName and r.targetIndex = :targetIndex")
+    int heartbeat(@Param("indexName") String indexName, @Param("targetIndex") String targetIndex,
+                  @Param("heartbeatDate") Instant heartbeatDate);
+}
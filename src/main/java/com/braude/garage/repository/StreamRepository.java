@@ -0,0 +1,85 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.config.ApplicationProperties;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.function.Consumer;
+
+/**
+ * Reads entities through a forward-only cursor, for exports of any size.
+ * <p>
+ * Rows are fetched from the database {@code application.export.fetch-size} at a time, and the persistence context
+ * is cleared as often, so the memory used does not depend on the number of rows. On MySQL the JDBC URL must enable
+ * {@code useCursorFetch} for the fetch size to be honoured.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class StreamRepository {
+
+    private final EntityManager entityManager;
+
+    private final int fetchSize;
+
+    public StreamRepository(EntityManager entityManager, ApplicationProperties applicationProperties) {
+        this.entityManager = entityManager;
+        this.fetchSize = applicationProperties.getExport().getFetchSize();
+    }
+
+    /**
+     * Perform the action on each entity matching the specification, in order.
+     * <p>
+     * The entities are detached shortly after the action: it must not keep them, nor load their lazy associations
+     * afterwards.
+     *
+     * @param domainClass the entity class
+     * @param spec the filters the entities should match, may be null
+     * @param sort the order of the entities
+     * @param action the action to perform on each entity
+     * @return the number of entities read
+     */
+    @SuppressWarnings("unchecked")
+    public <T> long forEach(Class<T> domainClass, Specification<T> spec, Sort sort, Consumer<? super T> action) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> criteriaQuery = cb.createQuery(domainClass);
+        Root<T> root = criteriaQuery.from(domainClass);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, criteriaQuery, cb);
+            if (predicate != null) {
+                criteriaQuery.where(predicate);
+            }
+        }
+        criteriaQuery.select(root);
+        if (sort != null && sort.isSorted()) {
+            criteriaQuery.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        Query<T> query = entityManager.createQuery(criteriaQuery).unwrap(Query.class)
+            .setFetchSize(fetchSize)
+            .setReadOnly(true)
+            .setCacheMode(CacheMode.IGNORE);
+        long count = 0;
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                action.accept((T) results.get(0));
+                if (++count % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        entityManager.clear();
+        return count;
+    }
+}
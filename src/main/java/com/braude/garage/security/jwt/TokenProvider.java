@@ -2,12 +2,17 @@ package com.braude.garage.security.jwt;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -24,6 +29,8 @@ import io.jsonwebtoken.security.Keys;
 @Component
 public class TokenProvider {
 
+    public static final String VERIFIED_TOKENS_CACHE = "verifiedTokens";
+
     private final Logger log = LoggerFactory.getLogger(TokenProvider.class);
 
     private static final String AUTHORITIES_KEY = "auth";
@@ -36,8 +43,15 @@ public class TokenProvider {
 
     private final JHipsterProperties jHipsterProperties;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties) {
+    private final CacheManager cacheManager;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    public TokenProvider(JHipsterProperties jHipsterProperties, CacheManager cacheManager,
+            TokenRevocationService tokenRevocationService) {
         this.jHipsterProperties = jHipsterProperties;
+        this.cacheManager = cacheManager;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @PostConstruct
@@ -74,7 +88,9 @@ public class TokenProvider {
         }
 
         return Jwts.builder()
+            .setId(UUID.randomUUID().toString())
             .setSubject(authentication.getName())
+            .setIssuedAt(new Date(now))
             .claim(AUTHORITIES_KEY, authorities)
             .signWith(key, SignatureAlgorithm.HS512)
             .setExpiration(validity)
@@ -82,11 +98,78 @@ public class TokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
+        return toAuthentication(parseClaims(token), token);
+    }
+
+    public boolean validateToken(String authToken) {
+        Claims claims = verify(authToken);
+        return claims != null && !isRevoked(claims.getId(), claims.getSubject(), toInstant(claims.getIssuedAt()));
+    }
+
+    /**
+     * Revoke a token, if it is valid.
+     *
+     * @param token the token
+     */
+    public void revokeToken(String token) {
+        Claims claims = verify(token);
+        if (claims != null && claims.getId() != null) {
+            tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration().toInstant());
+        }
+    }
+
+    /**
+     * Verify a token and build its authentication.
+     * <p>
+     * The authentication of a valid token is cached until the token expires, keyed by the digest of the token, so
+     * that a token is parsed and verified once for all the requests which carry it. The cached authentication is
+     * shared by these requests, and must not be modified. Whether the token is revoked is checked every time.
+     *
+     * @param token the token
+     * @return the authentication, or null if the token is not valid or revoked
+     */
+    public Authentication resolveAuthentication(String token) {
+        Cache cache = cacheManager.getCache(VERIFIED_TOKENS_CACHE);
+        String digest = digest(token);
+        VerifiedToken verifiedToken = cache == null ? null : cache.get(digest, VerifiedToken.class);
+        if (verifiedToken == null || !verifiedToken.getExpiration().isAfter(Instant.now())) {
+            Claims claims = verify(token);
+            if (claims == null) {
+                return null;
+            }
+            verifiedToken = new VerifiedToken(toAuthentication(claims, token), claims.getId(),
+                toInstant(claims.getIssuedAt()), toInstant(claims.getExpiration()));
+            if (cache != null && verifiedToken.getExpiration() != null) {
+                cache.put(digest, verifiedToken);
+            }
+        }
+        Authentication authentication = verifiedToken.getAuthentication();
+        if (isRevoked(verifiedToken.getTokenId(), authentication.getName(), verifiedToken.getIssuedAt())) {
+            return null;
+        }
+        return authentication;
+    }
+
+    private boolean isRevoked(String tokenId, String login, Instant issuedAt) {
+        if (tokenRevocationService.isRevoked(tokenId, login, issuedAt)) {
+            log.info("Revoked JWT token.");
+            return true;
+        }
+        return false;
+    }
+
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
+    }
+
+    private Claims parseClaims(String token) {
+        return Jwts.parser()
             .setSigningKey(key)
             .parseClaimsJws(token)
             .getBody();
+    }
 
+    private static Authentication toAuthentication(Claims claims, String token) {
         Collection<? extends GrantedAuthority> authorities =
             Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
                 .map(SimpleGrantedAuthority::new)
@@ -97,10 +180,12 @@ public class TokenProvider {
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * @return the claims of the token, or null if it is not valid
+     */
+    private Claims verify(String authToken) {
         try {
-            Jwts.parser().setSigningKey(key).parseClaimsJws(authToken);
-            return true;
+            return parseClaims(authToken);
         } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException e) {
             log.info("Invalid JWT signature.");
             log.trace("Invalid JWT signature trace: {}", e);
@@ -114,6 +199,52 @@ public class TokenProvider {
             log.info("JWT token compact of handler are invalid.");
             log.trace("JWT token compact of handler are invalid trace: {}", e);
         }
-        return false;
+        return null;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The authentication of a verified token, valid until the expiration of the token.
+     */
+    public static final class VerifiedToken {
+
+        private final Authentication authentication;
+
+        private final String tokenId;
+
+        private final Instant issuedAt;
+
+        private final Instant expiration;
+
+        VerifiedToken(Authentication authentication, String tokenId, Instant issuedAt, Instant expiration) {
+            this.authentication = authentication;
+            this.tokenId = tokenId;
+            this.issuedAt = issuedAt;
+            this.expiration = expiration;
+        }
+
+        public Authentication getAuthentication() {
+            return authentication;
+        }
+
+        public String getTokenId() {
+            return tokenId;
+        }
+
+        public Instant getIssuedAt() {
+            return issuedAt;
+        }
+
+        public Instant getExpiration() {
+            return expiration;
+        }
     }
 }
@@ -0,0 +1,221 @@
+package com.braude.garage.security.jwt;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.RevokedToken;
+import com.braude.garage.repository.RevokedTokenRepository;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revokes JWT tokens before their expiration, either one token by its id, or all the tokens of a login.
+ * <p>
+ * The revocations are stored in the {@link RevokedToken} table, and kept in memory behind a Bloom filter, so that
+ * checking a token which is not revoked, the common case, costs neither a database access nor a lookup in the
+ * exact sets. Every instance polls the table for the revocations made by the others every
+ * {@code application.security.revocation-poll-interval-ms} milliseconds, and rebuilds its filter from it every
+ * {@code application.security.revocation-reload-interval-ms} milliseconds, dropping the expired revocations.
+ * Until the first load, tokens are checked against the database.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final String TOKEN_ID_PREFIX = "jti:";
+
+    private static final String LOGIN_PREFIX = "login:";
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final ApplicationProperties.Security properties;
+
+    private final Duration maxTokenValidity;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private volatile Revocations revocations;
+
+    private Instant lastPoll;
+
+    private Instant nextReload;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository, JHipsterProperties jHipsterProperties,
+            ApplicationProperties applicationProperties, PlatformTransactionManager transactionManager) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.properties = applicationProperties.getSecurity();
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        this.maxTokenValidity = Duration.ofSeconds(
+            Math.max(jwt.getTokenValidityInSeconds(), jwt.getTokenValidityInSecondsForRememberMe()));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Revoke a token.
+     *
+     * @param tokenId the id of the token
+     * @param expiration the expiration of the token, after which its revocation is forgotten
+     */
+    @Transactional
+    public void revokeToken(String tokenId, Instant expiration) {
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setTokenId(tokenId);
+        revokedToken.setRevocationDate(Instant.now());
+        revokedToken.setExpirationDate(expiration);
+        save(revokedToken);
+    }
+
+    /**
+     * Revoke all the tokens issued to a login before the current second.
+     * <p>
+     * The issue date of a token only has a one-second resolution, so a token issued during the current second may
+     * follow the revocation, as the login following a password reset does: these tokens stay valid.
+     *
+     * @param login the login
+     */
+    @Transactional
+    public void revokeTokens(String login) {
+        Instant now = Instant.now();
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setLogin(login);
+        revokedToken.setIssuedBefore(now.truncatedTo(ChronoUnit.SECONDS));
+        revokedToken.setRevocationDate(now);
+        revokedToken.setExpirationDate(now.plus(maxTokenValidity));
+        save(revokedToken);
+    }
+
+    /**
+     * Check whether a token is revoked.
+     *
+     * @param tokenId the id of the token, or null if it has none
+     * @param login the login of the token
+     * @param issuedAt the issue date of the token, or null if it has none
+     * @return true if the token is revoked
+     */
+    public boolean isRevoked(String tokenId, String login, Instant issuedAt) {
+        Revocations current = revocations;
+        if (current == null) {
+            return readOnlyTransactionTemplate.execute(status ->
+                revokedTokenRepository.isRevoked(tokenId, login, issuedAt, Instant.now()));
+        }
+        return current.isRevoked(tokenId, login, issuedAt);
+    }
+
+    /**
+     * Read the revocations made since the previous poll, or reload all of them when it is time.
+     * <p>
+     * This is scheduled to get fired every {@code application.security.revocation-poll-interval-ms} milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${application.security.revocation-poll-interval-ms:2000}")
+    public void poll() {
+        Instant now = Instant.now();
+        Revocations current = revocations;
+        if (current == null || !now.isBefore(nextReload)) {
+            reload(now);
+            return;
+        }
+        // Revocations committed late, or stamped by a clock running behind, are caught by the overlap
+        Instant since = lastPoll.minusMillis(properties.getRevocationPollOverlapMs());
+        List<RevokedToken> revokedTokens = readOnlyTransactionTemplate.execute(status ->
+            revokedTokenRepository.findAllByRevocationDateGreaterThanEqualAndExpirationDateAfter(since, now));
+        revokedTokens.forEach(current::add);
+        lastPoll = now;
+    }
+
+    private void reload(Instant now) {
+        int deleted = transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(now));
+        List<RevokedToken> revokedTokens = readOnlyTransactionTemplate.execute(status ->
+            revokedTokenRepository.findAllByExpirationDateAfter(now));
+        Revocations loaded = new Revocations(
+            Math.max(properties.getRevocationBloomFilterExpectedEntries(), 2L * revokedTokens.size()),
+            properties.getRevocationBloomFilterFalsePositiveRate());
+        revokedTokens.forEach(loaded::add);
+        revocations = loaded;
+        lastPoll = now;
+        nextReload = now.plusMillis(properties.getRevocationReloadIntervalMs());
+        log.debug("Loaded {} token revocations, deleted {} expired ones", revokedTokens.size(), deleted);
+    }
+
+    private void save(RevokedToken revokedToken) {
+        revokedTokenRepository.save(revokedToken);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    register(revokedToken);
+                }
+            });
+        } else {
+            register(revokedToken);
+        }
+    }
+
+    private void register(RevokedToken revokedToken) {
+        Revocations current = revocations;
+        if (current != null) {
+            current.add(revokedToken);
+        }
+    }
+
+    /**
+     * The revocations known by this instance: a Bloom filter of the revoked token ids and logins, in front of
+     * the exact sets.
+     */
+    private static final class Revocations {
+
+        private final BloomFilter bloomFilter;
+
+        private final Map<String, Instant> tokenIds = new ConcurrentHashMap<>();
+
+        private final Map<String, Instant> issuedBeforeByLogin = new ConcurrentHashMap<>();
+
+        Revocations(long expectedEntries, double falsePositiveRate) {
+            this.bloomFilter = new BloomFilter(expectedEntries, falsePositiveRate);
+        }
+
+        void add(RevokedToken revokedToken) {
+            if (revokedToken.getTokenId() != null) {
+                tokenIds.put(revokedToken.getTokenId(), revokedToken.getExpirationDate());
+                bloomFilter.put(TOKEN_ID_PREFIX + revokedToken.getTokenId());
+            }
+            if (revokedToken.getLogin() != null && revokedToken.getIssuedBefore() != null) {
+                issuedBeforeByLogin.merge(revokedToken.getLogin(), revokedToken.getIssuedBefore(),
+                    (issuedBefore, other) -> issuedBefore.isAfter(other) ? issuedBefore : other);
+                bloomFilter.put(LOGIN_PREFIX + revokedToken.getLogin());
+            }
+        }
+
+        boolean isRevoked(String tokenId, String login, Instant issuedAt) {
+            if (tokenId != null && bloomFilter.mightContain(TOKEN_ID_PREFIX + tokenId)
+                    && tokenIds.containsKey(tokenId)) {
+                return true;
+            }
+            if (login != null && bloomFilter.mightContain(LOGIN_PREFIX + login)) {
+                Instant issuedBefore = issuedBeforeByLogin.get(login);
+                // A token without issue date predates the revocations by login
+                return issuedBefore != null && (issuedAt == null || issuedAt.isBefore(issuedBefore));
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.braude.garage.service;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.repository.PersistenceAuditEventRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Service deleting the audit events older than {@code application.audit-events.retention-days}.
+ * <p>
+ * The events are deleted oldest first, by transactions of {@code application.audit-events.purge-chunk-size}
+ * events, found through the time index of the table: each transaction only locks the rows it deletes, for a short
+ * time, so that the authentications writing new events are not held up by a purge of months of them.
+ */
+@Service
+public class AuditEventRetentionService {
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventRetentionService.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final ApplicationProperties.AuditEvents properties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public AuditEventRetentionService(PersistenceAuditEventRepository persistenceAuditEventRepository,
+            ApplicationProperties applicationProperties, PlatformTransactionManager transactionManager) {
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.properties = applicationProperties.getAuditEvents();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Delete the events past their retention.
+     * <p>
+     * This is scheduled to get fired by {@code application.audit-events.purge-cron}, every night by default.
+     */
+    @Scheduled(cron = "${application.audit-events.purge-cron:0 30 1 * * ?}")
+    public void purgeExpiredEvents() {
+        if (properties.getRetentionDays() <= 0) {
+            return;
+        }
+        Instant before = Instant.now().minus(properties.getRetentionDays(), ChronoUnit.DAYS);
+        long purged = purge(before);
+        log.info("Deleted {} audit events older than {}", purged, before);
+    }
+
+    /**
+     * Delete the events older than a date, by chunks.
+     *
+     * @param before the date of the oldest event to keep
+     * @return the number of events deleted
+     */
+    public long purge(Instant before) {
+        int chunkSize = properties.getPurgeChunkSize();
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = persistenceAuditEventRepository.findIdsByAuditEventDateBefore(before,
+                    PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                persistenceAuditEventRepository.deleteDataByEventIdIn(ids);
+                return persistenceAuditEventRepository.deleteByIdIn(ids);
+            });
+            purged += deleted;
+        } while (deleted >= chunkSize);
+        return purged;
+    }
+}
@@ -1,14 +1,21 @@
 package com.braude.garage.service;
 
 import com.braude.garage.config.audit.AuditEventConverter;
+import com.braude.garage.domain.PersistentAuditEvent;
+import com.braude.garage.domain.PersistentAuditEvent_;
+import com.braude.garage.repository.KeysetRepository;
+import com.braude.garage.repository.KeysetSlice;
 import com.braude.garage.repository.PersistenceAuditEventRepository;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -24,12 +31,16 @@ public class AuditEventService {
 
     private final AuditEventConverter auditEventConverter;
 
+    private final KeysetRepository keysetRepository;
+
     public AuditEventService(
         PersistenceAuditEventRepository persistenceAuditEventRepository,
-        AuditEventConverter auditEventConverter) {
+        AuditEventConverter auditEventConverter,
+        KeysetRepository keysetRepository) {
 
         this.persistenceAuditEventRepository = persistenceAuditEventRepository;
         this.auditEventConverter = auditEventConverter;
+        this.keysetRepository = keysetRepository;
     }
 
     public Page<AuditEvent> findAll(Pageable pageable) {
@@ -42,6 +53,24 @@ public class AuditEventService {
             .map(auditEventConverter::convertToAuditEvent);
     }
 
+    /**
+     * Get the slice of events following a key, without counting them.
+     *
+     * @param fromDate the start of the time period of the events, or null
+     * @param toDate the end of the time period of the events, or null
+     * @param sort the sort of the events, the id being appended to it
+     * @param after the sort key of the last event of the previous slice, or null for the first slice
+     * @param size the maximum number of events to get
+     * @return the slice of events
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<AuditEvent> findAfter(Instant fromDate, Instant toDate, Sort sort, List<String> after, int size) {
+        Specification<PersistentAuditEvent> spec = fromDate == null || toDate == null ? null
+            : (root, query, cb) -> cb.between(root.get(PersistentAuditEvent_.auditEventDate), fromDate, toDate);
+        return keysetRepository.findAll(PersistentAuditEvent.class, null, spec, sort, after, size)
+            .map(auditEventConverter::convertToAuditEvent);
+    }
+
     public Optional<AuditEvent> find(Long id) {
         return Optional.ofNullable(persistenceAuditEventRepository.findById(id))
             .filter(Optional::isPresent)
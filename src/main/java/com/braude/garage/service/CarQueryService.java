@@ -1,6 +1,7 @@
 package com.braude.garage.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.persistence.criteria.JoinType;
 
@@ -8,6 +9,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,7 +20,14 @@ import io.github.jhipster.service.QueryService;
 import com.braude.garage.domain.Car;
 import com.braude.garage.domain.*; // for static metamodels
 import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.CompiledCriteriaRepository;
+import com.braude.garage.repository.CriteriaQueryDefinition;
+import com.braude.garage.repository.KeysetRepository;
+import com.braude.garage.repository.KeysetSlice;
+import com.braude.garage.repository.SliceRepository;
+import com.braude.garage.repository.StreamRepository;
 import com.braude.garage.repository.search.CarSearchRepository;
+import com.braude.garage.service.dto.CountMode;
 import com.braude.garage.service.dto.CarCriteria;
 import com.braude.garage.service.dto.CarDTO;
 import com.braude.garage.service.mapper.CarMapper;
@@ -32,6 +42,23 @@ import com.braude.garage.service.mapper.CarMapper;
 @Transactional(readOnly = true)
 public class CarQueryService extends QueryService<Car> {
 
+    /**
+     * The filters of {@link #createSpecification(CarCriteria)}, for the {@link CompiledCriteriaRepository}.
+     */
+    public static final CriteriaQueryDefinition<Car, CarCriteria> CRITERIA_QUERY =
+        new CriteriaQueryDefinition<Car, CarCriteria>(Car.class)
+            .fetch("client")
+            .filter("id", CarCriteria::getId)
+            .stringFilter("licensePlate", CarCriteria::getLicensePlate)
+            .stringFilter("make", CarCriteria::getMake)
+            .stringFilter("model", CarCriteria::getModel)
+            .rangeFilter("year", CarCriteria::getYear)
+            .rangeFilter("client.id", CarCriteria::getClientId)
+            .rangeFilter("carServices.id", CarCriteria::getCarServiceId)
+            .rangeFilter("serviceSummary.serviceCount", CarCriteria::getServiceCount)
+            .rangeFilter("serviceSummary.totalSpend", CarCriteria::getTotalSpend)
+            .rangeFilter("serviceSummary.lastServiceDate", CarCriteria::getLastServiceDate);
+
     private final Logger log = LoggerFactory.getLogger(CarQueryService.class);
 
     private final CarRepository carRepository;
@@ -40,10 +67,27 @@ public class CarQueryService extends QueryService<Car> {
 
     private final CarSearchRepository carSearchRepository;
 
-    public CarQueryService(CarRepository carRepository, CarMapper carMapper, CarSearchRepository carSearchRepository) {
+    private final KeysetRepository keysetRepository;
+
+    private final SliceRepository sliceRepository;
+
+    private final EstimatedCountService estimatedCountService;
+
+    private final StreamRepository streamRepository;
+
+    private final CompiledCriteriaRepository compiledCriteriaRepository;
+
+    public CarQueryService(CarRepository carRepository, CarMapper carMapper, CarSearchRepository carSearchRepository,
+            KeysetRepository keysetRepository, SliceRepository sliceRepository, EstimatedCountService estimatedCountService,
+            StreamRepository streamRepository, CompiledCriteriaRepository compiledCriteriaRepository) {
         this.carRepository = carRepository;
         this.carMapper = carMapper;
         this.carSearchRepository = carSearchRepository;
+        this.keysetRepository = keysetRepository;
+        this.sliceRepository = sliceRepository;
+        this.estimatedCountService = estimatedCountService;
+        this.streamRepository = streamRepository;
+        this.compiledCriteriaRepository = compiledCriteriaRepository;
     }
 
     /**
@@ -54,8 +98,10 @@ public class CarQueryService extends QueryService<Car> {
     @Transactional(readOnly = true)
     public List<CarDTO> findByCriteria(CarCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
-        final Specification<Car> specification = createSpecification(criteria);
-        return carMapper.toDto(carRepository.findAll(specification));
+        final List<Car> cars = compiledCriteriaRepository.compile(CRITERIA_QUERY, criteria, Sort.unsorted())
+            .map(query -> compiledCriteriaRepository.findAll(query))
+            .orElseGet(() -> carRepository.findAll(createSpecification(criteria)));
+        return carMapper.toDto(cars);
     }
 
     /**
@@ -67,11 +113,72 @@ public class CarQueryService extends QueryService<Car> {
     @Transactional(readOnly = true)
     public Page<CarDTO> findByCriteria(CarCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        return compiledCriteriaRepository.compile(CRITERIA_QUERY, criteria, page.getSort())
+            .map(query -> compiledCriteriaRepository.findAll(query, page))
+            .orElseGet(() -> carRepository.findAll(createSpecification(criteria), page))
+            .map(carMapper::toDto);
+    }
+
+    /**
+     * Return a {@link Slice} of {@link CarDTO} which matches the criteria from the database,
+     * with the total count computed according to the count mode: a {@link Page} unless the count is skipped.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param countMode How the total count should be computed.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<CarDTO> findByCriteria(CarCriteria criteria, Pageable page, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, countMode);
+        final Specification<Car> specification = createSpecification(criteria);
+        Slice<CarDTO> slice = sliceRepository.findAll(Car.class, CarRepository.ENTITY_GRAPH, specification, page)
+            .map(carMapper::toDto);
+        if (countMode == CountMode.NONE) {
+            return slice;
+        }
+        return estimatedCountService.toPage(slice, Car.class, criteria, () -> carRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link CarDTO} which matches the criteria from the database,
+     * read by keyset pagination: no count is issued, and the rows before the key are not scanned.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort of the entities.
+     * @param after The sort key of the last entity already read, or null for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<CarDTO> findByCriteria(CarCriteria criteria, Sort sort, List<String> after, int size) {
+        log.debug("find by criteria : {}, sort: {}, after: {}", criteria, sort, after);
         final Specification<Car> specification = createSpecification(criteria);
-        return carRepository.findAll(specification, page)
+        return keysetRepository.findAll(Car.class, CarRepository.ENTITY_GRAPH, specification, sort, after, size)
             .map(carMapper::toDto);
     }
 
+    /**
+     * Perform the action on each {@link CarDTO} which matches the criteria from the database, reading them
+     * through a forward-only cursor, so that the memory used does not depend on the number of matching entities.
+     * Each car is fetched together with its eager client, which would otherwise cost one query per row.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The order of the entities, by id when unsorted.
+     * @param action The action to perform on each DTO.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long exportByCriteria(CarCriteria criteria, Sort sort, Consumer<? super CarDTO> action) {
+        log.debug("export by criteria : {}, sort: {}", criteria, sort);
+        final Specification<Car> specification = createSpecification(criteria).and((root, query, cb) -> {
+            root.fetch(Car_.client, JoinType.LEFT);
+            return null;
+        });
+        return streamRepository.forEach(Car.class, specification, sort.isSorted() ? sort : Sort.by("id"),
+            car -> action.accept(carMapper.toDto(car)));
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -80,14 +187,15 @@ public class CarQueryService extends QueryService<Car> {
     @Transactional(readOnly = true)
     public long countByCriteria(CarCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<Car> specification = createSpecification(criteria);
-        return carRepository.count(specification);
+        return compiledCriteriaRepository.compile(CRITERIA_QUERY, criteria, Sort.unsorted())
+            .map(compiledCriteriaRepository::count)
+            .orElseGet(() -> carRepository.count(createSpecification(criteria)));
     }
 
     /**
      * Function to convert CarCriteria to a {@link Specification}
      */
-    private Specification<Car> createSpecification(CarCriteria criteria) {
+    protected Specification<Car> createSpecification(CarCriteria criteria) {
         Specification<Car> specification = Specification.where(null);
         if (criteria != null) {
             if (criteria.getId() != null) {
@@ -113,6 +221,18 @@ public class CarQueryService extends QueryService<Car> {
                 specification = specification.and(buildSpecification(criteria.getCarServiceId(),
                     root -> root.join(Car_.carServices, JoinType.LEFT).get(CarService_.id)));
             }
+            if (criteria.getServiceCount() != null) {
+                specification = specification.and(buildSpecification(criteria.getServiceCount(),
+                    root -> root.join(Car_.serviceSummary, JoinType.LEFT).get(CarServiceSummary_.serviceCount)));
+            }
+            if (criteria.getTotalSpend() != null) {
+                specification = specification.and(buildSpecification(criteria.getTotalSpend(),
+                    root -> root.join(Car_.serviceSummary, JoinType.LEFT).get(CarServiceSummary_.totalSpend)));
+            }
+            if (criteria.getLastServiceDate() != null) {
+                specification = specification.and(buildSpecification(criteria.getLastServiceDate(),
+                    root -> root.join(Car_.serviceSummary, JoinType.LEFT).get(CarServiceSummary_.lastServiceDate)));
+            }
         }
         return specification;
     }
@@ -1,10 +1,12 @@
 package com.braude.garage.service;
 
+import com.braude.garage.service.dto.BatchItemResultDTO;
 import com.braude.garage.service.dto.CarDTO;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,6 +22,30 @@ public interface CarService {
      */
     CarDTO save(CarDTO carDTO);
 
+    /**
+     * Create cars in a batch.
+     *
+     * @param carDTOs the entities to create
+     * @return the result of each entity, in the order of the request
+     */
+    List<BatchItemResultDTO<CarDTO>> createAll(List<CarDTO> carDTOs);
+
+    /**
+     * Update cars in a batch.
+     *
+     * @param carDTOs the entities to update
+     * @return the result of each entity, in the order of the request
+     */
+    List<BatchItemResultDTO<CarDTO>> updateAll(List<CarDTO> carDTOs);
+
+    /**
+     * Delete cars in a batch.
+     *
+     * @param ids the ids of the entities to delete
+     * @return the result of each id, in the order of the request
+     */
+    List<BatchItemResultDTO<CarDTO>> deleteAll(List<Long> ids);
+
     /**
      * Get all the cars.
      *
@@ -0,0 +1,309 @@
+package com.braude.garage.service;
+
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.CarServiceRollup;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.CarServiceRepository;
+import com.braude.garage.repository.CarServiceRollupRepository;
+import com.braude.garage.repository.DailyRevenue;
+import com.braude.garage.service.dto.CarDTO;
+import com.braude.garage.service.dto.Granularity;
+import com.braude.garage.service.dto.RevenueBucketDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service answering the revenue and workload queries over the services, from their {@link CarServiceRollup} rows.
+ * <p>
+ * The rows are updated in the transaction of each change to the services, and to the make, model or year of a car,
+ * by adding the difference to the row of each day and kind of car changed. The rows of the cars changed are locked
+ * first, so that a car cannot change kind while its services are being rolled up. The rows themselves are only
+ * incremented, never read and written back, so that concurrent changes to the same day do not lose each other.
+ *
+ * @see CarServiceRollupBackfillService
+ */
+@Service
+@Transactional
+public class CarServiceAnalyticsService {
+
+    private final Logger log = LoggerFactory.getLogger(CarServiceAnalyticsService.class);
+
+    private final CarServiceRollupRepository carServiceRollupRepository;
+
+    private final CarRepository carRepository;
+
+    private final CarServiceRepository carServiceRepository;
+
+    public CarServiceAnalyticsService(CarServiceRollupRepository carServiceRollupRepository, CarRepository carRepository,
+            CarServiceRepository carServiceRepository) {
+        this.carServiceRollupRepository = carServiceRollupRepository;
+        this.carRepository = carRepository;
+        this.carServiceRepository = carServiceRepository;
+    }
+
+    /**
+     * Update the rows of the services changed. The services removed must have been read before the change, with
+     * their rows locked.
+     *
+     * @param removed the services deleted or updated
+     * @param added the services created or updated
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void update(Collection<CarServiceContribution> removed, Collection<CarServiceContribution> added) {
+        if (removed.stream().allMatch(contribution -> contribution.getDate() == null)
+                && added.stream().allMatch(contribution -> contribution.getDate() == null)) {
+            return;
+        }
+        Set<Long> carIds = Stream.concat(removed.stream(), added.stream())
+            .map(CarServiceContribution::getCarId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, CarKind> kinds = lockKinds(carIds);
+        Map<Bucket, Delta> deltas = new HashMap<>();
+        removed.forEach(contribution -> add(deltas, contribution, kinds, -1));
+        added.forEach(contribution -> add(deltas, contribution, kinds, 1));
+        apply(deltas);
+    }
+
+    /**
+     * Move the services of the cars whose make, model or year changed to the rows of their new kind. The cars must
+     * have been read before the change.
+     *
+     * @param before the cars as they were before the change
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void carsUpdated(Collection<CarKind> before) {
+        if (before.isEmpty()) {
+            return;
+        }
+        Map<Long, CarKind> after = lockKinds(before.stream().map(kind -> kind.carId).collect(Collectors.toCollection(TreeSet::new)));
+        Map<Bucket, Delta> deltas = new HashMap<>();
+        for (CarKind previous : before) {
+            CarKind current = after.get(previous.carId);
+            if (current == null || current.isSameKind(previous)) {
+                continue;
+            }
+            log.debug("Request to move the CarServiceRollups of Car {} from {} to {}", previous.carId, previous, current);
+            for (DailyRevenue day : carServiceRepository.sumByDateForCarId(previous.carId)) {
+                deltas.computeIfAbsent(new Bucket(day.getBucketDate(), previous), bucket -> new Delta())
+                    .add(-day.getServiceCount(), -day.getRevenue());
+                deltas.computeIfAbsent(new Bucket(day.getBucketDate(), current), bucket -> new Delta())
+                    .add(day.getServiceCount(), day.getRevenue());
+            }
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Get the number and the total cost of the services of each period between two days, for the cars of a make,
+     * model and year. The periods without services are left out.
+     *
+     * @param granularity the length of the periods
+     * @param from the first day, included
+     * @param to the last day, included
+     * @param make the make of the cars, or null for all of them
+     * @param model the model of the cars, or null for all of them
+     * @param year the year of the cars, or null for all of them
+     * @return the periods having services, in order
+     */
+    @Transactional(readOnly = true)
+    public List<RevenueBucketDTO> getRevenue(Granularity granularity, LocalDate from, LocalDate to, String make,
+            String model, Integer year) {
+        log.debug("Request to get the revenue by {} from {} to {} of make {}, model {}, year {}", granularity, from, to,
+            make, model, year);
+        Map<LocalDate, RevenueBucketDTO> buckets = new LinkedHashMap<>();
+        for (DailyRevenue day : carServiceRollupRepository.sumByBucketDate(from, to, make, model, year)) {
+            RevenueBucketDTO bucket = buckets.computeIfAbsent(granularity.periodStart(day.getBucketDate()),
+                periodStart -> new RevenueBucketDTO(periodStart, 0L, 0d));
+            bucket.setServiceCount(bucket.getServiceCount() + day.getServiceCount());
+            bucket.setRevenue(bucket.getRevenue() + day.getRevenue());
+        }
+        buckets.values().removeIf(bucket -> bucket.getServiceCount() == 0);
+        return new ArrayList<>(buckets.values());
+    }
+
+    private Map<Long, CarKind> lockKinds(Collection<Long> carIds) {
+        if (carIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return carRepository.lockAllKindsById(carIds).stream()
+            .map(kind -> new CarKind(kind.getId(), kind.getMake(), kind.getModel(), kind.getYear()))
+            .collect(Collectors.toMap(kind -> kind.carId, Function.identity()));
+    }
+
+    private static void add(Map<Bucket, Delta> deltas, CarServiceContribution contribution, Map<Long, CarKind> kinds,
+            int sign) {
+        if (contribution.getDate() == null) {
+            return;
+        }
+        CarKind kind = kinds.getOrDefault(contribution.getCarId(), CarKind.NONE);
+        deltas.computeIfAbsent(new Bucket(contribution.getDate(), kind), bucket -> new Delta())
+            .add(sign, sign * contribution.getCost());
+    }
+
+    private void apply(Map<Bucket, Delta> deltas) {
+        deltas.values().removeIf(Delta::isEmpty);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<Bucket, Long> ids = new HashMap<>();
+        for (CarServiceRollupRepository.Key key : carServiceRollupRepository.findKeysByBucketDateIn(
+                deltas.keySet().stream().map(bucket -> bucket.date).collect(Collectors.toSet()))) {
+            ids.merge(new Bucket(key.getBucketDate(), key.getMake(), key.getModel(), key.getYear()), key.getId(), Math::min);
+        }
+        // The rows are updated by id, then inserted by bucket: in the same order in every transaction, so that two
+        // changes of the same rows wait for each other rather than deadlock
+        Map<Long, Bucket> updates = new TreeMap<>();
+        Map<Bucket, Delta> inserts = new TreeMap<>(Bucket.ORDER);
+        deltas.forEach((bucket, delta) -> {
+            Long id = ids.get(bucket);
+            if (id != null) {
+                updates.put(id, bucket);
+            } else {
+                inserts.put(bucket, delta);
+            }
+        });
+        updates.forEach((id, bucket) -> {
+            Delta delta = deltas.get(bucket);
+            if (carServiceRollupRepository.increment(id, delta.serviceCount, delta.revenue) == 0) {
+                inserts.put(bucket, delta);
+            }
+        });
+        inserts.forEach((bucket, delta) -> {
+            CarServiceRollup rollup = new CarServiceRollup();
+            rollup.setBucketDate(bucket.date);
+            rollup.setMake(bucket.make);
+            rollup.setModel(bucket.model);
+            rollup.setYear(bucket.year);
+            rollup.setServiceCount(delta.serviceCount);
+            rollup.setRevenue(delta.revenue);
+            carServiceRollupRepository.save(rollup);
+        });
+    }
+
+    /**
+     * The make, model and year of a car, by which the services are rolled up.
+     */
+    public static final class CarKind {
+
+        private static final CarKind NONE = new CarKind(null, null, null, null);
+
+        private final Long carId;
+
+        private final String make;
+
+        private final String model;
+
+        private final Integer year;
+
+        private CarKind(Long carId, String make, String model, Integer year) {
+            this.carId = carId;
+            this.make = make;
+            this.model = model;
+            this.year = year;
+        }
+
+        public static CarKind of(Car car) {
+            return new CarKind(car.getId(), car.getMake(), car.getModel(), car.getYear());
+        }
+
+        public static CarKind of(CarDTO carDTO) {
+            return new CarKind(carDTO.getId(), carDTO.getMake(), carDTO.getModel(), carDTO.getYear());
+        }
+
+        /**
+         * @param other the kind of another car, or of the same car at another time
+         * @return whether both have the same make, model and year
+         */
+        public boolean isSameKind(CarKind other) {
+            return Objects.equals(make, other.make) && Objects.equals(model, other.model)
+                && Objects.equals(year, other.year);
+        }
+
+        @Override
+        public String toString() {
+            return "CarKind{" +
+                "make='" + make + "'" +
+                ", model='" + model + "'" +
+                ", year=" + year +
+                "}";
+        }
+    }
+
+    /**
+     * The day and the kind of car of a row.
+     */
+    private static final class Bucket {
+
+        private static final Comparator<Bucket> ORDER = Comparator.comparing((Bucket bucket) -> bucket.date)
+            .thenComparing(bucket -> bucket.make, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(bucket -> bucket.model, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(bucket -> bucket.year, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        private final LocalDate date;
+
+        private final String make;
+
+        private final String model;
+
+        private final Integer year;
+
+        Bucket(LocalDate date, CarKind kind) {
+            this(date, kind.make, kind.model, kind.year);
+        }
+
+        Bucket(LocalDate date, String make, String model, Integer year) {
+            this.date = date;
+            this.make = make;
+            this.model = model;
+            this.year = year;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Bucket bucket = (Bucket) o;
+            return date.equals(bucket.date) && Objects.equals(make, bucket.make) && Objects.equals(model, bucket.model)
+                && Objects.equals(year, bucket.year);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, make, model, year);
+        }
+    }
+
+    /**
+     * What a change adds to a row.
+     */
+    private static final class Delta {
+
+        private long serviceCount;
+
+        private double revenue;
+
+        void add(long serviceCount, double revenue) {
+            this.serviceCount += serviceCount;
+            this.revenue += revenue;
+        }
+
+        boolean isEmpty() {
+            return serviceCount == 0 && revenue == 0;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.braude.garage.service;
+
+import com.braude.garage.domain.CarService;
+import com.braude.garage.service.dto.CarServiceDTO;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * What a service adds to the aggregates maintained from the services: its car, its cost and its date.
+ * <p>
+ * A change to the services is described by the contributions it removes and adds, an updated service being both
+ * removed, as it was before the change, and added, as it is after it.
+ *
+ * @see CarServiceSummaryService
+ * @see CarServiceAnalyticsService
+ */
+public final class CarServiceContribution {
+
+    private final Long carId;
+
+    private final double cost;
+
+    private final LocalDate date;
+
+    private CarServiceContribution(Long carId, Double cost, LocalDate date) {
+        this.carId = carId;
+        this.cost = cost == null ? 0 : cost;
+        this.date = date;
+    }
+
+    public static CarServiceContribution of(CarService carService) {
+        return new CarServiceContribution(carService.getCar() == null ? null : carService.getCar().getId(),
+            carService.getTotalCost(), carService.getDate());
+    }
+
+    public static CarServiceContribution of(CarServiceDTO carServiceDTO) {
+        return new CarServiceContribution(carServiceDTO.getCarId(), carServiceDTO.getTotalCost(), carServiceDTO.getDate());
+    }
+
+    Long getCarId() {
+        return carId;
+    }
+
+    /**
+     * @return the total cost of the service, 0 when it has none
+     */
+    double getCost() {
+        return cost;
+    }
+
+    LocalDate getDate() {
+        return date;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CarServiceContribution contribution = (CarServiceContribution) o;
+        return Double.compare(contribution.cost, cost) == 0 && Objects.equals(carId, contribution.carId) &&
+            Objects.equals(date, contribution.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(carId, cost, date);
+    }
+
+    @Override
+    public String toString() {
+        return "CarServiceContribution{" +
+            "carId=" + carId +
+            ", cost=" + cost +
+            ", date=" + date +
+            "}";
+    }
+}
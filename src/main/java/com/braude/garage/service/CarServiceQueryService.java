@@ -1,6 +1,7 @@
 package com.braude.garage.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.persistence.criteria.JoinType;
 
@@ -8,6 +9,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,7 +20,14 @@ import io.github.jhipster.service.QueryService;
 import com.braude.garage.domain.CarService;
 import com.braude.garage.domain.*; // for static metamodels
 import com.braude.garage.repository.CarServiceRepository;
+import com.braude.garage.repository.CompiledCriteriaRepository;
+import com.braude.garage.repository.CriteriaQueryDefinition;
+import com.braude.garage.repository.KeysetRepository;
+import com.braude.garage.repository.KeysetSlice;
+import com.braude.garage.repository.SliceRepository;
+import com.braude.garage.repository.StreamRepository;
 import com.braude.garage.repository.search.CarServiceSearchRepository;
+import com.braude.garage.service.dto.CountMode;
 import com.braude.garage.service.dto.CarServiceCriteria;
 import com.braude.garage.service.dto.CarServiceDTO;
 import com.braude.garage.service.mapper.CarServiceMapper;
@@ -32,6 +42,19 @@ import com.braude.garage.service.mapper.CarServiceMapper;
 @Transactional(readOnly = true)
 public class CarServiceQueryService extends QueryService<CarService> {
 
+    /**
+     * The filters of {@link #createSpecification(CarServiceCriteria)}, for the {@link CompiledCriteriaRepository}.
+     */
+    public static final CriteriaQueryDefinition<CarService, CarServiceCriteria> CRITERIA_QUERY =
+        new CriteriaQueryDefinition<CarService, CarServiceCriteria>(CarService.class)
+            .fetch("car")
+            .fetch("car.client")
+            .filter("id", CarServiceCriteria::getId)
+            .rangeFilter("date", CarServiceCriteria::getDate)
+            .stringFilter("description", CarServiceCriteria::getDescription)
+            .rangeFilter("totalCost", CarServiceCriteria::getTotalCost)
+            .rangeFilter("car.id", CarServiceCriteria::getCarId);
+
     private final Logger log = LoggerFactory.getLogger(CarServiceQueryService.class);
 
     private final CarServiceRepository carServiceRepository;
@@ -40,10 +63,27 @@ public class CarServiceQueryService extends QueryService<CarService> {
 
     private final CarServiceSearchRepository carServiceSearchRepository;
 
-    public CarServiceQueryService(CarServiceRepository carServiceRepository, CarServiceMapper carServiceMapper, CarServiceSearchRepository carServiceSearchRepository) {
+    private final KeysetRepository keysetRepository;
+
+    private final SliceRepository sliceRepository;
+
+    private final EstimatedCountService estimatedCountService;
+
+    private final StreamRepository streamRepository;
+
+    private final CompiledCriteriaRepository compiledCriteriaRepository;
+
+    public CarServiceQueryService(CarServiceRepository carServiceRepository, CarServiceMapper carServiceMapper, CarServiceSearchRepository carServiceSearchRepository,
+            KeysetRepository keysetRepository, SliceRepository sliceRepository, EstimatedCountService estimatedCountService,
+            StreamRepository streamRepository, CompiledCriteriaRepository compiledCriteriaRepository) {
         this.carServiceRepository = carServiceRepository;
         this.carServiceMapper = carServiceMapper;
         this.carServiceSearchRepository = carServiceSearchRepository;
+        this.keysetRepository = keysetRepository;
+        this.sliceRepository = sliceRepository;
+        this.estimatedCountService = estimatedCountService;
+        this.streamRepository = streamRepository;
+        this.compiledCriteriaRepository = compiledCriteriaRepository;
     }
 
     /**
@@ -54,8 +94,10 @@ public class CarServiceQueryService extends QueryService<CarService> {
     @Transactional(readOnly = true)
     public List<CarServiceDTO> findByCriteria(CarServiceCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
-        final Specification<CarService> specification = createSpecification(criteria);
-        return carServiceMapper.toDto(carServiceRepository.findAll(specification));
+        final List<CarService> carServices = compiledCriteriaRepository.compile(CRITERIA_QUERY, criteria, Sort.unsorted())
+            .map(query -> compiledCriteriaRepository.findAll(query))
+            .orElseGet(() -> carServiceRepository.findAll(createSpecification(criteria)));
+        return carServiceMapper.toDto(carServices);
     }
 
     /**
@@ -67,11 +109,72 @@ public class CarServiceQueryService extends QueryService<CarService> {
     @Transactional(readOnly = true)
     public Page<CarServiceDTO> findByCriteria(CarServiceCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        return compiledCriteriaRepository.compile(CRITERIA_QUERY, criteria, page.getSort())
+            .map(query -> compiledCriteriaRepository.findAll(query, page))
+            .orElseGet(() -> carServiceRepository.findAll(createSpecification(criteria), page))
+            .map(carServiceMapper::toDto);
+    }
+
+    /**
+     * Return a {@link Slice} of {@link CarServiceDTO} which matches the criteria from the database,
+     * with the total count computed according to the count mode: a {@link Page} unless the count is skipped.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param countMode How the total count should be computed.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<CarServiceDTO> findByCriteria(CarServiceCriteria criteria, Pageable page, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, countMode);
         final Specification<CarService> specification = createSpecification(criteria);
-        return carServiceRepository.findAll(specification, page)
+        Slice<CarServiceDTO> slice = sliceRepository.findAll(CarService.class, CarServiceRepository.ENTITY_GRAPH, specification, page)
+            .map(carServiceMapper::toDto);
+        if (countMode == CountMode.NONE) {
+            return slice;
+        }
+        return estimatedCountService.toPage(slice, CarService.class, criteria, () -> carServiceRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link CarServiceDTO} which matches the criteria from the database,
+     * read by keyset pagination: no count is issued, and the rows before the key are not scanned.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort of the entities.
+     * @param after The sort key of the last entity already read, or null for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<CarServiceDTO> findByCriteria(CarServiceCriteria criteria, Sort sort, List<String> after, int size) {
+        log.debug("find by criteria : {}, sort: {}, after: {}", criteria, sort, after);
+        final Specification<CarService> specification = createSpecification(criteria);
+        return keysetRepository.findAll(CarService.class, CarServiceRepository.ENTITY_GRAPH, specification, sort, after, size)
             .map(carServiceMapper::toDto);
     }
 
+    /**
+     * Perform the action on each {@link CarServiceDTO} which matches the criteria from the database, reading them
+     * through a forward-only cursor, so that the memory used does not depend on the number of matching entities.
+     * Each car service is fetched together with its eager car and client, which would otherwise cost one query per row.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The order of the entities, by id when unsorted.
+     * @param action The action to perform on each DTO.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long exportByCriteria(CarServiceCriteria criteria, Sort sort, Consumer<? super CarServiceDTO> action) {
+        log.debug("export by criteria : {}, sort: {}", criteria, sort);
+        final Specification<CarService> specification = createSpecification(criteria).and((root, query, cb) -> {
+            root.fetch(CarService_.car, JoinType.LEFT).fetch(Car_.client, JoinType.LEFT);
+            return null;
+        });
+        return streamRepository.forEach(CarService.class, specification, sort.isSorted() ? sort : Sort.by("id"),
+            carService -> action.accept(carServiceMapper.toDto(carService)));
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -80,8 +183,9 @@ public class CarServiceQueryService extends QueryService<CarService> {
     @Transactional(readOnly = true)
     public long countByCriteria(CarServiceCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<CarService> specification = createSpecification(criteria);
-        return carServiceRepository.count(specification);
+        return compiledCriteriaRepository.compile(CRITERIA_QUERY, criteria, Sort.unsorted())
+            .map(compiledCriteriaRepository::count)
+            .orElseGet(() -> carServiceRepository.count(createSpecification(criteria)));
     }
 
     /**
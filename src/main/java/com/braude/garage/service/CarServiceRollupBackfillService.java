@@ -0,0 +1,160 @@
+package com.braude.garage.service;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.CarServiceRollup;
+import com.braude.garage.repository.CarServiceRepository;
+import com.braude.garage.repository.CarServiceRollupRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service rebuilding the {@link CarServiceRollup} rows from the services, e.g. after they were changed by SQL.
+ * <p>
+ * The days between the first and the last service are split in halves until they span at most
+ * {@code backfill-chunk-days}, and each chunk is rolled up in parallel in its own transaction, which deletes its rows
+ * and inserts them again from the services. A service written while its chunk is being rebuilt may be counted twice
+ * or not at all, so the rebuild is meant for quiet hours, and can be run again.
+ */
+@Service
+public class CarServiceRollupBackfillService {
+
+    private final Logger log = LoggerFactory.getLogger(CarServiceRollupBackfillService.class);
+
+    private final CarServiceRollupRepository carServiceRollupRepository;
+
+    private final CarServiceRepository carServiceRepository;
+
+    private final ApplicationProperties.Analytics properties;
+
+    private final Executor analyticsExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CarServiceRollupBackfillService(CarServiceRollupRepository carServiceRollupRepository,
+            CarServiceRepository carServiceRepository, ApplicationProperties applicationProperties,
+            @Qualifier("analyticsExecutor") Executor analyticsExecutor, PlatformTransactionManager transactionManager) {
+        this.carServiceRollupRepository = carServiceRollupRepository;
+        this.carServiceRepository = carServiceRepository;
+        this.properties = applicationProperties.getAnalytics();
+        this.analyticsExecutor = analyticsExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Rebuild the rows in the background, on the "analyticsExecutor".
+     *
+     * @throws ConcurrencyFailureException if the rows are already being rebuilt on this node
+     * @throws RejectedExecutionException if the analytics executor is full
+     */
+    public void backfillAsync() {
+        start();
+        try {
+            analyticsExecutor.execute(() -> {
+                try {
+                    run();
+                } catch (RuntimeException e) {
+                    log.error("Rebuild of the CarServiceRollups failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Not started, so that it can be asked again
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Rebuild the rows, and wait for all the chunks to be committed.
+     *
+     * @return the number of rows inserted
+     * @throws ConcurrencyFailureException if the rows are already being rebuilt on this node
+     */
+    public long backfill() {
+        start();
+        return run();
+    }
+
+    private void start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConcurrencyFailureException("The CarServiceRollups are already being rebuilt");
+        }
+    }
+
+    private long run() {
+        try {
+            long startTime = System.currentTimeMillis();
+            LocalDate from = carServiceRepository.findFirstDate();
+            LocalDate to = carServiceRepository.findLastDate();
+            if (from == null) {
+                transactionTemplate.execute(status -> {
+                    carServiceRollupRepository.deleteAllInBatch();
+                    return null;
+                });
+                log.info("Rebuilt the CarServiceRollups: no services");
+                return 0;
+            }
+            transactionTemplate.execute(status -> carServiceRollupRepository.deleteByBucketDateNotBetween(from, to));
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, properties.getBackfillParallelism()));
+            long inserted;
+            try {
+                inserted = pool.invoke(new Chunk(from, to));
+            } finally {
+                pool.shutdownNow();
+            }
+            log.info("Rebuilt the CarServiceRollups from {} to {}: {} rows in {} ms", from, to, inserted,
+                System.currentTimeMillis() - startTime);
+            return inserted;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * The days from {@code from} to {@code to}, both included.
+     */
+    private final class Chunk extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final LocalDate from;
+
+        private final LocalDate to;
+
+        Chunk(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            if (days <= Math.max(1, properties.getBackfillChunkDays())) {
+                return transactionTemplate.execute(status -> {
+                    carServiceRollupRepository.deleteByBucketDateBetween(from, to);
+                    return (long) carServiceRollupRepository.insertFromServicesBetween(from, to);
+                });
+            }
+            LocalDate middle = from.plusDays(days / 2);
+            Chunk first = new Chunk(from, middle.minusDays(1));
+            first.fork();
+            long inserted = new Chunk(middle, to).compute();
+            return inserted + first.join();
+        }
+    }
+}
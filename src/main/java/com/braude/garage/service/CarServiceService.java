@@ -1,10 +1,12 @@
 package com.braude.garage.service;
 
+import com.braude.garage.service.dto.BatchItemResultDTO;
 import com.braude.garage.service.dto.CarServiceDTO;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,6 +22,30 @@ public interface CarServiceService {
      */
     CarServiceDTO save(CarServiceDTO carServiceDTO);
 
+    /**
+     * Create carServices in a batch.
+     *
+     * @param carServiceDTOs the entities to create
+     * @return the result of each entity, in the order of the request
+     */
+    List<BatchItemResultDTO<CarServiceDTO>> createAll(List<CarServiceDTO> carServiceDTOs);
+
+    /**
+     * Update carServices in a batch.
+     *
+     * @param carServiceDTOs the entities to update
+     * @return the result of each entity, in the order of the request
+     */
+    List<BatchItemResultDTO<CarServiceDTO>> updateAll(List<CarServiceDTO> carServiceDTOs);
+
+    /**
+     * Delete carServices in a batch.
+     *
+     * @param ids the ids of the entities to delete
+     * @return the result of each id, in the order of the request
+     */
+    List<BatchItemResultDTO<CarServiceDTO>> deleteAll(List<Long> ids);
+
     /**
      * Get all the carServices.
      *
@@ -0,0 +1,205 @@
+package com.braude.garage.service;
+
+import com.braude.garage.domain.CarServiceSummary;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.CarServiceRepository;
+import com.braude.garage.repository.CarServiceSummaryRepository;
+import com.braude.garage.repository.ClientRepository;
+import com.braude.garage.service.dto.CarServiceSummaryDTO;
+import com.braude.garage.service.mapper.CarServiceSummaryMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service maintaining the {@link CarServiceSummary} of each car.
+ * <p>
+ * The summaries are updated from the services removed and added by a change, in the transaction of the change: the
+ * rows of the cars are locked first, so that concurrent changes to the services of a car apply one after the other.
+ * Only the last service date may have to be read again, when the service removed was the last one of its car.
+ */
+@Service
+@Transactional
+public class CarServiceSummaryService {
+
+    private final Logger log = LoggerFactory.getLogger(CarServiceSummaryService.class);
+
+    private final CarServiceSummaryRepository carServiceSummaryRepository;
+
+    private final CarServiceSummaryMapper carServiceSummaryMapper;
+
+    private final CarRepository carRepository;
+
+    private final CarServiceRepository carServiceRepository;
+
+    private final ClientRepository clientRepository;
+
+    public CarServiceSummaryService(CarServiceSummaryRepository carServiceSummaryRepository,
+            CarServiceSummaryMapper carServiceSummaryMapper, CarRepository carRepository,
+            CarServiceRepository carServiceRepository, ClientRepository clientRepository) {
+        this.carServiceSummaryRepository = carServiceSummaryRepository;
+        this.carServiceSummaryMapper = carServiceSummaryMapper;
+        this.carRepository = carRepository;
+        this.carServiceRepository = carServiceRepository;
+        this.clientRepository = clientRepository;
+    }
+
+    /**
+     * Update the summaries of the cars of the services changed. The services removed must have been read before
+     * the change, with their rows locked, as {@link CarServiceRepository#lockAllById(Collection)} does.
+     *
+     * @param removed the services deleted or updated
+     * @param added the services created or updated
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void update(Collection<CarServiceContribution> removed, Collection<CarServiceContribution> added) {
+        Map<Long, Change> changes = new TreeMap<>();
+        removed.stream()
+            .filter(contribution -> contribution.getCarId() != null)
+            .forEach(contribution -> changes.computeIfAbsent(contribution.getCarId(), carId -> new Change()).removed.add(contribution));
+        added.stream()
+            .filter(contribution -> contribution.getCarId() != null)
+            .forEach(contribution -> changes.computeIfAbsent(contribution.getCarId(), carId -> new Change()).added.add(contribution));
+        changes.values().removeIf(Change::isEmpty);
+        if (changes.isEmpty()) {
+            return;
+        }
+        log.debug("Request to update the CarServiceSummaries of Cars : {}", changes.keySet());
+        carRepository.lockAllById(changes.keySet());
+        Map<Long, CarServiceSummary> summaries = carServiceSummaryRepository.findAllById(changes.keySet()).stream()
+            .collect(Collectors.toMap(CarServiceSummary::getCarId, Function.identity()));
+        changes.forEach((carId, change) -> apply(carId, summaries.get(carId), change));
+    }
+
+    private void apply(Long carId, CarServiceSummary summary, Change change) {
+        long serviceCount = (summary == null ? 0 : summary.getServiceCount()) + change.added.size() - change.removed.size();
+        if (serviceCount <= 0) {
+            if (summary != null) {
+                carServiceSummaryRepository.delete(summary);
+            }
+            return;
+        }
+        if (summary == null) {
+            summary = new CarServiceSummary();
+            summary.setCarId(carId);
+            summary.setTotalSpend(0d);
+        }
+        summary.setServiceCount(serviceCount);
+        summary.setTotalSpend(summary.getTotalSpend() + change.spend());
+        LocalDate lastServiceDate = summary.getLastServiceDate();
+        if (change.removesDateFrom(lastServiceDate)) {
+            lastServiceDate = carServiceRepository.findLastDateByCarId(carId);
+        } else {
+            lastServiceDate = latest(lastServiceDate, change.lastAddedDate());
+        }
+        summary.setLastServiceDate(lastServiceDate);
+        carServiceSummaryRepository.save(summary);
+    }
+
+    /**
+     * Get the summary of the services of a car.
+     *
+     * @param carId the id of the car
+     * @return the summary, empty if the car has no services, or nothing if the car does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<CarServiceSummaryDTO> findOneByCarId(Long carId) {
+        log.debug("Request to get the CarServiceSummary of Car : {}", carId);
+        Optional<CarServiceSummaryDTO> summary = carServiceSummaryRepository.findById(carId)
+            .map(carServiceSummaryMapper::toDto);
+        if (summary.isPresent() || !carRepository.existsById(carId)) {
+            return summary;
+        }
+        return Optional.of(emptySummary(carId));
+    }
+
+    /**
+     * Get the summary of the services of the car of a client.
+     *
+     * @param clientId the id of the client
+     * @return the summary, empty if the client has no car or its car has no services, or nothing if the client does
+     * not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<CarServiceSummaryDTO> findOneByClientId(Long clientId) {
+        log.debug("Request to get the CarServiceSummary of Client : {}", clientId);
+        return clientRepository.findById(clientId)
+            .map(client -> client.getCar() == null ? emptySummary(null)
+                : carServiceSummaryRepository.findById(client.getCar().getId())
+                    .map(carServiceSummaryMapper::toDto)
+                    .orElseGet(() -> emptySummary(client.getCar().getId())));
+    }
+
+    /**
+     * Get the summaries of the cars having services, e.g. the cars that cost the most when sorted by total spend.
+     *
+     * @param pageable the pagination information
+     * @return the list of summaries
+     */
+    @Transactional(readOnly = true)
+    public Page<CarServiceSummaryDTO> findAll(Pageable pageable) {
+        log.debug("Request to get all CarServiceSummaries");
+        return carServiceSummaryRepository.findAll(pageable)
+            .map(carServiceSummaryMapper::toDto);
+    }
+
+    private static CarServiceSummaryDTO emptySummary(Long carId) {
+        CarServiceSummaryDTO summary = new CarServiceSummaryDTO();
+        summary.setCarId(carId);
+        summary.setServiceCount(0L);
+        summary.setTotalSpend(0d);
+        return summary;
+    }
+
+    private static LocalDate latest(LocalDate date, LocalDate other) {
+        return date == null || (other != null && other.isAfter(date)) ? other : date;
+    }
+
+    /**
+     * The services removed from and added to a car.
+     */
+    private static final class Change {
+
+        private final List<CarServiceContribution> removed = new ArrayList<>();
+
+        private final List<CarServiceContribution> added = new ArrayList<>();
+
+        /**
+         * @return whether the services added are the ones removed, e.g. when only the description of a service changed
+         */
+        boolean isEmpty() {
+            if (removed.size() != added.size()) {
+                return false;
+            }
+            List<CarServiceContribution> remaining = new ArrayList<>(added);
+            return removed.stream().allMatch(remaining::remove);
+        }
+
+        double spend() {
+            return added.stream().mapToDouble(CarServiceContribution::getCost).sum()
+                - removed.stream().mapToDouble(CarServiceContribution::getCost).sum();
+        }
+
+        LocalDate lastAddedDate() {
+            return added.stream()
+                .map(CarServiceContribution::getDate)
+                .reduce(null, CarServiceSummaryService::latest);
+        }
+
+        boolean removesDateFrom(LocalDate lastServiceDate) {
+            return removed.stream()
+                .anyMatch(contribution -> contribution.getDate() != null
+                    && (lastServiceDate == null || !contribution.getDate().isBefore(lastServiceDate)));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.braude.garage.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.persistence.criteria.JoinType;
 
@@ -8,6 +9,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,7 +20,14 @@ import io.github.jhipster.service.QueryService;
 import com.braude.garage.domain.Client;
 import com.braude.garage.domain.*; // for static metamodels
 import com.braude.garage.repository.ClientRepository;
+import com.braude.garage.repository.CompiledCriteriaRepository;
+import com.braude.garage.repository.CriteriaQueryDefinition;
+import com.braude.garage.repository.KeysetRepository;
+import com.braude.garage.repository.KeysetSlice;
+import com.braude.garage.repository.SliceRepository;
+import com.braude.garage.repository.StreamRepository;
 import com.braude.garage.repository.search.ClientSearchRepository;
+import com.braude.garage.service.dto.CountMode;
 import com.braude.garage.service.dto.ClientCriteria;
 import com.braude.garage.service.dto.ClientDTO;
 import com.braude.garage.service.mapper.ClientMapper;
@@ -32,6 +42,19 @@ import com.braude.garage.service.mapper.ClientMapper;
 @Transactional(readOnly = true)
 public class ClientQueryService extends QueryService<Client> {
 
+    /**
+     * The filters of {@link #createSpecification(ClientCriteria)}, for the {@link CompiledCriteriaRepository}.
+     */
+    public static final CriteriaQueryDefinition<Client, ClientCriteria> CRITERIA_QUERY =
+        new CriteriaQueryDefinition<Client, ClientCriteria>(Client.class)
+            .fetch("car")
+            .filter("id", ClientCriteria::getId)
+            .stringFilter("firstName", ClientCriteria::getFirstName)
+            .stringFilter("lastName", ClientCriteria::getLastName)
+            .stringFilter("mail", ClientCriteria::getMail)
+            .stringFilter("phoneNum", ClientCriteria::getPhoneNum)
+            .rangeFilter("car.id", ClientCriteria::getCarId);
+
     private final Logger log = LoggerFactory.getLogger(ClientQueryService.class);
 
     private final ClientRepository clientRepository;
@@ -40,10 +63,27 @@ public class ClientQueryService extends QueryService<Client> {
 
     private final ClientSearchRepository clientSearchRepository;
 
-    public ClientQueryService(ClientRepository clientRepository, ClientMapper clientMapper, ClientSearchRepository clientSearchRepository) {
+    private final KeysetRepository keysetRepository;
+
+    private final SliceRepository sliceRepository;
+
+    private final EstimatedCountService estimatedCountService;
+
+    private final StreamRepository streamRepository;
+
+    private final CompiledCriteriaRepository compiledCriteriaRepository;
+
+    public ClientQueryService(ClientRepository clientRepository, ClientMapper clientMapper, ClientSearchRepository clientSearchRepository,
+            KeysetRepository keysetRepository, SliceRepository sliceRepository, EstimatedCountService estimatedCountService,
+            StreamRepository streamRepository, CompiledCriteriaRepository compiledCriteriaRepository) {
         this.clientRepository = clientRepository;
         this.clientMapper = clientMapper;
         this.clientSearchRepository = clientSearchRepository;
+        this.keysetRepository = keysetRepository;
+        this.sliceRepository = sliceRepository;
+        this.estimatedCountService = estimatedCountService;
+        this.streamRepository = streamRepository;
+        this.compiledCriteriaRepository = compiledCriteriaRepository;
     }
 
     /**
@@ -54,8 +94,10 @@ public class ClientQueryService extends QueryService<Client> {
     @Transactional(readOnly = true)
     public List<ClientDTO> findByCriteria(ClientCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
-        final Specification<Client> specification = createSpecification(criteria);
-        return clientMapper.toDto(clientRepository.findAll(specification));
+        final List<Client> clients = compiledCriteriaRepository.compile(CRITERIA_QUERY, criteria, Sort.unsorted())
+            .map(query -> compiledCriteriaRepository.findAll(query))
+            .orElseGet(() -> clientRepository.findAll(createSpecification(criteria)));
+        return clientMapper.toDto(clients);
     }
 
     /**
@@ -67,11 +109,72 @@ public class ClientQueryService extends QueryService<Client> {
     @Transactional(readOnly = true)
     public Page<ClientDTO> findByCriteria(ClientCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        return compiledCriteriaRepository.compile(CRITERIA_QUERY, criteria, page.getSort())
+            .map(query -> compiledCriteriaRepository.findAll(query, page))
+            .orElseGet(() -> clientRepository.findAll(createSpecification(criteria), page))
+            .map(clientMapper::toDto);
+    }
+
+    /**
+     * Return a {@link Slice} of {@link ClientDTO} which matches the criteria from the database,
+     * with the total count computed according to the count mode: a {@link Page} unless the count is skipped.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param countMode How the total count should be computed.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ClientDTO> findByCriteria(ClientCriteria criteria, Pageable page, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, countMode);
         final Specification<Client> specification = createSpecification(criteria);
-        return clientRepository.findAll(specification, page)
+        Slice<ClientDTO> slice = sliceRepository.findAll(Client.class, ClientRepository.ENTITY_GRAPH, specification, page)
+            .map(clientMapper::toDto);
+        if (countMode == CountMode.NONE) {
+            return slice;
+        }
+        return estimatedCountService.toPage(slice, Client.class, criteria, () -> clientRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link ClientDTO} which matches the criteria from the database,
+     * read by keyset pagination: no count is issued, and the rows before the key are not scanned.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort of the entities.
+     * @param after The sort key of the last entity already read, or null for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<ClientDTO> findByCriteria(ClientCriteria criteria, Sort sort, List<String> after, int size) {
+        log.debug("find by criteria : {}, sort: {}, after: {}", criteria, sort, after);
+        final Specification<Client> specification = createSpecification(criteria);
+        return keysetRepository.findAll(Client.class, ClientRepository.ENTITY_GRAPH, specification, sort, after, size)
             .map(clientMapper::toDto);
     }
 
+    /**
+     * Perform the action on each {@link ClientDTO} which matches the criteria from the database, reading them
+     * through a forward-only cursor, so that the memory used does not depend on the number of matching entities.
+     * Each client is fetched together with its eager car, which would otherwise cost one query per row.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The order of the entities, by id when unsorted.
+     * @param action The action to perform on each DTO.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long exportByCriteria(ClientCriteria criteria, Sort sort, Consumer<? super ClientDTO> action) {
+        log.debug("export by criteria : {}, sort: {}", criteria, sort);
+        final Specification<Client> specification = createSpecification(criteria).and((root, query, cb) -> {
+            root.fetch(Client_.car, JoinType.LEFT);
+            return null;
+        });
+        return streamRepository.forEach(Client.class, specification, sort.isSorted() ? sort : Sort.by("id"),
+            client -> action.accept(clientMapper.toDto(client)));
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -80,8 +183,9 @@ public class ClientQueryService extends QueryService<Client> {
     @Transactional(readOnly = true)
     public long countByCriteria(ClientCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<Client> specification = createSpecification(criteria);
-        return clientRepository.count(specification);
+        return compiledCriteriaRepository.compile(CRITERIA_QUERY, criteria, Sort.unsorted())
+            .map(compiledCriteriaRepository::count)
+            .orElseGet(() -> clientRepository.count(createSpecification(criteria)));
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.braude.garage.service;
 
+import com.braude.garage.service.dto.BatchItemResultDTO;
 import com.braude.garage.service.dto.ClientDTO;
 
 import org.springframework.data.domain.Page;
@@ -21,6 +22,30 @@ public interface ClientService {
      */
     ClientDTO save(ClientDTO clientDTO);
 
+    /**
+     * Create clients in a batch.
+     *
+     * @param clientDTOs the entities to create
+     * @return the result of each entity, in the order of the request
+     */
+    List<BatchItemResultDTO<ClientDTO>> createAll(List<ClientDTO> clientDTOs);
+
+    /**
+     * Update clients in a batch.
+     *
+     * @param clientDTOs the entities to update
+     * @return the result of each entity, in the order of the request
+     */
+    List<BatchItemResultDTO<ClientDTO>> updateAll(List<ClientDTO> clientDTOs);
+
+    /**
+     * Delete clients in a batch.
+     *
+     * @param ids the ids of the entities to delete
+     * @return the result of each id, in the order of the request
+     */
+    List<BatchItemResultDTO<ClientDTO>> deleteAll(List<Long> ids);
+
     /**
      * Get all the clients.
      *
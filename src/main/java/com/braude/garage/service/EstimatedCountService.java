@@ -0,0 +1,62 @@
+package com.braude.garage.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Service estimating the total count of paginated listings.
+ * <p>
+ * Counts are cached by entity and criteria for a short time, configured by
+ * {@code application.pagination.estimated-count-time-to-live-seconds}, so that paging through a listing runs its
+ * count query once instead of once per page.
+ */
+@Service
+public class EstimatedCountService {
+
+    public static final String ESTIMATED_COUNTS_CACHE = "estimatedCounts";
+
+    private final Logger log = LoggerFactory.getLogger(EstimatedCountService.class);
+
+    private final CacheManager cacheManager;
+
+    public EstimatedCountService(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Turn a slice into a page whose total is the cached count of the criteria.
+     * <p>
+     * The total is exact, and refreshes the cache, when the slice is the last one. Otherwise it is at least large
+     * enough for the next page to exist.
+     *
+     * @param slice the slice of the listing
+     * @param entityClass the entity class of the listing
+     * @param criteria the criteria of the listing, whose {@code toString()} identifies it
+     * @param counter the count query, run on a cache miss
+     * @return the page
+     */
+    public <T> Page<T> toPage(Slice<T> slice, Class<?> entityClass, Object criteria, LongSupplier counter) {
+        Cache cache = cacheManager.getCache(ESTIMATED_COUNTS_CACHE);
+        String key = entityClass.getSimpleName() + ":" + criteria;
+        long offset = slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0;
+        long read = offset + slice.getNumberOfElements();
+        if (!slice.hasNext() && (slice.hasContent() || offset == 0)) {
+            cache.put(key, read);
+            return new PageImpl<>(slice.getContent(), slice.getPageable(), read);
+        }
+        Long count = cache.get(key, () -> {
+            log.debug("Counting {}", key);
+            return counter.getAsLong();
+        });
+        long total = slice.hasNext() ? Math.max(count, read + 1) : count;
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+}
@@ -0,0 +1,283 @@
+package com.braude.garage.service;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.MailOutboxMessage;
+import com.braude.garage.repository.MailOutboxMessageRepository;
+
+import io.github.jhipster.config.JHipsterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background sender draining the {@link MailOutboxMessage} table.
+ * <p>
+ * A worker claims a batch of due messages, locking them while it pushes their next attempt date a lease ahead, then
+ * sends the whole batch over a single SMTP connection, outside of any database transaction. Sent messages are deleted,
+ * failed ones are rescheduled with an exponential backoff, and dropped once they have failed
+ * {@code application.mail.max-attempts} times. An instance stopping in the middle of a batch leaves it to be sent again
+ * once its lease is over, so a message is sent at least once.
+ * <p>
+ * Workers run on the "mailExecutor", at most {@code application.executors.mail.max-pool-size} of them: one is
+ * started when messages are queued or on each poll, and a worker finding a full batch starts another one, until the
+ * queue is drained.
+ */
+@Service
+public class MailOutboxSender {
+
+    private final Logger log = LoggerFactory.getLogger(MailOutboxSender.class);
+
+    private final MailOutboxMessageRepository mailOutboxMessageRepository;
+
+    private final JavaMailSender javaMailSender;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final ApplicationProperties.Mail properties;
+
+    private final int workerThreads;
+
+    private final Executor mailExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    private final AtomicLong pendingMessages = new AtomicLong();
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    private final Counter sentCounter;
+
+    private final Counter failedCounter;
+
+    private final Counter droppedCounter;
+
+    public MailOutboxSender(MailOutboxMessageRepository mailOutboxMessageRepository, JavaMailSender javaMailSender,
+            JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties,
+            @Qualifier("mailExecutor") Executor mailExecutor, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.mailOutboxMessageRepository = mailOutboxMessageRepository;
+        this.javaMailSender = javaMailSender;
+        this.jHipsterProperties = jHipsterProperties;
+        this.properties = applicationProperties.getMail();
+        this.workerThreads = applicationProperties.getExecutors().getMail().getMaxPoolSize();
+        this.mailExecutor = mailExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("mail.outbox.pending", pendingMessages, AtomicLong::get)
+            .description("Number of emails waiting to be sent")
+            .register(meterRegistry);
+        Gauge.builder("mail.outbox.lag", lagSeconds, AtomicLong::get)
+            .description("Age of the oldest email waiting to be sent")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("mail.outbox.messages", "result", "sent");
+        this.failedCounter = meterRegistry.counter("mail.outbox.messages", "result", "failed");
+        this.droppedCounter = meterRegistry.counter("mail.outbox.messages", "result", "dropped");
+    }
+
+    /**
+     * Start a worker, unless all of them are busy, to send the messages due.
+     * <p>
+     * This is scheduled to get fired every {@code application.mail.poll-interval-ms} milliseconds, for the messages
+     * retried or left by another instance.
+     */
+    @Scheduled(fixedDelayString = "${application.mail.poll-interval-ms:1000}")
+    public void wakeUp() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int workers = activeWorkers.get();
+        while (workers < workerThreads) {
+            if (activeWorkers.compareAndSet(workers, workers + 1)) {
+                try {
+                    mailExecutor.execute(this::work);
+                } catch (RejectedExecutionException e) {
+                    activeWorkers.decrementAndGet();
+                    log.debug("Mail workers are busy, the queue will be drained by the next poll");
+                }
+                return;
+            }
+            workers = activeWorkers.get();
+        }
+    }
+
+    private void work() {
+        try {
+            while (sendBatch()) {
+                wakeUp();
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not send the queued emails", e);
+        } finally {
+            activeWorkers.decrementAndGet();
+            updateBacklogMetrics();
+        }
+    }
+
+    /**
+     * Send one batch of queued messages.
+     *
+     * @return true if a full batch was sent and more messages may be waiting
+     */
+    boolean sendBatch() {
+        List<PendingMessage> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch.isEmpty()) {
+            return false;
+        }
+        send(batch);
+        transactionTemplate.execute(status -> {
+            complete(batch);
+            return null;
+        });
+        return batch.stream().anyMatch(message -> message.error == null) && batch.size() >= properties.getBatchSize();
+    }
+
+    private List<PendingMessage> claimBatch() {
+        Instant now = Instant.now();
+        List<MailOutboxMessage> messages = mailOutboxMessageRepository.findAllByNextAttemptDateLessThanEqualOrderByIdAsc(
+            now, PageRequest.of(0, properties.getBatchSize()));
+        if (messages.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<PendingMessage> batch = new ArrayList<>(messages.size());
+        List<Long> ids = new ArrayList<>(messages.size());
+        for (MailOutboxMessage message : messages) {
+            batch.add(new PendingMessage(message));
+            ids.add(message.getId());
+        }
+        mailOutboxMessageRepository.claim(ids, now.plusMillis(properties.getLeaseMs()));
+        return batch;
+    }
+
+    private void send(List<PendingMessage> batch) {
+        List<PendingMessage> prepared = new ArrayList<>(batch.size());
+        for (PendingMessage message : batch) {
+            try {
+                message.mimeMessage = prepare(message.source);
+                prepared.add(message);
+            } catch (MessagingException | RuntimeException e) {
+                message.error = e;
+            }
+        }
+        if (prepared.isEmpty()) {
+            return;
+        }
+        Map<MimeMessage, PendingMessage> byMimeMessage = new IdentityHashMap<>();
+        prepared.forEach(message -> byMimeMessage.put(message.mimeMessage, message));
+        try {
+            // One SMTP connection for the whole batch
+            javaMailSender.send(prepared.stream().map(message -> message.mimeMessage).toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                prepared.forEach(message -> message.error = e);
+            }
+            failedMessages.forEach((mimeMessage, error) -> {
+                PendingMessage message = byMimeMessage.get(mimeMessage);
+                if (message != null) {
+                    message.error = error;
+                }
+            });
+        } catch (MailException e) {
+            prepared.forEach(message -> message.error = e);
+        }
+    }
+
+    private MimeMessage prepare(MailOutboxMessage source) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper message = new MimeMessageHelper(mimeMessage, source.isMultipart(), StandardCharsets.UTF_8.name());
+        message.setTo(source.getRecipient());
+        message.setFrom(jHipsterProperties.getMail().getFrom());
+        message.setSubject(source.getSubject());
+        message.setText(source.getContent(), source.isHtml());
+        return mimeMessage;
+    }
+
+    private void complete(List<PendingMessage> batch) {
+        List<Long> done = new ArrayList<>();
+        Instant now = Instant.now();
+        for (PendingMessage message : batch) {
+            MailOutboxMessage source = message.source;
+            if (message.error == null) {
+                sentCounter.increment();
+                log.debug("Sent email to User '{}'", source.getRecipient());
+                done.add(source.getId());
+            } else if (source.getAttempts() + 1 >= properties.getMaxAttempts()) {
+                droppedCounter.increment();
+                log.error("Email could not be sent to user '{}' after {} attempts, dropping it: {}",
+                    source.getRecipient(), source.getAttempts() + 1, message.error.getMessage());
+                done.add(source.getId());
+            } else {
+                failedCounter.increment();
+                if (log.isDebugEnabled()) {
+                    log.warn("Email could not be sent to user '{}'", source.getRecipient(), message.error);
+                } else {
+                    log.warn("Email could not be sent to user '{}': {}", source.getRecipient(), message.error.getMessage());
+                }
+                mailOutboxMessageRepository.reschedule(source.getId(), now.plus(backoff(source.getAttempts())),
+                    abbreviate(message.error.getMessage()));
+            }
+        }
+        if (!done.isEmpty()) {
+            mailOutboxMessageRepository.deleteByIdIn(done);
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = properties.getInitialBackoffMs() << Math.min(attempts, 20);
+        return Duration.ofMillis(Math.min(delay, properties.getMaxBackoffMs()));
+    }
+
+    private static String abbreviate(String error) {
+        return error == null || error.length() <= 255 ? error : error.substring(0, 255);
+    }
+
+    private void updateBacklogMetrics() {
+        try {
+            pendingMessages.set(mailOutboxMessageRepository.count());
+            lagSeconds.set(mailOutboxMessageRepository.findFirstByOrderByIdAsc()
+                .map(message -> Duration.between(message.getCreatedDate(), Instant.now()).getSeconds())
+                .orElse(0L));
+        } catch (RuntimeException e) {
+            log.debug("Could not refresh mail outbox backlog metrics: {}", e.getMessage());
+        }
+    }
+
+    private static final class PendingMessage {
+
+        private final MailOutboxMessage source;
+
+        private MimeMessage mimeMessage;
+
+        private Exception error;
+
+        private PendingMessage(MailOutboxMessage source) {
+            this.source = source;
+        }
+    }
+}
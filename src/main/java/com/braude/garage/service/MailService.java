@@ -1,27 +1,37 @@
 package com.braude.garage.service;
 
+import com.braude.garage.domain.MailOutboxMessage;
 import com.braude.garage.domain.User;
+import com.braude.garage.repository.MailOutboxMessageRepository;
 
 import io.github.jhipster.config.JHipsterProperties;
 
-import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
-import javax.mail.internet.MimeMessage;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.MessageSource;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 
 /**
  * Service for sending emails.
  * <p>
- * We use the @Async annotation to send emails asynchronously.
+ * Emails are rendered and queued in the {@link MailOutboxMessage} table, in the transaction of the caller when there
+ * is one, and sent in the background by the {@link MailOutboxSender}. Rendering runs on the thread of the caller, so
+ * that the email is queued or rolled back with the change it tells about; the templates are parsed at startup.
+ * <p>
+ * The methods calling {@link #sendEmail} are transactional themselves, as calls within this class do not go through
+ * its transactional proxy.
  */
 @Service
 public class MailService {
@@ -32,48 +42,77 @@ public class MailService {
 
     private static final String BASE_URL = "baseUrl";
 
-    private final JHipsterProperties jHipsterProperties;
+    private static final List<String> TEMPLATES = Arrays.asList(
+        "mail/activationEmail", "mail/creationEmail", "mail/passwordResetEmail");
 
-    private final JavaMailSender javaMailSender;
+    private final JHipsterProperties jHipsterProperties;
 
     private final MessageSource messageSource;
 
     private final SpringTemplateEngine templateEngine;
 
-    public MailService(JHipsterProperties jHipsterProperties, JavaMailSender javaMailSender,
-            MessageSource messageSource, SpringTemplateEngine templateEngine) {
+    private final MailOutboxMessageRepository mailOutboxMessageRepository;
+
+    private final MailOutboxSender mailOutboxSender;
+
+    public MailService(JHipsterProperties jHipsterProperties, MessageSource messageSource,
+            SpringTemplateEngine templateEngine, MailOutboxMessageRepository mailOutboxMessageRepository,
+            MailOutboxSender mailOutboxSender) {
 
         this.jHipsterProperties = jHipsterProperties;
-        this.javaMailSender = javaMailSender;
         this.messageSource = messageSource;
         this.templateEngine = templateEngine;
+        this.mailOutboxMessageRepository = mailOutboxMessageRepository;
+        this.mailOutboxSender = mailOutboxSender;
     }
 
-    @Async
+    /**
+     * Parse the mail templates once at startup, so that the first emails do not pay for it when
+     * {@code spring.thymeleaf.cache} is enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpTemplates() {
+        for (String templateName : TEMPLATES) {
+            try {
+                Context context = new Context(Locale.ENGLISH);
+                context.setVariable(USER, new User());
+                context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
+                templateEngine.process(templateName, context);
+            } catch (RuntimeException e) {
+                log.warn("Could not parse the mail template '{}': {}", templateName, e.getMessage());
+            }
+        }
+    }
+
+    @Transactional
     public void sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
-        log.debug("Send email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
+        log.debug("Queue email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
             isMultipart, isHtml, to, subject, content);
 
-        // Prepare message using a Spring helper
-        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-        try {
-            MimeMessageHelper message = new MimeMessageHelper(mimeMessage, isMultipart, StandardCharsets.UTF_8.name());
-            message.setTo(to);
-            message.setFrom(jHipsterProperties.getMail().getFrom());
-            message.setSubject(subject);
-            message.setText(content, isHtml);
-            javaMailSender.send(mimeMessage);
-            log.debug("Sent email to User '{}'", to);
-        } catch (Exception e) {
-            if (log.isDebugEnabled()) {
-                log.warn("Email could not be sent to user '{}'", to, e);
-            } else {
-                log.warn("Email could not be sent to user '{}': {}", to, e.getMessage());
-            }
+        Instant now = Instant.now();
+        MailOutboxMessage message = new MailOutboxMessage();
+        message.setRecipient(to);
+        message.setSubject(subject);
+        message.setContent(content);
+        message.setMultipart(isMultipart);
+        message.setHtml(isHtml);
+        message.setCreatedDate(now);
+        message.setNextAttemptDate(now);
+        mailOutboxMessageRepository.save(message);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    mailOutboxSender.wakeUp();
+                }
+            });
+        } else {
+            mailOutboxSender.wakeUp();
         }
     }
 
-    @Async
+    @Transactional
     public void sendEmailFromTemplate(User user, String templateName, String titleKey) {
         Locale locale = Locale.forLanguageTag(user.getLangKey());
         Context context = new Context(locale);
@@ -85,19 +124,19 @@ public class MailService {
 
     }
 
-    @Async
+    @Transactional
     public void sendActivationEmail(User user) {
         log.debug("Sending activation email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/activationEmail", "email.activation.title");
     }
 
-    @Async
+    @Transactional
     public void sendCreationEmail(User user) {
         log.debug("Sending creation email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/creationEmail", "email.activation.title");
     }
 
-    @Async
+    @Transactional
     public void sendPasswordResetMail(User user) {
         log.debug("Sending password reset email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/passwordResetEmail", "email.reset.title");
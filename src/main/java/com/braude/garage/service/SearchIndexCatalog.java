@@ -0,0 +1,150 @@
+package com.braude.garage.service;
+
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.CarService;
+import com.braude.garage.domain.Client;
+import com.braude.garage.domain.User;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.CarServiceRepository;
+import com.braude.garage.repository.ClientRepository;
+import com.braude.garage.repository.UserRepository;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The JPA entities mirrored in Elasticsearch, with what is needed to load and index them.
+ * <p>
+ * Entities are known by their simple class name, which is what the {@link SearchOutboxService} records,
+ * and by the name of their index, which is the alias searched by the Elasticsearch repositories.
+ */
+@Component
+public class SearchIndexCatalog {
+
+    private final Map<String, IndexedEntity<?>> indexedEntities = new LinkedHashMap<>();
+
+    public SearchIndexCatalog(ElasticsearchOperations elasticsearchOperations, CarRepository carRepository,
+            ClientRepository clientRepository, CarServiceRepository carServiceRepository, UserRepository userRepository) {
+        register(elasticsearchOperations, Car.class, carRepository, Car::getId,
+            carRepository::findAllByIdGreaterThanOrderByIdAsc);
+        register(elasticsearchOperations, Client.class, clientRepository, Client::getId,
+            clientRepository::findAllByIdGreaterThanOrderByIdAsc);
+        register(elasticsearchOperations, CarService.class, carServiceRepository, CarService::getId,
+            carServiceRepository::findAllByIdGreaterThanOrderByIdAsc);
+        register(elasticsearchOperations, User.class, userRepository, User::getId,
+            userRepository::findAllByIdGreaterThanOrderByIdAsc);
+    }
+
+    private <T> void register(ElasticsearchOperations elasticsearchOperations, Class<T> entityClass,
+            JpaRepository<T, Long> repository, Function<T, Long> idGetter,
+            BiFunction<Long, Pageable, List<T>> pageAfter) {
+        ElasticsearchPersistentEntity<?> persistentEntity = elasticsearchOperations.getPersistentEntityFor(entityClass);
+        indexedEntities.put(entityClass.getSimpleName(),
+            new IndexedEntity<>(entityClass.getSimpleName(), persistentEntity, repository, idGetter, pageAfter));
+    }
+
+    public Collection<IndexedEntity<?>> getAll() {
+        return Collections.unmodifiableCollection(indexedEntities.values());
+    }
+
+    public Optional<IndexedEntity<?>> getByEntityType(String entityType) {
+        return Optional.ofNullable(indexedEntities.get(entityType));
+    }
+
+    public Optional<IndexedEntity<?>> getByIndexName(String indexName) {
+        return indexedEntities.values().stream()
+            .filter(indexedEntity -> indexedEntity.getIndexName().equals(indexName))
+            .findFirst();
+    }
+
+    /**
+     * An entity type stored in its own Elasticsearch index.
+     *
+     * @param <T> the JPA entity class
+     */
+    public static final class IndexedEntity<T> {
+
+        private final String entityType;
+
+        private final String indexName;
+
+        private final String indexType;
+
+        private final short shards;
+
+        private final short replicas;
+
+        private final String refreshInterval;
+
+        private final JpaRepository<T, Long> repository;
+
+        private final Function<T, Long> idGetter;
+
+        private final BiFunction<Long, Pageable, List<T>> pageAfter;
+
+        private IndexedEntity(String entityType, ElasticsearchPersistentEntity<?> persistentEntity,
+                JpaRepository<T, Long> repository, Function<T, Long> idGetter,
+                BiFunction<Long, Pageable, List<T>> pageAfter) {
+            this.entityType = entityType;
+            this.indexName = persistentEntity.getIndexName();
+            this.indexType = persistentEntity.getIndexType();
+            this.shards = persistentEntity.getShards();
+            this.replicas = persistentEntity.getReplicas();
+            this.refreshInterval = persistentEntity.getRefreshInterval();
+            this.repository = repository;
+            this.idGetter = idGetter;
+            this.pageAfter = pageAfter;
+        }
+
+        public String getEntityType() {
+            return entityType;
+        }
+
+        public String getIndexName() {
+            return indexName;
+        }
+
+        public String getIndexType() {
+            return indexType;
+        }
+
+        public short getShards() {
+            return shards;
+        }
+
+        public short getReplicas() {
+            return replicas;
+        }
+
+        public String getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public Long getId(T entity) {
+            return idGetter.apply(entity);
+        }
+
+        public List<T> findAllById(Iterable<Long> ids) {
+            return repository.findAllById(ids);
+        }
+
+        /**
+         * Keyset pagination: the next page of entities ordered by id, starting after the given id.
+         *
+         * @param lastId the last id of the previous page
+         * @param size the page size
+         * @return the entities, with the associations stored in the document already fetched
+         */
+        public List<T> findPageAfter(Long lastId, int size) {
+            return pageAfter.apply(lastId, PageRequest.of(0, size));
+        }
+    }
+}
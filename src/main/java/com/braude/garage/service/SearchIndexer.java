@@ -0,0 +1,308 @@
+package com.braude.garage.service;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.SearchOutboxEvent;
+import com.braude.garage.repository.SearchOutboxEventRepository;
+import com.braude.garage.repository.SearchReindexRepository;
+import com.braude.garage.service.SearchIndexCatalog.IndexedEntity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Delete;
+import io.searchbox.core.Index;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Background indexer draining the {@link SearchOutboxEvent} table into Elasticsearch.
+ * <p>
+ * Events are read in batches and coalesced per entity, so an entity saved several times is sent once.
+ * The current database state wins: an entity that still exists is (re)indexed, one that is gone is
+ * deleted from its index. Each batch is sent as a single Jest _bulk request, outside of any database
+ * transaction. Failed entities are rescheduled with an exponential backoff, and a run stops at the first
+ * batch that could not be delivered at all, so an Elasticsearch outage is not hammered.
+ * <p>
+ * Events of an index being rebuilt by the {@link SearchReindexService} are held back until its alias has
+ * been swapped, so that they are applied to the new index rather than lost with the old one.
+ */
+@Service
+public class SearchIndexer {
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexer.class);
+
+    private final SearchOutboxEventRepository searchOutboxEventRepository;
+
+    private final SearchReindexRepository searchReindexRepository;
+
+    private final SearchIndexCatalog searchIndexCatalog;
+
+    private final JestClient jestClient;
+
+    private final EntityMapper entityMapper;
+
+    private final ApplicationProperties.SearchIndexer properties;
+
+    private final Duration reindexStaleAfter;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final AtomicLong pendingEvents = new AtomicLong();
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    private final Counter indexedCounter;
+
+    private final Counter deletedCounter;
+
+    private final Counter failedCounter;
+
+    public SearchIndexer(SearchOutboxEventRepository searchOutboxEventRepository,
+            SearchReindexRepository searchReindexRepository, SearchIndexCatalog searchIndexCatalog,
+            JestClient jestClient, EntityMapper entityMapper, PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.searchOutboxEventRepository = searchOutboxEventRepository;
+        this.searchReindexRepository = searchReindexRepository;
+        this.searchIndexCatalog = searchIndexCatalog;
+        this.jestClient = jestClient;
+        this.entityMapper = entityMapper;
+        this.properties = applicationProperties.getSearchIndexer();
+        this.reindexStaleAfter = Duration.ofMillis(applicationProperties.getSearchReindex().getStaleAfterMs());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+
+        Gauge.builder("search.indexer.pending", pendingEvents, AtomicLong::get)
+            .description("Number of outbox events waiting to be indexed")
+            .register(meterRegistry);
+        Gauge.builder("search.indexer.lag", lagSeconds, AtomicLong::get)
+            .description("Age of the oldest outbox event waiting to be indexed")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        this.indexedCounter = meterRegistry.counter("search.indexer.documents", "result", "indexed");
+        this.deletedCounter = meterRegistry.counter("search.indexer.documents", "result", "deleted");
+        this.failedCounter = meterRegistry.counter("search.indexer.documents", "result", "failed");
+    }
+
+    /**
+     * Drain the outbox, up to {@code maxBatchesPerRun} batches per run.
+     * <p>
+     * This is scheduled to get fired every {@code application.search-indexer.poll-interval-ms} milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${application.search-indexer.poll-interval-ms:1000}")
+    public void drain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+                if (!drainBatch()) {
+                    break;
+                }
+            }
+        } finally {
+            updateBacklogMetrics();
+        }
+    }
+
+    /**
+     * Index one batch of outbox events.
+     *
+     * @return true if a full batch was delivered and more events may be waiting
+     */
+    boolean drainBatch() {
+        Batch batch = readOnlyTransactionTemplate.execute(status -> readBatch());
+        if (batch.eventCount == 0) {
+            return false;
+        }
+        Set<PendingDocument> failed = push(batch.documents);
+        transactionTemplate.execute(status -> {
+            complete(batch, failed);
+            return null;
+        });
+        return failed.size() < batch.documents.size() && batch.eventCount >= properties.getBatchSize();
+    }
+
+    private Batch readBatch() {
+        Instant now = Instant.now();
+        PageRequest page = PageRequest.of(0, properties.getBatchSize());
+        Set<String> rebuilding = searchReindexRepository.findAllByHeartbeatDateAfter(now.minus(reindexStaleAfter)).stream()
+            .map(reindex -> searchIndexCatalog.getByIndexName(reindex.getIndexName()))
+            .filter(Optional::isPresent)
+            .map(indexedEntity -> indexedEntity.get().getEntityType())
+            .collect(Collectors.toSet());
+        List<SearchOutboxEvent> events = rebuilding.isEmpty()
+            ? searchOutboxEventRepository.findAllByNextAttemptDateLessThanEqualOrderByIdAsc(now, page)
+            : searchOutboxEventRepository.findAllByNextAttemptDateLessThanEqualAndEntityTypeNotInOrderByIdAsc(now, rebuilding, page);
+        Batch batch = new Batch(events.size());
+        Map<String, PendingDocument> documents = new LinkedHashMap<>();
+        for (SearchOutboxEvent event : events) {
+            IndexedEntity<?> indexedType = searchIndexCatalog.getByEntityType(event.getEntityType()).orElse(null);
+            if (indexedType == null) {
+                log.warn("Discarding outbox event for unknown entity type: {}", event);
+                batch.discardedEventIds.add(event.getId());
+                continue;
+            }
+            documents.computeIfAbsent(event.getEntityType() + '#' + event.getEntityId(),
+                key -> new PendingDocument(indexedType, event.getEntityId()))
+                .add(event);
+        }
+        Map<IndexedEntity<?>, List<PendingDocument>> byType = documents.values().stream()
+            .collect(Collectors.groupingBy(document -> document.indexedType));
+        byType.forEach(this::loadSources);
+        batch.documents.addAll(documents.values());
+        return batch;
+    }
+
+    private <T> void loadSources(IndexedEntity<T> indexedType, List<PendingDocument> documents) {
+        List<Long> ids = documents.stream().map(document -> document.entityId).collect(Collectors.toList());
+        Map<Long, T> entities = indexedType.findAllById(ids).stream()
+            .collect(Collectors.toMap(indexedType::getId, Function.identity()));
+        for (PendingDocument document : documents) {
+            T entity = entities.get(document.entityId);
+            if (entity != null) {
+                try {
+                    document.source = entityMapper.mapToString(entity);
+                } catch (IOException e) {
+                    log.error("Could not serialize {} {} for indexing", indexedType.getIndexName(), document.entityId, e);
+                    document.serializationFailed = true;
+                }
+            }
+        }
+    }
+
+    private Set<PendingDocument> push(List<PendingDocument> documents) {
+        Set<PendingDocument> failed = new HashSet<>();
+        List<PendingDocument> sent = new ArrayList<>();
+        Bulk.Builder bulk = new Bulk.Builder();
+        for (PendingDocument document : documents) {
+            if (document.serializationFailed) {
+                failed.add(document);
+                continue;
+            }
+            IndexedEntity<?> type = document.indexedType;
+            String id = document.entityId.toString();
+            if (document.source != null) {
+                bulk.addAction(new Index.Builder(document.source).index(type.getIndexName()).type(type.getIndexType()).id(id).build());
+            } else {
+                bulk.addAction(new Delete.Builder(id).index(type.getIndexName()).type(type.getIndexType()).build());
+            }
+            sent.add(document);
+        }
+        if (sent.isEmpty()) {
+            return failed;
+        }
+        try {
+            BulkResult result = jestClient.execute(bulk.build());
+            List<BulkResult.BulkResultItem> items = result.getItems();
+            if (items.size() != sent.size()) {
+                log.warn("Elasticsearch rejected the bulk request: {}", result.getErrorMessage());
+                failed.addAll(sent);
+                return failed;
+            }
+            // Items come back in request order; their index is the concrete one behind the alias
+            for (int i = 0; i < items.size(); i++) {
+                BulkResult.BulkResultItem item = items.get(i);
+                boolean missingOnDelete = "delete".equals(item.operation) && item.status == 404;
+                if (item.status >= 300 && !missingOnDelete) {
+                    log.warn("Could not index {} {}: {} {}", item.index, item.id, item.errorType, item.errorReason);
+                    failed.add(sent.get(i));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not reach Elasticsearch, {} documents will be retried: {}", sent.size(), e.getMessage());
+            failed.addAll(sent);
+        }
+        return failed;
+    }
+
+    private void complete(Batch batch, Set<PendingDocument> failed) {
+        List<Long> delivered = new ArrayList<>(batch.discardedEventIds);
+        Instant now = Instant.now();
+        for (PendingDocument document : batch.documents) {
+            if (failed.contains(document)) {
+                failedCounter.increment();
+                searchOutboxEventRepository.reschedule(document.eventIds, now.plus(backoff(document.attempts)));
+            } else {
+                (document.source != null ? indexedCounter : deletedCounter).increment();
+                delivered.addAll(document.eventIds);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            searchOutboxEventRepository.deleteByIdIn(delivered);
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = properties.getInitialBackoffMs() << Math.min(attempts, 20);
+        return Duration.ofMillis(Math.min(delay, properties.getMaxBackoffMs()));
+    }
+
+    private void updateBacklogMetrics() {
+        try {
+            pendingEvents.set(searchOutboxEventRepository.count());
+            lagSeconds.set(searchOutboxEventRepository.findFirstByOrderByIdAsc()
+                .map(event -> Duration.between(event.getCreatedDate(), Instant.now()).getSeconds())
+                .orElse(0L));
+        } catch (RuntimeException e) {
+            log.debug("Could not refresh search indexer backlog metrics: {}", e.getMessage());
+        }
+    }
+
+    private static final class Batch {
+
+        private final int eventCount;
+
+        private final List<PendingDocument> documents = new ArrayList<>();
+
+        private final List<Long> discardedEventIds = new ArrayList<>();
+
+        private Batch(int eventCount) {
+            this.eventCount = eventCount;
+        }
+    }
+
+    private static final class PendingDocument {
+
+        private final IndexedEntity<?> indexedType;
+
+        private final Long entityId;
+
+        private final List<Long> eventIds = new ArrayList<>();
+
+        private int attempts;
+
+        private String source;
+
+        private boolean serializationFailed;
+
+        private PendingDocument(IndexedEntity<?> indexedType, Long entityId) {
+            this.indexedType = indexedType;
+            this.entityId = entityId;
+        }
+
+        private void add(SearchOutboxEvent event) {
+            eventIds.add(event.getId());
+            attempts = Math.max(attempts, event.getAttempts());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.braude.garage.service;
+
+import com.braude.garage.domain.SearchOutboxEvent;
+import com.braude.garage.repository.SearchOutboxEventRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service recording Elasticsearch changes in the transactional outbox.
+ * <p>
+ * Must be called from inside the transaction that modifies the entity, so that the outbox row is
+ * committed (or rolled back) together with it. The {@link SearchIndexer} pushes it to Elasticsearch later.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class SearchOutboxService {
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxService.class);
+
+    private final SearchOutboxEventRepository searchOutboxEventRepository;
+
+    public SearchOutboxService(SearchOutboxEventRepository searchOutboxEventRepository) {
+        this.searchOutboxEventRepository = searchOutboxEventRepository;
+    }
+
+    /**
+     * Record that the "id" entity of the given type was created, updated or deleted.
+     *
+     * @param entityClass the indexed entity class
+     * @param id the id of the entity
+     */
+    public void enqueue(Class<?> entityClass, Long id) {
+        log.debug("Request to enqueue search indexing of {} : {}", entityClass.getSimpleName(), id);
+        Instant now = Instant.now();
+        SearchOutboxEvent event = new SearchOutboxEvent();
+        event.setEntityType(entityClass.getSimpleName());
+        event.setEntityId(id);
+        event.setCreatedDate(now);
+        event.setNextAttemptDate(now);
+        searchOutboxEventRepository.save(event);
+    }
+
+    /**
+     * Record that the entities of the given type with the given ids were created, updated or deleted. The events get
+     * their ids from {@link com.braude.garage.domain.PooledIdGenerator}, so they are inserted by JDBC batches.
+     *
+     * @param entityClass the indexed entity class
+     * @param ids the ids of the entities
+     */
+    public void enqueueAll(Class<?> entityClass, Collection<Long> ids) {
+        log.debug("Request to enqueue search indexing of {} {}", ids.size(), entityClass.getSimpleName());
+        Instant now = Instant.now();
+        List<SearchOutboxEvent> events = ids.stream().map(id -> {
+            SearchOutboxEvent event = new SearchOutboxEvent();
+            event.setEntityType(entityClass.getSimpleName());
+            event.setEntityId(id);
+            event.setCreatedDate(now);
+            event.setNextAttemptDate(now);
+            return event;
+        }).collect(Collectors.toList());
+        searchOutboxEventRepository.saveAll(events);
+    }
+}
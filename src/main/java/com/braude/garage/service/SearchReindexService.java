@@ -0,0 +1,473 @@
+package com.braude.garage.service;
+
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.SearchReindex;
+import com.braude.garage.repository.SearchReindexRepository;
+import com.braude.garage.service.SearchIndexCatalog.IndexedEntity;
+import com.braude.garage.service.dto.SearchReindexStatusDTO;
+
+import com.google.gson.JsonObject;
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Index;
+import io.searchbox.indices.CreateIndex;
+import io.searchbox.indices.DeleteIndex;
+import io.searchbox.indices.Refresh;
+import io.searchbox.indices.aliases.AddAliasMapping;
+import io.searchbox.indices.aliases.GetAliases;
+import io.searchbox.indices.aliases.ModifyAliases;
+import io.searchbox.indices.aliases.RemoveAliasMapping;
+import io.searchbox.indices.mapping.GetMapping;
+import io.searchbox.indices.mapping.PutMapping;
+import io.searchbox.indices.settings.UpdateSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Service rebuilding the Elasticsearch indices from the database.
+ * <p>
+ * Each index name used by the Elasticsearch repositories is an alias. A rebuild fills a fresh
+ * {@code <index>_<timestamp>} index and then swaps the alias onto it in a single _aliases request, so
+ * searches never see a partial index. Rows are streamed by keyset pagination on the id, serialized in
+ * parallel and sent as _bulk requests; at most {@code max-in-flight-bulks} pages are held in memory besides
+ * the one being read, whatever the size of the table. The new index is created without replicas and
+ * refresh, both being restored before the swap.
+ * <p>
+ * While a rebuild runs, the {@link SearchIndexer} holds back the outbox events of its index, and sends
+ * them to the new index once the alias has moved.
+ */
+@Service
+public class SearchReindexService {
+
+    private static final DateTimeFormatter TARGET_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS")
+        .withZone(ZoneOffset.UTC);
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexService.class);
+
+    private final SearchIndexCatalog searchIndexCatalog;
+
+    private final SearchReindexRepository searchReindexRepository;
+
+    private final JestClient jestClient;
+
+    private final EntityMapper entityMapper;
+
+    private final ApplicationProperties.SearchReindex properties;
+
+    private final Executor indexingExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final Map<String, Run> runs = new ConcurrentHashMap<>();
+
+    public SearchReindexService(SearchIndexCatalog searchIndexCatalog, SearchReindexRepository searchReindexRepository,
+            JestClient jestClient, EntityMapper entityMapper, ApplicationProperties applicationProperties,
+            @Qualifier("indexingExecutor") Executor indexingExecutor, PlatformTransactionManager transactionManager) {
+        this.searchIndexCatalog = searchIndexCatalog;
+        this.searchReindexRepository = searchReindexRepository;
+        this.jestClient = jestClient;
+        this.entityMapper = entityMapper;
+        this.properties = applicationProperties.getSearchReindex();
+        this.indexingExecutor = indexingExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @return the names of the indices that can be rebuilt
+     */
+    public List<String> getIndexNames() {
+        return searchIndexCatalog.getAll().stream().map(IndexedEntity::getIndexName).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the last rebuild of each index started on this node
+     */
+    public List<SearchReindexStatusDTO> getStatuses() {
+        return runs.values().stream().map(Run::toDto).collect(Collectors.toList());
+    }
+
+    /**
+     * Rebuild an index in the background.
+     *
+     * @param indexName the name of the index
+     * @return the status of the started rebuild
+     * @throws ConcurrencyFailureException if the index is already being rebuilt
+     * @throws RejectedExecutionException if the indexing executor is full
+     */
+    public SearchReindexStatusDTO reindexAsync(String indexName) {
+        Run run = start(Collections.singletonList(indexName)).get(0);
+        submit(run);
+        return run.toDto();
+    }
+
+    /**
+     * Rebuild all the indices in the background.
+     * <p>
+     * Every index is checked before any rebuild starts: either all of them are started, or none is.
+     *
+     * @return the status of the rebuild of each index, failed if the indexing executor was full
+     * @throws ConcurrencyFailureException if one of the indices is already being rebuilt
+     */
+    public List<SearchReindexStatusDTO> reindexAllAsync() {
+        List<SearchReindexStatusDTO> statuses = new ArrayList<>();
+        for (Run run : start(getIndexNames())) {
+            try {
+                submit(run);
+            } catch (RejectedExecutionException e) {
+                log.warn("Could not start the rebuild of {}: {}", run.indexedEntity.getIndexName(), e.getMessage());
+            }
+            statuses.add(run.toDto());
+        }
+        return statuses;
+    }
+
+    /**
+     * Rebuild an index, and wait for the alias to be swapped.
+     *
+     * @param indexName the name of the index
+     * @return the status of the finished rebuild
+     * @throws ConcurrencyFailureException if the index is already being rebuilt
+     */
+    public SearchReindexStatusDTO reindex(String indexName) {
+        Run run = start(Collections.singletonList(indexName)).get(0);
+        rebuild(run);
+        return run.toDto();
+    }
+
+    private void submit(Run run) {
+        try {
+            indexingExecutor.execute(() -> rebuild(run));
+        } catch (RejectedExecutionException e) {
+            run.finish(SearchReindexStatusDTO.State.FAILED, "Too many rebuilds in progress");
+            release(run);
+            throw e;
+        }
+    }
+
+    /**
+     * Acquire the rebuilds of the given indices in a single transaction, so that none is acquired if one of them is
+     * already being rebuilt.
+     */
+    private List<Run> start(List<String> indexNames) {
+        Instant now = Instant.now();
+        List<Run> started = new ArrayList<>();
+        for (String indexName : indexNames) {
+            IndexedEntity<?> indexedEntity = searchIndexCatalog.getByIndexName(indexName)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown index: " + indexName));
+            started.add(new Run(indexedEntity, indexName + '_' + TARGET_SUFFIX.format(now), now));
+        }
+        List<SearchReindex> previous;
+        try {
+            previous = transactionTemplate.execute(status -> started.stream().map(this::acquire)
+                .filter(Objects::nonNull).collect(Collectors.toList()));
+        } catch (DataIntegrityViolationException e) {
+            throw new ConcurrencyFailureException("Index " + String.join(" or ", indexNames) +
+                " is already being rebuilt", e);
+        }
+        for (SearchReindex reindex : previous) {
+            log.warn("Taking over the abandoned rebuild of {} into {}", reindex.getIndexName(), reindex.getTargetIndex());
+            deleteIndexQuietly(reindex.getTargetIndex());
+        }
+        started.forEach(run -> runs.put(run.indexedEntity.getIndexName(), run));
+        return started;
+    }
+
+    private SearchReindex acquire(Run run) {
+        String indexName = run.indexedEntity.getIndexName();
+        Optional<SearchReindex> existing = searchReindexRepository.findById(indexName);
+        Instant staleBefore = run.startedDate.minusMillis(properties.getStaleAfterMs());
+        if (existing.isPresent() && existing.get().getHeartbeatDate().isAfter(staleBefore)) {
+            throw new ConcurrencyFailureException("Index " + indexName + " is already being rebuilt");
+        }
+        SearchReindex previous = existing.map(reindex -> {
+            SearchReindex copy = new SearchReindex();
+            copy.setIndexName(reindex.getIndexName());
+            copy.setTargetIndex(reindex.getTargetIndex());
+            return copy;
+        }).orElse(null);
+        SearchReindex reindex = existing.orElseGet(SearchReindex::new);
+        reindex.setIndexName(indexName);
+        reindex.setTargetIndex(run.targetIndex);
+        reindex.setStartedDate(run.startedDate);
+        reindex.setHeartbeatDate(run.startedDate);
+        searchReindexRepository.saveAndFlush(reindex);
+        return previous;
+    }
+
+    private void rebuild(Run run) {
+        IndexedEntity<?> indexedEntity = run.indexedEntity;
+        log.info("Rebuilding index {} into {}", indexedEntity.getIndexName(), run.targetIndex);
+        try {
+            createTargetIndex(indexedEntity, run.targetIndex);
+            load(indexedEntity, run);
+            restoreSettings(indexedEntity, run.targetIndex);
+            swapAlias(indexedEntity.getIndexName(), run.targetIndex);
+            run.finish(SearchReindexStatusDTO.State.COMPLETED, null);
+            log.info("Rebuilt index {} with {} documents in {}", indexedEntity.getIndexName(), run.documents.get(),
+                Duration.between(run.startedDate, run.finishedDate));
+        } catch (Exception e) {
+            log.error("Could not rebuild index {}", indexedEntity.getIndexName(), e);
+            run.finish(SearchReindexStatusDTO.State.FAILED, e.getMessage());
+            deleteIndexQuietly(run.targetIndex);
+        } finally {
+            release(run);
+        }
+    }
+
+    private void release(Run run) {
+        transactionTemplate.execute(status -> {
+            searchReindexRepository.findById(run.indexedEntity.getIndexName())
+                .filter(reindex -> reindex.getTargetIndex().equals(run.targetIndex))
+                .ifPresent(searchReindexRepository::delete);
+            return null;
+        });
+    }
+
+    private void createTargetIndex(IndexedEntity<?> indexedEntity, String targetIndex) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("number_of_shards", indexedEntity.getShards());
+        settings.put("number_of_replicas", 0);
+        settings.put("refresh_interval", "-1");
+        execute(new CreateIndex.Builder(targetIndex).settings(settings).build());
+
+        // Reuse the mapping put by the Elasticsearch repository on the current index
+        JestResult mapping = executeQuietly(new GetMapping.Builder()
+            .addIndex(indexedEntity.getIndexName()).addType(indexedEntity.getIndexType()).build());
+        if (mapping != null && mapping.isSucceeded()) {
+            mapping.getJsonObject().entrySet().stream()
+                .map(index -> index.getValue().getAsJsonObject().getAsJsonObject("mappings"))
+                .filter(mappings -> mappings != null && mappings.has(indexedEntity.getIndexType()))
+                .findFirst()
+                .ifPresent(mappings -> {
+                    JsonObject source = new JsonObject();
+                    source.add(indexedEntity.getIndexType(), mappings.get(indexedEntity.getIndexType()));
+                    execute(new PutMapping.Builder(targetIndex, indexedEntity.getIndexType(), source.toString()).build());
+                });
+        }
+    }
+
+    private <T> void load(IndexedEntity<T> indexedEntity, Run run) throws InterruptedException {
+        int pageSize = properties.getPageSize();
+        int parallelism = Math.max(1, properties.getParallelism());
+        int maxInFlightBulks = Math.max(1, properties.getMaxInFlightBulks());
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+            new CustomizableThreadFactory("search-reindex-" + indexedEntity.getIndexName() + "-"));
+        Semaphore inFlight = new Semaphore(maxInFlightBulks);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            Long lastId = Long.MIN_VALUE;
+            while (failure.get() == null) {
+                Long after = lastId;
+                List<T> page = readOnlyTransactionTemplate.execute(status -> indexedEntity.findPageAfter(after, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastId = indexedEntity.getId(page.get(page.size() - 1));
+                heartbeat(run);
+                inFlight.acquire();
+                serialize(indexedEntity, page, parallelism, workers)
+                    .thenAccept(sources -> sendBulk(indexedEntity, run.targetIndex, sources))
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            failure.compareAndSet(null, error instanceof CompletionException ? error.getCause() : error);
+                        } else {
+                            run.documents.addAndGet(page.size());
+                        }
+                        inFlight.release();
+                    });
+            }
+            inFlight.acquire(maxInFlightBulks);
+        } finally {
+            workers.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException(failure.get().getMessage(), failure.get());
+        }
+    }
+
+    /**
+     * Serialize a page in {@code parallelism} chunks.
+     *
+     * @return the documents by id, in page order
+     */
+    private <T> CompletableFuture<Map<String, String>> serialize(IndexedEntity<T> indexedEntity, List<T> page,
+            int parallelism, ExecutorService workers) {
+        int chunkSize = (page.size() + parallelism - 1) / parallelism;
+        List<CompletableFuture<Map<String, String>>> chunks = new ArrayList<>();
+        for (int from = 0; from < page.size(); from += chunkSize) {
+            List<T> chunk = page.subList(from, Math.min(from + chunkSize, page.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> {
+                Map<String, String> sources = new LinkedHashMap<>();
+                for (T entity : chunk) {
+                    try {
+                        sources.put(indexedEntity.getId(entity).toString(), entityMapper.mapToString(entity));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return sources;
+            }, workers));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]))
+            .thenApply(done -> {
+                Map<String, String> sources = new LinkedHashMap<>();
+                chunks.forEach(chunk -> sources.putAll(chunk.join()));
+                return sources;
+            });
+    }
+
+    private void sendBulk(IndexedEntity<?> indexedEntity, String targetIndex, Map<String, String> sources) {
+        Bulk.Builder bulk = new Bulk.Builder().defaultIndex(targetIndex).defaultType(indexedEntity.getIndexType());
+        sources.forEach((id, source) -> bulk.addAction(new Index.Builder(source).id(id).build()));
+        BulkResult result = execute(bulk.build(), false);
+        List<BulkResult.BulkResultItem> failedItems = result.getFailedItems();
+        if (!failedItems.isEmpty()) {
+            BulkResult.BulkResultItem item = failedItems.get(0);
+            throw new IllegalStateException(failedItems.size() + " documents were rejected, first " + item.id + ": " +
+                item.errorType + " " + item.errorReason);
+        }
+        if (!result.isSucceeded()) {
+            throw new IllegalStateException(result.getErrorMessage());
+        }
+    }
+
+    private void heartbeat(Run run) {
+        Integer updated = transactionTemplate.execute(status -> searchReindexRepository
+            .heartbeat(run.indexedEntity.getIndexName(), run.targetIndex, Instant.now()));
+        if (updated == null || updated == 0) {
+            throw new ConcurrencyFailureException("The rebuild of " + run.indexedEntity.getIndexName() +
+                " was taken over by another node");
+        }
+    }
+
+    private void restoreSettings(IndexedEntity<?> indexedEntity, String targetIndex) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("number_of_replicas", indexedEntity.getReplicas());
+        settings.put("refresh_interval", indexedEntity.getRefreshInterval());
+        execute(new UpdateSettings.Builder(Collections.singletonMap("index", settings)).addIndex(targetIndex).build());
+        execute(new Refresh.Builder().addIndex(targetIndex).build());
+    }
+
+    /**
+     * Point the alias to the target index, and delete the indices it pointed to.
+     * <p>
+     * Before the first rebuild the repositories have created a concrete index with the name of the alias:
+     * it has to be deleted before the alias can be added, so searches fail for the duration of that call.
+     */
+    private void swapAlias(String alias, String targetIndex) {
+        JestResult aliases = executeQuietly(new GetAliases.Builder().addIndex(alias).build());
+        List<String> previousIndices = aliases == null || !aliases.isSucceeded() ? Collections.emptyList() :
+            aliases.getJsonObject().entrySet().stream().map(Map.Entry::getKey).collect(Collectors.toList());
+        if (previousIndices.contains(alias)) {
+            execute(new DeleteIndex.Builder(alias).build());
+            execute(new ModifyAliases.Builder(new AddAliasMapping.Builder(targetIndex, alias).build()).build());
+            return;
+        }
+        ModifyAliases.Builder modifyAliases = new ModifyAliases.Builder(new AddAliasMapping.Builder(targetIndex, alias).build());
+        previousIndices.forEach(index -> modifyAliases.addAlias(new RemoveAliasMapping.Builder(index, alias).build()));
+        execute(modifyAliases.build());
+        previousIndices.forEach(this::deleteIndexQuietly);
+    }
+
+    private void deleteIndexQuietly(String index) {
+        JestResult result = executeQuietly(new DeleteIndex.Builder(index).build());
+        if (result != null && !result.isSucceeded() && result.getResponseCode() != 404) {
+            log.warn("Could not delete index {}: {}", index, result.getErrorMessage());
+        }
+    }
+
+    private <R extends JestResult> R execute(Action<R> action) {
+        return execute(action, true);
+    }
+
+    private <R extends JestResult> R execute(Action<R> action, boolean checkSucceeded) {
+        R result;
+        try {
+            result = jestClient.execute(action);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (checkSucceeded && !result.isSucceeded()) {
+            throw new IllegalStateException(action.getRestMethodName() + " " + action.getURI() + ": " +
+                result.getErrorMessage());
+        }
+        return result;
+    }
+
+    private <R extends JestResult> R executeQuietly(Action<R> action) {
+        try {
+            return jestClient.execute(action);
+        } catch (IOException e) {
+            log.warn("Could not reach Elasticsearch: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class Run {
+
+        private final IndexedEntity<?> indexedEntity;
+
+        private final String targetIndex;
+
+        private final Instant startedDate;
+
+        private final AtomicLong documents = new AtomicLong();
+
+        private volatile SearchReindexStatusDTO.State state = SearchReindexStatusDTO.State.RUNNING;
+
+        private volatile Instant finishedDate;
+
+        private volatile String error;
+
+        private Run(IndexedEntity<?> indexedEntity, String targetIndex, Instant startedDate) {
+            this.indexedEntity = indexedEntity;
+            this.targetIndex = targetIndex;
+            this.startedDate = startedDate;
+        }
+
+        private void finish(SearchReindexStatusDTO.State state, String error) {
+            this.error = error;
+            this.finishedDate = Instant.now();
+            this.state = state;
+        }
+
+        private SearchReindexStatusDTO toDto() {
+            SearchReindexStatusDTO dto = new SearchReindexStatusDTO();
+            dto.setIndexName(indexedEntity.getIndexName());
+            dto.setTargetIndex(targetIndex);
+            dto.setState(state);
+            dto.setDocuments(documents.get());
+            dto.setStartedDate(startedDate);
+            dto.setFinishedDate(finishedDate);
+            dto.setError(error);
+            return dto;
+        }
+    }
+}
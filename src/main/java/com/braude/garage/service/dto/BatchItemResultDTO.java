@@ -0,0 +1,96 @@
+package com.braude.garage.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for the outcome of one item of a batch request.
+ *
+ * @param <T> the DTO type of the items
+ */
+public class BatchItemResultDTO<T> implements Serializable {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, INVALID, NOT_FOUND
+    }
+
+    private int index;
+
+    private Status status;
+
+    private Long id;
+
+    private T entity;
+
+    private String message;
+
+    public BatchItemResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public BatchItemResultDTO(int index, Status status, Long id, T entity, String message) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.entity = entity;
+        this.message = message;
+    }
+
+    /**
+     * @return the position of the item in the request
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the persisted entity, for created and updated items
+     */
+    public T getEntity() {
+        return entity;
+    }
+
+    public void setEntity(T entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * @return why the item was rejected, for invalid items
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResultDTO{" +
+            "index=" + index +
+            ", status=" + status +
+            ", id=" + id +
+            ", message='" + message + "'" +
+            "}";
+    }
+}
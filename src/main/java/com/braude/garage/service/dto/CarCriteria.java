@@ -7,6 +7,7 @@ import io.github.jhipster.service.filter.DoubleFilter;
 import io.github.jhipster.service.filter.Filter;
 import io.github.jhipster.service.filter.FloatFilter;
 import io.github.jhipster.service.filter.IntegerFilter;
+import io.github.jhipster.service.filter.LocalDateFilter;
 import io.github.jhipster.service.filter.LongFilter;
 import io.github.jhipster.service.filter.StringFilter;
 
@@ -17,6 +18,10 @@ import io.github.jhipster.service.filter.StringFilter;
  * <code> /cars?id.greaterThan=5&amp;attr1.contains=something&amp;attr2.specified=false</code>
  * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
  * fix type specific filters.
+ * <p>
+ * The serviceCount, totalSpend and lastServiceDate filters match the summary of the services of the car, which a car
+ * without services does not have: <code>/cars?serviceCount.specified=false</code> finds the cars never serviced. The
+ * cars can be sorted the same way, e.g. <code>/cars?sort=serviceSummary.totalSpend,desc</code>.
  */
 public class CarCriteria implements Serializable {
 
@@ -36,6 +41,12 @@ public class CarCriteria implements Serializable {
 
     private LongFilter carServiceId;
 
+    private LongFilter serviceCount;
+
+    private DoubleFilter totalSpend;
+
+    private LocalDateFilter lastServiceDate;
+
     public LongFilter getId() {
         return id;
     }
@@ -92,6 +103,30 @@ public class CarCriteria implements Serializable {
         this.carServiceId = carServiceId;
     }
 
+    public LongFilter getServiceCount() {
+        return serviceCount;
+    }
+
+    public void setServiceCount(LongFilter serviceCount) {
+        this.serviceCount = serviceCount;
+    }
+
+    public DoubleFilter getTotalSpend() {
+        return totalSpend;
+    }
+
+    public void setTotalSpend(DoubleFilter totalSpend) {
+        this.totalSpend = totalSpend;
+    }
+
+    public LocalDateFilter getLastServiceDate() {
+        return lastServiceDate;
+    }
+
+    public void setLastServiceDate(LocalDateFilter lastServiceDate) {
+        this.lastServiceDate = lastServiceDate;
+    }
+
 
     @Override
     public boolean equals(Object o) {
@@ -109,7 +144,10 @@ public class CarCriteria implements Serializable {
             Objects.equals(model, that.model) &&
             Objects.equals(year, that.year) &&
             Objects.equals(clientId, that.clientId) &&
-            Objects.equals(carServiceId, that.carServiceId);
+            Objects.equals(carServiceId, that.carServiceId) &&
+            Objects.equals(serviceCount, that.serviceCount) &&
+            Objects.equals(totalSpend, that.totalSpend) &&
+            Objects.equals(lastServiceDate, that.lastServiceDate);
     }
 
     @Override
@@ -121,7 +159,10 @@ public class CarCriteria implements Serializable {
         model,
         year,
         clientId,
-        carServiceId
+        carServiceId,
+        serviceCount,
+        totalSpend,
+        lastServiceDate
         );
     }
 
@@ -135,6 +176,9 @@ public class CarCriteria implements Serializable {
                 (year != null ? "year=" + year + ", " : "") +
                 (clientId != null ? "clientId=" + clientId + ", " : "") +
                 (carServiceId != null ? "carServiceId=" + carServiceId + ", " : "") +
+                (serviceCount != null ? "serviceCount=" + serviceCount + ", " : "") +
+                (totalSpend != null ? "totalSpend=" + totalSpend + ", " : "") +
+                (lastServiceDate != null ? "lastServiceDate=" + lastServiceDate + ", " : "") +
             "}";
     }
 
@@ -0,0 +1,81 @@
+package com.braude.garage.service.dto;
+import java.time.LocalDate;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the CarServiceSummary entity.
+ */
+public class CarServiceSummaryDTO implements Serializable {
+
+    private Long carId;
+
+    private Long serviceCount;
+
+    private Double totalSpend;
+
+    private LocalDate lastServiceDate;
+
+    public Long getCarId() {
+        return carId;
+    }
+
+    public void setCarId(Long carId) {
+        this.carId = carId;
+    }
+
+    public Long getServiceCount() {
+        return serviceCount;
+    }
+
+    public void setServiceCount(Long serviceCount) {
+        this.serviceCount = serviceCount;
+    }
+
+    public Double getTotalSpend() {
+        return totalSpend;
+    }
+
+    public void setTotalSpend(Double totalSpend) {
+        this.totalSpend = totalSpend;
+    }
+
+    public LocalDate getLastServiceDate() {
+        return lastServiceDate;
+    }
+
+    public void setLastServiceDate(LocalDate lastServiceDate) {
+        this.lastServiceDate = lastServiceDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CarServiceSummaryDTO carServiceSummaryDTO = (CarServiceSummaryDTO) o;
+        return Objects.equals(getCarId(), carServiceSummaryDTO.getCarId()) &&
+            Objects.equals(getServiceCount(), carServiceSummaryDTO.getServiceCount()) &&
+            Objects.equals(getTotalSpend(), carServiceSummaryDTO.getTotalSpend()) &&
+            Objects.equals(getLastServiceDate(), carServiceSummaryDTO.getLastServiceDate());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getCarId(), getServiceCount(), getTotalSpend(), getLastServiceDate());
+    }
+
+    @Override
+    public String toString() {
+        return "CarServiceSummaryDTO{" +
+            "carId=" + getCarId() +
+            ", serviceCount=" + getServiceCount() +
+            ", totalSpend=" + getTotalSpend() +
+            ", lastServiceDate='" + getLastServiceDate() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,22 @@
+package com.braude.garage.service.dto;
+
+/**
+ * How the total number of rows of a paginated listing is computed.
+ */
+public enum CountMode {
+
+    /**
+     * Run a count query on every page.
+     */
+    EXACT,
+
+    /**
+     * Skip the count: the page only knows whether a next page exists.
+     */
+    NONE,
+
+    /**
+     * Reuse the count of the same criteria computed in the last seconds, run it only on a cache miss.
+     */
+    ESTIMATED
+}
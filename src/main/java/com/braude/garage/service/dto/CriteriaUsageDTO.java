@@ -0,0 +1,113 @@
+package com.braude.garage.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO for the use of a combination of criteria filters, and the time the queries took.
+ */
+public class CriteriaUsageDTO implements Serializable {
+
+    private String entity;
+
+    private String operation;
+
+    private String filters;
+
+    private String sort;
+
+    private long count;
+
+    private double totalTimeMs;
+
+    private double meanTimeMs;
+
+    private double maxTimeMs;
+
+    private Instant lastUsedDate;
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public String getFilters() {
+        return filters;
+    }
+
+    public void setFilters(String filters) {
+        this.filters = filters;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getTotalTimeMs() {
+        return totalTimeMs;
+    }
+
+    public void setTotalTimeMs(double totalTimeMs) {
+        this.totalTimeMs = totalTimeMs;
+    }
+
+    public double getMeanTimeMs() {
+        return meanTimeMs;
+    }
+
+    public void setMeanTimeMs(double meanTimeMs) {
+        this.meanTimeMs = meanTimeMs;
+    }
+
+    public double getMaxTimeMs() {
+        return maxTimeMs;
+    }
+
+    public void setMaxTimeMs(double maxTimeMs) {
+        this.maxTimeMs = maxTimeMs;
+    }
+
+    public Instant getLastUsedDate() {
+        return lastUsedDate;
+    }
+
+    public void setLastUsedDate(Instant lastUsedDate) {
+        this.lastUsedDate = lastUsedDate;
+    }
+
+    @Override
+    public String toString() {
+        return "CriteriaUsageDTO{" +
+            "entity='" + getEntity() + "'" +
+            ", operation='" + getOperation() + "'" +
+            ", filters='" + getFilters() + "'" +
+            ", sort='" + getSort() + "'" +
+            ", count=" + getCount() +
+            ", totalTimeMs=" + getTotalTimeMs() +
+            ", maxTimeMs=" + getMaxTimeMs() +
+            "}";
+    }
+}
@@ -0,0 +1,41 @@
+package com.braude.garage.service.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The length of the periods a time series is divided in.
+ */
+public enum Granularity {
+
+    DAY {
+        @Override
+        public LocalDate periodStart(LocalDate date) {
+            return date;
+        }
+    },
+
+    /**
+     * ISO weeks, starting on Monday.
+     */
+    WEEK {
+        @Override
+        public LocalDate periodStart(LocalDate date) {
+            return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+    },
+
+    MONTH {
+        @Override
+        public LocalDate periodStart(LocalDate date) {
+            return date.withDayOfMonth(1);
+        }
+    };
+
+    /**
+     * @param date a day
+     * @return the first day of the period of the day
+     */
+    public abstract LocalDate periodStart(LocalDate date);
+}
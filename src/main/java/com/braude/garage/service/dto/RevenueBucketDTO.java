@@ -0,0 +1,78 @@
+package com.braude.garage.service.dto;
+import java.time.LocalDate;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the services of a period: how many there were, and what they cost in total.
+ */
+public class RevenueBucketDTO implements Serializable {
+
+    private LocalDate periodStart;
+
+    private Long serviceCount;
+
+    private Double revenue;
+
+    public RevenueBucketDTO() {
+    }
+
+    public RevenueBucketDTO(LocalDate periodStart, Long serviceCount, Double revenue) {
+        this.periodStart = periodStart;
+        this.serviceCount = serviceCount;
+        this.revenue = revenue;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public Long getServiceCount() {
+        return serviceCount;
+    }
+
+    public void setServiceCount(Long serviceCount) {
+        this.serviceCount = serviceCount;
+    }
+
+    public Double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(Double revenue) {
+        this.revenue = revenue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        RevenueBucketDTO revenueBucketDTO = (RevenueBucketDTO) o;
+        return Objects.equals(getPeriodStart(), revenueBucketDTO.getPeriodStart()) &&
+            Objects.equals(getServiceCount(), revenueBucketDTO.getServiceCount()) &&
+            Objects.equals(getRevenue(), revenueBucketDTO.getRevenue());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getPeriodStart(), getServiceCount(), getRevenue());
+    }
+
+    @Override
+    public String toString() {
+        return "RevenueBucketDTO{" +
+            "periodStart='" + getPeriodStart() + "'" +
+            ", serviceCount=" + getServiceCount() +
+            ", revenue=" + getRevenue() +
+            "}";
+    }
+}
@@ -0,0 +1,97 @@
+package com.braude.garage.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO for the progress of an Elasticsearch index rebuild.
+ */
+public class SearchReindexStatusDTO implements Serializable {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private String indexName;
+
+    private String targetIndex;
+
+    private State state;
+
+    private long documents;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    private String error;
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getTargetIndex() {
+        return targetIndex;
+    }
+
+    public void setTargetIndex(String targetIndex) {
+        this.targetIndex = targetIndex;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public long getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(long documents) {
+        this.documents = documents;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchReindexStatusDTO{" +
+            "indexName='" + getIndexName() + "'" +
+            ", targetIndex='" + getTargetIndex() + "'" +
+            ", state=" + getState() +
+            ", documents=" + getDocuments() +
+            ", startedDate=" + getStartedDate() +
+            ", finishedDate=" + getFinishedDate() +
+            ", error='" + getError() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,188 @@
+package com.braude.garage.service.impl;
+
+import com.braude.garage.service.SearchOutboxService;
+import com.braude.garage.service.dto.BatchItemResultDTO;
+import com.braude.garage.service.dto.BatchItemResultDTO.Status;
+import com.braude.garage.service.mapper.EntityMapper;
+import com.braude.garage.web.rest.errors.BadRequestAlertException;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.util.StringUtils;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates, updates and deletes the entities of a batch request, in the transaction of the caller.
+ * <p>
+ * Every item is checked first, and the invalid ones are reported in their result without failing the batch. The
+ * valid ones are then persisted together, and recorded in the search outbox in a single write.
+ *
+ * @param <D> the DTO type
+ * @param <E> the entity type
+ */
+final class BatchProcessor<D, E> {
+
+    private final Class<E> entityClass;
+
+    private final JpaRepository<E, Long> repository;
+
+    private final EntityMapper<D, E> mapper;
+
+    private final Function<D, Long> dtoId;
+
+    private final Function<E, Long> entityId;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final Validator validator;
+
+    private final int maxSize;
+
+    BatchProcessor(Class<E> entityClass, JpaRepository<E, Long> repository, EntityMapper<D, E> mapper,
+            Function<D, Long> dtoId, Function<E, Long> entityId, SearchOutboxService searchOutboxService,
+            Validator validator, int maxSize) {
+        this.entityClass = entityClass;
+        this.repository = repository;
+        this.mapper = mapper;
+        this.dtoId = dtoId;
+        this.entityId = entityId;
+        this.searchOutboxService = searchOutboxService;
+        this.validator = validator;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Create the entities.
+     *
+     * @param dtos the entities to create
+     * @param checker the checks specific to the entity, returning why a DTO is invalid, or null
+     * @return the result of each item, in the order of the request
+     */
+    List<BatchItemResultDTO<D>> create(List<D> dtos, Function<D, String> checker) {
+        checkSize(dtos);
+        List<BatchItemResultDTO<D>> results = new ArrayList<>(Collections.nCopies(dtos.size(), null));
+        List<Integer> indexes = new ArrayList<>();
+        List<E> entities = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            D dto = dtos.get(i);
+            String error = dto == null ? "Missing entity"
+                : dtoId.apply(dto) != null ? "A new entity cannot already have an ID" : check(dto, checker);
+            if (error != null) {
+                results.set(i, new BatchItemResultDTO<>(i, Status.INVALID, null, null, error));
+            } else {
+                indexes.add(i);
+                entities.add(mapper.toEntity(dto));
+            }
+        }
+        persist(entities, indexes, Status.CREATED, results);
+        return results;
+    }
+
+    /**
+     * Update the entities.
+     *
+     * @param dtos the entities to update
+     * @param checker the checks specific to the entity, returning why a DTO is invalid, or null
+     * @return the result of each item, in the order of the request
+     */
+    List<BatchItemResultDTO<D>> update(List<D> dtos, Function<D, String> checker) {
+        checkSize(dtos);
+        Set<Long> existingIds = findExisting(dtos.stream()
+            .filter(Objects::nonNull)
+            .map(dtoId)
+            .collect(Collectors.toList()))
+            .keySet();
+        List<BatchItemResultDTO<D>> results = new ArrayList<>(Collections.nCopies(dtos.size(), null));
+        Set<Long> seenIds = new HashSet<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<E> entities = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            D dto = dtos.get(i);
+            Long id = dto == null ? null : dtoId.apply(dto);
+            if (id != null && !existingIds.contains(id)) {
+                results.set(i, new BatchItemResultDTO<>(i, Status.NOT_FOUND, id, null, "Unknown id " + id));
+                continue;
+            }
+            String error = dto == null ? "Missing entity"
+                : id == null ? "Invalid id"
+                : !seenIds.add(id) ? "Duplicate id " + id : check(dto, checker);
+            if (error != null) {
+                results.set(i, new BatchItemResultDTO<>(i, Status.INVALID, id, null, error));
+            } else {
+                indexes.add(i);
+                entities.add(mapper.toEntity(dto));
+            }
+        }
+        persist(entities, indexes, Status.UPDATED, results);
+        return results;
+    }
+
+    /**
+     * Delete the entities.
+     *
+     * @param ids the ids of the entities to delete
+     * @return the result of each item, in the order of the request
+     */
+    List<BatchItemResultDTO<D>> delete(List<Long> ids) {
+        checkSize(ids);
+        Map<Long, E> existing = findExisting(ids);
+        List<BatchItemResultDTO<D>> results = new ArrayList<>();
+        Set<Long> seenIds = new HashSet<>();
+        List<E> entities = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null || !seenIds.add(id)) {
+                results.add(new BatchItemResultDTO<>(i, Status.INVALID, id, null, id == null ? "Invalid id" : "Duplicate id " + id));
+            } else if (!existing.containsKey(id)) {
+                results.add(new BatchItemResultDTO<>(i, Status.NOT_FOUND, id, null, "Unknown id " + id));
+            } else {
+                entities.add(existing.get(id));
+                results.add(new BatchItemResultDTO<>(i, Status.DELETED, id, null, null));
+            }
+        }
+        repository.deleteAll(entities);
+        repository.flush();
+        searchOutboxService.enqueueAll(entityClass, entities.stream().map(entityId).collect(Collectors.toList()));
+        return results;
+    }
+
+    private void persist(List<E> entities, List<Integer> indexes, Status status, List<BatchItemResultDTO<D>> results) {
+        List<E> saved = repository.saveAll(entities);
+        repository.flush();
+        List<Long> ids = new ArrayList<>();
+        for (int j = 0; j < saved.size(); j++) {
+            E entity = saved.get(j);
+            Long id = entityId.apply(entity);
+            ids.add(id);
+            results.set(indexes.get(j), new BatchItemResultDTO<>(indexes.get(j), status, id, mapper.toDto(entity), null));
+        }
+        searchOutboxService.enqueueAll(entityClass, ids);
+    }
+
+    private Map<Long, E> findExisting(List<Long> ids) {
+        return repository.findAllById(ids.stream().filter(Objects::nonNull).collect(Collectors.toSet())).stream()
+            .collect(Collectors.toMap(entityId, Function.identity()));
+    }
+
+    private String check(D dto, Function<D, String> checker) {
+        Set<ConstraintViolation<D>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+        }
+        return checker.apply(dto);
+    }
+
+    private void checkSize(List<?> items) {
+        if (items.size() > maxSize) {
+            throw new BadRequestAlertException("A batch cannot have more than " + maxSize + " items",
+                StringUtils.uncapitalize(entityClass.getSimpleName()), "batchtoolarge");
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package com.braude.garage.service.impl;
 
 import com.braude.garage.service.CarService;
+import com.braude.garage.service.CarServiceAnalyticsService;
+import com.braude.garage.service.CarServiceAnalyticsService.CarKind;
+import com.braude.garage.service.SearchOutboxService;
 import com.braude.garage.domain.Car;
 import com.braude.garage.repository.CarRepository;
 import com.braude.garage.repository.search.CarSearchRepository;
 import com.braude.garage.service.dto.CarDTO;
 import com.braude.garage.service.mapper.CarMapper;
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.Client;
+import com.braude.garage.repository.ClientRepository;
+import com.braude.garage.service.dto.BatchItemResultDTO;
+import com.braude.garage.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,7 +22,17 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -25,6 +43,8 @@ import static org.elasticsearch.index.query.QueryBuilders.*;
 @Transactional
 public class CarServiceImpl implements CarService {
 
+    private static final String ENTITY_NAME = "car";
+
     private final Logger log = LoggerFactory.getLogger(CarServiceImpl.class);
 
     private final CarRepository carRepository;
@@ -33,10 +53,24 @@ public class CarServiceImpl implements CarService {
 
     private final CarSearchRepository carSearchRepository;
 
-    public CarServiceImpl(CarRepository carRepository, CarMapper carMapper, CarSearchRepository carSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final ClientRepository clientRepository;
+
+    private final CarServiceAnalyticsService carServiceAnalyticsService;
+
+    private final BatchProcessor<CarDTO, Car> batchProcessor;
+
+    public CarServiceImpl(CarRepository carRepository, CarMapper carMapper, CarSearchRepository carSearchRepository, SearchOutboxService searchOutboxService, ClientRepository clientRepository,
+            CarServiceAnalyticsService carServiceAnalyticsService, Validator validator, ApplicationProperties applicationProperties) {
         this.carRepository = carRepository;
         this.carMapper = carMapper;
         this.carSearchRepository = carSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.clientRepository = clientRepository;
+        this.carServiceAnalyticsService = carServiceAnalyticsService;
+        this.batchProcessor = new BatchProcessor<>(Car.class, carRepository, carMapper, CarDTO::getId, Car::getId,
+            searchOutboxService, validator, applicationProperties.getBatch().getMaxSize());
     }
 
     /**
@@ -48,13 +82,144 @@ public class CarServiceImpl implements CarService {
     @Override
     public CarDTO save(CarDTO carDTO) {
         log.debug("Request to save Car : {}", carDTO);
+        String plateError = licensePlateChecker(Collections.singletonList(carDTO)).apply(carDTO);
+        if (plateError != null) {
+            throw new BadRequestAlertException(plateError, ENTITY_NAME, "licenseplateexists");
+        }
+        Optional<CarKind> before = carDTO.getId() == null ? Optional.empty()
+            : carRepository.findById(carDTO.getId()).map(CarKind::of);
         Car car = carMapper.toEntity(carDTO);
         car = carRepository.save(car);
         CarDTO result = carMapper.toDto(car);
-        carSearchRepository.save(car);
+        before.filter(kind -> !kind.isSameKind(CarKind.of(result)))
+            .ifPresent(kind -> carServiceAnalyticsService.carsUpdated(Collections.singletonList(kind)));
+        searchOutboxService.enqueue(Car.class, car.getId());
         return result;
     }
 
+    /**
+     * Create cars in a batch.
+     *
+     * @param carDTOs the entities to create
+     * @return the result of each entity, in the order of the request
+     */
+    @Override
+    public List<BatchItemResultDTO<CarDTO>> createAll(List<CarDTO> carDTOs) {
+        log.debug("Request to create {} Cars", carDTOs.size());
+        return batchProcessor.create(carDTOs, checker(carDTOs));
+    }
+
+    /**
+     * Update cars in a batch.
+     *
+     * @param carDTOs the entities to update
+     * @return the result of each entity, in the order of the request
+     */
+    @Override
+    public List<BatchItemResultDTO<CarDTO>> updateAll(List<CarDTO> carDTOs) {
+        log.debug("Request to update {} Cars", carDTOs.size());
+        Map<Long, CarKind> before = carRepository.findAllById(carDTOs.stream()
+            .filter(Objects::nonNull)
+            .map(CarDTO::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet())).stream()
+            .collect(Collectors.toMap(Car::getId, CarKind::of));
+        List<BatchItemResultDTO<CarDTO>> results = batchProcessor.update(carDTOs, checker(carDTOs));
+        List<CarKind> changed = new ArrayList<>();
+        for (BatchItemResultDTO<CarDTO> result : results) {
+            CarKind kind = before.get(result.getId());
+            if (result.getStatus() == BatchItemResultDTO.Status.UPDATED && kind != null
+                    && !kind.isSameKind(CarKind.of(result.getEntity()))) {
+                changed.add(kind);
+            }
+        }
+        carServiceAnalyticsService.carsUpdated(changed);
+        return results;
+    }
+
+    /**
+     * Delete cars in a batch.
+     *
+     * @param ids the ids of the entities to delete
+     * @return the result of each id, in the order of the request
+     */
+    @Override
+    public List<BatchItemResultDTO<CarDTO>> deleteAll(List<Long> ids) {
+        log.debug("Request to delete {} Cars", ids.size());
+        return batchProcessor.delete(ids);
+    }
+
+    private Function<CarDTO, String> checker(List<CarDTO> carDTOs) {
+        Function<CarDTO, String> clientChecker = clientChecker(carDTOs);
+        Function<CarDTO, String> licensePlateChecker = licensePlateChecker(carDTOs);
+        return carDTO -> {
+            String error = clientChecker.apply(carDTO);
+            return error != null ? error : licensePlateChecker.apply(carDTO);
+        };
+    }
+
+    /**
+     * Check, with a single query, that the license plates of the cars are not used by other cars, nor twice in the
+     * batch: the unique index would otherwise fail the whole batch.
+     */
+    private Function<CarDTO, String> licensePlateChecker(List<CarDTO> carDTOs) {
+        Set<String> licensePlates = carDTOs.stream()
+            .filter(Objects::nonNull)
+            .map(CarDTO::getLicensePlate)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<String, Long> owners = licensePlates.isEmpty() ? Collections.emptyMap()
+            : carRepository.findAllPlatesByLicensePlateIn(licensePlates).stream()
+                .collect(Collectors.toMap(CarRepository.Plate::getLicensePlate, CarRepository.Plate::getId));
+        Set<String> claimed = new HashSet<>();
+        return carDTO -> {
+            String licensePlate = carDTO.getLicensePlate();
+            if (licensePlate == null) {
+                return null;
+            }
+            Long owner = owners.get(licensePlate);
+            if (owner != null && !owner.equals(carDTO.getId())) {
+                return "License plate " + licensePlate + " already used";
+            }
+            return claimed.add(licensePlate) ? null : "Duplicate license plate " + licensePlate;
+        };
+    }
+
+    /**
+     * Check, with two queries, that the clients referenced by the cars exist, and that they are not the clients of
+     * other cars, nor twice in the batch: the unique index would otherwise fail the whole batch.
+     */
+    private Function<CarDTO, String> clientChecker(List<CarDTO> carDTOs) {
+        Set<Long> clientIds = carDTOs.stream()
+            .filter(Objects::nonNull)
+            .map(CarDTO::getClientId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (clientIds.isEmpty()) {
+            return carDTO -> null;
+        }
+        Set<Long> existingClientIds = clientRepository.findAllById(clientIds).stream()
+            .map(Client::getId)
+            .collect(Collectors.toSet());
+        Map<Long, Long> owners = carRepository.findAllOwnersByClientIdIn(clientIds).stream()
+            .collect(Collectors.toMap(CarRepository.Owner::getClientId, CarRepository.Owner::getId));
+        Set<Long> claimed = new HashSet<>();
+        return carDTO -> {
+            Long clientId = carDTO.getClientId();
+            if (clientId == null) {
+                return null;
+            }
+            if (!existingClientIds.contains(clientId)) {
+                return "Unknown client " + clientId;
+            }
+            Long owner = owners.get(clientId);
+            if (owner != null && !owner.equals(carDTO.getId())) {
+                return "Client " + clientId + " already has a car";
+            }
+            return claimed.add(clientId) ? null : "Duplicate client " + clientId;
+        };
+    }
+
     /**
      * Get all the cars.
      *
@@ -91,8 +256,9 @@ public class CarServiceImpl implements CarService {
      */
     @Override
     public void delete(Long id) {
-        log.debug("Request to delete Car : {}", id);        carRepository.deleteById(id);
-        carSearchRepository.deleteById(id);
+        log.debug("Request to delete Car : {}", id);
+        carRepository.deleteById(id);
+        searchOutboxService.enqueue(Car.class, id);
     }
 
     /**
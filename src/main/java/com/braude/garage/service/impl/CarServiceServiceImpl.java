@@ -1,11 +1,19 @@
 package com.braude.garage.service.impl;
 
+import com.braude.garage.service.CarServiceAnalyticsService;
 import com.braude.garage.service.CarServiceService;
+import com.braude.garage.service.CarServiceSummaryService;
+import com.braude.garage.service.CarServiceContribution;
+import com.braude.garage.service.SearchOutboxService;
 import com.braude.garage.domain.CarService;
 import com.braude.garage.repository.CarServiceRepository;
 import com.braude.garage.repository.search.CarServiceSearchRepository;
 import com.braude.garage.service.dto.CarServiceDTO;
 import com.braude.garage.service.mapper.CarServiceMapper;
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.Car;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.service.dto.BatchItemResultDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,7 +22,16 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -33,10 +50,27 @@ public class CarServiceServiceImpl implements CarServiceService {
 
     private final CarServiceSearchRepository carServiceSearchRepository;
 
-    public CarServiceServiceImpl(CarServiceRepository carServiceRepository, CarServiceMapper carServiceMapper, CarServiceSearchRepository carServiceSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final CarRepository carRepository;
+
+    private final CarServiceSummaryService carServiceSummaryService;
+
+    private final CarServiceAnalyticsService carServiceAnalyticsService;
+
+    private final BatchProcessor<CarServiceDTO, CarService> batchProcessor;
+
+    public CarServiceServiceImpl(CarServiceRepository carServiceRepository, CarServiceMapper carServiceMapper, CarServiceSearchRepository carServiceSearchRepository, SearchOutboxService searchOutboxService, CarRepository carRepository,
+            CarServiceSummaryService carServiceSummaryService, CarServiceAnalyticsService carServiceAnalyticsService, Validator validator, ApplicationProperties applicationProperties) {
         this.carServiceRepository = carServiceRepository;
         this.carServiceMapper = carServiceMapper;
         this.carServiceSearchRepository = carServiceSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.carRepository = carRepository;
+        this.carServiceSummaryService = carServiceSummaryService;
+        this.carServiceAnalyticsService = carServiceAnalyticsService;
+        this.batchProcessor = new BatchProcessor<>(CarService.class, carServiceRepository, carServiceMapper, CarServiceDTO::getId, CarService::getId,
+            searchOutboxService, validator, applicationProperties.getBatch().getMaxSize());
     }
 
     /**
@@ -48,13 +82,125 @@ public class CarServiceServiceImpl implements CarServiceService {
     @Override
     public CarServiceDTO save(CarServiceDTO carServiceDTO) {
         log.debug("Request to save CarService : {}", carServiceDTO);
+        List<CarServiceContribution> removed = carServiceDTO.getId() == null ? Collections.emptyList()
+            : carServiceRepository.lockAllById(Collections.singleton(carServiceDTO.getId())).stream()
+                .map(CarServiceContribution::of)
+                .collect(Collectors.toList());
         CarService carService = carServiceMapper.toEntity(carServiceDTO);
         carService = carServiceRepository.save(carService);
         CarServiceDTO result = carServiceMapper.toDto(carService);
-        carServiceSearchRepository.save(carService);
+        updateAggregates(removed, Collections.singletonList(CarServiceContribution.of(carService)));
+        searchOutboxService.enqueue(CarService.class, carService.getId());
         return result;
     }
 
+    /**
+     * Create carServices in a batch.
+     *
+     * @param carServiceDTOs the entities to create
+     * @return the result of each entity, in the order of the request
+     */
+    @Override
+    public List<BatchItemResultDTO<CarServiceDTO>> createAll(List<CarServiceDTO> carServiceDTOs) {
+        log.debug("Request to create {} CarServices", carServiceDTOs.size());
+        List<BatchItemResultDTO<CarServiceDTO>> results = batchProcessor.create(carServiceDTOs, carChecker(carServiceDTOs));
+        updateAggregates(Collections.emptyMap(), results);
+        return results;
+    }
+
+    /**
+     * Update carServices in a batch.
+     *
+     * @param carServiceDTOs the entities to update
+     * @return the result of each entity, in the order of the request
+     */
+    @Override
+    public List<BatchItemResultDTO<CarServiceDTO>> updateAll(List<CarServiceDTO> carServiceDTOs) {
+        log.debug("Request to update {} CarServices", carServiceDTOs.size());
+        Map<Long, CarServiceContribution> removed = contributions(carServiceDTOs.stream()
+            .filter(Objects::nonNull)
+            .map(CarServiceDTO::getId)
+            .collect(Collectors.toList()));
+        List<BatchItemResultDTO<CarServiceDTO>> results = batchProcessor.update(carServiceDTOs, carChecker(carServiceDTOs));
+        updateAggregates(removed, results);
+        return results;
+    }
+
+    /**
+     * Delete carServices in a batch.
+     *
+     * @param ids the ids of the entities to delete
+     * @return the result of each id, in the order of the request
+     */
+    @Override
+    public List<BatchItemResultDTO<CarServiceDTO>> deleteAll(List<Long> ids) {
+        log.debug("Request to delete {} CarServices", ids.size());
+        Map<Long, CarServiceContribution> removed = contributions(ids);
+        List<BatchItemResultDTO<CarServiceDTO>> results = batchProcessor.delete(ids);
+        updateAggregates(removed, results);
+        return results;
+    }
+
+    /**
+     * Read, before a batch changes them, what the carServices add to the summaries and the rollups. Their rows are
+     * locked, so that a concurrent change of the same carServices waits for this one rather than removing the same
+     * contributions again.
+     */
+    private Map<Long, CarServiceContribution> contributions(List<Long> ids) {
+        Set<Long> existingIds = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (existingIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return carServiceRepository.lockAllById(existingIds).stream()
+            .collect(Collectors.toMap(CarService::getId, CarServiceContribution::of));
+    }
+
+    /**
+     * Update the summaries and the rollups from the items of a batch that succeeded.
+     */
+    private void updateAggregates(Map<Long, CarServiceContribution> contributionsBefore, List<BatchItemResultDTO<CarServiceDTO>> results) {
+        List<CarServiceContribution> removed = new ArrayList<>();
+        List<CarServiceContribution> added = new ArrayList<>();
+        for (BatchItemResultDTO<CarServiceDTO> result : results) {
+            switch (result.getStatus()) {
+                case CREATED:
+                    added.add(CarServiceContribution.of(result.getEntity()));
+                    break;
+                case UPDATED:
+                    removed.add(contributionsBefore.get(result.getId()));
+                    added.add(CarServiceContribution.of(result.getEntity()));
+                    break;
+                case DELETED:
+                    removed.add(contributionsBefore.get(result.getId()));
+                    break;
+                default:
+                    break;
+            }
+        }
+        updateAggregates(removed, added);
+    }
+
+    private void updateAggregates(List<CarServiceContribution> removed, List<CarServiceContribution> added) {
+        carServiceSummaryService.update(removed, added);
+        carServiceAnalyticsService.update(removed, added);
+    }
+
+    /**
+     * Check, with a single query, that the cars referenced by the carServices exist.
+     */
+    private Function<CarServiceDTO, String> carChecker(List<CarServiceDTO> carServiceDTOs) {
+        Set<Long> carIds = carServiceDTOs.stream()
+            .filter(Objects::nonNull)
+            .map(CarServiceDTO::getCarId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Set<Long> existingCarIds = carRepository.findAllById(carIds).stream()
+            .map(Car::getId)
+            .collect(Collectors.toSet());
+        return carServiceDTO -> carServiceDTO.getCarId() == null || existingCarIds.contains(carServiceDTO.getCarId()) ?
+            null : "Unknown car " + carServiceDTO.getCarId();
+    }
+
     /**
      * Get all the carServices.
      *
@@ -91,8 +237,13 @@ public class CarServiceServiceImpl implements CarServiceService {
      */
     @Override
     public void delete(Long id) {
-        log.debug("Request to delete CarService : {}", id);        carServiceRepository.deleteById(id);
-        carServiceSearchRepository.deleteById(id);
+        log.debug("Request to delete CarService : {}", id);
+        List<CarServiceContribution> removed = carServiceRepository.lockAllById(Collections.singleton(id)).stream()
+            .map(CarServiceContribution::of)
+            .collect(Collectors.toList());
+        carServiceRepository.deleteById(id);
+        updateAggregates(removed, Collections.emptyList());
+        searchOutboxService.enqueue(CarService.class, id);
     }
 
     /**
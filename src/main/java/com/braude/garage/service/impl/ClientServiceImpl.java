@@ -1,11 +1,14 @@
 package com.braude.garage.service.impl;
 
 import com.braude.garage.service.ClientService;
+import com.braude.garage.service.SearchOutboxService;
 import com.braude.garage.domain.Client;
 import com.braude.garage.repository.ClientRepository;
 import com.braude.garage.repository.search.ClientSearchRepository;
 import com.braude.garage.service.dto.ClientDTO;
 import com.braude.garage.service.mapper.ClientMapper;
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.service.dto.BatchItemResultDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,11 +17,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.Validator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -37,10 +40,18 @@ public class ClientServiceImpl implements ClientService {
 
     private final ClientSearchRepository clientSearchRepository;
 
-    public ClientServiceImpl(ClientRepository clientRepository, ClientMapper clientMapper, ClientSearchRepository clientSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final BatchProcessor<ClientDTO, Client> batchProcessor;
+
+    public ClientServiceImpl(ClientRepository clientRepository, ClientMapper clientMapper, ClientSearchRepository clientSearchRepository, SearchOutboxService searchOutboxService,
+            Validator validator, ApplicationProperties applicationProperties) {
         this.clientRepository = clientRepository;
         this.clientMapper = clientMapper;
         this.clientSearchRepository = clientSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.batchProcessor = new BatchProcessor<>(Client.class, clientRepository, clientMapper, ClientDTO::getId, Client::getId,
+            searchOutboxService, validator, applicationProperties.getBatch().getMaxSize());
     }
 
     /**
@@ -55,10 +66,46 @@ public class ClientServiceImpl implements ClientService {
         Client client = clientMapper.toEntity(clientDTO);
         client = clientRepository.save(client);
         ClientDTO result = clientMapper.toDto(client);
-        clientSearchRepository.save(client);
+        searchOutboxService.enqueue(Client.class, client.getId());
         return result;
     }
 
+    /**
+     * Create clients in a batch.
+     *
+     * @param clientDTOs the entities to create
+     * @return the result of each entity, in the order of the request
+     */
+    @Override
+    public List<BatchItemResultDTO<ClientDTO>> createAll(List<ClientDTO> clientDTOs) {
+        log.debug("Request to create {} Clients", clientDTOs.size());
+        return batchProcessor.create(clientDTOs, clientDTO -> null);
+    }
+
+    /**
+     * Update clients in a batch.
+     *
+     * @param clientDTOs the entities to update
+     * @return the result of each entity, in the order of the request
+     */
+    @Override
+    public List<BatchItemResultDTO<ClientDTO>> updateAll(List<ClientDTO> clientDTOs) {
+        log.debug("Request to update {} Clients", clientDTOs.size());
+        return batchProcessor.update(clientDTOs, clientDTO -> null);
+    }
+
+    /**
+     * Delete clients in a batch.
+     *
+     * @param ids the ids of the entities to delete
+     * @return the result of each id, in the order of the request
+     */
+    @Override
+    public List<BatchItemResultDTO<ClientDTO>> deleteAll(List<Long> ids) {
+        log.debug("Request to delete {} Clients", ids.size());
+        return batchProcessor.delete(ids);
+    }
+
     /**
      * Get all the clients.
      *
@@ -82,9 +129,7 @@ public class ClientServiceImpl implements ClientService {
     @Transactional(readOnly = true) 
     public List<ClientDTO> findAllWhereCarIsNull() {
         log.debug("Request to get all clients where Car is null");
-        return StreamSupport
-            .stream(clientRepository.findAll().spliterator(), false)
-            .filter(client -> client.getCar() == null)
+        return clientRepository.findAllWithoutCar().stream()
             .map(clientMapper::toDto)
             .collect(Collectors.toCollection(LinkedList::new));
     }
@@ -110,8 +155,9 @@ public class ClientServiceImpl implements ClientService {
      */
     @Override
     public void delete(Long id) {
-        log.debug("Request to delete Client : {}", id);        clientRepository.deleteById(id);
-        clientSearchRepository.deleteById(id);
+        log.debug("Request to delete Client : {}", id);
+        clientRepository.deleteById(id);
+        searchOutboxService.enqueue(Client.class, id);
     }
 
     /**
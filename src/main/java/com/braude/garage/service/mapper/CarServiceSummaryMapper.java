@@ -0,0 +1,13 @@
+package com.braude.garage.service.mapper;
+
+import com.braude.garage.domain.*;
+import com.braude.garage.service.dto.CarServiceSummaryDTO;
+
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity CarServiceSummary and its DTO CarServiceSummaryDTO.
+ */
+@Mapper(componentModel = "spring", uses = {})
+public interface CarServiceSummaryMapper extends EntityMapper<CarServiceSummaryDTO, CarServiceSummary> {
+}
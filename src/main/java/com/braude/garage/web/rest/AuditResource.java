@@ -1,17 +1,23 @@
 package com.braude.garage.web.rest;
 
+import com.braude.garage.repository.KeysetSlice;
 import com.braude.garage.service.AuditEventService;
+import com.braude.garage.web.rest.errors.BadRequestAlertException;
+import com.braude.garage.web.rest.util.KeysetCursor;
 import com.braude.garage.web.rest.util.PaginationUtil;
 
 import io.github.jhipster.web.util.ResponseUtil;
 import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.List;
@@ -50,7 +56,7 @@ public class AuditResource {
      * @param pageable the pagination information
      * @return the ResponseEntity with status 200 (OK) and the list of AuditEvents in body
      */
-    @GetMapping(params = {"fromDate", "toDate"})
+    @GetMapping(params = {"fromDate", "toDate", "!after"})
     public ResponseEntity<List<AuditEvent>> getByDates(
         @RequestParam(value = "fromDate") LocalDate fromDate,
         @RequestParam(value = "toDate") LocalDate toDate,
@@ -64,6 +70,48 @@ public class AuditResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /audits?after=... : get a slice of AuditEvents by keyset pagination, optionally between the fromDate and
+     * toDate.
+     * <p>
+     * The first slice is read with an empty "after" parameter, e.g. {@code sort=auditEventDate,desc}, and the
+     * following ones by the "next" link of the previous slice, at the same cost whatever the depth. No total count is
+     * computed.
+     *
+     * @param fromDate the start of the time period of AuditEvents to get, or null
+     * @param toDate the end of the time period of AuditEvents to get, or null
+     * @param pageable the size and the sort of the first slice; the sort of the following slices is held by "after"
+     * @param after the cursor returned in the "next" link of the previous slice
+     * @return the ResponseEntity with status 200 (OK) and the list of AuditEvents in body,
+     * or with status 400 (Bad Request) if the cursor or the sort are not valid
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<List<AuditEvent>> getAllAfter(
+        @RequestParam(value = "fromDate", required = false) LocalDate fromDate,
+        @RequestParam(value = "toDate", required = false) LocalDate toDate,
+        Pageable pageable,
+        @RequestParam String after) {
+
+        KeysetCursor cursor = KeysetCursor.decode(after, pageable.getSort());
+        UriComponentsBuilder baseUrl = UriComponentsBuilder.fromPath("/management/audits");
+        Instant from = null;
+        Instant to = null;
+        if (fromDate != null && toDate != null) {
+            from = fromDate.atStartOfDay(ZoneId.systemDefault()).toInstant();
+            to = toDate.atStartOfDay(ZoneId.systemDefault()).plusDays(1).toInstant();
+            baseUrl.queryParam("fromDate", fromDate).queryParam("toDate", toDate);
+        }
+        KeysetSlice<AuditEvent> slice;
+        try {
+            slice = auditEventService.findAfter(from, to, cursor.getSort(), cursor.getKey(), pageable.getPageSize());
+        } catch (InvalidDataAccessApiUsageException e) {
+            throw new BadRequestAlertException(e.getMessage(), "audit", "invalidcursor");
+        }
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, pageable.getPageSize(),
+            baseUrl.toUriString());
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
      * GET  /audits/:id : get an AuditEvent by id.
      *
@@ -1,21 +1,36 @@
 package com.braude.garage.web.rest;
 import com.braude.garage.service.CarService;
+import com.braude.garage.service.CarServiceSummaryService;
 import com.braude.garage.web.rest.errors.BadRequestAlertException;
+import com.braude.garage.web.rest.util.ExportWriter;
 import com.braude.garage.web.rest.util.HeaderUtil;
+import com.braude.garage.web.rest.util.KeysetCursor;
+import com.braude.garage.web.rest.util.OffloadedHandlers;
 import com.braude.garage.web.rest.util.PaginationUtil;
+import com.braude.garage.service.dto.BatchItemResultDTO;
 import com.braude.garage.service.dto.CarDTO;
 import com.braude.garage.service.dto.CarCriteria;
+import com.braude.garage.service.dto.CarServiceSummaryDTO;
+import com.braude.garage.service.dto.CountMode;
 import com.braude.garage.service.CarQueryService;
+import com.braude.garage.repository.KeysetSlice;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -29,6 +44,7 @@ import static org.elasticsearch.index.query.QueryBuilders.*;
  * REST controller for managing Car.
  */
 @RestController
+@OffloadedHandlers
 @RequestMapping("/api")
 public class CarResource {
 
@@ -40,9 +56,16 @@ public class CarResource {
 
     private final CarQueryService carQueryService;
 
-    public CarResource(CarService carService, CarQueryService carQueryService) {
+    private final CarServiceSummaryService carServiceSummaryService;
+
+    private final ObjectMapper objectMapper;
+
+    public CarResource(CarService carService, CarQueryService carQueryService,
+            CarServiceSummaryService carServiceSummaryService, ObjectMapper objectMapper) {
         this.carService = carService;
         this.carQueryService = carQueryService;
+        this.carServiceSummaryService = carServiceSummaryService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -85,21 +108,114 @@ public class CarResource {
             .body(result);
     }
 
+    /**
+     * POST  /cars/batch : Create new cars in a batch.
+     *
+     * @param carDTOs the carDTOs to create
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each carDTO, in the order of the request,
+     * or with status 400 (Bad Request) if the batch is too large
+     */
+    @PostMapping("/cars/batch")
+    public ResponseEntity<List<BatchItemResultDTO<CarDTO>>> createCars(@RequestBody List<CarDTO> carDTOs) {
+        log.debug("REST request to create {} Cars", carDTOs.size());
+        return ResponseEntity.ok().body(carService.createAll(carDTOs));
+    }
+
+    /**
+     * PUT  /cars/batch : Updates existing cars in a batch.
+     *
+     * @param carDTOs the carDTOs to update
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each carDTO, in the order of the request,
+     * or with status 400 (Bad Request) if the batch is too large
+     */
+    @PutMapping("/cars/batch")
+    public ResponseEntity<List<BatchItemResultDTO<CarDTO>>> updateCars(@RequestBody List<CarDTO> carDTOs) {
+        log.debug("REST request to update {} Cars", carDTOs.size());
+        return ResponseEntity.ok().body(carService.updateAll(carDTOs));
+    }
+
+    /**
+     * DELETE  /cars/batch?ids=:ids : delete cars in a batch.
+     *
+     * @param ids the ids of the cars to delete
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each id, in the order of the request,
+     * or with status 400 (Bad Request) if the batch is too large
+     */
+    @DeleteMapping("/cars/batch")
+    public ResponseEntity<List<BatchItemResultDTO<CarDTO>>> deleteCars(@RequestParam List<Long> ids) {
+        log.debug("REST request to delete {} Cars", ids.size());
+        return ResponseEntity.ok().body(carService.deleteAll(ids));
+    }
+
     /**
      * GET  /cars : get all the cars.
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param countMode how the X-Total-Count header is computed: EXACT (the default), ESTIMATED from a recent
+     * count of the same criteria, or NONE to skip it
+     * @param parameters the query parameters, the filters, sort and count mode of which are kept in the links
      * @return the ResponseEntity with status 200 (OK) and the list of cars in body
      */
     @GetMapping("/cars")
-    public ResponseEntity<List<CarDTO>> getAllCars(CarCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<CarDTO>> getAllCars(CarCriteria criteria, Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "EXACT") CountMode countMode,
+            @RequestParam MultiValueMap<String, String> parameters) {
         log.debug("REST request to get Cars by criteria: {}", criteria);
-        Page<CarDTO> page = carQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/cars");
+        Slice<CarDTO> page = carQueryService.findByCriteria(criteria, pageable, countMode);
+        HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(page,
+            PaginationUtil.generateBaseUrl("/api/cars", parameters));
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /cars?after=:after : get the cars by keyset pagination.
+     * <p>
+     * The first page is read with an empty "after" parameter, and the following ones by the "next" link of the
+     * previous page. No total count is computed.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param pageable the size and the sort of the first page; the sort of the following pages is held by "after"
+     * @param after the cursor returned in the "next" link of the previous page
+     * @param parameters the query parameters, the filters of which are kept in the links
+     * @return the ResponseEntity with status 200 (OK) and the list of cars in body,
+     * or with status 400 (Bad Request) if the cursor or the sort are not valid
+     */
+    @GetMapping(value = "/cars", params = "after")
+    public ResponseEntity<List<CarDTO>> getAllCarsAfter(CarCriteria criteria, Pageable pageable, @RequestParam String after,
+            @RequestParam MultiValueMap<String, String> parameters) {
+        log.debug("REST request to get Cars by criteria: {}, after: {}", criteria, after);
+        KeysetCursor cursor = KeysetCursor.decode(after, pageable.getSort());
+        KeysetSlice<CarDTO> slice;
+        try {
+            slice = carQueryService.findByCriteria(criteria, cursor.getSort(), cursor.getKey(), pageable.getPageSize());
+        } catch (InvalidDataAccessApiUsageException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidcursor");
+        }
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, pageable.getPageSize(),
+            PaginationUtil.generateKeysetBaseUrl("/api/cars", parameters));
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /cars/export : export all the cars, streamed as they are read from the database.
+     *
+     * @param criteria the criterias which the exported entities should match
+     * @param sort the order of the exported entities
+     * @param format the format of the export, NDJSON (the default) or CSV
+     * @param response the response the export is written to
+     * @throws IOException if the export cannot be written
+     */
+    @GetMapping("/cars/export")
+    public void exportCars(CarCriteria criteria, Sort sort,
+            @RequestParam(value = "format", defaultValue = "NDJSON") ExportWriter.Format format,
+            HttpServletResponse response) throws IOException {
+        log.debug("REST request to export Cars by criteria: {}, format: {}", criteria, format);
+        try (ExportWriter<CarDTO> writer = ExportWriter.open(response, format, objectMapper, CarDTO.class, "cars")) {
+            carQueryService.exportByCriteria(criteria, sort, writer);
+        }
+    }
+
     /**
     * GET  /cars/count : count all the cars.
     *
@@ -125,6 +241,36 @@ public class CarResource {
         return ResponseUtil.wrapOrNotFound(carDTO);
     }
 
+    /**
+     * GET  /cars/service-summaries : get the summaries of the services of the cars having services.
+     * <p>
+     * The summaries are maintained as the services change, e.g. {@code sort=totalSpend,desc} lists the cars that
+     * cost the most without summing their services.
+     *
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of summaries in body
+     */
+    @GetMapping("/cars/service-summaries")
+    public ResponseEntity<List<CarServiceSummaryDTO>> getAllCarServiceSummaries(Pageable pageable) {
+        log.debug("REST request to get a page of CarServiceSummaries");
+        Page<CarServiceSummaryDTO> page = carServiceSummaryService.findAll(pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/cars/service-summaries");
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * GET  /cars/:id/service-summary : get the summary of the services of the "id" car.
+     *
+     * @param id the id of the car
+     * @return the ResponseEntity with status 200 (OK) and with body the summary, or with status 404 (Not Found)
+     */
+    @GetMapping("/cars/{id}/service-summary")
+    public ResponseEntity<CarServiceSummaryDTO> getCarServiceSummary(@PathVariable Long id) {
+        log.debug("REST request to get the CarServiceSummary of Car : {}", id);
+        Optional<CarServiceSummaryDTO> carServiceSummaryDTO = carServiceSummaryService.findOneByCarId(id);
+        return ResponseUtil.wrapOrNotFound(carServiceSummaryDTO);
+    }
+
     /**
      * DELETE  /cars/:id : delete the "id" car.
      *
@@ -0,0 +1,55 @@
+package com.braude.garage.web.rest;
+
+import com.braude.garage.service.CarServiceAnalyticsService;
+import com.braude.garage.service.dto.Granularity;
+import com.braude.garage.service.dto.RevenueBucketDTO;
+import com.braude.garage.web.rest.errors.BadRequestAlertException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST controller for the revenue and workload of the garage over time.
+ */
+@RestController
+@RequestMapping("/api")
+public class CarServiceAnalyticsResource {
+
+    private static final String ENTITY_NAME = "carServiceRevenue";
+
+    private final Logger log = LoggerFactory.getLogger(CarServiceAnalyticsResource.class);
+
+    private final CarServiceAnalyticsService carServiceAnalyticsService;
+
+    public CarServiceAnalyticsResource(CarServiceAnalyticsService carServiceAnalyticsService) {
+        this.carServiceAnalyticsService = carServiceAnalyticsService;
+    }
+
+    /**
+     * GET  /car-services/revenue : get the number and the total cost of the services of each day, week or month of
+     * a period, optionally for the cars of a make, model and year only.
+     *
+     * @param granularity the length of the periods, DAY, WEEK (from Monday) or MONTH
+     * @param from the first day, included
+     * @param to the last day, included
+     * @param make the make of the cars
+     * @param model the model of the cars
+     * @param year the year of the cars
+     * @return the list of the periods having services, in order,
+     * or with status 400 (Bad Request) if the period ends before it starts
+     */
+    @GetMapping("/car-services/revenue")
+    public List<RevenueBucketDTO> getRevenue(@RequestParam(defaultValue = "DAY") Granularity granularity,
+            @RequestParam LocalDate from, @RequestParam LocalDate to, @RequestParam(required = false) String make,
+            @RequestParam(required = false) String model, @RequestParam(required = false) Integer year) {
+        log.debug("REST request to get the revenue by {} from {} to {}", granularity, from, to);
+        if (to.isBefore(from)) {
+            throw new BadRequestAlertException("The period ends before it starts", ENTITY_NAME, "invalidperiod");
+        }
+        return carServiceAnalyticsService.getRevenue(granularity, from, to, make, model, year);
+    }
+}
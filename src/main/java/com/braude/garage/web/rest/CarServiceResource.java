@@ -1,21 +1,34 @@
 package com.braude.garage.web.rest;
 import com.braude.garage.service.CarServiceService;
 import com.braude.garage.web.rest.errors.BadRequestAlertException;
+import com.braude.garage.web.rest.util.ExportWriter;
 import com.braude.garage.web.rest.util.HeaderUtil;
+import com.braude.garage.web.rest.util.KeysetCursor;
+import com.braude.garage.web.rest.util.OffloadedHandlers;
 import com.braude.garage.web.rest.util.PaginationUtil;
+import com.braude.garage.service.dto.BatchItemResultDTO;
 import com.braude.garage.service.dto.CarServiceDTO;
 import com.braude.garage.service.dto.CarServiceCriteria;
+import com.braude.garage.service.dto.CountMode;
 import com.braude.garage.service.CarServiceQueryService;
+import com.braude.garage.repository.KeysetSlice;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -29,6 +42,7 @@ import static org.elasticsearch.index.query.QueryBuilders.*;
  * REST controller for managing CarService.
  */
 @RestController
+@OffloadedHandlers
 @RequestMapping("/api")
 public class CarServiceResource {
 
@@ -40,9 +54,12 @@ public class CarServiceResource {
 
     private final CarServiceQueryService carServiceQueryService;
 
-    public CarServiceResource(CarServiceService carServiceService, CarServiceQueryService carServiceQueryService) {
+    private final ObjectMapper objectMapper;
+
+    public CarServiceResource(CarServiceService carServiceService, CarServiceQueryService carServiceQueryService, ObjectMapper objectMapper) {
         this.carServiceService = carServiceService;
         this.carServiceQueryService = carServiceQueryService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -85,21 +102,114 @@ public class CarServiceResource {
             .body(result);
     }
 
+    /**
+     * POST  /car-services/batch : Create new carServices in a batch.
+     *
+     * @param carServiceDTOs the carServiceDTOs to create
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each carServiceDTO, in the order of the request,
+     * or with status 400 (Bad Request) if the batch is too large
+     */
+    @PostMapping("/car-services/batch")
+    public ResponseEntity<List<BatchItemResultDTO<CarServiceDTO>>> createCarServices(@RequestBody List<CarServiceDTO> carServiceDTOs) {
+        log.debug("REST request to create {} CarServices", carServiceDTOs.size());
+        return ResponseEntity.ok().body(carServiceService.createAll(carServiceDTOs));
+    }
+
+    /**
+     * PUT  /car-services/batch : Updates existing carServices in a batch.
+     *
+     * @param carServiceDTOs the carServiceDTOs to update
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each carServiceDTO, in the order of the request,
+     * or with status 400 (Bad Request) if the batch is too large
+     */
+    @PutMapping("/car-services/batch")
+    public ResponseEntity<List<BatchItemResultDTO<CarServiceDTO>>> updateCarServices(@RequestBody List<CarServiceDTO> carServiceDTOs) {
+        log.debug("REST request to update {} CarServices", carServiceDTOs.size());
+        return ResponseEntity.ok().body(carServiceService.updateAll(carServiceDTOs));
+    }
+
+    /**
+     * DELETE  /car-services/batch?ids=:ids : delete carServices in a batch.
+     *
+     * @param ids the ids of the carServices to delete
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each id, in the order of the request,
+     * or with status 400 (Bad Request) if the batch is too large
+     */
+    @DeleteMapping("/car-services/batch")
+    public ResponseEntity<List<BatchItemResultDTO<CarServiceDTO>>> deleteCarServices(@RequestParam List<Long> ids) {
+        log.debug("REST request to delete {} CarServices", ids.size());
+        return ResponseEntity.ok().body(carServiceService.deleteAll(ids));
+    }
+
     /**
      * GET  /car-services : get all the carServices.
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param countMode how the X-Total-Count header is computed: EXACT (the default), ESTIMATED from a recent
+     * count of the same criteria, or NONE to skip it
+     * @param parameters the query parameters, the filters, sort and count mode of which are kept in the links
      * @return the ResponseEntity with status 200 (OK) and the list of carServices in body
      */
     @GetMapping("/car-services")
-    public ResponseEntity<List<CarServiceDTO>> getAllCarServices(CarServiceCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<CarServiceDTO>> getAllCarServices(CarServiceCriteria criteria, Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "EXACT") CountMode countMode,
+            @RequestParam MultiValueMap<String, String> parameters) {
         log.debug("REST request to get CarServices by criteria: {}", criteria);
-        Page<CarServiceDTO> page = carServiceQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/car-services");
+        Slice<CarServiceDTO> page = carServiceQueryService.findByCriteria(criteria, pageable, countMode);
+        HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(page,
+            PaginationUtil.generateBaseUrl("/api/car-services", parameters));
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /car-services?after=:after : get the carServices by keyset pagination.
+     * <p>
+     * The first page is read with an empty "after" parameter, and the following ones by the "next" link of the
+     * previous page. No total count is computed.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param pageable the size and the sort of the first page; the sort of the following pages is held by "after"
+     * @param after the cursor returned in the "next" link of the previous page
+     * @param parameters the query parameters, the filters of which are kept in the links
+     * @return the ResponseEntity with status 200 (OK) and the list of carServices in body,
+     * or with status 400 (Bad Request) if the cursor or the sort are not valid
+     */
+    @GetMapping(value = "/car-services", params = "after")
+    public ResponseEntity<List<CarServiceDTO>> getAllCarServicesAfter(CarServiceCriteria criteria, Pageable pageable, @RequestParam String after,
+            @RequestParam MultiValueMap<String, String> parameters) {
+        log.debug("REST request to get CarServices by criteria: {}, after: {}", criteria, after);
+        KeysetCursor cursor = KeysetCursor.decode(after, pageable.getSort());
+        KeysetSlice<CarServiceDTO> slice;
+        try {
+            slice = carServiceQueryService.findByCriteria(criteria, cursor.getSort(), cursor.getKey(), pageable.getPageSize());
+        } catch (InvalidDataAccessApiUsageException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidcursor");
+        }
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, pageable.getPageSize(),
+            PaginationUtil.generateKeysetBaseUrl("/api/car-services", parameters));
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /car-services/export : export all the carServices, streamed as they are read from the database.
+     *
+     * @param criteria the criterias which the exported entities should match
+     * @param sort the order of the exported entities
+     * @param format the format of the export, NDJSON (the default) or CSV
+     * @param response the response the export is written to
+     * @throws IOException if the export cannot be written
+     */
+    @GetMapping("/car-services/export")
+    public void exportCarServices(CarServiceCriteria criteria, Sort sort,
+            @RequestParam(value = "format", defaultValue = "NDJSON") ExportWriter.Format format,
+            HttpServletResponse response) throws IOException {
+        log.debug("REST request to export CarServices by criteria: {}, format: {}", criteria, format);
+        try (ExportWriter<CarServiceDTO> writer = ExportWriter.open(response, format, objectMapper, CarServiceDTO.class, "car-services")) {
+            carServiceQueryService.exportByCriteria(criteria, sort, writer);
+        }
+    }
+
     /**
     * GET  /car-services/count : count all the carServices.
     *
@@ -0,0 +1,38 @@
+package com.braude.garage.web.rest;
+
+import com.braude.garage.service.CarServiceRollupBackfillService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for rebuilding the rollups of the services behind the revenue queries.
+ */
+@RestController
+@RequestMapping("/management/car-service-rollups")
+public class CarServiceRollupResource {
+
+    private final Logger log = LoggerFactory.getLogger(CarServiceRollupResource.class);
+
+    private final CarServiceRollupBackfillService carServiceRollupBackfillService;
+
+    public CarServiceRollupResource(CarServiceRollupBackfillService carServiceRollupBackfillService) {
+        this.carServiceRollupBackfillService = carServiceRollupBackfillService;
+    }
+
+    /**
+     * POST /car-service-rollups : rebuild the rollups from the services in the background.
+     *
+     * @return the ResponseEntity with status 202 (Accepted),
+     * or with status 409 (Conflict) if the rollups are already being rebuilt on this node
+     */
+    @PostMapping
+    public ResponseEntity<Void> backfill() {
+        log.debug("REST request to rebuild the CarServiceRollups");
+        carServiceRollupBackfillService.backfillAsync();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+}
@@ -1,21 +1,36 @@
 package com.braude.garage.web.rest;
+import com.braude.garage.service.CarServiceSummaryService;
 import com.braude.garage.service.ClientService;
 import com.braude.garage.web.rest.errors.BadRequestAlertException;
+import com.braude.garage.web.rest.util.ExportWriter;
 import com.braude.garage.web.rest.util.HeaderUtil;
+import com.braude.garage.web.rest.util.KeysetCursor;
+import com.braude.garage.web.rest.util.OffloadedHandlers;
 import com.braude.garage.web.rest.util.PaginationUtil;
+import com.braude.garage.service.dto.BatchItemResultDTO;
+import com.braude.garage.service.dto.CarServiceSummaryDTO;
 import com.braude.garage.service.dto.ClientDTO;
 import com.braude.garage.service.dto.ClientCriteria;
+import com.braude.garage.service.dto.CountMode;
 import com.braude.garage.service.ClientQueryService;
+import com.braude.garage.repository.KeysetSlice;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -29,6 +44,7 @@ import static org.elasticsearch.index.query.QueryBuilders.*;
  * REST controller for managing Client.
  */
 @RestController
+@OffloadedHandlers
 @RequestMapping("/api")
 public class ClientResource {
 
@@ -40,9 +56,16 @@ public class ClientResource {
 
     private final ClientQueryService clientQueryService;
 
-    public ClientResource(ClientService clientService, ClientQueryService clientQueryService) {
+    private final CarServiceSummaryService carServiceSummaryService;
+
+    private final ObjectMapper objectMapper;
+
+    public ClientResource(ClientService clientService, ClientQueryService clientQueryService,
+            CarServiceSummaryService carServiceSummaryService, ObjectMapper objectMapper) {
         this.clientService = clientService;
         this.clientQueryService = clientQueryService;
+        this.carServiceSummaryService = carServiceSummaryService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -85,21 +108,114 @@ public class ClientResource {
             .body(result);
     }
 
+    /**
+     * POST  /clients/batch : Create new clients in a batch.
+     *
+     * @param clientDTOs the clientDTOs to create
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each clientDTO, in the order of the request,
+     * or with status 400 (Bad Request) if the batch is too large
+     */
+    @PostMapping("/clients/batch")
+    public ResponseEntity<List<BatchItemResultDTO<ClientDTO>>> createClients(@RequestBody List<ClientDTO> clientDTOs) {
+        log.debug("REST request to create {} Clients", clientDTOs.size());
+        return ResponseEntity.ok().body(clientService.createAll(clientDTOs));
+    }
+
+    /**
+     * PUT  /clients/batch : Updates existing clients in a batch.
+     *
+     * @param clientDTOs the clientDTOs to update
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each clientDTO, in the order of the request,
+     * or with status 400 (Bad Request) if the batch is too large
+     */
+    @PutMapping("/clients/batch")
+    public ResponseEntity<List<BatchItemResultDTO<ClientDTO>>> updateClients(@RequestBody List<ClientDTO> clientDTOs) {
+        log.debug("REST request to update {} Clients", clientDTOs.size());
+        return ResponseEntity.ok().body(clientService.updateAll(clientDTOs));
+    }
+
+    /**
+     * DELETE  /clients/batch?ids=:ids : delete clients in a batch.
+     *
+     * @param ids the ids of the clients to delete
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each id, in the order of the request,
+     * or with status 400 (Bad Request) if the batch is too large
+     */
+    @DeleteMapping("/clients/batch")
+    public ResponseEntity<List<BatchItemResultDTO<ClientDTO>>> deleteClients(@RequestParam List<Long> ids) {
+        log.debug("REST request to delete {} Clients", ids.size());
+        return ResponseEntity.ok().body(clientService.deleteAll(ids));
+    }
+
     /**
      * GET  /clients : get all the clients.
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param countMode how the X-Total-Count header is computed: EXACT (the default), ESTIMATED from a recent
+     * count of the same criteria, or NONE to skip it
+     * @param parameters the query parameters, the filters, sort and count mode of which are kept in the links
      * @return the ResponseEntity with status 200 (OK) and the list of clients in body
      */
     @GetMapping("/clients")
-    public ResponseEntity<List<ClientDTO>> getAllClients(ClientCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<ClientDTO>> getAllClients(ClientCriteria criteria, Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "EXACT") CountMode countMode,
+            @RequestParam MultiValueMap<String, String> parameters) {
         log.debug("REST request to get Clients by criteria: {}", criteria);
-        Page<ClientDTO> page = clientQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/clients");
+        Slice<ClientDTO> page = clientQueryService.findByCriteria(criteria, pageable, countMode);
+        HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(page,
+            PaginationUtil.generateBaseUrl("/api/clients", parameters));
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /clients?after=:after : get the clients by keyset pagination.
+     * <p>
+     * The first page is read with an empty "after" parameter, and the following ones by the "next" link of the
+     * previous page. No total count is computed.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param pageable the size and the sort of the first page; the sort of the following pages is held by "after"
+     * @param after the cursor returned in the "next" link of the previous page
+     * @param parameters the query parameters, the filters of which are kept in the links
+     * @return the ResponseEntity with status 200 (OK) and the list of clients in body,
+     * or with status 400 (Bad Request) if the cursor or the sort are not valid
+     */
+    @GetMapping(value = "/clients", params = "after")
+    public ResponseEntity<List<ClientDTO>> getAllClientsAfter(ClientCriteria criteria, Pageable pageable, @RequestParam String after,
+            @RequestParam MultiValueMap<String, String> parameters) {
+        log.debug("REST request to get Clients by criteria: {}, after: {}", criteria, after);
+        KeysetCursor cursor = KeysetCursor.decode(after, pageable.getSort());
+        KeysetSlice<ClientDTO> slice;
+        try {
+            slice = clientQueryService.findByCriteria(criteria, cursor.getSort(), cursor.getKey(), pageable.getPageSize());
+        } catch (InvalidDataAccessApiUsageException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidcursor");
+        }
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, pageable.getPageSize(),
+            PaginationUtil.generateKeysetBaseUrl("/api/clients", parameters));
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /clients/export : export all the clients, streamed as they are read from the database.
+     *
+     * @param criteria the criterias which the exported entities should match
+     * @param sort the order of the exported entities
+     * @param format the format of the export, NDJSON (the default) or CSV
+     * @param response the response the export is written to
+     * @throws IOException if the export cannot be written
+     */
+    @GetMapping("/clients/export")
+    public void exportClients(ClientCriteria criteria, Sort sort,
+            @RequestParam(value = "format", defaultValue = "NDJSON") ExportWriter.Format format,
+            HttpServletResponse response) throws IOException {
+        log.debug("REST request to export Clients by criteria: {}, format: {}", criteria, format);
+        try (ExportWriter<ClientDTO> writer = ExportWriter.open(response, format, objectMapper, ClientDTO.class, "clients")) {
+            clientQueryService.exportByCriteria(criteria, sort, writer);
+        }
+    }
+
     /**
     * GET  /clients/count : count all the clients.
     *
@@ -125,6 +241,19 @@ public class ClientResource {
         return ResponseUtil.wrapOrNotFound(clientDTO);
     }
 
+    /**
+     * GET  /clients/:id/service-summary : get the summary of the services of the car of the "id" client.
+     *
+     * @param id the id of the client
+     * @return the ResponseEntity with status 200 (OK) and with body the summary, or with status 404 (Not Found)
+     */
+    @GetMapping("/clients/{id}/service-summary")
+    public ResponseEntity<CarServiceSummaryDTO> getClientServiceSummary(@PathVariable Long id) {
+        log.debug("REST request to get the CarServiceSummary of Client : {}", id);
+        Optional<CarServiceSummaryDTO> carServiceSummaryDTO = carServiceSummaryService.findOneByClientId(id);
+        return ResponseUtil.wrapOrNotFound(carServiceSummaryDTO);
+    }
+
     /**
      * DELETE  /clients/:id : delete the "id" client.
      *
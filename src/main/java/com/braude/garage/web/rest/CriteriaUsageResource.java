@@ -0,0 +1,50 @@
+package com.braude.garage.web.rest;
+
+import com.braude.garage.config.metrics.CriteriaUsageRecorder;
+import com.braude.garage.service.dto.CriteriaUsageDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for the report of the criteria filters used by the listings, from which indexes are chosen.
+ */
+@RestController
+@RequestMapping("/management/criteria-usage")
+public class CriteriaUsageResource {
+
+    private final Logger log = LoggerFactory.getLogger(CriteriaUsageResource.class);
+
+    private final CriteriaUsageRecorder criteriaUsageRecorder;
+
+    public CriteriaUsageResource(CriteriaUsageRecorder criteriaUsageRecorder) {
+        this.criteriaUsageRecorder = criteriaUsageRecorder;
+    }
+
+    /**
+     * GET /criteria-usage : get the combinations of filters and sorts used on this node.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the list of combinations in body, those that took the
+     * most time first
+     */
+    @GetMapping
+    public List<CriteriaUsageDTO> getReport() {
+        return criteriaUsageRecorder.getReport();
+    }
+
+    /**
+     * DELETE /criteria-usage : forget the combinations used on this node, e.g. after adding an index.
+     *
+     * @return the ResponseEntity with status 200 (OK)
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> reset() {
+        log.debug("REST request to reset the criteria usage report");
+        criteriaUsageRecorder.reset();
+        return ResponseEntity.ok().build();
+    }
+}
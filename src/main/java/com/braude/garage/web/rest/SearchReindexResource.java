@@ -0,0 +1,71 @@
+package com.braude.garage.web.rest;
+
+import com.braude.garage.service.SearchReindexService;
+import com.braude.garage.service.dto.SearchReindexStatusDTO;
+import com.braude.garage.web.rest.errors.BadRequestAlertException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for rebuilding the Elasticsearch indices.
+ */
+@RestController
+@RequestMapping("/management/reindex")
+public class SearchReindexResource {
+
+    private static final String ENTITY_NAME = "searchReindex";
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexResource.class);
+
+    private final SearchReindexService searchReindexService;
+
+    public SearchReindexResource(SearchReindexService searchReindexService) {
+        this.searchReindexService = searchReindexService;
+    }
+
+    /**
+     * GET /reindex : get the status of the rebuilds started on this node.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the list of rebuild statuses in body
+     */
+    @GetMapping
+    public List<SearchReindexStatusDTO> getStatuses() {
+        return searchReindexService.getStatuses();
+    }
+
+    /**
+     * POST /reindex : rebuild all the indices in the background.
+     *
+     * @return the ResponseEntity with status 202 (Accepted) and the list of started rebuilds in body, failed for
+     * those the indexing executor could not take, or with status 409 (Conflict) if one of the indices is already
+     * being rebuilt, in which case none is started
+     */
+    @PostMapping
+    public ResponseEntity<List<SearchReindexStatusDTO>> reindexAll() {
+        log.debug("REST request to rebuild all the Elasticsearch indices");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(searchReindexService.reindexAllAsync());
+    }
+
+    /**
+     * POST /reindex/:index : rebuild the "index" index in the background.
+     *
+     * @param index the name of the index to rebuild
+     * @return the ResponseEntity with status 202 (Accepted) and the started rebuild in body,
+     * or with status 400 (Bad Request) if the index is unknown,
+     * or with status 409 (Conflict) if the index is already being rebuilt
+     */
+    @PostMapping("/{index}")
+    public ResponseEntity<SearchReindexStatusDTO> reindex(@PathVariable String index) {
+        log.debug("REST request to rebuild the Elasticsearch index : {}", index);
+        if (!searchReindexService.getIndexNames().contains(index)) {
+            throw new BadRequestAlertException("Unknown index " + index, ENTITY_NAME, "unknownindex");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(searchReindexService.reindexAsync(index));
+    }
+}
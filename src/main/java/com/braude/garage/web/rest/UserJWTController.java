@@ -48,6 +48,20 @@ public class UserJWTController {
         return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
     }
 
+    /**
+     * POST  /logout : revoke the token of the current user.
+     *
+     * @return the ResponseEntity with status 200 (OK)
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getCredentials() instanceof String) {
+            tokenProvider.revokeToken((String) authentication.getCredentials());
+        }
+        return ResponseEntity.ok().build();
+    }
+
     /**
      * Object to return as body in JWT Authentication.
      */
@@ -0,0 +1,142 @@
+package com.braude.garage.web.rest.util;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the rows of an export to the response as they are read, one line per row.
+ * <p>
+ * The output is flushed after the first row and then every {@value #FLUSH_EVERY_ROWS} rows, so that the client
+ * receives the beginning of the export before its query completes.
+ *
+ * @param <T> the type of the rows
+ */
+public final class ExportWriter<T> implements Consumer<T>, Closeable {
+
+    /**
+     * The formats of an export.
+     */
+    public enum Format {
+
+        /**
+         * One JSON document per line.
+         */
+        NDJSON("application/x-ndjson", "ndjson"),
+
+        /**
+         * RFC 4180 CSV, with a header line of the DTO property names.
+         */
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    private static final int FLUSH_EVERY_ROWS = 100;
+
+    private final Format format;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter objectWriter;
+
+    private final List<String> columns;
+
+    private final Writer writer;
+
+    private long rows;
+
+    private ExportWriter(Format format, ObjectMapper objectMapper, Class<T> rowClass, Writer writer) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writerFor(rowClass);
+        JavaType rowType = objectMapper.constructType(rowClass);
+        this.columns = objectMapper.getSerializationConfig().introspect(rowType).findProperties().stream()
+            .map(BeanPropertyDefinition::getName)
+            .collect(Collectors.toList());
+        this.writer = writer;
+    }
+
+    /**
+     * Start an export as an attachment of the response.
+     *
+     * @param response the response to write to
+     * @param format the format of the export
+     * @param objectMapper the mapper serializing the rows
+     * @param rowClass the class of the rows
+     * @param fileName the name of the attachment, without extension
+     * @return the writer of the rows, to be closed once all of them are written
+     * @throws IOException if the response cannot be written
+     */
+    public static <T> ExportWriter<T> open(HttpServletResponse response, Format format, ObjectMapper objectMapper,
+            Class<T> rowClass, String fileName) throws IOException {
+        response.setContentType(format.contentType + ";charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "." + format.extension + "\"");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        ExportWriter<T> exportWriter = new ExportWriter<>(format, objectMapper, rowClass, writer);
+        if (format == Format.CSV) {
+            exportWriter.writeLine(exportWriter.columns.stream()
+                .map(ExportWriter::escapeCsv)
+                .collect(Collectors.joining(",")));
+        }
+        return exportWriter;
+    }
+
+    @Override
+    public void accept(T row) {
+        try {
+            if (format == Format.NDJSON) {
+                writeLine(objectWriter.writeValueAsString(row));
+            } else {
+                ObjectNode node = objectMapper.valueToTree(row);
+                writeLine(columns.stream()
+                    .map(node::get)
+                    .map(value -> value == null || value.isNull() ? "" : escapeCsv(asText(value)))
+                    .collect(Collectors.joining(",")));
+            }
+            if (++rows == 1 || rows % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void writeLine(String line) throws IOException {
+        writer.write(line);
+        writer.write(format == Format.CSV ? "\r\n" : "\n");
+    }
+
+    private static String asText(JsonNode value) {
+        return value.isValueNode() ? value.asText() : value.toString();
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
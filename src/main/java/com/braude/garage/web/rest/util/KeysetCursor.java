@@ -0,0 +1,110 @@
+package com.braude.garage.web.rest.util;
+
+import com.braude.garage.web.rest.errors.BadRequestAlertException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * The opaque "after" token of keyset pagination.
+ * <p>
+ * The token holds the sort of the listing and the sort key of the last row already read, so that following a
+ * "next" link keeps the original order whatever sort parameters it carries. A token without a key reads the
+ * first page.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Sort sort;
+
+    private final List<String> key;
+
+    private KeysetCursor(Sort sort, List<String> key) {
+        this.sort = sort;
+        this.key = key;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * @return the sort key of the last row already read, or null for the first page
+     */
+    public List<String> getKey() {
+        return key;
+    }
+
+    /**
+     * Decode an "after" token.
+     *
+     * @param token the token; an empty token reads the first page
+     * @param requestSort the sort of the request, used when the token is empty
+     * @return the cursor
+     * @throws BadRequestAlertException if the token is malformed
+     */
+    public static KeysetCursor decode(String token, Sort requestSort) {
+        if (!StringUtils.hasText(token)) {
+            return new KeysetCursor(requestSort, null);
+        }
+        Token decoded;
+        try {
+            decoded = MAPPER.readValue(Base64.getUrlDecoder().decode(token), Token.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw invalid();
+        }
+        if (decoded.sort == null || decoded.sort.isEmpty()) {
+            throw invalid();
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String order : decoded.sort) {
+            String[] parts = order.split(",");
+            if (parts.length != 2 || !StringUtils.hasText(parts[0])) {
+                throw invalid();
+            }
+            Sort.Direction direction = Sort.Direction.fromOptionalString(parts[1]).orElseThrow(KeysetCursor::invalid);
+            orders.add(new Sort.Order(direction, parts[0]));
+        }
+        return new KeysetCursor(Sort.by(orders), decoded.key);
+    }
+
+    /**
+     * Encode an "after" token.
+     *
+     * @param sort the sort of the listing
+     * @param key the sort key of the last row already read, or null for the first page
+     * @return the token
+     */
+    public static String encode(Sort sort, List<String> key) {
+        Token token = new Token();
+        token.sort = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            token.sort.add(order.getProperty() + "," + order.getDirection().name().toLowerCase());
+        }
+        token.key = key;
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(token));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BadRequestAlertException invalid() {
+        return new BadRequestAlertException("Invalid pagination cursor", "pagination", "invalidcursor");
+    }
+
+    private static class Token {
+
+        public List<String> sort;
+
+        public List<String> key;
+    }
+}
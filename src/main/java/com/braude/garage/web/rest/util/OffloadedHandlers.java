@@ -0,0 +1,20 @@
+package com.braude.garage.web.rest.util;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller whose handlers run on the "webExecutor" rather than on the server worker thread, when
+ * {@code application.async-requests.enabled} is set.
+ * <p>
+ * Only the handlers returning a value are offloaded: those writing to the response themselves, like the exports,
+ * always run on the worker thread. See {@link com.braude.garage.config.AsyncRequestConfiguration}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface OffloadedHandlers {
+}
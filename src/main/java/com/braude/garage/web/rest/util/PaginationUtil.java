@@ -1,11 +1,19 @@
 package com.braude.garage.web.rest.util;
 
+import com.braude.garage.repository.KeysetSlice;
+
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Utility class for handling pagination.
@@ -16,6 +24,16 @@ import java.net.URLEncoder;
  */
 public final class PaginationUtil {
 
+    /**
+     * The query parameters replaced by the keyset links: the cursor, which holds the sort, and the page size.
+     */
+    private static final List<String> KEYSET_PARAMETERS = Arrays.asList("after", "size", "sort");
+
+    /**
+     * The query parameters replaced by the page links: the page number and size.
+     */
+    private static final List<String> PAGE_PARAMETERS = Arrays.asList("page", "size");
+
     private PaginationUtil() {
     }
 
@@ -42,8 +60,87 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the pagination headers of a slice: those of {@link #generatePaginationHttpHeaders(Page, String)} if
+     * it is a page, and otherwise only the "next", "prev" and "first" links, without total count.
+     */
+    public static <T> HttpHeaders generateSliceHttpHeaders(Slice<T> slice, String baseUrl) {
+        if (slice instanceof Page) {
+            return generatePaginationHttpHeaders((Page<T>) slice, baseUrl);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        if (slice.hasNext()) {
+            link = "<" + generateSliceUri(baseUrl, slice.getNumber() + 1, slice.getSize()) + ">; rel=\"next\",";
+        }
+        if (slice.hasPrevious()) {
+            link += "<" + generateSliceUri(baseUrl, slice.getNumber() - 1, slice.getSize()) + ">; rel=\"prev\",";
+        }
+        link += "<" + generateSliceUri(baseUrl, 0, slice.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Generate the base URL of the page links of a listing: its path, with the query parameters of the request but
+     * the page number and size, so that the other pages keep the filters, the sort and the count mode of this one.
+     * The parameters are encoded here, once: the returned URL must not be encoded again.
+     */
+    public static String generateBaseUrl(String path, MultiValueMap<String, String> parameters) {
+        return generateBaseUrl(path, parameters, PAGE_PARAMETERS);
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
-        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).build(true)
+            .toUriString();
+    }
+
+    private static String generateSliceUri(String baseUrl, int page, int size) {
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size)
+            .replaceQueryParam("count", "NONE").build(true).toUriString();
+    }
+
+    /**
+     * Generate the Link header of a keyset paginated listing: only "next" and "first" links, and no total count.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(KeysetSlice<T> slice, int size, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        if (slice.hasNext()) {
+            link = "<" + generateKeysetUri(baseUrl, KeysetCursor.encode(slice.getSort(), slice.getNextKey()), size) + ">; rel=\"next\",";
+        }
+        link += "<" + generateKeysetUri(baseUrl, KeysetCursor.encode(slice.getSort(), null), size) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Generate the base URL of the keyset links of a listing: its path, with the query parameters of the request
+     * but the cursor, the sort and the page size, so that the following pages keep the filters of the first one.
+     * The parameters are encoded here, once: the returned URL must not be encoded again.
+     */
+    public static String generateKeysetBaseUrl(String path, MultiValueMap<String, String> parameters) {
+        return generateBaseUrl(path, parameters, KEYSET_PARAMETERS);
+    }
+
+    private static String generateBaseUrl(String path, MultiValueMap<String, String> parameters, List<String> excluded) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromPath(path);
+        parameters.forEach((name, values) -> {
+            if (!excluded.contains(name)) {
+                builder.queryParam(encodeQueryComponent(name),
+                    values.stream().map(PaginationUtil::encodeQueryComponent).toArray());
+            }
+        });
+        return builder.build(true).toUriString();
+    }
+
+    private static String encodeQueryComponent(String component) {
+        return UriUtils.encode(component, StandardCharsets.UTF_8);
+    }
+
+    private static String generateKeysetUri(String baseUrl, String after, int size) {
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("after", after).queryParam("size", size).build(true)
+            .toUriString();
     }
 
     public static <T> HttpHeaders generateSearchPaginationHttpHeaders(String query, Page<T> page, String baseUrl) {
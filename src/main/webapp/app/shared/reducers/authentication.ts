@@ -132,6 +132,11 @@ export const clearAuthToken = () => {
 };
 
 export const logout = () => dispatch => {
+  const token = Storage.local.get(AUTH_TOKEN_KEY) || Storage.session.get(AUTH_TOKEN_KEY);
+  if (token) {
+    // Revoke the token on the server, it is sent explicitly as it is cleared before the request goes out
+    axios.post('api/logout', {}, { headers: { Authorization: `Bearer ${token}` } }).catch(() => undefined);
+  }
   clearAuthToken();
   dispatch({
     type: ACTION_TYPES.LOGOUT
@@ -0,0 +1,130 @@
+package com.braude.garage.config;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.config.metrics.RequestMetricsInterceptor;
+import com.braude.garage.domain.Car;
+import com.braude.garage.repository.CarRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the handlers offloaded to the web executor.
+ * <p>
+ * Not transactional: the handlers read the cars from the executor thread, in a transaction of their own.
+ *
+ * @see AsyncRequestConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+public class AsyncRequestConfigurationIntTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mockMvc;
+
+    private Car car;
+
+    @Before
+    public void setup() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        car = carRepository.saveAndFlush(new Car().licensePlate("ASYNC-1").make("AAAAAAAAAA").model("AAAAAAAAAA").year(2000));
+    }
+
+    @After
+    public void tearDown() {
+        applicationProperties.getAsyncRequests().setEnabled(false);
+        carRepository.delete(car);
+    }
+
+    @Test
+    public void assertThatHandlersRunOnTheWorkerThreadByDefault() throws Exception {
+        mockMvc.perform(get("/api/cars/{id}", car.getId()))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.licensePlate").value("ASYNC-1"));
+    }
+
+    @Test
+    public void assertThatHandlersRunOnTheWebExecutor() throws Exception {
+        applicationProperties.getAsyncRequests().setEnabled(true);
+        Timer execution = meterRegistry.find("executor.execution").tags("name", "web").timer();
+        long executed = execution.count();
+
+        MvcResult result = mockMvc.perform(get("/api/cars?licensePlate.equals=ASYNC-1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(car.getId().intValue())))
+            .andExpect(jsonPath("$.[*].licensePlate").value(hasItem("ASYNC-1")));
+
+        assertThat(execution.count()).isEqualTo(executed + 1);
+    }
+
+    @Test
+    public void assertThatStatementsOfOffloadedHandlersAreCounted() throws Exception {
+        applicationProperties.getAsyncRequests().setEnabled(true);
+        DistributionSummary before = requestStatements();
+        long count = before == null ? 0 : before.count();
+        double total = before == null ? 0 : before.totalAmount();
+
+        MvcResult result = mockMvc.perform(get("/api/cars/{id}", car.getId()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.licensePlate").value("ASYNC-1"));
+
+        DistributionSummary after = requestStatements();
+        assertThat(after).isNotNull();
+        assertThat(after.count()).isEqualTo(count + 1);
+        // Prepared by the executor thread, and recorded once the request is dispatched back
+        assertThat(after.totalAmount() - total).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void assertThatExportsRunOnTheWorkerThread() throws Exception {
+        applicationProperties.getAsyncRequests().setEnabled(true);
+
+        mockMvc.perform(get("/api/cars/export?licensePlate.equals=ASYNC-1"))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isOk());
+    }
+
+    private DistributionSummary requestStatements() {
+        return meterRegistry.find(RequestMetricsInterceptor.STATEMENTS_METRIC)
+            .tags("method", "GET", "uri", "/api/cars/{id}", "status", "200")
+            .summary();
+    }
+}
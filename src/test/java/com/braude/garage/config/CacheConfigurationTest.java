@@ -0,0 +1,64 @@
+package com.braude.garage.config;
+
+import com.braude.garage.domain.Car;
+
+import io.github.jhipster.config.JHipsterProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.cache.JCacheCacheMeterBinderProvider;
+import org.springframework.cache.jcache.JCacheCache;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the CacheConfiguration class.
+ * <p>
+ * The test profile uses a simple cache manager, so a JCache one is created here.
+ *
+ * @see CacheConfiguration
+ */
+public class CacheConfigurationTest {
+
+    private CacheManager cacheManager;
+
+    private MeterRegistry meterRegistry;
+
+    @Before
+    public void setup() {
+        cacheManager = Caching.getCachingProvider(EhcacheCachingProvider.class.getName()).getCacheManager();
+        new CacheConfiguration(new JHipsterProperties(), new ApplicationProperties()).cacheManagerCustomizer()
+            .customize(cacheManager);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @After
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    public void assertThatRegionsExportTheirStatistics() {
+        Cache<Object, Object> cache = cacheManager.getCache(Car.class.getName());
+        // As bound by Spring Boot to each cache of the JCache manager
+        new JCacheCacheMeterBinderProvider().getMeterBinder(new JCacheCache(cache), Collections.emptyList())
+            .bindTo(meterRegistry);
+
+        cache.put(1L, "car");
+        cache.get(1L);
+        cache.get(1L);
+        cache.get(2L);
+
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.puts").functionCounter().count()).isEqualTo(1);
+    }
+}
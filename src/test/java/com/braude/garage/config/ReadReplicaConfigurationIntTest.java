@@ -0,0 +1,142 @@
+package com.braude.garage.config;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.config.datasource.ReadReplicaRoutingDataSource;
+import com.braude.garage.config.datasource.ReplicationLagMonitor;
+import com.braude.garage.domain.Car;
+import com.braude.garage.repository.CarRepository;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the read replicas with the second-level cache, the replica being another H2 database to which
+ * nothing replicates: the test copies the rows to it as a lagging replication would.
+ * <p>
+ * Not transactional: each read runs in a read-only transaction of its own, as in a request. The context has its own
+ * embedded Elasticsearch node, closed after the tests.
+ *
+ * @see ReadReplicaConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class, properties = {
+    "application.read-replicas.enabled=true",
+    "application.read-replicas.replicas[0].url=" + ReadReplicaConfigurationIntTest.REPLICA_URL,
+    "application.read-replicas.max-lag-ms=3600000",
+    "application.read-replicas.lag-check-interval-ms=3600000",
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+    "spring.jpa.properties.hibernate.cache.region.factory_class=org.hibernate.cache.jcache.JCacheRegionFactory",
+    "spring.data.elasticsearch.properties.path.home=build/elasticsearch-read-replica"
+})
+@DirtiesContext
+public class ReadReplicaConfigurationIntTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:garage-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ReadReplicaRoutingDataSource dataSource;
+
+    @Autowired
+    private ReplicationLagMonitor replicationLagMonitor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    private JdbcTemplate primary;
+
+    private JdbcTemplate replica;
+
+    private Car car;
+
+    @Before
+    public void setup() throws Exception {
+        JdbcDataSource replicaDataSource = new JdbcDataSource();
+        replicaDataSource.setURL(REPLICA_URL);
+        replicaDataSource.setUser("sa");
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(replicaDataSource);
+        liquibase.setChangeLog("classpath:config/liquibase/master.xml");
+        liquibase.setContexts("test");
+        liquibase.setResourceLoader(resourceLoader);
+        liquibase.afterPropertiesSet();
+        replica = new JdbcTemplate(replicaDataSource);
+        primary = new JdbcTemplate(dataSource.getPrimary());
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        entityManagerFactory.getCache().evictAll();
+        if (car != null) {
+            replica.update("DELETE FROM car WHERE id = ?", car.getId());
+            carRepository.deleteById(car.getId());
+        }
+    }
+
+    @Test
+    public void assertThatEntitiesReadFromAReplicaAreNotCached() {
+        newRequest();
+        car = carRepository.saveAndFlush(new Car().licensePlate("REPLICA-1").model("OLD"));
+        replicateCar();
+        car.setModel("NEW");
+        carRepository.saveAndFlush(car);
+        replica.update("UPDATE replication_heartbeat SET beat_time = ? WHERE id = 1", Timestamp.from(Instant.now()));
+        replicationLagMonitor.check();
+
+        // A new request reads the car from the replica, which has not received the update yet
+        newRequest();
+        assertThat(carRepository.findById(car.getId()).get().getModel()).isEqualTo("OLD");
+        assertThat(entityManagerFactory.getCache().contains(Car.class, car.getId())).isFalse();
+
+        // While the cars read from the primary database are cached, and then read from the cache by the replica reads
+        String model = new TransactionTemplate(transactionManager).execute(status ->
+            carRepository.findById(car.getId()).get().getModel());
+        assertThat(model).isEqualTo("NEW");
+        assertThat(entityManagerFactory.getCache().contains(Car.class, car.getId())).isTrue();
+        newRequest();
+        assertThat(carRepository.findById(car.getId()).get().getModel()).isEqualTo("NEW");
+    }
+
+    private static void newRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private void replicateCar() {
+        Map<String, Object> row = primary.queryForMap("SELECT * FROM car WHERE id = ?", car.getId());
+        String columns = String.join(", ", row.keySet());
+        String values = String.join(", ", Collections.nCopies(row.size(), "?"));
+        replica.update("INSERT INTO car (" + columns + ") VALUES (" + values + ")", row.values().toArray());
+    }
+}
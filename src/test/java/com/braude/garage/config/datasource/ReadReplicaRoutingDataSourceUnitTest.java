@@ -0,0 +1,164 @@
+package com.braude.garage.config.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ReadReplicaRoutingDataSource, with a primary and a replica H2 database. Nothing replicates to
+ * the replica: the tests write its heartbeat as a replication would.
+ *
+ * @see ReadReplicaRoutingDataSource
+ * @see ReplicationLagMonitor
+ */
+public class ReadReplicaRoutingDataSourceUnitTest {
+
+    private JdbcTemplate primary;
+
+    private JdbcTemplate replica;
+
+    private ReadReplica readReplica;
+
+    private ReplicationLagMonitor replicationLagMonitor;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setup() {
+        DataSource primaryDataSource = database("routing-primary");
+        DataSource replicaDataSource = database("routing-replica");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        readReplica = new ReadReplica("replica", replicaDataSource);
+        replicationLagMonitor = new ReplicationLagMonitor(primaryDataSource, Collections.singletonList(readReplica),
+            Duration.ofSeconds(5));
+
+        ReadReplicaRoutingDataSource dataSource = new ReadReplicaRoutingDataSource(primaryDataSource,
+            Collections.singletonList(readReplica), true);
+        dataSource.afterPropertiesSet();
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @After
+    public void teardown() {
+        RequestContextHolder.resetRequestAttributes();
+        primary.execute("DROP ALL OBJECTS");
+        replica.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void assertThatReadOnlyTransactionsReadFromTheReplica() {
+        replicateHeartbeat(Instant.now());
+        replicationLagMonitor.check();
+
+        assertThat(readReplica.isAvailable()).isTrue();
+        assertThat(databaseNameReadOnly()).isEqualTo("routing-replica");
+        assertThat(databaseNameReadWrite()).isEqualTo("routing-primary");
+        assertThat(databaseName()).isEqualTo("routing-primary");
+    }
+
+    @Test
+    public void assertThatReplicasAreUnavailableUntilChecked() {
+        replicateHeartbeat(Instant.now());
+
+        assertThat(databaseNameReadOnly()).isEqualTo("routing-primary");
+    }
+
+    @Test
+    public void assertThatLaggingReplicasAreNotReadFrom() {
+        replicateHeartbeat(Instant.now().minusSeconds(10));
+        replicationLagMonitor.check();
+
+        assertThat(readReplica.isAvailable()).isFalse();
+        assertThat(readReplica.getLagMs()).isGreaterThanOrEqualTo(10000);
+        assertThat(databaseNameReadOnly()).isEqualTo("routing-primary");
+
+        replicateHeartbeat(Instant.now());
+        replicationLagMonitor.check();
+
+        assertThat(databaseNameReadOnly()).isEqualTo("routing-replica");
+    }
+
+    @Test
+    public void assertThatFailingReplicasAreNotReadFrom() {
+        replicateHeartbeat(Instant.now());
+        replicationLagMonitor.check();
+        replica.execute("DROP TABLE replication_heartbeat");
+        replicationLagMonitor.check();
+
+        assertThat(readReplica.isAvailable()).isFalse();
+        assertThat(databaseNameReadOnly()).isEqualTo("routing-primary");
+    }
+
+    @Test
+    public void assertThatRequestsReadTheirWritesFromThePrimary() {
+        replicateHeartbeat(Instant.now());
+        replicationLagMonitor.check();
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(databaseNameReadOnly()).isEqualTo("routing-replica");
+        transactionTemplate.execute(status -> jdbcTemplate.update("UPDATE database_name SET name = name"));
+        assertThat(databaseNameReadOnly()).isEqualTo("routing-primary");
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(databaseNameReadOnly()).isEqualTo("routing-replica");
+    }
+
+    private String databaseNameReadOnly() {
+        return readOnlyTransactionTemplate.execute(status -> databaseName());
+    }
+
+    private String databaseNameReadWrite() {
+        return transactionTemplate.execute(status -> databaseName());
+    }
+
+    private String databaseName() {
+        return jdbcTemplate.queryForObject("SELECT name FROM database_name", String.class);
+    }
+
+    private void replicateHeartbeat(Instant heartbeat) {
+        replica.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                "UPDATE replication_heartbeat SET beat_time = ? WHERE id = 1");
+            statement.setTimestamp(1, Timestamp.from(heartbeat), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+            return statement;
+        });
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE replication_heartbeat (id INTEGER PRIMARY KEY, beat_time TIMESTAMP)");
+        jdbcTemplate.execute("INSERT INTO replication_heartbeat (id) VALUES (1)");
+        jdbcTemplate.execute("CREATE TABLE database_name (name VARCHAR(50))");
+        jdbcTemplate.update("INSERT INTO database_name (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,247 @@
+package com.braude.garage.config.metrics;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.aop.metrics.MethodMetricsAspect;
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.Car;
+
+import com.google.gson.Gson;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Count;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the application meters.
+ *
+ * @see com.braude.garage.config.MetricsConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class MetricsConfigurationIntTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JestClient jestClient;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    @Qualifier("indexingExecutor")
+    private Executor indexingExecutor;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    public void assertThatRequestStatementsAreCounted() throws Exception {
+        // More cars than a page, so that the page is followed by its count
+        for (int i = 0; i < 25; i++) {
+            em.persist(new Car().licensePlate("METRICS-" + i).make("AAAAAAAAAA").model("AAAAAAAAAA").year(2000));
+        }
+        em.flush();
+        em.clear();
+        DistributionSummary before = requestStatements();
+        long count = before == null ? 0 : before.count();
+        double total = before == null ? 0 : before.totalAmount();
+
+        mockMvc.perform(get("/api/cars?page=0&size=20"))
+            .andExpect(status().isOk());
+
+        DistributionSummary after = requestStatements();
+        assertThat(after).isNotNull();
+        assertThat(after.count()).isEqualTo(count + 1);
+        // The page, then its count
+        assertThat(after.totalAmount() - total).isEqualTo(2);
+        assertThat(meterRegistry.find(RequestMetricsInterceptor.STATEMENT_TIME_METRIC)
+            .tags("method", "GET", "uri", "/api/cars", "status", "200")
+            .timer()).isNotNull();
+    }
+
+    @Test
+    public void assertThatRequestsOverBudgetAreCounted() throws Exception {
+        ApplicationProperties.Metrics properties = applicationProperties.getMetrics();
+        int statementBudget = properties.getRequestStatementBudget();
+        Counter before = overBudget();
+        double count = before == null ? 0 : before.count();
+
+        for (int i = 0; i < 25; i++) {
+            em.persist(new Car().licensePlate("BUDGET-" + i).make("AAAAAAAAAA").model("AAAAAAAAAA").year(2000));
+        }
+        em.flush();
+        em.clear();
+
+        // The page, then its count
+        mockMvc.perform(get("/api/cars?page=0&size=20"))
+            .andExpect(status().isOk());
+        assertThat(overBudget() == null ? 0 : overBudget().count()).isEqualTo(count);
+
+        properties.setRequestStatementBudget(1);
+        try {
+            mockMvc.perform(get("/api/cars?page=0&size=20"))
+                .andExpect(status().isOk());
+        } finally {
+            properties.setRequestStatementBudget(statementBudget);
+        }
+        assertThat(overBudget()).isNotNull();
+        assertThat(overBudget().count()).isEqualTo(count + 1);
+    }
+
+    @Test
+    public void assertThatMethodsAreTimedByEndpoint() throws Exception {
+        mockMvc.perform(get("/api/cars?page=0&size=20"))
+            .andExpect(status().isOk());
+
+        Timer service = meterRegistry.find(MethodMetricsAspect.METRIC_NAME)
+            .tags("class", "CarQueryService", "method", "findByCriteria", "endpoint", "GET /api/cars", "exception", "None")
+            .timer();
+        assertThat(service).isNotNull();
+        assertThat(service.count()).isPositive();
+        assertThat(service.takeSnapshot().histogramCounts()).isEmpty();
+        assertThat(service.takeSnapshot().percentileValues()).isEmpty();
+
+        Timer repository = meterRegistry.find(MethodMetricsAspect.METRIC_NAME)
+            .tags("class", "CompiledCriteriaRepository", "method", "findAll", "endpoint", "GET /api/cars")
+            .timer();
+        assertThat(repository).isNotNull();
+        assertThat(repository.count()).isPositive();
+    }
+
+    @Test
+    public void assertThatCriteriaUsageIsReported() throws Exception {
+        mockMvc.perform(delete("/management/criteria-usage"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/cars?make.equals=AAAAAAAAAA&year.greaterThan=1990&sort=model,desc&page=0&size=20"))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/cars?make.equals=BBBBBBBBBB&year.greaterThan=2000&sort=model,desc&page=0&size=20"))
+            .andExpect(status().isOk());
+
+        // The values are not part of the combination, the countByCriteria of the page is not a criteria query
+        mockMvc.perform(get("/management/criteria-usage"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].entity").value("Car"))
+            .andExpect(jsonPath("$.[0].operation").value("findByCriteria"))
+            .andExpect(jsonPath("$.[0].filters").value("make.equals&year.greaterThan"))
+            .andExpect(jsonPath("$.[0].sort").value("model,desc"))
+            .andExpect(jsonPath("$.[0].count").value(2));
+    }
+
+    @Test
+    public void assertThatSearchRequestsAreTimed() throws Exception {
+        assertThat(jestClient).isInstanceOf(TimedJestClient.class);
+
+        JestClient delegate = Mockito.mock(JestClient.class);
+        JestResult result = new JestResult(new Gson());
+        result.setSucceeded(true);
+        when(delegate.execute(any())).thenReturn(result);
+        Timer before = searchTimer();
+        long count = before == null ? 0 : before.count();
+
+        new TimedJestClient(delegate, meterRegistry).execute(new Count.Builder().build());
+
+        Timer after = searchTimer();
+        assertThat(after).isNotNull();
+        assertThat(after.count()).isEqualTo(count + 1);
+    }
+
+    @Test
+    public void assertThatExecutorsAreMetered() throws Exception {
+        for (String name : Arrays.asList("task", "mail", "indexing", "audit", "analytics", "web", "scheduling")) {
+            assertThat(meterRegistry.find("executor.queued").tags("name", name).gauge()).isNotNull();
+            assertThat(meterRegistry.find("executor.active").tags("name", name).gauge()).isNotNull();
+        }
+        Timer execution = meterRegistry.find("executor.execution").tags("name", "indexing").timer();
+        Counter rejected = meterRegistry.find("executor.rejected").tags("name", "indexing").counter();
+        long executed = execution.count();
+        double rejectedBefore = rejected.count();
+
+        // Fill the threads and the queue of the pool, so that one more task is rejected
+        ApplicationProperties.Executors.Pool pool = applicationProperties.getExecutors().getIndexing();
+        CountDownLatch release = new CountDownLatch(1);
+        int tasks = pool.getMaxPoolSize() + pool.getQueueCapacity();
+        for (int i = 0; i < tasks; i++) {
+            indexingExecutor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertThatThrownBy(() -> indexingExecutor.execute(() -> { })).isInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+
+        assertThat(rejected.count()).isEqualTo(rejectedBefore + 1);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (execution.count() < executed + tasks && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(execution.count()).isEqualTo(executed + tasks);
+        assertThat(meterRegistry.find("executor.idle").tags("name", "indexing").timer().count())
+            .isGreaterThanOrEqualTo(tasks);
+    }
+
+    private DistributionSummary requestStatements() {
+        return meterRegistry.find(RequestMetricsInterceptor.STATEMENTS_METRIC)
+            .tags("method", "GET", "uri", "/api/cars", "status", "200")
+            .summary();
+    }
+
+    private Counter overBudget() {
+        return meterRegistry.find(RequestMetricsInterceptor.OVER_BUDGET_METRIC)
+            .tags("method", "GET", "uri", "/api/cars", "status", "200")
+            .counter();
+    }
+
+    private Timer searchTimer() {
+        return meterRegistry.find(TimedJestClient.METRIC_NAME)
+            .tags("action", "Count", "method", "POST", "outcome", "success", "endpoint", RequestMetrics.NO_ENDPOINT)
+            .timer();
+    }
+}
@@ -0,0 +1,55 @@
+package com.braude.garage.config.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Assertions on the number of JDBC statements a block of code prepares, for the integration tests to fail on
+ * query count regressions such as N+1 selects:
+ * <pre>
+ * em.flush();
+ * em.clear();
+ * StatementBudget.assertStatementsAtMost(2, () -&gt; restCarMockMvc.perform(get("/api/cars"))
+ *     .andExpect(status().isOk()));
+ * </pre>
+ * The persistence context must be cleared first, otherwise the entities saved by the test are found in it and the
+ * statements loading them are not prepared. The statements are counted as for an HTTP request, see
+ * {@link RequestMetrics}.
+ */
+public final class StatementBudget {
+
+    private static final String TEST_ENDPOINT = "test";
+
+    private static final int REPORT_MAX_STATEMENTS = 10;
+
+    private StatementBudget() {
+    }
+
+    /**
+     * A block of test code.
+     */
+    @FunctionalInterface
+    public interface Block {
+
+        void run() throws Exception;
+    }
+
+    /**
+     * Run a block, and check the number of JDBC statements it prepared.
+     *
+     * @param maxStatements the maximum number of statements
+     * @param block the block
+     * @throws Exception whatever the block throws
+     */
+    public static void assertStatementsAtMost(long maxStatements, Block block) throws Exception {
+        RequestMetrics metrics;
+        RequestMetrics.begin(TEST_ENDPOINT);
+        try {
+            block.run();
+        } finally {
+            metrics = RequestMetrics.end();
+        }
+        assertThat(metrics.getStatements())
+            .as(metrics.report(REPORT_MAX_STATEMENTS))
+            .isLessThanOrEqualTo(maxStatements);
+    }
+}
@@ -0,0 +1,116 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.CarService;
+import com.braude.garage.service.SearchOutboxService;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class checking that the entities with a PooledIdGenerator are inserted by JDBC batches.
+ *
+ * @see com.braude.garage.domain.PooledIdGenerator
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class BatchInsertIntTest {
+
+    private static final int ROWS = 1000;
+
+    /**
+     * Should be the same as hibernate.jdbc.batch_size and garage.id.increment_size in the test configuration.
+     */
+    private static final int BATCH_SIZE = 50;
+
+    private final Logger log = LoggerFactory.getLogger(BatchInsertIntTest.class);
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CarServiceRepository carServiceRepository;
+
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @After
+    public void teardown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void assertThatInsertsAreBatched() {
+        List<Car> cars = new ArrayList<>();
+        List<CarService> carServices = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Car car = new Car().licensePlate("BATCH-" + i).make("AAAAAAAAAA").model("AAAAAAAAAA").year(2000);
+            cars.add(car);
+            carServices.add(new CarService().date(LocalDate.ofEpochDay(i)).description("AAAAAAAAAA").totalCost(1D).car(car));
+        }
+
+        long start = System.nanoTime();
+        carRepository.saveAll(cars);
+        carServiceRepository.saveAll(carServices);
+        carRepository.flush();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Inserted {} rows in {} ms, {} statements prepared", 2 * ROWS, elapsedMs,
+            statistics.getPrepareStatementCount());
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2 * ROWS);
+        // With IDENTITY ids, every row would need its own statement: here each batch of inserts
+        // and each block of ids (a read and an update of the id table) costs one statement
+        long batches = 2 * ROWS / BATCH_SIZE;
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(batches + 2 * (batches + 2));
+        assertThat(cars).extracting(Car::getId).doesNotContainNull().doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void assertThatSearchOutboxEventsAreBatched() {
+        List<Long> ids = LongStream.range(0, ROWS).boxed().collect(Collectors.toList());
+
+        searchOutboxService.enqueueAll(Car.class, ids);
+        searchOutboxEventRepository.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        long batches = ROWS / BATCH_SIZE;
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(batches + 2 * (batches + 2));
+    }
+}
@@ -0,0 +1,268 @@
+package com.braude.garage.repository;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.CarService;
+import com.braude.garage.domain.CarServiceSummary;
+import com.braude.garage.domain.Client;
+import com.braude.garage.service.CarQueryService;
+import com.braude.garage.service.CarServiceQueryService;
+import com.braude.garage.service.ClientQueryService;
+import com.braude.garage.service.dto.CarCriteria;
+import com.braude.garage.service.dto.CarDTO;
+import com.braude.garage.service.dto.CarServiceCriteria;
+import com.braude.garage.service.dto.CarServiceDTO;
+import com.braude.garage.service.dto.ClientCriteria;
+import com.braude.garage.service.dto.ClientDTO;
+
+import io.github.jhipster.service.filter.DoubleFilter;
+import io.github.jhipster.service.filter.IntegerFilter;
+import io.github.jhipster.service.filter.LocalDateFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CompiledCriteriaRepository, checking that the compiled queries return what the specifications
+ * return.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class CompiledCriteriaRepositoryIntTest {
+
+    private static final String MAKE = "COMPILED";
+
+    @Autowired
+    private CompiledCriteriaRepository compiledCriteriaRepository;
+
+    @Autowired
+    private CarQueryService carQueryService;
+
+    @Autowired
+    private ClientQueryService clientQueryService;
+
+    @Autowired
+    private CarServiceQueryService carServiceQueryService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private EntityManager em;
+
+    private final List<Car> cars = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        for (int i = 0; i < 6; i++) {
+            Client client = new Client().firstName("First" + i).lastName(i % 2 == 0 ? "Even" : "Odd");
+            em.persist(client);
+            Car car = new Car().licensePlate("CMP-" + i).make(MAKE).model(i < 3 ? "Corolla" : "Yaris").year(2010 + i)
+                .client(i == 5 ? null : client);
+            em.persist(car);
+            cars.add(car);
+            for (int j = 0; j < i % 3; j++) {
+                em.persist(new CarService().date(LocalDate.of(2019, 1, 1).plusDays(i * 10 + j))
+                    .description("Service " + j).totalCost(100D * (j + 1)).car(car));
+            }
+        }
+        em.flush();
+        for (Car car : cars) {
+            List<CarService> carServices = em.createQuery("select s from CarService s where s.car = :car", CarService.class)
+                .setParameter("car", car).getResultList();
+            if (!carServices.isEmpty()) {
+                CarServiceSummary summary = new CarServiceSummary();
+                summary.setCarId(car.getId());
+                summary.setServiceCount((long) carServices.size());
+                summary.setTotalSpend(carServices.stream().mapToDouble(CarService::getTotalCost).sum());
+                summary.setLastServiceDate(carServices.stream().map(CarService::getDate).max(LocalDate::compareTo).get());
+                em.persist(summary);
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @After
+    public void teardown() {
+        applicationProperties.getCriteriaQueries().setCompileEnabled(true);
+    }
+
+    @Test
+    public void assertThatCarQueriesMatchTheSpecifications() {
+        List<CarCriteria> criterias = new ArrayList<>();
+
+        criterias.add(carCriteria());
+
+        CarCriteria criteria = carCriteria();
+        criteria.setModel(stringIn("Yaris", "Civic"));
+        criteria.setLicensePlate(stringContains("cmp"));
+        criterias.add(criteria);
+
+        criteria = carCriteria();
+        IntegerFilter year = new IntegerFilter();
+        year.setGreaterThan(2011);
+        year.setLessOrEqualThan(2014);
+        year.setSpecified(true);
+        criteria.setYear(year);
+        LongFilter id = new LongFilter();
+        id.setGreaterThan(Long.MAX_VALUE);
+        criteria.setId(id);
+        criterias.add(criteria);
+
+        criteria = carCriteria();
+        LongFilter clientId = new LongFilter();
+        clientId.setSpecified(false);
+        criteria.setClientId(clientId);
+        criterias.add(criteria);
+
+        criteria = carCriteria();
+        LongFilter carServiceId = new LongFilter();
+        carServiceId.setSpecified(true);
+        criteria.setCarServiceId(carServiceId);
+        criterias.add(criteria);
+
+        criteria = carCriteria();
+        LongFilter serviceCount = new LongFilter();
+        serviceCount.setGreaterOrEqualThan(1L);
+        criteria.setServiceCount(serviceCount);
+        DoubleFilter totalSpend = new DoubleFilter();
+        totalSpend.setLessThan(250D);
+        criteria.setTotalSpend(totalSpend);
+        LocalDateFilter lastServiceDate = new LocalDateFilter();
+        lastServiceDate.setGreaterThan(LocalDate.of(2019, 1, 1));
+        criteria.setLastServiceDate(lastServiceDate);
+        criterias.add(criteria);
+
+        Pageable page = PageRequest.of(0, 2, Sort.by(Sort.Order.desc("year"), Sort.Order.asc("id")));
+        for (CarCriteria carCriteria : criterias) {
+            assertThat(compiledCriteriaRepository.compile(CarQueryService.CRITERIA_QUERY, carCriteria, page.getSort()))
+                .isPresent();
+            assertSameResults(() -> carQueryService.findByCriteria(carCriteria).stream()
+                .map(CarDTO::getId).sorted().collect(Collectors.toList()));
+            assertSameResults(() -> pageIds(carQueryService.findByCriteria(carCriteria, page), CarDTO::getId));
+            assertSameResults(() -> carQueryService.countByCriteria(carCriteria));
+        }
+    }
+
+    @Test
+    public void assertThatClientAndCarServiceQueriesMatchTheSpecifications() {
+        ClientCriteria clientCriteria = new ClientCriteria();
+        clientCriteria.setLastName(stringContains("eve"));
+        LongFilter carId = new LongFilter();
+        carId.setLessOrEqualThan(cars.get(4).getId());
+        clientCriteria.setCarId(carId);
+        Pageable clientPage = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("firstName").ignoreCase()));
+        assertSameResults(() -> pageIds(clientQueryService.findByCriteria(clientCriteria, clientPage), ClientDTO::getId));
+        assertSameResults(() -> clientQueryService.countByCriteria(clientCriteria));
+
+        CarServiceCriteria carServiceCriteria = new CarServiceCriteria();
+        LocalDateFilter date = new LocalDateFilter();
+        date.setGreaterOrEqualThan(LocalDate.of(2019, 1, 20));
+        carServiceCriteria.setDate(date);
+        LongFilter carIds = new LongFilter();
+        carIds.setIn(cars.stream().map(Car::getId).collect(Collectors.toList()));
+        carServiceCriteria.setCarId(carIds);
+        Pageable carServicePage = PageRequest.of(1, 2, Sort.by("totalCost", "id"));
+        assertSameResults(() -> pageIds(carServiceQueryService.findByCriteria(carServiceCriteria, carServicePage), CarServiceDTO::getId));
+        assertSameResults(() -> carServiceQueryService.findByCriteria(carServiceCriteria).stream()
+            .map(CarServiceDTO::getCarId).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void assertThatValuesShareThePlanOfTheirFilters() {
+        CarCriteria criteria = carCriteria();
+        IntegerFilter year = new IntegerFilter();
+        year.setEquals(2012);
+        criteria.setYear(year);
+        assertThat(carQueryService.findByCriteria(criteria)).hasSize(1);
+        int planCount = compiledCriteriaRepository.getPlanCount();
+
+        year.setEquals(2013);
+        assertThat(carQueryService.findByCriteria(criteria)).hasSize(1);
+        assertThat(compiledCriteriaRepository.getPlanCount()).isEqualTo(planCount);
+
+        year.setEquals(null);
+        year.setGreaterThan(2012);
+        assertThat(carQueryService.findByCriteria(criteria)).hasSize(3);
+        assertThat(compiledCriteriaRepository.getPlanCount()).isEqualTo(planCount + 1);
+    }
+
+    @Test
+    public void assertThatUnsupportedQueriesUseTheSpecifications() {
+        CarCriteria criteria = carCriteria();
+        assertThat(compiledCriteriaRepository.compile(CarQueryService.CRITERIA_QUERY, criteria,
+            Sort.by("serviceSummary.totalSpend"))).isEmpty();
+        criteria.setModel(stringIn());
+        assertThat(compiledCriteriaRepository.compile(CarQueryService.CRITERIA_QUERY, criteria, Sort.unsorted()))
+            .isEmpty();
+
+        Page<CarDTO> page = carQueryService.findByCriteria(carCriteria(),
+            PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "serviceSummary.totalSpend")));
+        assertThat(page.getTotalElements()).isEqualTo(cars.size());
+        assertThat(page.getContent().get(0).getId()).isIn(cars.get(2).getId(), cars.get(5).getId());
+    }
+
+    private void assertSameResults(Supplier<?> query) {
+        Object compiled = query.get();
+        em.clear();
+        applicationProperties.getCriteriaQueries().setCompileEnabled(false);
+        try {
+            assertThat(compiled).isEqualTo(query.get());
+        } finally {
+            applicationProperties.getCriteriaQueries().setCompileEnabled(true);
+            em.clear();
+        }
+    }
+
+    private static <T> List<Object> pageIds(Page<T> page, Function<T, Long> id) {
+        List<Object> result = new ArrayList<>(page.getContent().stream().map(id).collect(Collectors.toList()));
+        result.add(page.getTotalElements());
+        return result;
+    }
+
+    private static CarCriteria carCriteria() {
+        CarCriteria criteria = new CarCriteria();
+        StringFilter make = new StringFilter();
+        make.setEquals(MAKE);
+        criteria.setMake(make);
+        return criteria;
+    }
+
+    private static StringFilter stringIn(String... values) {
+        StringFilter filter = new StringFilter();
+        filter.setIn(values.length == 0 ? Collections.emptyList() : Arrays.asList(values));
+        return filter;
+    }
+
+    private static StringFilter stringContains(String value) {
+        StringFilter filter = new StringFilter();
+        filter.setContains(value);
+        return filter;
+    }
+}
@@ -1,9 +1,12 @@
 package com.braude.garage.repository;
 
 import com.braude.garage.GarageApp;
+import com.braude.garage.config.ApplicationProperties;
 import com.braude.garage.config.Constants;
 import com.braude.garage.config.audit.AuditEventConverter;
 import com.braude.garage.domain.PersistentAuditEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,10 +17,12 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.servlet.http.HttpSession;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +46,9 @@ public class CustomAuditEventRepositoryIntTest {
     @Autowired
     private AuditEventConverter auditEventConverter;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private CustomAuditEventRepository customAuditEventRepository;
 
     private PersistentAuditEvent testUserEvent;
@@ -51,7 +59,11 @@ public class CustomAuditEventRepositoryIntTest {
 
     @Before
     public void setup() {
-        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter);
+        // Written as soon as added, in the transaction of the test
+        AuditEventWriter auditEventWriter = new AuditEventWriter(persistenceAuditEventRepository,
+            new ApplicationProperties(), Runnable::run, transactionManager, new SimpleMeterRegistry());
+        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter,
+            auditEventWriter);
         persistenceAuditEventRepository.deleteAll();
         Instant oneHourAgo = Instant.now().minusSeconds(3600);
 
@@ -162,4 +174,72 @@ public class CustomAuditEventRepositoryIntTest {
         assertThat(persistentAuditEvents).hasSize(0);
     }
 
+    @Test
+    public void addAuditEventsAreWrittenInTheBackground() {
+        List<Runnable> tasks = new ArrayList<>();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAuditEvents().setBatchSize(2);
+        AuditEventWriter auditEventWriter = new AuditEventWriter(persistenceAuditEventRepository, applicationProperties,
+            tasks::add, transactionManager, meterRegistry);
+        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter,
+            auditEventWriter);
+
+        for (int i = 0; i < 5; i++) {
+            customAuditEventRepository.add(new AuditEvent("test-user", "test-type-" + i, new HashMap<>()));
+        }
+        assertThat(persistenceAuditEventRepository.findAll()).isEmpty();
+        assertThat(meterRegistry.get("audit.events.pending").gauge().value()).isEqualTo(5);
+        // One worker for all of them
+        assertThat(tasks).hasSize(1);
+
+        tasks.get(0).run();
+
+        assertThat(persistenceAuditEventRepository.findAll())
+            .extracting(PersistentAuditEvent::getAuditEventType)
+            .containsExactly("test-type-0", "test-type-1", "test-type-2", "test-type-3", "test-type-4");
+        assertThat(meterRegistry.get("audit.events").tag("result", "written").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("audit.events.pending").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void addAuditEventToAFullBufferDropsIt() {
+        List<Runnable> tasks = new ArrayList<>();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAuditEvents().setBufferCapacity(2);
+        applicationProperties.getAuditEvents().setOverflowPolicy(ApplicationProperties.AuditEvents.OverflowPolicy.DROP);
+        AuditEventWriter auditEventWriter = new AuditEventWriter(persistenceAuditEventRepository, applicationProperties,
+            tasks::add, transactionManager, meterRegistry);
+        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter,
+            auditEventWriter);
+
+        for (int i = 0; i < 3; i++) {
+            customAuditEventRepository.add(new AuditEvent("test-user", "test-type-" + i, new HashMap<>()));
+        }
+        assertThat(meterRegistry.get("audit.events").tag("result", "dropped").counter().count()).isEqualTo(1);
+
+        tasks.forEach(Runnable::run);
+
+        assertThat(persistenceAuditEventRepository.findAll())
+            .extracting(PersistentAuditEvent::getAuditEventType)
+            .containsExactly("test-type-0", "test-type-1");
+    }
+
+    @Test
+    public void closeWritesTheBufferedAuditEvents() {
+        List<Runnable> tasks = new ArrayList<>();
+        AuditEventWriter auditEventWriter = new AuditEventWriter(persistenceAuditEventRepository,
+            new ApplicationProperties(), tasks::add, transactionManager, new SimpleMeterRegistry());
+        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter,
+            auditEventWriter);
+        customAuditEventRepository.add(new AuditEvent("test-user", "test-type-0", new HashMap<>()));
+
+        auditEventWriter.close();
+
+        assertThat(persistenceAuditEventRepository.findAll()).hasSize(1);
+        // Written at once, the executor may be shut down
+        customAuditEventRepository.add(new AuditEvent("test-user", "test-type-1", new HashMap<>()));
+        assertThat(persistenceAuditEventRepository.findAll()).hasSize(2);
+    }
 }
@@ -0,0 +1,43 @@
+package com.braude.garage.security.jwt;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the BloomFilter.
+ *
+ * @see BloomFilter
+ */
+public class BloomFilterUnitTest {
+
+    private static final int ENTRIES = 10000;
+
+    @Test
+    public void assertThatAddedValuesAreFound() {
+        BloomFilter bloomFilter = new BloomFilter(ENTRIES, 0.01);
+        for (int i = 0; i < ENTRIES; i++) {
+            bloomFilter.put("jti:" + i);
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            assertThat(bloomFilter.mightContain("jti:" + i)).isTrue();
+        }
+    }
+
+    @Test
+    public void assertThatFalsePositiveRateIsBounded() {
+        BloomFilter bloomFilter = new BloomFilter(ENTRIES, 0.01);
+        for (int i = 0; i < ENTRIES; i++) {
+            bloomFilter.put(UUID.randomUUID().toString());
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            if (bloomFilter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(ENTRIES * 2 / 100);
+    }
+}
@@ -3,11 +3,14 @@ package com.braude.garage.security.jwt;
 import com.braude.garage.security.AuthoritiesConstants;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.*;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -27,12 +30,16 @@ public class TokenProviderTest {
     private final long ONE_MINUTE = 60000;
     private Key key;
     private JHipsterProperties jHipsterProperties;
+    private ConcurrentMapCacheManager cacheManager;
+    private TokenRevocationService tokenRevocationService;
     private TokenProvider tokenProvider;
 
     @Before
     public void setup() {
         jHipsterProperties = Mockito.mock(JHipsterProperties.class);
-        tokenProvider = new TokenProvider(jHipsterProperties);
+        cacheManager = new ConcurrentMapCacheManager();
+        tokenRevocationService = Mockito.mock(TokenRevocationService.class);
+        tokenProvider = new TokenProvider(jHipsterProperties, cacheManager, tokenRevocationService);
         key = Keys.hmacShaKeyFor(Decoders.BASE64
             .decode("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8"));
 
@@ -85,6 +92,63 @@ public class TokenProviderTest {
         assertThat(isTokenValid).isEqualTo(false);
     }
 
+    @Test
+    public void testResolveAuthenticationCachesValidJWT() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication authentication = tokenProvider.resolveAuthentication(token);
+
+        assertThat(authentication.getName()).isEqualTo("anonymous");
+        assertThat(authentication.getCredentials()).isEqualTo(token);
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ANONYMOUS);
+        assertThat(tokenProvider.resolveAuthentication(token)).isSameAs(authentication);
+    }
+
+    @Test
+    public void testResolveAuthenticationVerifiesExpiredCachedJWT() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        Authentication authentication = tokenProvider.resolveAuthentication(token);
+        ConcurrentMapCache cache = (ConcurrentMapCache) cacheManager.getCache(TokenProvider.VERIFIED_TOKENS_CACHE);
+        cache.getNativeCache().replaceAll((digest, verifiedToken) ->
+            new TokenProvider.VerifiedToken(authentication, null, null, Instant.now().minusSeconds(1)));
+
+        Authentication verifiedAgain = tokenProvider.resolveAuthentication(token);
+
+        assertThat(verifiedAgain).isNotSameAs(authentication);
+        assertThat(verifiedAgain.getName()).isEqualTo("anonymous");
+    }
+
+    @Test
+    public void testResolveAuthenticationReturnsNullWhenJWTisNotValid() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String expiredToken = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.resolveAuthentication(expiredToken)).isNull();
+        assertThat(tokenProvider.resolveAuthentication(createTokenWithDifferentSignature())).isNull();
+        assertThat(((ConcurrentMapCache) cacheManager.getCache(TokenProvider.VERIFIED_TOKENS_CACHE)).getNativeCache()).isEmpty();
+    }
+
+    @Test
+    public void testReturnFalseWhenJWTisRevoked() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.resolveAuthentication(token)).isNotNull();
+        Mockito.when(tokenRevocationService.isRevoked(Mockito.anyString(), Mockito.eq("anonymous"), Mockito.any()))
+            .thenReturn(true);
+
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+        assertThat(tokenProvider.resolveAuthentication(token)).isNull();
+    }
+
+    @Test
+    public void testRevokeToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        tokenProvider.revokeToken(token);
+
+        Mockito.verify(tokenRevocationService).revokeToken(Mockito.anyString(), Mockito.any());
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
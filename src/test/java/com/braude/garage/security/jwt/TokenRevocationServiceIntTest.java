@@ -0,0 +1,110 @@
+package com.braude.garage.security.jwt;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.domain.RevokedToken;
+import com.braude.garage.repository.RevokedTokenRepository;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TokenRevocationService.
+ * <p>
+ * Revocations are registered in memory once committed, which the tests never are: {@link TokenRevocationService#poll()}
+ * reads them from the database within the transaction of the test instead, as it would for another instance.
+ *
+ * @see TokenRevocationService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class TokenRevocationServiceIntTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Test
+    public void assertThatRevokedTokenIsRevoked() {
+        String tokenId = UUID.randomUUID().toString();
+        String otherTokenId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+
+        tokenRevocationService.revokeToken(tokenId, now.plus(1, ChronoUnit.HOURS));
+        tokenRevocationService.poll();
+
+        assertThat(tokenRevocationService.isRevoked(tokenId, "user", now)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(otherTokenId, "user", now)).isFalse();
+    }
+
+    @Test
+    public void assertThatTokensIssuedBeforeLoginRevocationAreRevoked() {
+        String login = "revoked-" + UUID.randomUUID();
+        Instant now = Instant.now();
+
+        tokenRevocationService.revokeTokens(login);
+        tokenRevocationService.poll();
+
+        assertThat(tokenRevocationService.isRevoked(UUID.randomUUID().toString(), login, now.minus(1, ChronoUnit.HOURS))).isTrue();
+        assertThat(tokenRevocationService.isRevoked(UUID.randomUUID().toString(), login, null)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(UUID.randomUUID().toString(), login, now.plusSeconds(5))).isFalse();
+        // The issue date of a token is truncated to the second, that of a token issued right after the revocation too
+        assertThat(tokenRevocationService.isRevoked(UUID.randomUUID().toString(), login,
+            Instant.now().truncatedTo(ChronoUnit.SECONDS))).isFalse();
+        assertThat(tokenRevocationService.isRevoked(UUID.randomUUID().toString(), "user", now.minus(1, ChronoUnit.HOURS))).isFalse();
+    }
+
+    @Test
+    public void assertThatRevocationsOfOtherInstancesArePolled() {
+        String tokenId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        tokenRevocationService.poll();
+        assertThat(tokenRevocationService.isRevoked(tokenId, "user", now)).isFalse();
+
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setTokenId(tokenId);
+        revokedToken.setRevocationDate(now);
+        revokedToken.setExpirationDate(now.plus(1, ChronoUnit.HOURS));
+        revokedTokenRepository.saveAndFlush(revokedToken);
+        tokenRevocationService.poll();
+
+        assertThat(tokenRevocationService.isRevoked(tokenId, "user", now)).isTrue();
+    }
+
+    @Test
+    public void assertThatRepositoryChecksRevocations() {
+        String tokenId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setTokenId(tokenId);
+        revokedToken.setRevocationDate(now);
+        revokedToken.setExpirationDate(now.plus(1, ChronoUnit.HOURS));
+        revokedTokenRepository.saveAndFlush(revokedToken);
+        RevokedToken revokedLogin = new RevokedToken();
+        revokedLogin.setLogin("revoked-login");
+        revokedLogin.setIssuedBefore(now);
+        revokedLogin.setRevocationDate(now);
+        revokedLogin.setExpirationDate(now.plus(1, ChronoUnit.HOURS));
+        revokedTokenRepository.saveAndFlush(revokedLogin);
+
+        assertThat(revokedTokenRepository.isRevoked(tokenId, "user", now, now)).isTrue();
+        assertThat(revokedTokenRepository.isRevoked("other", "user", now, now)).isFalse();
+        assertThat(revokedTokenRepository.isRevoked("other", "revoked-login", now.minusSeconds(1), now)).isTrue();
+        assertThat(revokedTokenRepository.isRevoked("other", "revoked-login", now, now)).isFalse();
+        assertThat(revokedTokenRepository.isRevoked("other", "revoked-login", null, now)).isTrue();
+        assertThat(revokedTokenRepository.isRevoked("other", "revoked-login", now.plusSeconds(1), now)).isFalse();
+        assertThat(revokedTokenRepository.isRevoked(tokenId, "user", now, now.plus(2, ChronoUnit.HOURS))).isFalse();
+    }
+}
@@ -0,0 +1,104 @@
+package com.braude.garage.service;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.PersistentAuditEvent;
+import com.braude.garage.repository.PersistenceAuditEventRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the AuditEventRetentionService class.
+ *
+ * @see AuditEventRetentionService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class AuditEventRetentionServiceIntTest {
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ApplicationProperties applicationProperties;
+
+    private AuditEventRetentionService auditEventRetentionService;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        // Smaller than the number of expired events, to go through several chunks
+        applicationProperties.getAuditEvents().setPurgeChunkSize(2);
+        auditEventRetentionService = new AuditEventRetentionService(persistenceAuditEventRepository,
+            applicationProperties, transactionManager);
+        persistenceAuditEventRepository.deleteAll();
+    }
+
+    @Test
+    public void purgeDeletesTheExpiredEventsByChunks() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 5; i++) {
+            persistenceAuditEventRepository.save(event("old-user", now.minus(400 + i, ChronoUnit.DAYS)));
+        }
+        persistenceAuditEventRepository.save(event("recent-user", now.minus(1, ChronoUnit.DAYS)));
+        persistenceAuditEventRepository.flush();
+
+        long purged = auditEventRetentionService.purge(now.minus(365, ChronoUnit.DAYS));
+
+        assertThat(purged).isEqualTo(5);
+        List<PersistentAuditEvent> events = persistenceAuditEventRepository.findAll();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getPrincipal()).isEqualTo("recent-user");
+        assertThat(events.get(0).getData()).containsEntry("test-key", "test-value");
+    }
+
+    @Test
+    public void purgeExpiredEventsIsDisabledWithoutRetention() {
+        persistenceAuditEventRepository.saveAndFlush(event("old-user", Instant.now().minus(400, ChronoUnit.DAYS)));
+        applicationProperties.getAuditEvents().setRetentionDays(0);
+
+        auditEventRetentionService.purgeExpiredEvents();
+
+        assertThat(persistenceAuditEventRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void purgeExpiredEventsKeepsTheRetentionDays() {
+        Instant now = Instant.now();
+        persistenceAuditEventRepository.save(event("old-user", now.minus(31, ChronoUnit.DAYS)));
+        persistenceAuditEventRepository.save(event("recent-user", now.minus(29, ChronoUnit.DAYS)));
+        persistenceAuditEventRepository.flush();
+        applicationProperties.getAuditEvents().setRetentionDays(30);
+
+        auditEventRetentionService.purgeExpiredEvents();
+
+        assertThat(persistenceAuditEventRepository.findAll())
+            .extracting(PersistentAuditEvent::getPrincipal)
+            .containsExactly("recent-user");
+    }
+
+    private static PersistentAuditEvent event(String principal, Instant date) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal(principal);
+        event.setAuditEventType("test-type");
+        event.setAuditEventDate(date);
+        event.setData(Collections.singletonMap("test-key", "test-value"));
+        return event;
+    }
+}
@@ -0,0 +1,166 @@
+package com.braude.garage.service;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.domain.Car;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.service.dto.CarDTO;
+import com.braude.garage.service.dto.CarServiceDTO;
+import com.braude.garage.service.dto.Granularity;
+import com.braude.garage.service.dto.RevenueBucketDTO;
+import com.braude.garage.service.mapper.CarMapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CarServiceAnalyticsService, through the changes of the CarServiceService and the CarService.
+ *
+ * @see CarServiceAnalyticsService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class CarServiceAnalyticsServiceIntTest {
+
+    private static final String MAKE = "ANALYTICS";
+    private static final String OTHER_MAKE = "ANALYTICS2";
+
+    private static final LocalDate MONDAY = LocalDate.of(2019, 3, 4);
+    private static final LocalDate SUNDAY = LocalDate.of(2019, 3, 10);
+    private static final LocalDate NEXT_MONDAY = LocalDate.of(2019, 3, 11);
+    private static final LocalDate NEXT_MONTH = LocalDate.of(2019, 4, 2);
+
+    @Autowired
+    private CarServiceAnalyticsService carServiceAnalyticsService;
+
+    @Autowired
+    private CarServiceService carServiceService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CarMapper carMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private Car car;
+
+    private Car otherCar;
+
+    @Before
+    public void initTest() {
+        car = carRepository.saveAndFlush(new Car().licensePlate("ROLLUP1").make(MAKE).model("A").year(2010));
+        otherCar = carRepository.saveAndFlush(new Car().licensePlate("ROLLUP2").make(MAKE).model("B").year(2015));
+    }
+
+    @Test
+    public void assertThatServicesAreRolledUp() {
+        CarServiceDTO first = carServiceService.save(service(null, car, 100d, MONDAY));
+        carServiceService.save(service(null, otherCar, 50d, MONDAY));
+        carServiceService.save(service(null, car, null, SUNDAY));
+        carServiceService.save(service(null, car, 999d, null));
+
+        assertThat(revenue(Granularity.DAY, null, null)).containsExactly(
+            new RevenueBucketDTO(MONDAY, 2L, 150d),
+            new RevenueBucketDTO(SUNDAY, 1L, 0d));
+        assertThat(revenue(Granularity.DAY, "B", null)).containsExactly(new RevenueBucketDTO(MONDAY, 1L, 50d));
+        assertThat(revenue(Granularity.DAY, null, 2010)).containsExactly(
+            new RevenueBucketDTO(MONDAY, 1L, 100d),
+            new RevenueBucketDTO(SUNDAY, 1L, 0d));
+
+        carServiceService.save(service(first.getId(), car, 120d, NEXT_MONDAY));
+        assertThat(revenue(Granularity.DAY, "A", null)).containsExactly(
+            new RevenueBucketDTO(SUNDAY, 1L, 0d),
+            new RevenueBucketDTO(NEXT_MONDAY, 1L, 120d));
+
+        carServiceService.delete(first.getId());
+        assertThat(revenue(Granularity.DAY, "A", null)).containsExactly(new RevenueBucketDTO(SUNDAY, 1L, 0d));
+    }
+
+    @Test
+    public void assertThatBatchesAreRolledUp() {
+        carServiceService.createAll(Arrays.asList(
+            service(null, car, 100d, MONDAY),
+            service(null, car, 20d, MONDAY),
+            service(null, otherCar, 5d, SUNDAY)));
+
+        assertThat(revenue(Granularity.DAY, null, null)).containsExactly(
+            new RevenueBucketDTO(MONDAY, 2L, 120d),
+            new RevenueBucketDTO(SUNDAY, 1L, 5d));
+    }
+
+    @Test
+    public void assertThatPeriodsAreMerged() {
+        carServiceService.save(service(null, car, 1d, MONDAY));
+        carServiceService.save(service(null, car, 2d, SUNDAY));
+        carServiceService.save(service(null, car, 4d, NEXT_MONDAY));
+        carServiceService.save(service(null, car, 8d, NEXT_MONTH));
+
+        assertThat(revenue(Granularity.WEEK, null, null)).containsExactly(
+            new RevenueBucketDTO(MONDAY, 2L, 3d),
+            new RevenueBucketDTO(NEXT_MONDAY, 1L, 4d),
+            new RevenueBucketDTO(LocalDate.of(2019, 4, 1), 1L, 8d));
+        assertThat(revenue(Granularity.MONTH, null, null)).containsExactly(
+            new RevenueBucketDTO(LocalDate.of(2019, 3, 1), 3L, 7d),
+            new RevenueBucketDTO(LocalDate.of(2019, 4, 1), 1L, 8d));
+        assertThat(carServiceAnalyticsService.getRevenue(Granularity.MONTH, SUNDAY, NEXT_MONDAY, MAKE, null, null))
+            .containsExactly(new RevenueBucketDTO(LocalDate.of(2019, 3, 1), 2L, 6d));
+    }
+
+    @Test
+    public void assertThatCarChangesMoveTheirServices() {
+        carServiceService.save(service(null, car, 100d, MONDAY));
+        carServiceService.save(service(null, car, 10d, SUNDAY));
+        em.flush();
+        em.clear();
+
+        CarDTO carDTO = carMapper.toDto(carRepository.findById(car.getId()).get());
+        carDTO.setModel("B");
+        carService.save(carDTO);
+
+        assertThat(revenue(Granularity.DAY, "A", null)).isEmpty();
+        assertThat(revenue(Granularity.DAY, "B", 2010)).containsExactly(
+            new RevenueBucketDTO(MONDAY, 1L, 100d),
+            new RevenueBucketDTO(SUNDAY, 1L, 10d));
+
+        carDTO.setMake(OTHER_MAKE);
+        carService.updateAll(Collections.singletonList(carDTO));
+
+        assertThat(revenue(Granularity.DAY, null, null)).isEmpty();
+        assertThat(carServiceAnalyticsService.getRevenue(Granularity.MONTH, MONDAY, SUNDAY, OTHER_MAKE, "B", 2010))
+            .containsExactly(new RevenueBucketDTO(LocalDate.of(2019, 3, 1), 2L, 110d));
+    }
+
+    private List<RevenueBucketDTO> revenue(Granularity granularity, String model, Integer year) {
+        em.flush();
+        return carServiceAnalyticsService.getRevenue(granularity, MONDAY.withDayOfMonth(1), NEXT_MONTH, MAKE, model, year);
+    }
+
+    private static CarServiceDTO service(Long id, Car car, Double totalCost, LocalDate date) {
+        CarServiceDTO carServiceDTO = new CarServiceDTO();
+        carServiceDTO.setId(id);
+        carServiceDTO.setCarId(car.getId());
+        carServiceDTO.setTotalCost(totalCost);
+        carServiceDTO.setDate(date);
+        carServiceDTO.setDescription("Service");
+        return carServiceDTO;
+    }
+}
@@ -0,0 +1,115 @@
+package com.braude.garage.service;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.CarService;
+import com.braude.garage.domain.CarServiceRollup;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.CarServiceRepository;
+import com.braude.garage.repository.CarServiceRollupRepository;
+import com.braude.garage.service.dto.Granularity;
+import com.braude.garage.service.dto.RevenueBucketDTO;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the CarServiceRollupBackfillService. Not transactional: the chunks are rolled up by other threads,
+ * which only see committed services.
+ *
+ * @see CarServiceRollupBackfillService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+public class CarServiceRollupBackfillServiceIntTest {
+
+    private static final String MAKE = "BACKFILL";
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2018, 1, 1);
+
+    @Autowired
+    private CarServiceRollupBackfillService carServiceRollupBackfillService;
+
+    @Autowired
+    private CarServiceAnalyticsService carServiceAnalyticsService;
+
+    @Autowired
+    private CarServiceRollupRepository carServiceRollupRepository;
+
+    @Autowired
+    private CarServiceRepository carServiceRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<CarService> services = new ArrayList<>();
+
+    private Car car;
+
+    @After
+    public void cleanUp() {
+        applicationProperties.getAnalytics().setBackfillChunkDays(31);
+        carServiceRepository.deleteAll(services);
+        if (car != null) {
+            carRepository.delete(car);
+        }
+        carServiceRollupBackfillService.backfill();
+    }
+
+    @Test
+    public void assertThatRollupsAreRebuiltFromTheServices() {
+        car = carRepository.save(new Car().licensePlate("BACKFILL").make(MAKE).model("A").year(2000));
+        for (int day = 0; day < 60; day++) {
+            services.add(carServiceRepository.save(new CarService().car(car).date(FIRST_DATE.plusDays(day)).totalCost(10d)));
+        }
+        services.add(carServiceRepository.save(new CarService().car(car).date(FIRST_DATE).totalCost(null)));
+        CarServiceRollup stale = new CarServiceRollup();
+        stale.setBucketDate(FIRST_DATE.minusYears(100));
+        stale.setMake(MAKE);
+        stale.setServiceCount(1L);
+        stale.setRevenue(1d);
+        carServiceRollupRepository.save(stale);
+        applicationProperties.getAnalytics().setBackfillChunkDays(7);
+
+        assertThat(carServiceRollupBackfillService.backfill()).isGreaterThanOrEqualTo(60);
+
+        assertThat(carServiceAnalyticsService.getRevenue(Granularity.MONTH, FIRST_DATE.minusYears(100),
+            FIRST_DATE.plusYears(1), MAKE, "A", 2000)).containsExactly(
+            new RevenueBucketDTO(LocalDate.of(2018, 1, 1), 32L, 310d),
+            new RevenueBucketDTO(LocalDate.of(2018, 2, 1), 28L, 280d),
+            new RevenueBucketDTO(LocalDate.of(2018, 3, 1), 1L, 10d));
+        assertThat(carServiceRollupRepository.findById(stale.getId())).isEmpty();
+    }
+
+    @Test
+    public void assertThatARejectedRebuildCanBeAskedAgain() {
+        CarServiceRollupBackfillService rejectingService = new CarServiceRollupBackfillService(
+            carServiceRollupRepository, carServiceRepository, applicationProperties, command -> {
+                throw new RejectedExecutionException("Full");
+            }, transactionManager);
+
+        assertThatThrownBy(rejectingService::backfillAsync).isInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(rejectingService::backfillAsync).isInstanceOf(RejectedExecutionException.class);
+        assertThat(rejectingService.backfill()).isGreaterThanOrEqualTo(0);
+    }
+}
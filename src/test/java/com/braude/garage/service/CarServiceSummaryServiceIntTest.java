@@ -0,0 +1,217 @@
+package com.braude.garage.service;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.CarServiceSummary;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.CarServiceRepository;
+import com.braude.garage.repository.CarServiceSummaryRepository;
+import com.braude.garage.repository.SearchOutboxEventRepository;
+import com.braude.garage.service.dto.BatchItemResultDTO;
+import com.braude.garage.service.dto.CarServiceDTO;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CarServiceSummaryService, through the changes of the CarServiceService.
+ *
+ * @see CarServiceSummaryService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class CarServiceSummaryServiceIntTest {
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2019, 1, 10);
+    private static final LocalDate SECOND_DATE = LocalDate.of(2019, 2, 20);
+
+    @Autowired
+    private CarServiceService carServiceService;
+
+    @Autowired
+    private CarServiceSummaryRepository carServiceSummaryRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CarServiceRepository carServiceRepository;
+
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager em;
+
+    private Car car;
+
+    private Car otherCar;
+
+    @Before
+    public void initTest() {
+        car = carRepository.saveAndFlush(new Car().licensePlate("SUMMARY1"));
+        otherCar = carRepository.saveAndFlush(new Car().licensePlate("SUMMARY2"));
+    }
+
+    @Test
+    public void assertThatSavedServicesAreSummarized() {
+        carServiceService.save(service(null, car, 100d, FIRST_DATE));
+        carServiceService.save(service(null, car, 50.5, SECOND_DATE));
+        carServiceService.save(service(null, car, null, null));
+
+        assertSummary(car, 3, 150.5, SECOND_DATE);
+        assertThat(carServiceSummaryRepository.findById(otherCar.getId())).isEmpty();
+    }
+
+    @Test
+    public void assertThatUpdatedServicesAreSummarized() {
+        CarServiceDTO first = carServiceService.save(service(null, car, 100d, FIRST_DATE));
+        CarServiceDTO second = carServiceService.save(service(null, car, 50d, SECOND_DATE));
+
+        carServiceService.save(service(second.getId(), car, 70d, SECOND_DATE));
+        assertSummary(car, 2, 170, SECOND_DATE);
+
+        // Moving the last service to another car takes its date back to the previous service
+        carServiceService.save(service(second.getId(), otherCar, 70d, SECOND_DATE));
+        assertSummary(car, 1, 100, FIRST_DATE);
+        assertSummary(otherCar, 1, 70, SECOND_DATE);
+
+        carServiceService.save(service(first.getId(), otherCar, 100d, FIRST_DATE));
+        assertThat(carServiceSummaryRepository.findById(car.getId())).isEmpty();
+        assertSummary(otherCar, 2, 170, SECOND_DATE);
+    }
+
+    @Test
+    public void assertThatDeletedServicesAreSummarized() {
+        CarServiceDTO first = carServiceService.save(service(null, car, 100d, FIRST_DATE));
+        CarServiceDTO second = carServiceService.save(service(null, car, 50d, SECOND_DATE));
+
+        carServiceService.delete(second.getId());
+        assertSummary(car, 1, 100, FIRST_DATE);
+
+        carServiceService.delete(first.getId());
+        assertThat(carServiceSummaryRepository.findById(car.getId())).isEmpty();
+    }
+
+    @Test
+    public void assertThatBatchesAreSummarized() {
+        List<Long> ids = carServiceService.createAll(Arrays.asList(
+            service(null, car, 100d, FIRST_DATE),
+            service(null, car, 50d, SECOND_DATE),
+            service(null, otherCar, 10d, FIRST_DATE),
+            service(null, car, -1d, null)))
+            .stream()
+            .map(BatchItemResultDTO::getId)
+            .collect(Collectors.toList());
+        assertSummary(car, 3, 149, SECOND_DATE);
+        assertSummary(otherCar, 1, 10, FIRST_DATE);
+
+        carServiceService.updateAll(Arrays.asList(
+            service(ids.get(1), otherCar, 50d, SECOND_DATE),
+            service(ids.get(2), otherCar, 20d, FIRST_DATE),
+            service(Long.MAX_VALUE, car, 1000d, FIRST_DATE)));
+        assertSummary(car, 2, 99, FIRST_DATE);
+        assertSummary(otherCar, 2, 70, SECOND_DATE);
+
+        carServiceService.deleteAll(Arrays.asList(ids.get(0), ids.get(1), Long.MAX_VALUE));
+        assertSummary(car, 1, -1, null);
+        assertSummary(otherCar, 1, 20, FIRST_DATE);
+    }
+
+    @Test
+    public void assertThatDescriptionChangesKeepTheSummary() {
+        CarServiceDTO first = carServiceService.save(service(null, car, 100d, FIRST_DATE));
+        em.flush();
+        em.clear();
+
+        CarServiceDTO renamed = service(first.getId(), car, 100d, FIRST_DATE);
+        renamed.setDescription("Renamed");
+        carServiceService.save(renamed);
+
+        assertSummary(car, 1, 100, FIRST_DATE);
+        assertThat(carServiceService.findOne(first.getId()).map(CarServiceDTO::getDescription)).contains("Renamed");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void assertThatConcurrentUpdatesAreSummarizedOneAfterTheOther() throws Exception {
+        // Committed, for two transactions to update it
+        CarServiceDTO first = carServiceService.save(service(null, car, 100d, null));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CarServiceDTO> concurrentUpdate = transactionTemplate.execute(status -> {
+                carServiceService.save(service(first.getId(), car, 120d, null));
+                Future<CarServiceDTO> update = executor.submit(() ->
+                    carServiceService.save(service(first.getId(), car, 70d, null)));
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // Waiting for the first transaction, which holds the row of the service
+                assertThat(update).isNotDone();
+                return update;
+            });
+            concurrentUpdate.get(10, TimeUnit.SECONDS);
+
+            // The second update replaced the cost of the first one, rather than the cost both could have read
+            CarServiceSummary summary = carServiceSummaryRepository.findById(car.getId()).orElse(null);
+            assertThat(summary).isNotNull();
+            assertThat(summary.getServiceCount()).isEqualTo(1);
+            assertThat(summary.getTotalSpend()).isEqualTo(70);
+        } finally {
+            executor.shutdownNow();
+            transactionTemplate.execute(status -> {
+                carServiceRepository.deleteById(first.getId());
+                carServiceSummaryRepository.deleteById(car.getId());
+                searchOutboxEventRepository.deleteAll();
+                carRepository.deleteAll(Arrays.asList(car, otherCar));
+                return null;
+            });
+        }
+    }
+
+    private void assertSummary(Car car, long serviceCount, double totalSpend, LocalDate lastServiceDate) {
+        em.flush();
+        CarServiceSummary summary = carServiceSummaryRepository.findById(car.getId()).orElse(null);
+        assertThat(summary).isNotNull();
+        assertThat(summary.getServiceCount()).isEqualTo(serviceCount);
+        assertThat(summary.getTotalSpend()).isEqualTo(totalSpend);
+        assertThat(summary.getLastServiceDate()).isEqualTo(lastServiceDate);
+    }
+
+    private static CarServiceDTO service(Long id, Car car, Double totalCost, LocalDate date) {
+        CarServiceDTO carServiceDTO = new CarServiceDTO();
+        carServiceDTO.setId(id);
+        carServiceDTO.setCarId(car.getId());
+        carServiceDTO.setTotalCost(totalCost);
+        carServiceDTO.setDate(date);
+        carServiceDTO.setDescription("Service");
+        return carServiceDTO;
+    }
+}
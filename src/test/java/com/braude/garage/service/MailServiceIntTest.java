@@ -2,35 +2,45 @@ package com.braude.garage.service;
 import com.braude.garage.config.Constants;
 
 import com.braude.garage.GarageApp;
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.MailOutboxMessage;
 import com.braude.garage.domain.User;
+import com.braude.garage.repository.MailOutboxMessageRepository;
 import io.github.jhipster.config.JHipsterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
-import org.mockito.MockitoAnnotations;
-import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.MessageSource;
-import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 
 import javax.mail.Multipart;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
-import java.io.ByteArrayOutputStream;
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.*;
 
+/**
+ * Test class for the MailService and the MailOutboxSender, sending to an in-process SMTP server.
+ *
+ * @see MailService
+ * @see MailOutboxSender
+ */
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = GarageApp.class)
+@Transactional
 public class MailServiceIntTest {
 
     @Autowired
@@ -42,26 +52,47 @@ public class MailServiceIntTest {
     @Autowired
     private SpringTemplateEngine templateEngine;
 
-    @Spy
-    private JavaMailSenderImpl javaMailSender;
+    @Autowired
+    private MailOutboxMessageRepository mailOutboxMessageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager em;
+
+    private SmtpServerStub smtpServer;
+
+    private ApplicationProperties applicationProperties;
 
-    @Captor
-    private ArgumentCaptor<MimeMessage> messageCaptor;
+    private MailOutboxSender mailOutboxSender;
 
     private MailService mailService;
 
     @Before
-    public void setup() {
-        MockitoAnnotations.initMocks(this);
-        doNothing().when(javaMailSender).send(any(MimeMessage.class));
-        mailService = new MailService(jHipsterProperties, javaMailSender, messageSource, templateEngine);
+    public void setup() throws Exception {
+        smtpServer = new SmtpServerStub();
+        JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost("localhost");
+        javaMailSender.setPort(smtpServer.getPort());
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getMail().setBatchSize(3);
+        applicationProperties.getMail().setMaxAttempts(2);
+        mailOutboxSender = new MailOutboxSender(mailOutboxMessageRepository, javaMailSender, jHipsterProperties,
+            applicationProperties, Runnable::run, transactionManager, new SimpleMeterRegistry());
+        mailService = new MailService(jHipsterProperties, messageSource, templateEngine, mailOutboxMessageRepository,
+            mailOutboxSender);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        smtpServer.close();
     }
 
     @Test
     public void testSendEmail() throws Exception {
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueued();
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0].toString()).isEqualTo("john.doe@example.com");
         assertThat(message.getFrom()[0].toString()).isEqualTo("test@localhost");
@@ -73,8 +104,7 @@ public class MailServiceIntTest {
     @Test
     public void testSendHtmlEmail() throws Exception {
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueued();
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0].toString()).isEqualTo("john.doe@example.com");
         assertThat(message.getFrom()[0].toString()).isEqualTo("test@localhost");
@@ -86,34 +116,28 @@ public class MailServiceIntTest {
     @Test
     public void testSendMultipartEmail() throws Exception {
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueued();
         MimeMultipart mp = (MimeMultipart) message.getContent();
         MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
-        ByteArrayOutputStream aos = new ByteArrayOutputStream();
-        part.writeTo(aos);
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0].toString()).isEqualTo("john.doe@example.com");
         assertThat(message.getFrom()[0].toString()).isEqualTo("test@localhost");
         assertThat(message.getContent()).isInstanceOf(Multipart.class);
-        assertThat(aos.toString()).isEqualTo("\r\ntestContent");
+        assertThat(part.getContent()).isEqualTo("testContent");
         assertThat(part.getDataHandler().getContentType()).isEqualTo("text/plain; charset=UTF-8");
     }
 
     @Test
     public void testSendMultipartHtmlEmail() throws Exception {
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueued();
         MimeMultipart mp = (MimeMultipart) message.getContent();
         MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
-        ByteArrayOutputStream aos = new ByteArrayOutputStream();
-        part.writeTo(aos);
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0].toString()).isEqualTo("john.doe@example.com");
         assertThat(message.getFrom()[0].toString()).isEqualTo("test@localhost");
         assertThat(message.getContent()).isInstanceOf(Multipart.class);
-        assertThat(aos.toString()).isEqualTo("\r\ntestContent");
+        assertThat(part.getContent()).isEqualTo("testContent");
         assertThat(part.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
     }
 
@@ -124,12 +148,11 @@ public class MailServiceIntTest {
         user.setEmail("john.doe@example.com");
         user.setLangKey("en");
         mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueued();
         assertThat(message.getSubject()).isEqualTo("test title");
         assertThat(message.getAllRecipients()[0].toString()).isEqualTo(user.getEmail());
         assertThat(message.getFrom()[0].toString()).isEqualTo("test@localhost");
-        assertThat(message.getContent().toString()).isEqualToNormalizingNewlines("<html>test title, http://127.0.0.1:8080, john</html>\n");
+        assertThat(message.getContent().toString()).isEqualTo("<html>test title, http://127.0.0.1:8080, john</html>");
         assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
     }
 
@@ -140,8 +163,7 @@ public class MailServiceIntTest {
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         mailService.sendActivationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueued();
         assertThat(message.getAllRecipients()[0].toString()).isEqualTo(user.getEmail());
         assertThat(message.getFrom()[0].toString()).isEqualTo("test@localhost");
         assertThat(message.getContent().toString()).isNotEmpty();
@@ -155,8 +177,7 @@ public class MailServiceIntTest {
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         mailService.sendCreationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueued();
         assertThat(message.getAllRecipients()[0].toString()).isEqualTo(user.getEmail());
         assertThat(message.getFrom()[0].toString()).isEqualTo("test@localhost");
         assertThat(message.getContent().toString()).isNotEmpty();
@@ -170,8 +191,7 @@ public class MailServiceIntTest {
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         mailService.sendPasswordResetMail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueued();
         assertThat(message.getAllRecipients()[0].toString()).isEqualTo(user.getEmail());
         assertThat(message.getFrom()[0].toString()).isEqualTo("test@localhost");
         assertThat(message.getContent().toString()).isNotEmpty();
@@ -179,9 +199,74 @@ public class MailServiceIntTest {
     }
 
     @Test
-    public void testSendEmailWithException() throws Exception {
-        doThrow(MailSendException.class).when(javaMailSender).send(any(MimeMessage.class));
+    public void assertThatABatchIsSentOverOneConnection() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            mailService.sendEmail("user" + i + "@example.com", "testSubject", "testContent", false, false);
+        }
+
+        assertThat(mailOutboxSender.sendBatch()).isTrue();
+        assertThat(smtpServer.getConnections()).isEqualTo(1);
+        assertThat(smtpServer.getMessages()).hasSize(3);
+        assertThat(mailOutboxSender.sendBatch()).isFalse();
+        assertThat(smtpServer.getConnections()).isEqualTo(2);
+        assertThat(recipients(smtpServer.getMessages()))
+            .containsExactly("user0@example.com", "user1@example.com", "user2@example.com", "user3@example.com");
+        assertThat(mailOutboxMessageRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void assertThatRejectedEmailsAreRescheduled() throws Exception {
+        smtpServer.reject("rejected@example.com");
+        mailService.sendEmail("rejected@example.com", "testSubject", "testContent", false, false);
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+
+        assertThat(mailOutboxSender.sendBatch()).isFalse();
+
+        assertThat(recipients(smtpServer.getMessages())).containsExactly("john.doe@example.com");
+        em.flush();
+        em.clear();
+        List<MailOutboxMessage> queued = mailOutboxMessageRepository.findAll();
+        assertThat(queued).hasSize(1);
+        assertThat(queued.get(0).getRecipient()).isEqualTo("rejected@example.com");
+        assertThat(queued.get(0).getAttempts()).isEqualTo(1);
+        assertThat(queued.get(0).getNextAttemptDate()).isAfter(Instant.now());
+        assertThat(queued.get(0).getLastError()).isNotEmpty();
+
+        // Not due yet, so the next run does not retry it
+        assertThat(mailOutboxSender.sendBatch()).isFalse();
+        assertThat(smtpServer.getConnections()).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatEmailsAreDroppedAfterTheMaxAttempts() throws Exception {
+        smtpServer.close();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+
+        assertThat(mailOutboxSender.sendBatch()).isFalse();
+        em.flush();
+        em.clear();
+        MailOutboxMessage queued = mailOutboxMessageRepository.findAll().get(0);
+        assertThat(queued.getAttempts()).isEqualTo(1);
+
+        queued.setNextAttemptDate(Instant.now());
+        mailOutboxMessageRepository.saveAndFlush(queued);
+        em.clear();
+        assertThat(mailOutboxSender.sendBatch()).isFalse();
+        assertThat(mailOutboxMessageRepository.findAll()).isEmpty();
     }
 
+    private MimeMessage sendQueued() {
+        assertThat(smtpServer.getMessages()).isEmpty();
+        mailOutboxSender.sendBatch();
+        assertThat(smtpServer.getMessages()).hasSize(1);
+        return smtpServer.getMessages().get(0);
+    }
+
+    private static List<String> recipients(List<MimeMessage> messages) throws Exception {
+        List<String> recipients = new ArrayList<>();
+        for (MimeMessage message : messages) {
+            recipients.add(message.getAllRecipients()[0].toString());
+        }
+        return recipients;
+    }
 }
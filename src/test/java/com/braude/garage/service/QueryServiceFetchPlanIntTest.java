@@ -0,0 +1,143 @@
+package com.braude.garage.service;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.CarService;
+import com.braude.garage.domain.Client;
+import com.braude.garage.service.dto.CarCriteria;
+import com.braude.garage.service.dto.CarServiceCriteria;
+import com.braude.garage.service.dto.ClientCriteria;
+import com.braude.garage.service.dto.CountMode;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class checking that the query services read a page of entities, with their associations, in a constant
+ * number of SQL statements.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class QueryServiceFetchPlanIntTest {
+
+    private static final int ROWS = 30;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private CarQueryService carQueryService;
+
+    @Autowired
+    private ClientQueryService clientQueryService;
+
+    @Autowired
+    private CarServiceQueryService carServiceQueryService;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setup() {
+        for (int i = 0; i < ROWS; i++) {
+            Client client = new Client().firstName("AAAAAAAAAA").lastName("AAAAAAAAAA");
+            em.persist(client);
+            Car car = new Car().licensePlate("FETCH-" + i).make("AAAAAAAAAA").model("AAAAAAAAAA").year(2000).client(client);
+            em.persist(car);
+            em.persist(new CarService().date(LocalDate.ofEpochDay(i)).description("AAAAAAAAAA").totalCost(1D).car(car));
+            em.persist(new Client().firstName("BBBBBBBBBB").lastName("BBBBBBBBBB"));
+        }
+        em.flush();
+        em.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @After
+    public void teardown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void assertThatCarPagesFetchTheirClients() {
+        assertThat(carQueryService.findByCriteria(new CarCriteria(), PageRequest.of(0, PAGE_SIZE)))
+            .hasSize(PAGE_SIZE);
+        assertStatements(2);
+
+        assertThat(carQueryService.findByCriteria(new CarCriteria(), PageRequest.of(0, PAGE_SIZE), CountMode.NONE))
+            .hasSize(PAGE_SIZE);
+        assertStatements(1);
+
+        assertThat(carQueryService.findByCriteria(new CarCriteria(), Sort.by("id"), null, PAGE_SIZE).getContent())
+            .hasSize(PAGE_SIZE);
+        assertStatements(1);
+    }
+
+    @Test
+    public void assertThatClientPagesFetchTheirCars() {
+        assertThat(clientQueryService.findByCriteria(new ClientCriteria(), PageRequest.of(0, PAGE_SIZE)))
+            .hasSize(PAGE_SIZE);
+        assertStatements(2);
+
+        assertThat(clientQueryService.findByCriteria(new ClientCriteria(), PageRequest.of(0, PAGE_SIZE), CountMode.NONE))
+            .hasSize(PAGE_SIZE);
+        assertStatements(1);
+
+        assertThat(clientQueryService.findByCriteria(new ClientCriteria(), Sort.by("id"), null, PAGE_SIZE).getContent())
+            .hasSize(PAGE_SIZE);
+        assertStatements(1);
+
+        assertThat(clientService.findAllWhereCarIsNull()).hasSize(ROWS);
+        assertStatements(1);
+    }
+
+    @Test
+    public void assertThatCarServicePagesFetchTheirCarsAndClients() {
+        assertThat(carServiceQueryService.findByCriteria(new CarServiceCriteria(), PageRequest.of(0, PAGE_SIZE)))
+            .hasSize(PAGE_SIZE);
+        assertStatements(2);
+
+        assertThat(carServiceQueryService.findByCriteria(new CarServiceCriteria(), PageRequest.of(0, PAGE_SIZE), CountMode.NONE))
+            .hasSize(PAGE_SIZE);
+        assertStatements(1);
+
+        assertThat(carServiceQueryService.findByCriteria(new CarServiceCriteria(), Sort.by("id"), null, PAGE_SIZE).getContent())
+            .hasSize(PAGE_SIZE);
+        assertStatements(1);
+    }
+
+    /**
+     * Check the number of statements prepared since the last check, then clear the persistence context so that
+     * the next read does not find the entities already loaded.
+     */
+    private void assertStatements(long expected) {
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+        statistics.clear();
+        em.clear();
+    }
+}
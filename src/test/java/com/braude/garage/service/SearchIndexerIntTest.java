@@ -0,0 +1,169 @@
+package com.braude.garage.service;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.config.ApplicationProperties;
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.SearchOutboxEvent;
+import com.braude.garage.domain.SearchReindex;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.SearchOutboxEventRepository;
+import com.braude.garage.repository.SearchReindexRepository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the SearchIndexer.
+ *
+ * @see SearchIndexer
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class SearchIndexerIntTest {
+
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private SearchReindexRepository searchReindexRepository;
+
+    @Autowired
+    private SearchIndexCatalog searchIndexCatalog;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private EntityMapper entityMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager em;
+
+    private JestClient jestClient;
+
+    private SearchIndexer searchIndexer;
+
+    @Before
+    public void setup() {
+        jestClient = mock(JestClient.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearchIndexer().setBatchSize(10);
+        searchIndexer = new SearchIndexer(searchOutboxEventRepository, searchReindexRepository, searchIndexCatalog,
+            jestClient, entityMapper, transactionManager, applicationProperties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void assertThatRepeatedEventsAreIndexedOnce() throws Exception {
+        Car car = carRepository.saveAndFlush(new Car().licensePlate("AAAAAAAAAA").make("AAAAAAAAAA"));
+        searchOutboxService.enqueue(Car.class, car.getId());
+        searchOutboxService.enqueue(Car.class, car.getId());
+        searchOutboxService.enqueue(Car.class, car.getId());
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult("index", car.getId(), 200));
+
+        searchIndexer.drainBatch();
+
+        ArgumentCaptor<Bulk> bulk = ArgumentCaptor.forClass(Bulk.class);
+        verify(jestClient, times(1)).execute(bulk.capture());
+        String data = bulk.getValue().getData(new Gson());
+        assertThat(data.split("\n")).hasSize(2);
+        assertThat(data).contains("\"index\"").contains("\"_id\":\"" + car.getId() + "\"");
+        assertThat(searchOutboxEventRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void assertThatMissingEntitiesAreDeleted() throws Exception {
+        searchOutboxService.enqueue(Car.class, Long.MAX_VALUE);
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult("delete", Long.MAX_VALUE, 404));
+
+        searchIndexer.drainBatch();
+
+        ArgumentCaptor<Bulk> bulk = ArgumentCaptor.forClass(Bulk.class);
+        verify(jestClient, times(1)).execute(bulk.capture());
+        assertThat(bulk.getValue().getData(new Gson())).contains("\"delete\"");
+        assertThat(searchOutboxEventRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void assertThatFailedEventsAreRescheduled() throws Exception {
+        Car car = carRepository.saveAndFlush(new Car().licensePlate("AAAAAAAAAA"));
+        searchOutboxService.enqueue(Car.class, car.getId());
+        when(jestClient.execute(any(Bulk.class))).thenThrow(new IOException("Connection refused"));
+
+        boolean more = searchIndexer.drainBatch();
+
+        assertThat(more).isFalse();
+        em.flush();
+        em.clear();
+        List<SearchOutboxEvent> events = searchOutboxEventRepository.findAll();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getAttempts()).isEqualTo(1);
+        assertThat(events.get(0).getNextAttemptDate()).isAfter(Instant.now());
+
+        // Not due yet, so the next run does not retry it
+        searchIndexer.drainBatch();
+        verify(jestClient, times(1)).execute(any(Bulk.class));
+    }
+
+    @Test
+    public void assertThatEventsOfARebuiltIndexAreHeldBack() throws Exception {
+        Car car = carRepository.saveAndFlush(new Car().licensePlate("AAAAAAAAAA"));
+        searchOutboxService.enqueue(Car.class, car.getId());
+        SearchReindex reindex = new SearchReindex();
+        reindex.setIndexName(elasticsearchOperations.getPersistentEntityFor(Car.class).getIndexName());
+        reindex.setTargetIndex(reindex.getIndexName() + "_test");
+        reindex.setStartedDate(Instant.now());
+        reindex.setHeartbeatDate(Instant.now());
+        searchReindexRepository.saveAndFlush(reindex);
+
+        boolean more = searchIndexer.drainBatch();
+
+        assertThat(more).isFalse();
+        verify(jestClient, never()).execute(any(Bulk.class));
+        assertThat(searchOutboxEventRepository.findAll()).hasSize(1);
+    }
+
+    private BulkResult bulkResult(String operation, Long id, int status) {
+        String index = elasticsearchOperations.getPersistentEntityFor(Car.class).getIndexName();
+        String type = elasticsearchOperations.getPersistentEntityFor(Car.class).getIndexType();
+        BulkResult result = new BulkResult(new Gson());
+        result.setJsonObject(new JsonParser().parse("{\"errors\":false,\"items\":[{\"" + operation + "\":{" +
+            "\"_index\":\"" + index + "\",\"_type\":\"" + type + "\",\"_id\":\"" + id + "\",\"status\":" + status + "}}]}")
+            .getAsJsonObject());
+        result.setSucceeded(true);
+        return result;
+    }
+}
@@ -0,0 +1,113 @@
+package com.braude.garage.service;
+
+import com.braude.garage.GarageApp;
+import com.braude.garage.domain.Car;
+import com.braude.garage.domain.SearchReindex;
+import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.SearchReindexRepository;
+import com.braude.garage.service.dto.SearchReindexStatusDTO;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Get;
+import io.searchbox.indices.IndicesExists;
+import io.searchbox.indices.aliases.GetAliases;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the SearchReindexService, against the embedded Elasticsearch node.
+ *
+ * @see SearchReindexService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = GarageApp.class)
+@Transactional
+public class SearchReindexServiceIntTest {
+
+    private static final String INDEX = "car";
+
+    @Autowired
+    private SearchReindexService searchReindexService;
+
+    @Autowired
+    private SearchReindexRepository searchReindexRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private JestClient jestClient;
+
+    @Test
+    public void assertThatReindexSwapsTheAlias() throws Exception {
+        Car car = carRepository.saveAndFlush(new Car().licensePlate("AAAAAAAAAA").make("AAAAAAAAAA"));
+
+        SearchReindexStatusDTO first = searchReindexService.reindex(INDEX);
+
+        assertThat(first.getState()).isEqualTo(SearchReindexStatusDTO.State.COMPLETED);
+        assertThat(first.getDocuments()).isEqualTo(carRepository.count());
+        assertThat(indicesBehindAlias()).containsExactly(first.getTargetIndex());
+        JestResult document = jestClient.execute(new Get.Builder(INDEX, car.getId().toString()).type(INDEX).build());
+        assertThat(document.getSourceAsString()).contains("AAAAAAAAAA");
+        assertThat(searchReindexRepository.findAll()).isEmpty();
+
+        SearchReindexStatusDTO second = searchReindexService.reindex(INDEX);
+
+        assertThat(second.getState()).isEqualTo(SearchReindexStatusDTO.State.COMPLETED);
+        assertThat(indicesBehindAlias()).containsExactly(second.getTargetIndex());
+        assertThat(jestClient.execute(new IndicesExists.Builder(first.getTargetIndex()).build()).isSucceeded()).isFalse();
+        assertThat(searchReindexService.getStatuses())
+            .extracting(SearchReindexStatusDTO::getTargetIndex)
+            .contains(second.getTargetIndex());
+    }
+
+    @Test
+    public void assertThatARunningReindexIsNotStartedTwice() {
+        SearchReindex reindex = new SearchReindex();
+        reindex.setIndexName(INDEX);
+        reindex.setTargetIndex(INDEX + "_running");
+        reindex.setStartedDate(Instant.now());
+        reindex.setHeartbeatDate(Instant.now());
+        searchReindexRepository.saveAndFlush(reindex);
+
+        assertThatThrownBy(() -> searchReindexService.reindex(INDEX)).isInstanceOf(ConcurrencyFailureException.class);
+    }
+
+    @Test
+    public void assertThatNoReindexIsStartedIfOneIsRunning() {
+        List<String> indexNames = searchReindexService.getIndexNames();
+        String lastIndex = indexNames.get(indexNames.size() - 1);
+        SearchReindex reindex = new SearchReindex();
+        reindex.setIndexName(lastIndex);
+        reindex.setTargetIndex(lastIndex + "_running");
+        reindex.setStartedDate(Instant.now());
+        reindex.setHeartbeatDate(Instant.now());
+        searchReindexRepository.saveAndFlush(reindex);
+        List<String> targetIndices = targetIndices();
+
+        assertThatThrownBy(() -> searchReindexService.reindexAllAsync()).isInstanceOf(ConcurrencyFailureException.class);
+        assertThat(targetIndices()).isEqualTo(targetIndices);
+    }
+
+    private List<String> targetIndices() {
+        return searchReindexService.getStatuses().stream().map(SearchReindexStatusDTO::getTargetIndex).sorted()
+            .collect(Collectors.toList());
+    }
+
+    private Iterable<String> indicesBehindAlias() throws Exception {
+        return jestClient.execute(new GetAliases.Builder().addIndex(INDEX).build()).getJsonObject().keySet();
+    }
+}
@@ -2,8 +2,9 @@ package com.braude.garage.service;
 
 import com.braude.garage.GarageApp;
 import com.braude.garage.config.Constants;
+import com.braude.garage.domain.SearchOutboxEvent;
 import com.braude.garage.domain.User;
-import com.braude.garage.repository.search.UserSearchRepository;
+import com.braude.garage.repository.SearchOutboxEventRepository;
 import com.braude.garage.repository.UserRepository;
 import com.braude.garage.service.dto.UserDTO;
 import com.braude.garage.service.util.RandomUtil;
@@ -29,8 +30,7 @@ import java.util.Optional;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.when;
 
 /**
@@ -49,13 +49,8 @@ public class UserServiceIntTest {
     @Autowired
     private UserService userService;
 
-    /**
-     * This repository is mocked in the com.braude.garage.repository.search test package.
-     *
-     * @see com.braude.garage.repository.search.UserSearchRepositoryMockConfiguration
-     */
     @Autowired
-    private UserSearchRepository mockUserSearchRepository;
+    private SearchOutboxEventRepository searchOutboxEventRepository;
 
     @Autowired
     private AuditingHandler auditingHandler;
@@ -170,8 +165,10 @@ public class UserServiceIntTest {
         users = userRepository.findAllByActivatedIsFalseAndCreatedDateBefore(now.minus(3, ChronoUnit.DAYS));
         assertThat(users).isEmpty();
 
-        // Verify Elasticsearch mock
-        verify(mockUserSearchRepository, times(1)).delete(user);
+        // Verify the deletion is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("User", user.getId()));
     }
 
     @Test
@@ -202,8 +199,10 @@ public class UserServiceIntTest {
         userService.removeNotActivatedUsers();
         assertThat(userRepository.findOneByLogin("johndoe")).isNotPresent();
 
-        // Verify Elasticsearch mock
-        verify(mockUserSearchRepository, times(1)).delete(user);
+        // Verify the deletion is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("User", user.getId()));
     }
 
 }
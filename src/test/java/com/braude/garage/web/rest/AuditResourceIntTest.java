@@ -3,8 +3,11 @@ package com.braude.garage.web.rest;
 import com.braude.garage.GarageApp;
 import com.braude.garage.config.audit.AuditEventConverter;
 import com.braude.garage.domain.PersistentAuditEvent;
+import com.braude.garage.repository.KeysetRepository;
 import com.braude.garage.repository.PersistenceAuditEventRepository;
 import com.braude.garage.service.AuditEventService;
+import com.braude.garage.web.rest.errors.ExceptionTranslator;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,16 +16,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.format.support.FormattingConversionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,6 +57,12 @@ public class AuditResourceIntTest {
     @Autowired
     private AuditEventConverter auditEventConverter;
 
+    @Autowired
+    private KeysetRepository keysetRepository;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -65,11 +80,12 @@ public class AuditResourceIntTest {
     public void setup() {
         MockitoAnnotations.initMocks(this);
         AuditEventService auditEventService =
-            new AuditEventService(auditEventRepository, auditEventConverter);
+            new AuditEventService(auditEventRepository, auditEventConverter, keysetRepository);
         AuditResource auditResource = new AuditResource(auditEventService);
         this.restAuditMockMvc = MockMvcBuilders.standaloneSetup(auditResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setConversionService(formattingConversionService)
+            .setControllerAdvice(exceptionTranslator)
             .setMessageConverters(jacksonMessageConverter).build();
     }
 
@@ -138,6 +154,63 @@ public class AuditResourceIntTest {
             .andExpect(header().string("X-Total-Count", "0"));
     }
 
+    @Test
+    public void getAuditsByKeyset() throws Exception {
+        // Initialize the database, an event per hour
+        for (int i = 0; i < 5; i++) {
+            PersistentAuditEvent event = new PersistentAuditEvent();
+            event.setAuditEventType(SAMPLE_TYPE);
+            event.setPrincipal(SAMPLE_PRINCIPAL + "_" + i);
+            event.setAuditEventDate(SAMPLE_TIMESTAMP.plusSeconds(3600 * i));
+            auditEventRepository.save(event);
+        }
+
+        // Follow the next links, the latest events first
+        List<String> principals = new ArrayList<>();
+        String uri = "/management/audits?after=&sort=auditEventDate,desc&size=2";
+        int pages = 0;
+        while (uri != null) {
+            MvcResult result = restAuditMockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andReturn();
+            principals.addAll(JsonPath.read(result.getResponse().getContentAsString(), "$.[*].principal"));
+            uri = nextLink(result.getResponse().getHeader(HttpHeaders.LINK));
+            pages++;
+        }
+        assertThat(pages).isEqualTo(3);
+        assertThat(principals).isEqualTo(Arrays.asList(SAMPLE_PRINCIPAL + "_4", SAMPLE_PRINCIPAL + "_3",
+            SAMPLE_PRINCIPAL + "_2", SAMPLE_PRINCIPAL + "_1", SAMPLE_PRINCIPAL + "_0"));
+    }
+
+    @Test
+    public void getAuditsByKeysetAndDate() throws Exception {
+        // Initialize the database
+        auditEventRepository.save(auditEvent);
+
+        String fromDate  = SAMPLE_TIMESTAMP.minusSeconds(SECONDS_PER_DAY).toString().substring(0, 10);
+        String toDate = SAMPLE_TIMESTAMP.plusSeconds(SECONDS_PER_DAY).toString().substring(0, 10);
+        restAuditMockMvc.perform(get("/management/audits?after=&fromDate=" + fromDate + "&toDate=" + toDate))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].principal").value(hasItem(SAMPLE_PRINCIPAL)))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("fromDate=" + fromDate)));
+
+        String otherFromDate  = SAMPLE_TIMESTAMP.minusSeconds(2 * SECONDS_PER_DAY).toString().substring(0, 10);
+        String otherToDate = SAMPLE_TIMESTAMP.minusSeconds(SECONDS_PER_DAY).toString().substring(0, 10);
+        restAuditMockMvc.perform(get("/management/audits?after=&fromDate=" + otherFromDate + "&toDate=" + otherToDate))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    public void getAuditsByKeysetWithInvalidCursor() throws Exception {
+        restAuditMockMvc.perform(get("/management/audits?after=notacursor"))
+            .andExpect(status().isBadRequest());
+
+        restAuditMockMvc.perform(get("/management/audits?after=&sort=data,asc"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getNonExistingAudit() throws Exception {
         // Get the audit
@@ -159,4 +232,13 @@ public class AuditResourceIntTest {
         auditEvent1.setId(null);
         assertThat(auditEvent1).isNotEqualTo(auditEvent2);
     }
+
+    private static String nextLink(String link) {
+        for (String part : link.split(",")) {
+            if (part.endsWith("rel=\"next\"")) {
+                return part.substring(part.indexOf('<') + 1, part.indexOf('>'));
+            }
+        }
+        return null;
+    }
 }
@@ -3,43 +3,59 @@ package com.braude.garage.web.rest;
 import com.braude.garage.GarageApp;
 
 import com.braude.garage.domain.Car;
+import com.braude.garage.domain.SearchOutboxEvent;
 import com.braude.garage.domain.Client;
 import com.braude.garage.domain.CarService;
+import com.braude.garage.domain.CarServiceSummary;
 import com.braude.garage.repository.CarRepository;
+import com.braude.garage.repository.SearchOutboxEventRepository;
 import com.braude.garage.repository.search.CarSearchRepository;
-import com.braude.garage.service.CarService;
 import com.braude.garage.service.dto.CarDTO;
 import com.braude.garage.service.mapper.CarMapper;
 import com.braude.garage.web.rest.errors.ExceptionTranslator;
 import com.braude.garage.service.dto.CarCriteria;
+import com.braude.garage.service.CarServiceSummaryService;
 import com.braude.garage.service.CarQueryService;
+import com.braude.garage.service.EstimatedCountService;
 
+import com.jayway.jsonpath.JsonPath;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.SortHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.Validator;
 
 import javax.persistence.EntityManager;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 
 import static com.braude.garage.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -65,6 +81,8 @@ public class CarResourceIntTest {
     private static final Integer DEFAULT_YEAR = 1;
     private static final Integer UPDATED_YEAR = 2;
 
+    private static final LocalDate SUMMARY_DATE = LocalDate.of(2019, 2, 13);
+
     @Autowired
     private CarRepository carRepository;
 
@@ -72,7 +90,10 @@ public class CarResourceIntTest {
     private CarMapper carMapper;
 
     @Autowired
-    private CarService carService;
+    private com.braude.garage.service.CarService carService;
+
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
 
     /**
      * This repository is mocked in the com.braude.garage.repository.search test package.
@@ -85,12 +106,21 @@ public class CarResourceIntTest {
     @Autowired
     private CarQueryService carQueryService;
 
+    @Autowired
+    private CarServiceSummaryService carServiceSummaryService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private SortHandlerMethodArgumentResolver sortArgumentResolver;
+
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
@@ -107,9 +137,10 @@ public class CarResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final CarResource carResource = new CarResource(carService, carQueryService);
+        final CarResource carResource = new CarResource(carService, carQueryService, carServiceSummaryService,
+            jacksonMessageConverter.getObjectMapper());
         this.restCarMockMvc = MockMvcBuilders.standaloneSetup(carResource)
-            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setCustomArgumentResolvers(pageableArgumentResolver, sortArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
             .setConversionService(createFormattingConversionService())
             .setMessageConverters(jacksonMessageConverter)
@@ -157,8 +188,137 @@ public class CarResourceIntTest {
         assertThat(testCar.getModel()).isEqualTo(DEFAULT_MODEL);
         assertThat(testCar.getYear()).isEqualTo(DEFAULT_YEAR);
 
-        // Validate the Car in Elasticsearch
-        verify(mockCarSearchRepository, times(1)).save(testCar);
+        // Validate the Car is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("Car", testCar.getId()));
+    }
+
+    @Test
+    @Transactional
+    public void createCars() throws Exception {
+        int databaseSizeBeforeCreate = carRepository.findAll().size();
+
+        // One valid car, one with an existing ID, one with an unknown client and one with the same license plate
+        CarDTO valid = carMapper.toDto(car);
+        CarDTO withId = carMapper.toDto(createEntity(em));
+        withId.setId(1L);
+        CarDTO withUnknownClient = carMapper.toDto(createEntity(em));
+        withUnknownClient.setClientId(Long.MAX_VALUE);
+        CarDTO withSameLicensePlate = carMapper.toDto(createEntity(em));
+        restCarMockMvc.perform(post("/api/cars/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(valid, withId, withUnknownClient, withSameLicensePlate))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].index").value(contains(0, 1, 2, 3)))
+            .andExpect(jsonPath("$.[*].status").value(contains("CREATED", "INVALID", "INVALID", "INVALID")))
+            .andExpect(jsonPath("$.[0].entity.licensePlate").value(DEFAULT_LICENSE_PLATE))
+            .andExpect(jsonPath("$.[2].message").value("Unknown client " + Long.MAX_VALUE))
+            .andExpect(jsonPath("$.[3].message").value("Duplicate license plate " + DEFAULT_LICENSE_PLATE));
+
+        // Only the valid car is created, and queued for Elasticsearch
+        List<Car> carList = carRepository.findAll();
+        assertThat(carList).hasSize(databaseSizeBeforeCreate + 1);
+        Car testCar = carList.get(carList.size() - 1);
+        assertThat(testCar.getLicensePlate()).isEqualTo(DEFAULT_LICENSE_PLATE);
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("Car", testCar.getId()));
+    }
+
+    @Test
+    @Transactional
+    public void createAndUpdateCarsWithClients() throws Exception {
+        // Initialize the database, with a client owning the car and a client without car
+        Client owner = ClientResourceIntTest.createEntity(em);
+        em.persist(owner);
+        Client free = ClientResourceIntTest.createEntity(em);
+        em.persist(free);
+        car.setClient(owner);
+        carRepository.saveAndFlush(car);
+        int databaseSizeBeforeCreate = carRepository.findAll().size();
+
+        // A client has a single car, so only the first car of the free client is created
+        CarDTO withOwnerClient = carMapper.toDto(createEntity(em).licensePlate("CLIENT-1"));
+        withOwnerClient.setClientId(owner.getId());
+        CarDTO withFreeClient = carMapper.toDto(createEntity(em).licensePlate("CLIENT-2"));
+        withFreeClient.setClientId(free.getId());
+        CarDTO withSameFreeClient = carMapper.toDto(createEntity(em).licensePlate("CLIENT-3"));
+        withSameFreeClient.setClientId(free.getId());
+        restCarMockMvc.perform(post("/api/cars/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(withOwnerClient, withFreeClient, withSameFreeClient))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(contains("INVALID", "CREATED", "INVALID")))
+            .andExpect(jsonPath("$.[0].message").value("Client " + owner.getId() + " already has a car"))
+            .andExpect(jsonPath("$.[2].message").value("Duplicate client " + free.getId()));
+        assertThat(carRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+
+        // Keeping its own client is not a conflict
+        CarDTO updated = carMapper.toDto(car);
+        updated.setMake(UPDATED_MAKE);
+        restCarMockMvc.perform(put("/api/cars/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Collections.singletonList(updated))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(contains("UPDATED")));
+    }
+
+    @Test
+    @Transactional
+    public void updateAndDeleteCars() throws Exception {
+        // Initialize the database
+        carRepository.saveAndFlush(car);
+        Car other = carRepository.saveAndFlush(createEntity(em).licensePlate(UPDATED_LICENSE_PLATE));
+
+        // Update both cars, and an unknown one
+        CarDTO updated = carMapper.toDto(car);
+        updated.setMake(UPDATED_MAKE);
+        CarDTO otherUpdated = carMapper.toDto(other);
+        otherUpdated.setModel(UPDATED_MODEL);
+        CarDTO unknown = carMapper.toDto(createEntity(em));
+        unknown.setId(Long.MAX_VALUE);
+        restCarMockMvc.perform(put("/api/cars/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(updated, unknown, otherUpdated))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(contains("UPDATED", "NOT_FOUND", "UPDATED")));
+        em.clear();
+        assertThat(carRepository.findById(car.getId()).get().getMake()).isEqualTo(UPDATED_MAKE);
+        assertThat(carRepository.findById(other.getId()).get().getModel()).isEqualTo(UPDATED_MODEL);
+
+        // Delete one car twice, and an unknown one
+        restCarMockMvc.perform(delete("/api/cars/batch?ids={ids}", car.getId() + "," + car.getId() + "," + Long.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(contains("DELETED", "INVALID", "NOT_FOUND")));
+        assertThat(carRepository.existsById(car.getId())).isFalse();
+        assertThat(carRepository.existsById(other.getId())).isTrue();
+    }
+
+    @Test
+    @Transactional
+    public void createCarWithExistingLicensePlate() throws Exception {
+        // Initialize the database
+        carRepository.saveAndFlush(car);
+        int databaseSizeBeforeCreate = carRepository.findAll().size();
+
+        // A license plate identifies a car, so this API call must fail
+        CarDTO carDTO = carMapper.toDto(createEntity(em));
+        restCarMockMvc.perform(post("/api/cars")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(carDTO)))
+            .andExpect(status().isBadRequest())
+            .andExpect(header().string("X-garageApp-error", "License plate " + DEFAULT_LICENSE_PLATE + " already used"));
+
+        assertThat(carRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+
+        // Keeping its own license plate is not a conflict
+        CarDTO updated = carMapper.toDto(car);
+        updated.setMake(UPDATED_MAKE);
+        restCarMockMvc.perform(put("/api/cars")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(updated)))
+            .andExpect(status().isOk());
     }
 
     @Test
@@ -438,6 +598,200 @@ public class CarResourceIntTest {
         defaultCarShouldNotBeFound("carServiceId.equals=" + (carServiceId + 1));
     }
 
+    @Test
+    @Transactional
+    public void getAllCarsByServiceSummary() throws Exception {
+        // Initialize the database
+        carRepository.saveAndFlush(car);
+        em.persist(createServiceSummary(car, 3, 150, SUMMARY_DATE));
+        em.flush();
+
+        defaultCarShouldBeFound("serviceCount.equals=3");
+        defaultCarShouldNotBeFound("serviceCount.greaterThan=3");
+        defaultCarShouldBeFound("totalSpend.greaterOrEqualThan=150");
+        defaultCarShouldNotBeFound("totalSpend.lessThan=150");
+        defaultCarShouldBeFound("lastServiceDate.equals=" + SUMMARY_DATE);
+        defaultCarShouldNotBeFound("lastServiceDate.greaterThan=" + SUMMARY_DATE);
+        defaultCarShouldNotBeFound("serviceCount.specified=false");
+    }
+
+    @Test
+    @Transactional
+    public void getAllCarsWithoutServices() throws Exception {
+        // Initialize the database
+        carRepository.saveAndFlush(car);
+
+        defaultCarShouldBeFound("serviceCount.specified=false");
+        defaultCarShouldNotBeFound("totalSpend.greaterThan=0");
+    }
+
+    @Test
+    @Transactional
+    public void getAllCarsSortedByTotalSpend() throws Exception {
+        // Initialize the database
+        Car cheap = carRepository.saveAndFlush(new Car().licensePlate("SPEND-1").make("SPEND"));
+        Car expensive = carRepository.saveAndFlush(new Car().licensePlate("SPEND-2").make("SPEND"));
+        Car neverServiced = carRepository.saveAndFlush(new Car().licensePlate("SPEND-3").make("SPEND"));
+        em.persist(createServiceSummary(cheap, 1, 10, SUMMARY_DATE));
+        em.persist(createServiceSummary(expensive, 2, 30, SUMMARY_DATE));
+        em.flush();
+
+        restCarMockMvc.perform(get("/api/cars?sort=serviceSummary.totalSpend,desc&make.equals=SPEND"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(expensive.getId().intValue(), cheap.getId().intValue(),
+                neverServiced.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getCarServiceSummary() throws Exception {
+        // Initialize the database
+        carRepository.saveAndFlush(car);
+        Car neverServiced = carRepository.saveAndFlush(new Car().licensePlate("NEVER"));
+        em.persist(createServiceSummary(car, 3, 150, SUMMARY_DATE));
+        em.flush();
+
+        restCarMockMvc.perform(get("/api/cars/{id}/service-summary", car.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.carId").value(car.getId().intValue()))
+            .andExpect(jsonPath("$.serviceCount").value(3))
+            .andExpect(jsonPath("$.totalSpend").value(150d))
+            .andExpect(jsonPath("$.lastServiceDate").value(SUMMARY_DATE.toString()));
+
+        restCarMockMvc.perform(get("/api/cars/{id}/service-summary", neverServiced.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.carId").value(neverServiced.getId().intValue()))
+            .andExpect(jsonPath("$.serviceCount").value(0))
+            .andExpect(jsonPath("$.totalSpend").value(0d));
+
+        restCarMockMvc.perform(get("/api/cars/{id}/service-summary", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getAllCarServiceSummaries() throws Exception {
+        // Initialize the database
+        carRepository.saveAndFlush(car);
+        em.persist(createServiceSummary(car, 3, 1e12, SUMMARY_DATE));
+        em.flush();
+
+        restCarMockMvc.perform(get("/api/cars/service-summaries?sort=totalSpend,desc&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].carId").value(contains(car.getId().intValue())))
+            .andExpect(jsonPath("$.[*].totalSpend").value(contains(1e12)));
+    }
+
+    /**
+     * Create the summary of the services of a car, as the CarServiceSummaryService maintains it.
+     */
+    public static CarServiceSummary createServiceSummary(Car car, long serviceCount, double totalSpend, LocalDate lastServiceDate) {
+        CarServiceSummary summary = new CarServiceSummary();
+        summary.setCarId(car.getId());
+        summary.setServiceCount(serviceCount);
+        summary.setTotalSpend(totalSpend);
+        summary.setLastServiceDate(lastServiceDate);
+        return summary;
+    }
+
+    @Test
+    @Transactional
+    public void getAllCarsWithEstimatedCountLinks() throws Exception {
+        cacheManager.getCache(EstimatedCountService.ESTIMATED_COUNTS_CACHE).clear();
+        for (int i = 0; i < 5; i++) {
+            carRepository.saveAndFlush(new Car().licensePlate("ESTIMATED-" + i).model("ESTIMATED 50%"));
+        }
+
+        // The links keep the filters, the sort and the count mode of the request
+        MvcResult result = restCarMockMvc.perform(get("/api/cars?count=ESTIMATED&sort=id,asc&size=2&model.equals=ESTIMATED 50%"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "5"))
+            .andReturn();
+        String next = nextLink(result.getResponse().getHeader(HttpHeaders.LINK));
+        assertThat(next).isEqualTo("/api/cars?count=ESTIMATED&sort=id%2Casc&model.equals=ESTIMATED%2050%25&page=1&size=2");
+
+        // So that following them still reuses the estimated count
+        carRepository.saveAndFlush(new Car().licensePlate("ESTIMATED-5").model("ESTIMATED 50%"));
+        restCarMockMvc.perform(get(new URI(next)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(hasSize(2)))
+            .andExpect(header().string("X-Total-Count", "5"));
+    }
+
+    @Test
+    @Transactional
+    public void getAllCarsByKeyset() throws Exception {
+        // Initialize the database, with nullable and duplicated values of the sort property
+        List<Car> cars = new ArrayList<>();
+        for (String make : Arrays.asList(null, "B", "A", null, "B")) {
+            cars.add(carRepository.saveAndFlush(new Car().licensePlate("KEYSET-" + cars.size()).make(make).model("KEYSET")));
+        }
+        List<Long> expectedIds = Arrays.asList(cars.get(0).getId(), cars.get(3).getId(), cars.get(2).getId(),
+            cars.get(1).getId(), cars.get(4).getId());
+
+        // Follow the next links, whose cursor keeps the sort of the first page, and which keep its filters
+        List<Long> ids = new ArrayList<>();
+        String uri = "/api/cars?after=&sort=make,asc&size=2&model.equals=KEYSET";
+        int pages = 0;
+        while (uri != null) {
+            MvcResult result = restCarMockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andReturn();
+            for (Object id : JsonPath.<List<Object>>read(result.getResponse().getContentAsString(), "$.[*].id")) {
+                ids.add(((Number) id).longValue());
+            }
+            uri = nextLink(result.getResponse().getHeader(HttpHeaders.LINK));
+            pages++;
+        }
+        assertThat(pages).isEqualTo(3);
+        assertThat(ids).isEqualTo(expectedIds);
+    }
+
+    @Test
+    @Transactional
+    public void getAllCarsByKeysetWithEncodedFilter() throws Exception {
+        // Initialize the database, with a space and a percent sign in the filtered value
+        List<Long> expectedIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            expectedIds.add(carRepository.saveAndFlush(new Car().licensePlate("KEYSET-" + i).model("KEY SET 50%")).getId());
+        }
+        carRepository.saveAndFlush(new Car().licensePlate("KEYSET-3").model("KEY SET 50"));
+
+        // Follow the next links as they are, without encoding them again
+        List<Long> ids = new ArrayList<>();
+        String uri = "/api/cars?after=&sort=id,asc&size=2&model.equals=KEY%20SET%2050%25";
+        while (uri != null) {
+            MvcResult result = restCarMockMvc.perform(get(new URI(uri)))
+                .andExpect(status().isOk())
+                .andReturn();
+            for (Object id : JsonPath.<List<Object>>read(result.getResponse().getContentAsString(), "$.[*].id")) {
+                ids.add(((Number) id).longValue());
+            }
+            uri = nextLink(result.getResponse().getHeader(HttpHeaders.LINK));
+        }
+        assertThat(ids).isEqualTo(expectedIds);
+    }
+
+    @Test
+    @Transactional
+    public void getAllCarsByKeysetWithInvalidCursor() throws Exception {
+        restCarMockMvc.perform(get("/api/cars?after=notacursor"))
+            .andExpect(status().isBadRequest());
+
+        restCarMockMvc.perform(get("/api/cars?after=&sort=client,asc"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static String nextLink(String link) {
+        for (String part : link.split(",")) {
+            if (part.endsWith("rel=\"next\"")) {
+                return part.substring(part.indexOf('<') + 1, part.indexOf('>'));
+            }
+        }
+        return null;
+    }
+
     /**
      * Executes the search, and checks that the default entity is returned
      */
@@ -517,8 +871,10 @@ public class CarResourceIntTest {
         assertThat(testCar.getModel()).isEqualTo(UPDATED_MODEL);
         assertThat(testCar.getYear()).isEqualTo(UPDATED_YEAR);
 
-        // Validate the Car in Elasticsearch
-        verify(mockCarSearchRepository, times(1)).save(testCar);
+        // Validate the Car is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("Car", testCar.getId()));
     }
 
     @Test
@@ -560,8 +916,10 @@ public class CarResourceIntTest {
         List<Car> carList = carRepository.findAll();
         assertThat(carList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Car in Elasticsearch
-        verify(mockCarSearchRepository, times(1)).deleteById(car.getId());
+        // Validate the Car deletion is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("Car", car.getId()));
     }
 
     @Test
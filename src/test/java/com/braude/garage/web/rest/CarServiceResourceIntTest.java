@@ -3,10 +3,13 @@ package com.braude.garage.web.rest;
 import com.braude.garage.GarageApp;
 
 import com.braude.garage.domain.CarService;
+import com.braude.garage.domain.SearchOutboxEvent;
 import com.braude.garage.domain.Car;
 import com.braude.garage.repository.CarServiceRepository;
+import com.braude.garage.repository.SearchOutboxEventRepository;
 import com.braude.garage.repository.search.CarServiceSearchRepository;
 import com.braude.garage.service.CarServiceService;
+import com.braude.garage.service.EstimatedCountService;
 import com.braude.garage.service.dto.CarServiceDTO;
 import com.braude.garage.service.mapper.CarServiceMapper;
 import com.braude.garage.web.rest.errors.ExceptionTranslator;
@@ -19,9 +22,12 @@ import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.SortHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -39,8 +45,12 @@ import java.util.List;
 
 import static com.braude.garage.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -72,6 +82,9 @@ public class CarServiceResourceIntTest {
     @Autowired
     private CarServiceService carServiceService;
 
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
     /**
      * This repository is mocked in the com.braude.garage.repository.search test package.
      *
@@ -89,12 +102,18 @@ public class CarServiceResourceIntTest {
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private SortHandlerMethodArgumentResolver sortArgumentResolver;
+
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private Validator validator;
 
@@ -105,9 +124,9 @@ public class CarServiceResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final CarServiceResource carServiceResource = new CarServiceResource(carServiceService, carServiceQueryService);
+        final CarServiceResource carServiceResource = new CarServiceResource(carServiceService, carServiceQueryService, jacksonMessageConverter.getObjectMapper());
         this.restCarServiceMockMvc = MockMvcBuilders.standaloneSetup(carServiceResource)
-            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setCustomArgumentResolvers(pageableArgumentResolver, sortArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
             .setConversionService(createFormattingConversionService())
             .setMessageConverters(jacksonMessageConverter)
@@ -153,8 +172,10 @@ public class CarServiceResourceIntTest {
         assertThat(testCarService.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
         assertThat(testCarService.getTotalCost()).isEqualTo(DEFAULT_TOTAL_COST);
 
-        // Validate the CarService in Elasticsearch
-        verify(mockCarServiceSearchRepository, times(1)).save(testCarService);
+        // Validate the CarService is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("CarService", testCarService.getId()));
     }
 
     @Test
@@ -196,6 +217,93 @@ public class CarServiceResourceIntTest {
             .andExpect(jsonPath("$.[*].totalCost").value(hasItem(DEFAULT_TOTAL_COST.doubleValue())));
     }
     
+    @Test
+    @Transactional
+    public void getAllCarServicesWithoutCount() throws Exception {
+        // Initialize the database
+        for (int i = 0; i < 3; i++) {
+            carServiceRepository.saveAndFlush(createEntity(em).description("UNCOUNTED"));
+        }
+
+        // The first page only knows that a next page exists
+        restCarServiceMockMvc.perform(get("/api/car-services?count=NONE&size=2&description.equals=UNCOUNTED"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(hasSize(2)))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString(
+                "</api/car-services?description.equals=UNCOUNTED&page=1&size=2&count=NONE>; rel=\"next\"")));
+
+        // The last page has no next link
+        restCarServiceMockMvc.perform(get("/api/car-services?count=NONE&page=1&size=2&description.equals=UNCOUNTED"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(hasSize(1)))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))));
+    }
+
+    @Test
+    @Transactional
+    public void getAllCarServicesWithEstimatedCount() throws Exception {
+        cacheManager.getCache(EstimatedCountService.ESTIMATED_COUNTS_CACHE).clear();
+        for (int i = 0; i < 3; i++) {
+            carServiceRepository.saveAndFlush(createEntity(em).description("ESTIMATED"));
+        }
+
+        // The count is run on the first request
+        restCarServiceMockMvc.perform(get("/api/car-services?count=ESTIMATED&size=2&description.equals=ESTIMATED"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(hasSize(2)))
+            .andExpect(header().string("X-Total-Count", "3"));
+
+        // And reused by the following ones
+        carServiceRepository.saveAndFlush(createEntity(em).description("ESTIMATED"));
+        restCarServiceMockMvc.perform(get("/api/car-services?count=ESTIMATED&size=2&description.equals=ESTIMATED"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"));
+
+        // Until the last page tells the exact count
+        restCarServiceMockMvc.perform(get("/api/car-services?count=ESTIMATED&page=1&size=2&description.equals=ESTIMATED"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(hasSize(2)))
+            .andExpect(header().string("X-Total-Count", "4"));
+        restCarServiceMockMvc.perform(get("/api/car-services?count=ESTIMATED&size=2&description.equals=ESTIMATED"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "4"));
+    }
+
+    @Test
+    @Transactional
+    public void exportCarServices() throws Exception {
+        // Initialize the database
+        Car car = CarResourceIntTest.createEntity(em);
+        em.persist(car);
+        carServiceRepository.saveAndFlush(createEntity(em).description("EXPORTED").car(car));
+        carServiceRepository.saveAndFlush(createEntity(em).description("EXPORTED, \"quoted\""));
+
+        // Export as NDJSON, one document per line
+        String ndjson = restCarServiceMockMvc.perform(get("/api/car-services/export?sort=id,asc&description.startsWith=EXPORTED"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"car-services.ndjson\""))
+            .andReturn().getResponse().getContentAsString();
+        String[] documents = ndjson.split("\n");
+        assertThat(documents).hasSize(2);
+        assertThat(documents[0]).contains("\"description\":\"EXPORTED\"", "\"carId\":" + car.getId(),
+            "\"date\":\"" + DEFAULT_DATE + "\"");
+        assertThat(documents[1]).contains("\"description\":\"EXPORTED, \\\"quoted\\\"\"", "\"carId\":null");
+
+        // Export as CSV, with a header line
+        String csv = restCarServiceMockMvc.perform(get("/api/car-services/export?format=CSV&sort=id,asc&description.startsWith=EXPORTED"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andReturn().getResponse().getContentAsString();
+        String[] lines = csv.split("\r\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("id,date,description,totalCost,carId");
+        assertThat(lines[1]).endsWith(",1970-01-01,EXPORTED,1.0," + car.getId());
+        assertThat(lines[2]).endsWith(",1970-01-01,\"EXPORTED, \"\"quoted\"\"\",1.0,");
+    }
+
     @Test
     @Transactional
     public void getCarService() throws Exception {
@@ -450,8 +558,10 @@ public class CarServiceResourceIntTest {
         assertThat(testCarService.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
         assertThat(testCarService.getTotalCost()).isEqualTo(UPDATED_TOTAL_COST);
 
-        // Validate the CarService in Elasticsearch
-        verify(mockCarServiceSearchRepository, times(1)).save(testCarService);
+        // Validate the CarService is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("CarService", testCarService.getId()));
     }
 
     @Test
@@ -493,8 +603,10 @@ public class CarServiceResourceIntTest {
         List<CarService> carServiceList = carServiceRepository.findAll();
         assertThat(carServiceList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the CarService in Elasticsearch
-        verify(mockCarServiceSearchRepository, times(1)).deleteById(carService.getId());
+        // Validate the CarService deletion is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("CarService", carService.getId()));
     }
 
     @Test
@@ -2,9 +2,12 @@ package com.braude.garage.web.rest;
 
 import com.braude.garage.GarageApp;
 
+import com.braude.garage.config.metrics.StatementBudget;
 import com.braude.garage.domain.Client;
+import com.braude.garage.domain.SearchOutboxEvent;
 import com.braude.garage.domain.Car;
 import com.braude.garage.repository.ClientRepository;
+import com.braude.garage.repository.SearchOutboxEventRepository;
 import com.braude.garage.repository.search.ClientSearchRepository;
 import com.braude.garage.service.ClientService;
 import com.braude.garage.service.dto.ClientDTO;
@@ -12,6 +15,7 @@ import com.braude.garage.service.mapper.ClientMapper;
 import com.braude.garage.web.rest.errors.ExceptionTranslator;
 import com.braude.garage.service.dto.ClientCriteria;
 import com.braude.garage.service.ClientQueryService;
+import com.braude.garage.service.CarServiceSummaryService;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -22,6 +26,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.SortHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -31,12 +36,14 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.Validator;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 
 
 import static com.braude.garage.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
@@ -73,6 +80,9 @@ public class ClientResourceIntTest {
     @Autowired
     private ClientService clientService;
 
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
     /**
      * This repository is mocked in the com.braude.garage.repository.search test package.
      *
@@ -84,12 +94,18 @@ public class ClientResourceIntTest {
     @Autowired
     private ClientQueryService clientQueryService;
 
+    @Autowired
+    private CarServiceSummaryService carServiceSummaryService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private SortHandlerMethodArgumentResolver sortArgumentResolver;
+
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
@@ -106,9 +122,10 @@ public class ClientResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final ClientResource clientResource = new ClientResource(clientService, clientQueryService);
+        final ClientResource clientResource = new ClientResource(clientService, clientQueryService, carServiceSummaryService,
+            jacksonMessageConverter.getObjectMapper());
         this.restClientMockMvc = MockMvcBuilders.standaloneSetup(clientResource)
-            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setCustomArgumentResolvers(pageableArgumentResolver, sortArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
             .setConversionService(createFormattingConversionService())
             .setMessageConverters(jacksonMessageConverter)
@@ -156,8 +173,10 @@ public class ClientResourceIntTest {
         assertThat(testClient.getMail()).isEqualTo(DEFAULT_MAIL);
         assertThat(testClient.getPhoneNum()).isEqualTo(DEFAULT_PHONE_NUM);
 
-        // Validate the Client in Elasticsearch
-        verify(mockClientSearchRepository, times(1)).save(testClient);
+        // Validate the Client is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("Client", testClient.getId()));
     }
 
     @Test
@@ -200,6 +219,24 @@ public class ClientResourceIntTest {
             .andExpect(jsonPath("$.[*].phoneNum").value(hasItem(DEFAULT_PHONE_NUM.toString())));
     }
     
+    @Test
+    @Transactional
+    public void getAllClientsWithinStatementBudget() throws Exception {
+        // Initialize the database with clients owning a car, the inverse side of their one-to-one association
+        for (int i = 0; i < 20; i++) {
+            Client owner = createEntity(em);
+            em.persist(owner);
+            em.persist(new Car().licensePlate("BUDGET-" + i).make("AAAAAAAAAA").model("AAAAAAAAAA").year(2000).client(owner));
+        }
+        em.flush();
+        em.clear();
+
+        // The page of clients with their cars, then its count
+        StatementBudget.assertStatementsAtMost(2, () -> restClientMockMvc.perform(get("/api/clients?page=0&size=20"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(20)));
+    }
+
     @Test
     @Transactional
     public void getClient() throws Exception {
@@ -430,6 +467,35 @@ public class ClientResourceIntTest {
     }
 
 
+    @Test
+    @Transactional
+    public void getClientServiceSummary() throws Exception {
+        // Initialize the database
+        clientRepository.saveAndFlush(client);
+        Client withoutCar = clientRepository.saveAndFlush(createEntity(em));
+        Car car = new Car().licensePlate("AAAAAAAAAA").client(client);
+        em.persist(car);
+        em.flush();
+        em.persist(CarResourceIntTest.createServiceSummary(car, 2, 80, LocalDate.of(2019, 2, 13)));
+        em.flush();
+        em.clear();
+
+        restClientMockMvc.perform(get("/api/clients/{id}/service-summary", client.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.carId").value(car.getId().intValue()))
+            .andExpect(jsonPath("$.serviceCount").value(2))
+            .andExpect(jsonPath("$.totalSpend").value(80d))
+            .andExpect(jsonPath("$.lastServiceDate").value("2019-02-13"));
+
+        restClientMockMvc.perform(get("/api/clients/{id}/service-summary", withoutCar.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.carId").doesNotExist())
+            .andExpect(jsonPath("$.serviceCount").value(0));
+
+        restClientMockMvc.perform(get("/api/clients/{id}/service-summary", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void getNonExistingClient() throws Exception {
@@ -471,8 +537,10 @@ public class ClientResourceIntTest {
         assertThat(testClient.getMail()).isEqualTo(UPDATED_MAIL);
         assertThat(testClient.getPhoneNum()).isEqualTo(UPDATED_PHONE_NUM);
 
-        // Validate the Client in Elasticsearch
-        verify(mockClientSearchRepository, times(1)).save(testClient);
+        // Validate the Client is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("Client", testClient.getId()));
     }
 
     @Test
@@ -514,8 +582,10 @@ public class ClientResourceIntTest {
         List<Client> clientList = clientRepository.findAll();
         assertThat(clientList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Client in Elasticsearch
-        verify(mockClientSearchRepository, times(1)).deleteById(client.getId());
+        // Validate the Client deletion is queued for Elasticsearch
+        assertThat(searchOutboxEventRepository.findAll())
+            .extracting(SearchOutboxEvent::getEntityType, SearchOutboxEvent::getEntityId)
+            .contains(tuple("Client", client.getId()));
     }
 
     @Test
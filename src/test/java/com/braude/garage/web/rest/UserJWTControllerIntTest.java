@@ -3,21 +3,32 @@ package com.braude.garage.web.rest;
 import com.braude.garage.GarageApp;
 import com.braude.garage.domain.User;
 import com.braude.garage.repository.UserRepository;
+import com.braude.garage.security.AuthoritiesConstants;
 import com.braude.garage.security.jwt.TokenProvider;
+import com.braude.garage.security.jwt.TokenRevocationService;
 import com.braude.garage.web.rest.errors.ExceptionTranslator;
 import com.braude.garage.web.rest.vm.LoginVM;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -38,6 +49,9 @@ public class UserJWTControllerIntTest {
     @Autowired
     private TokenProvider tokenProvider;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -109,6 +123,55 @@ public class UserJWTControllerIntTest {
             .andExpect(header().string("Authorization", not(isEmptyString())));
     }
 
+    @Test
+    @Transactional
+    public void testAuthorizeInTheSecondOfARevocation() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-revoked");
+        user.setEmail("user-jwt-controller-revoked@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+        userRepository.saveAndFlush(user);
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-revoked");
+        login.setPassword("test");
+
+        // Start at the beginning of a second, so that the login follows the revocation within the same second
+        long second = Instant.now().getEpochSecond();
+        while (Instant.now().getEpochSecond() == second) {
+            Thread.sleep(1);
+        }
+        tokenRevocationService.revokeTokens("user-jwt-controller-revoked");
+        tokenRevocationService.poll();
+        MvcResult result = mockMvc.perform(post("/api/authenticate")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isOk())
+            .andReturn();
+        String token = JsonPath.read(result.getResponse().getContentAsString(), "$.id_token");
+
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+    }
+
+    @Test
+    @Transactional
+    public void testLogout() throws Exception {
+        String token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("user-jwt-controller-logout",
+            "test", Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))), false);
+        SecurityContextHolder.getContext().setAuthentication(tokenProvider.getAuthentication(token));
+        try {
+            mockMvc.perform(post("/api/logout"))
+                .andExpect(status().isOk());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        // The revocation is registered once committed: here the poll reads it within the transaction of the test
+        tokenRevocationService.poll();
+
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+        assertThat(tokenProvider.resolveAuthentication(token)).isNull();
+    }
+
     @Test
     @Transactional
     public void testAuthorizeFails() throws Exception {
@@ -1,6 +1,7 @@
 package com.braude.garage.web.rest;
 
 import com.braude.garage.GarageApp;
+import com.braude.garage.config.metrics.StatementBudget;
 import com.braude.garage.domain.Authority;
 import com.braude.garage.domain.User;
 import com.braude.garage.repository.UserRepository;
@@ -289,6 +290,26 @@ public class UserResourceIntTest {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    public void getAllUsersWithinStatementBudget() throws Exception {
+        // Initialize the database with a page of users
+        Authority authority = em.find(Authority.class, AuthoritiesConstants.USER);
+        for (int i = 0; i < 20; i++) {
+            User other = createEntity(em);
+            other.setAuthorities(Collections.singleton(authority));
+            em.persist(other);
+        }
+        em.flush();
+        em.clear();
+
+        // The page, its count, and the authorities of its users in a batch
+        StatementBudget.assertStatementsAtMost(3, () -> restUserMockMvc.perform(get("/api/users?page=0&size=20")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(20)));
+    }
+
     @Test
     @Transactional
     public void getUser() throws Exception {
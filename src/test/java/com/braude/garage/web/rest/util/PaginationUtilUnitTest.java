@@ -2,16 +2,25 @@ package com.braude.garage.web.rest.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import com.braude.garage.repository.KeysetSlice;
+
 import org.junit.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
 
 /**
  * Tests based on parsing algorithm in app/components/util/pagination-util.service.js
@@ -155,4 +164,77 @@ public class PaginationUtilUnitTest {
         assertTrue(xTotalCountHeaders.size() == 1);
         assertTrue(Long.valueOf(xTotalCountHeaders.get(0)).equals(0L));
     }
+
+    @Test
+    public void generateKeysetPaginationHttpHeadersTest() {
+        String baseUrl = "/api/example";
+        Sort sort = Sort.by("name").and(Sort.by("id"));
+        KeysetSlice<String> slice = new KeysetSlice<>(new ArrayList<>(), sort, Arrays.asList("b", "2"));
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, 50, baseUrl);
+        List<String> strHeaders = headers.get(HttpHeaders.LINK);
+        assertNotNull(strHeaders);
+        assertTrue(strHeaders.size() == 1);
+        String expectedData = "</api/example?after=" + KeysetCursor.encode(sort, Arrays.asList("b", "2")) + "&size=50>; rel=\"next\","
+                + "</api/example?after=" + KeysetCursor.encode(sort, null) + "&size=50>; rel=\"first\"";
+        assertEquals(expectedData, strHeaders.get(0));
+        assertNull(headers.get("X-Total-Count"));
+
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode(sort, Arrays.asList("b", "2")), Sort.unsorted());
+        assertEquals(sort, cursor.getSort());
+        assertEquals(Arrays.asList("b", "2"), cursor.getKey());
+
+        // Last page
+        slice = new KeysetSlice<>(new ArrayList<>(), sort, null);
+        headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, 50, baseUrl);
+        assertEquals("</api/example?after=" + KeysetCursor.encode(sort, null) + "&size=50>; rel=\"first\"",
+            headers.getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void generateKeysetBaseUrlTest() {
+        MultiValueMap<String, String> parameters = new LinkedMultiValueMap<>();
+        parameters.add("after", "cursor");
+        parameters.add("make.equals", "Alfa Romeo");
+        parameters.add("sort", "make,asc");
+        parameters.add("id.in", "1");
+        parameters.add("id.in", "2");
+        parameters.add("size", "20");
+        assertEquals("/api/example?make.equals=Alfa%20Romeo&id.in=1&id.in=2",
+            PaginationUtil.generateKeysetBaseUrl("/api/example", parameters));
+
+        assertEquals("/api/example", PaginationUtil.generateKeysetBaseUrl("/api/example", new LinkedMultiValueMap<>()));
+    }
+
+    @Test
+    public void generateKeysetPaginationHttpHeadersEncodesFiltersOnceTest() {
+        MultiValueMap<String, String> parameters = new LinkedMultiValueMap<>();
+        parameters.add("make.equals", "Alfa Romeo");
+        parameters.add("model.contains", "50%");
+        parameters.add("plate.equals", "a+b&c=d");
+        String baseUrl = PaginationUtil.generateKeysetBaseUrl("/api/example", parameters);
+        assertEquals("/api/example?make.equals=Alfa%20Romeo&model.contains=50%25&plate.equals=a%2Bb%26c%3Dd", baseUrl);
+
+        Sort sort = Sort.by("id");
+        KeysetSlice<String> slice = new KeysetSlice<>(new ArrayList<>(), sort, null);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, 50, baseUrl);
+        assertEquals("<" + baseUrl + "&after=" + KeysetCursor.encode(sort, null) + "&size=50>; rel=\"first\"",
+            headers.getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void generateSliceHttpHeadersTest() {
+        String baseUrl = "/api/example";
+        Slice<String> slice = new SliceImpl<>(new ArrayList<>(), PageRequest.of(3, 50), true);
+        HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, baseUrl);
+        String expectedData = "</api/example?page=4&size=50&count=NONE>; rel=\"next\","
+                + "</api/example?page=2&size=50&count=NONE>; rel=\"prev\","
+                + "</api/example?page=0&size=50&count=NONE>; rel=\"first\"";
+        assertEquals(expectedData, headers.getFirst(HttpHeaders.LINK));
+        assertNull(headers.get("X-Total-Count"));
+
+        // A page keeps its total count
+        Page<String> page = new PageImpl<>(new ArrayList<>(), PageRequest.of(6, 50), 400L);
+        headers = PaginationUtil.generateSliceHttpHeaders(page, baseUrl);
+        assertEquals("400", headers.getFirst("X-Total-Count"));
+    }
 }